@@ -47,6 +47,18 @@ android {
         }
     }
 
+    // Chạy lại corpus WAV thật: -Dreplay.corpus=<thư mục> (SegmentationReplayTest)
+    // Buổi họp mô phỏng dài hơn: -Dsoak.hours=8 (SoakTest)
+    // Kiểm cả ngưỡng thời gian trong unit test: -Dperf.bounds=true (mặc định tắt, máy CI bận dễ chập chờn;
+    // số đo ổn định nằm ở :benchmarks)
+    testOptions {
+        unitTests.all {
+            it.systemProperty("replay.corpus", System.getProperty("replay.corpus") ?: "")
+            it.systemProperty("soak.hours", System.getProperty("soak.hours") ?: "")
+            it.systemProperty("perf.bounds", System.getProperty("perf.bounds") ?: "false")
+        }
+    }
+
     // Add lint options to handle warnings
     lint {
         abortOnError = false
@@ -61,6 +73,7 @@ dependencies {
     implementation("com.google.android.material:material:1.11.0")
     implementation("androidx.activity:activity:1.8.2")
     implementation("androidx.constraintlayout:constraintlayout:2.1.4")
+    implementation("androidx.recyclerview:recyclerview:1.3.2")
 
     // CameraX dependencies - Stable versions
     implementation("androidx.camera:camera-core:1.3.1")
@@ -0,0 +1,138 @@
+// Bật camera/micro trong trang meeting (meet.xbot.vn), do WebViewActivity cài lúc document start.
+// Không chờ cố định: MutationObserver bấm nút camera/micro ngay khi trang tạo ra chúng.
+// Tăng VERSION khi sửa file; bản cũ hơn đã cài trong trang sẽ được thay.
+(function () {
+    'use strict';
+    var VERSION = 2;
+    var installed = window.__bkMeetingMedia;
+    if (installed && installed.version >= VERSION) {
+        return;
+    }
+    if (installed && installed.stop) {
+        installed.stop();
+    }
+
+    // Dừng theo dõi nếu sau chừng này thời gian vẫn chưa thấy đủ nút (trang khác hoặc đã đổi giao diện)
+    var GIVE_UP_MS = 120000;
+    // Chỉ bấm nút thật; selector của từng control so trên chính nút đó, không trên thẻ bao ngoài
+    // (div class="camera-wrapper" xuất hiện trước khi nút được render)
+    var CANDIDATES = 'button, [role="button"]';
+    // Theo thứ tự ưu tiên
+    var CONTROLS = {
+        camera: [
+            '[data-testid="camera-button"]',
+            '[aria-label*="camera" i]',
+            '[title*="camera" i]',
+            '.camera-button',
+            '#camera-btn',
+            '[class*="camera"]'
+        ],
+        microphone: [
+            '[data-testid="microphone-button"]',
+            '[data-testid="mic-button"]',
+            '[aria-label*="microphone" i]',
+            '[title*="microphone" i]',
+            '.microphone-button',
+            '#microphone-btn',
+            '[class*="microphone"]'
+        ]
+    };
+    var clicked = {};
+    var observer = null;
+    var scheduled = false;
+    var giveUpTimer = 0;
+
+    function usable(element) {
+        return element.isConnected && !element.disabled
+            && element.getAttribute('aria-disabled') !== 'true';
+    }
+
+    function matches(element, selector) {
+        try {
+            return element.matches(selector);
+        } catch (e) {
+            // Trình duyệt cũ không hỗ trợ cờ "i" trong selector thuộc tính
+            return false;
+        }
+    }
+
+    function find(candidates, selectors) {
+        for (var i = 0; i < selectors.length; i++) {
+            for (var j = 0; j < candidates.length; j++) {
+                if (usable(candidates[j]) && matches(candidates[j], selectors[i])) {
+                    return candidates[j];
+                }
+            }
+        }
+        return null;
+    }
+
+    // Control chỉ xong khi đã bấm một nút dùng được; chưa có thì tiếp tục theo dõi
+    function scan() {
+        scheduled = false;
+        var pending = 0;
+        var candidates = document.querySelectorAll(CANDIDATES);
+        for (var name in CONTROLS) {
+            if (clicked[name]) {
+                continue;
+            }
+            var control = find(candidates, CONTROLS[name]);
+            if (control) {
+                clicked[name] = true;
+                console.log('[bk-meeting] enabling ' + name);
+                control.click();
+            } else {
+                pending++;
+            }
+        }
+        if (pending === 0) {
+            stop();
+        }
+    }
+
+    // Gom nhiều mutation trong cùng một lượt thành một lần quét
+    function schedule() {
+        if (!scheduled) {
+            scheduled = true;
+            Promise.resolve().then(scan);
+        }
+    }
+
+    function stop() {
+        if (observer) {
+            observer.disconnect();
+            observer = null;
+        }
+        if (giveUpTimer) {
+            clearTimeout(giveUpTimer);
+            giveUpTimer = 0;
+        }
+    }
+
+    // Xin quyền sớm (WebChromeClient tự cấp) rồi trả thiết bị ngay; trang mở lại luồng của nó
+    // mà không phải chờ hộp thoại quyền
+    function warmPermissions() {
+        if (!navigator.mediaDevices || !navigator.mediaDevices.getUserMedia) {
+            console.error('[bk-meeting] MediaDevices API not available');
+            return;
+        }
+        navigator.mediaDevices.getUserMedia({video: true, audio: true})
+            .then(function (stream) {
+                stream.getTracks().forEach(function (track) {
+                    track.stop();
+                });
+            })
+            .catch(function (err) {
+                console.log('[bk-meeting] media permission error: ' + err);
+            });
+    }
+
+    window.__bkMeetingMedia = {version: VERSION, stop: stop};
+    observer = new MutationObserver(schedule);
+    // Lúc document start có thể chưa có <html>: theo dõi chính document
+    observer.observe(document, {childList: true, subtree: true});
+    giveUpTimer = setTimeout(stop, GIVE_UP_MS);
+    warmPermissions();
+    schedule();
+    console.log('[bk-meeting] media script v' + VERSION + ' installed');
+})();
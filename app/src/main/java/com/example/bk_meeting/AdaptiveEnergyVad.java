@@ -0,0 +1,195 @@
+package com.example.bk_meeting;
+
+import java.nio.ShortBuffer;
+
+// VAD theo năng lượng RMS và tỉ lệ qua điểm 0 (ZCR) trên từng frame ngắn, với:
+// - noise floor thích nghi: giảm nhanh khi môi trường yên tĩnh hơn, tăng chậm khi ồn hơn
+// - hysteresis: ngưỡng bắt đầu nói cao hơn ngưỡng giữ trạng thái nói
+// - attack/release: cần attackMs frame giọng nói liên tiếp để bắt đầu, releaseMs frame
+//   im lặng liên tiếp để kết thúc, nên tiếng đóng cửa ngắn không tạo ra câu mới
+// Frame được ghép qua nhiều lần gọi process(), không cấp phát bộ nhớ.
+public class AdaptiveEnergyVad implements VoiceActivityDetector {
+
+    private static final double FULL_SCALE_SQ = 32768.0 * 32768.0;
+    private static final double MIN_DB = -100.0;
+
+    private final int frameSamples;
+    private final int attackFrames;
+    private final int releaseFrames;
+
+    // Tham số có thể tinh chỉnh (dB so với noise floor)
+    private double onsetMarginDb = 12.0;
+    private double releaseMarginDb = 6.0;
+    private double loudMarginDb = 25.0;
+    private double minSpeechDb = -55.0;
+    private double maxSpeechZcr = 0.35;
+    private double floorFallRate = 0.2;
+    private double floorRiseRate = 0.01;
+    private double floorRiseRateInSpeech = 0.002;
+    private double initialFloorDb = -60.0;
+
+    // Trạng thái
+    private double noiseFloorDb;
+    private boolean speech;
+    private int attackCount;
+    private int releaseCount;
+
+    // Bộ tích luỹ frame hiện tại
+    private long sumSquares;
+    private int zeroCrossings;
+    private int frameFill;
+    private short previousSample;
+
+    private double lastEnergyDb = MIN_DB;
+    private double lastZcr;
+
+    public AdaptiveEnergyVad(int sampleRate) {
+        this(sampleRate, 20, 100, 300);
+    }
+
+    public AdaptiveEnergyVad(int sampleRate, int frameMs, int attackMs, int releaseMs) {
+        if (sampleRate <= 0 || frameMs <= 0) {
+            throw new IllegalArgumentException("sampleRate and frameMs must be > 0");
+        }
+        this.frameSamples = Math.max(1, sampleRate * frameMs / 1000);
+        this.attackFrames = Math.max(1, (attackMs + frameMs - 1) / frameMs);
+        this.releaseFrames = Math.max(1, (releaseMs + frameMs - 1) / frameMs);
+        reset();
+    }
+
+    @Override
+    public boolean process(short[] samples, int offset, int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            accumulate(samples[i]);
+        }
+        return speech;
+    }
+
+    @Override
+    public boolean process(ShortBuffer samples) {
+        for (int i = samples.position(); i < samples.limit(); i++) {
+            accumulate(samples.get(i));
+        }
+        return speech;
+    }
+
+    @Override
+    public void reset() {
+        noiseFloorDb = initialFloorDb;
+        speech = false;
+        attackCount = 0;
+        releaseCount = 0;
+        sumSquares = 0;
+        zeroCrossings = 0;
+        frameFill = 0;
+        previousSample = 0;
+        lastEnergyDb = MIN_DB;
+        lastZcr = 0;
+    }
+
+    private void accumulate(short sample) {
+        sumSquares += (long) sample * sample;
+        if ((sample >= 0) != (previousSample >= 0)) {
+            zeroCrossings++;
+        }
+        previousSample = sample;
+
+        if (++frameFill == frameSamples) {
+            onFrame();
+        }
+    }
+
+    private void onFrame() {
+        double meanSquare = (double) sumSquares / frameFill;
+        double energyDb = meanSquare > 0 ? 10.0 * Math.log10(meanSquare / FULL_SCALE_SQ) : MIN_DB;
+        double zcr = (double) zeroCrossings / frameFill;
+
+        sumSquares = 0;
+        zeroCrossings = 0;
+        frameFill = 0;
+        lastEnergyDb = energyDb;
+        lastZcr = zcr;
+
+        if (speech) {
+            // Hysteresis: chỉ cần vượt ngưỡng release để giữ trạng thái nói
+            boolean active = energyDb > noiseFloorDb + releaseMarginDb && energyDb > minSpeechDb;
+            releaseCount = active ? 0 : releaseCount + 1;
+            if (releaseCount >= releaseFrames) {
+                speech = false;
+                releaseCount = 0;
+            }
+        } else {
+            attackCount = isOnsetFrame(energyDb, zcr) ? attackCount + 1 : 0;
+            if (attackCount >= attackFrames) {
+                speech = true;
+                attackCount = 0;
+            }
+        }
+
+        updateNoiseFloor(energyDb);
+    }
+
+    private boolean isOnsetFrame(double energyDb, double zcr) {
+        if (energyDb <= minSpeechDb) {
+            return false;
+        }
+        if (energyDb > noiseFloorDb + loudMarginDb) {
+            return true;
+        }
+        // ZCR cao ở mức năng lượng vừa phải thường là tiếng rít/quạt, không phải giọng nói
+        return energyDb > noiseFloorDb + onsetMarginDb && zcr <= maxSpeechZcr;
+    }
+
+    private void updateNoiseFloor(double energyDb) {
+        double rate;
+        if (energyDb < noiseFloorDb) {
+            rate = floorFallRate;
+        } else if (speech || attackCount > 0) {
+            rate = floorRiseRateInSpeech;
+        } else {
+            rate = floorRiseRate;
+        }
+        noiseFloorDb = Math.max(MIN_DB, noiseFloorDb + (energyDb - noiseFloorDb) * rate);
+    }
+
+    public boolean isSpeech() {
+        return speech;
+    }
+
+    public double getNoiseFloorDb() {
+        return noiseFloorDb;
+    }
+
+    public double getLastEnergyDb() {
+        return lastEnergyDb;
+    }
+
+    public double getLastZcr() {
+        return lastZcr;
+    }
+
+    public void setOnsetMarginDb(double onsetMarginDb) {
+        this.onsetMarginDb = onsetMarginDb;
+    }
+
+    public void setReleaseMarginDb(double releaseMarginDb) {
+        this.releaseMarginDb = releaseMarginDb;
+    }
+
+    public void setLoudMarginDb(double loudMarginDb) {
+        this.loudMarginDb = loudMarginDb;
+    }
+
+    public void setMinSpeechDb(double minSpeechDb) {
+        this.minSpeechDb = minSpeechDb;
+    }
+
+    public void setMaxSpeechZcr(double maxSpeechZcr) {
+        this.maxSpeechZcr = maxSpeechZcr;
+    }
+
+    public void setInitialFloorDb(double initialFloorDb) {
+        this.initialFloorDb = initialFloorDb;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.bk_meeting;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Engine âm thanh dùng chung cho cả ứng dụng, sống ngoài vòng đời Activity.
+// Chỉ có một VoiceDetectionManager (một AudioRecord, một luồng thu URGENT_AUDIO);
+// Activity chỉ đăng ký nhận sự kiện qua subscribe()/unsubscribe().
+// Sự kiện được phát trên main thread; subscribe() phát lại trạng thái gần nhất.
+// Nếu cấu hình upload_endpoint, mọi segment đã lưu được đưa vào UploadQueue để tải lên server.
+public final class AudioEngine {
+
+    private static final String TAG = "AudioEngine";
+    private static final String UPLOAD_STATE_FILE = "upload_queue.bin";
+    private static final int MAX_CONCURRENT_UPLOADS = 2;
+
+    private static AudioEngine instance;
+
+    private final VoiceDetectionManager voiceDetectionManager;
+    private final CopyOnWriteArrayList<VoiceDetectionManager.VoiceDetectionCallback> subscribers =
+            new CopyOnWriteArrayList<>();
+
+    // Trạng thái gần nhất, chỉ truy cập trên main thread
+    private VoiceState lastState = VoiceState.IDLE;
+    private String lastMessage = "Đã dừng";
+
+    // null khi không cấu hình upload_endpoint
+    private UploadQueue uploadQueue;
+
+    public static synchronized AudioEngine getInstance(Context context) {
+        if (instance == null) {
+            instance = new AudioEngine(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private AudioEngine(Context appContext) {
+        voiceDetectionManager = new VoiceDetectionManager(appContext, new Dispatcher());
+        String endpoint = appContext.getString(R.string.upload_endpoint);
+        if (!endpoint.isEmpty()) {
+            try {
+                enableUploads(appContext, new URL(endpoint));
+            } catch (MalformedURLException e) {
+                Log.w(TAG, "Invalid upload_endpoint: " + endpoint, e);
+            }
+        }
+    }
+
+    // Hàng đợi bền trong filesDir: các segment chưa tải xong được tiếp tục ở lần mở app sau
+    private void enableUploads(Context appContext, URL endpoint) {
+        uploadQueue = new UploadQueue(new File(appContext.getFilesDir(), UPLOAD_STATE_FILE),
+                new HttpUploadTransport(endpoint), MAX_CONCURRENT_UPLOADS, new UploadQueue.Listener() {
+            @Override
+            public void onUploaded(UploadQueue.Item item, long latencyMillis) {
+                Log.d(TAG, "Uploaded " + item.name + " in " + latencyMillis + " ms: " + uploadQueue.getStats());
+            }
+
+            @Override
+            public void onGaveUp(UploadQueue.Item item, IOException error) {
+                Log.w(TAG, "Upload dropped: " + item.name, error);
+            }
+        });
+        new UploadNetworkMonitor(appContext, uploadQueue).start();
+        uploadQueue.start();
+    }
+
+    // Số liệu tải lên (độ sâu hàng đợi, thông lượng); null nếu không bật tải lên
+    public UploadQueue.Stats getUploadStats() {
+        return uploadQueue != null ? uploadQueue.getStats() : null;
+    }
+
+    // Trên main thread: chỉ thêm vào hàng đợi, đọc file và mạng chạy trên luồng của UploadQueue
+    private void enqueueUpload(SavedSegment segment) {
+        if (uploadQueue == null) {
+            return;
+        }
+        if (segment.file.getName().endsWith(SessionContainer.EXTENSION) && segment.isPlayable()) {
+            // Segment trong container: chỉ đoạn PCM của nó
+            uploadQueue.enqueue(segment.file, segment.name,
+                    "audio/L16;rate=" + segment.sampleRate + ";channels=1",
+                    segment.pcmOffset, segment.sampleCount * 2);
+        } else {
+            enqueueUpload(segment.name, segment.file);
+        }
+    }
+
+    private void enqueueUpload(String fileName, File file) {
+        if (uploadQueue == null) {
+            return;
+        }
+        String contentType = fileName.endsWith(".wav") ? "audio/wav"
+                : fileName.endsWith(".flac") ? "audio/flac" : "application/octet-stream";
+        uploadQueue.enqueue(file, fileName, contentType);
+    }
+
+    // Gọi trên main thread
+    public void subscribe(VoiceDetectionManager.VoiceDetectionCallback subscriber) {
+        if (subscriber == null) {
+            throw new IllegalArgumentException("subscriber must not be null");
+        }
+        if (subscribers.addIfAbsent(subscriber)) {
+            subscriber.onStateChanged(lastState, lastMessage);
+        }
+    }
+
+    public void unsubscribe(VoiceDetectionManager.VoiceDetectionCallback subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    public boolean start() {
+        return voiceDetectionManager.startVoiceDetection();
+    }
+
+    public void stop() {
+        if (voiceDetectionManager.isRecording()) {
+            voiceDetectionManager.stopVoiceDetection();
+        }
+    }
+
+    public boolean isRunning() {
+        return voiceDetectionManager.isRecording();
+    }
+
+    // Thêm stage xử lý frame, áp dụng cho lần start() tiếp theo
+    public void addStage(AudioStage stage) {
+        voiceDetectionManager.addStage(stage);
+    }
+
+    public void removeStage(AudioStage stage) {
+        voiceDetectionManager.removeStage(stage);
+    }
+
+    // Consumer trên luồng riêng (level meter, encoder...), áp dụng cho lần start() tiếp theo
+    public AudioFanoutBus.Subscriber addConsumer(String name, AudioStage stage,
+                                                 AudioFanoutBus.OverflowPolicy policy) {
+        return voiceDetectionManager.addConsumer(name, stage, policy);
+    }
+
+    public void removeConsumer(AudioFanoutBus.Subscriber subscriber) {
+        voiceDetectionManager.removeConsumer(subscriber);
+    }
+
+    // Cấu hình VAD, định dạng segment, tần số ra...
+    public VoiceDetectionManager getVoiceDetectionManager() {
+        return voiceDetectionManager;
+    }
+
+    // Sink duy nhất của VoiceDetectionManager, phát lại cho mọi subscriber (đã ở main thread)
+    private final class Dispatcher implements VoiceDetectionManager.VoiceDetectionCallback {
+
+        @Override
+        public void onStateChanged(VoiceState state, String message) {
+            lastState = state;
+            lastMessage = message;
+            for (VoiceDetectionManager.VoiceDetectionCallback subscriber : subscribers) {
+                subscriber.onStateChanged(state, message);
+            }
+        }
+
+        @Override
+        public void onAudioFileSaved(String fileName, File audioFile) {
+            enqueueUpload(fileName, audioFile);
+            for (VoiceDetectionManager.VoiceDetectionCallback subscriber : subscribers) {
+                subscriber.onAudioFileSaved(fileName, audioFile);
+            }
+        }
+
+        @Override
+        public void onSegmentSaved(SavedSegment segment) {
+            enqueueUpload(segment);
+            for (VoiceDetectionManager.VoiceDetectionCallback subscriber : subscribers) {
+                subscriber.onSegmentSaved(segment);
+            }
+        }
+
+        @Override
+        public void onError(String error) {
+            for (VoiceDetectionManager.VoiceDetectionCallback subscriber : subscribers) {
+                subscriber.onError(error);
+            }
+        }
+    }
+}
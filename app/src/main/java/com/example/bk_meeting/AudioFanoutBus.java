@@ -0,0 +1,347 @@
+package com.example.bk_meeting;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Bus phát frame một producer - nhiều consumer kiểu disruptor: một vòng slot cấp phát sẵn
+// giữ tham chiếu AudioFrame, mỗi consumer có cursor (sequence) riêng và chạy trên luồng riêng.
+// Luồng thu (producer) không bao giờ chờ consumer; khi vòng đầy, consumer chậm xử lý theo
+// OverflowPolicy của nó. publish() không cấp phát bộ nhớ.
+public class AudioFanoutBus {
+
+    // Bit đánh dấu consumer đang lấy (retain) frame ở cursor. Nếu producer cần đúng slot đó,
+    // nó hoàn tất thay consumer: giữ hộ một tham chiếu (handoff) rồi đẩy cursor, không chờ
+    private static final long BUSY = 1L << 62;
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long JOIN_TIMEOUT_MS = 2000;
+
+    public enum OverflowPolicy {
+        BLOCK,    // Không mất frame: consumer giữ vòng, frame mới bị từ chối ở đầu vào (không chặn luồng thu)
+        DROP,     // Bỏ các frame cũ nhất mà consumer chưa kịp đọc
+        COALESCE  // Chỉ nhận frame mới nhất, bỏ qua các frame ở giữa (ví dụ level meter)
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<AudioFrame> frames;
+    private final boolean[] voiced;
+    private final Subscriber[] subscribers;
+    private final Thread[] threads;
+    private final int sampleRate;
+
+    // Sequence lớn nhất đã phát; slot được ghi trước khi tăng giá trị này
+    private volatile long publishedSequence = -1;
+    private volatile boolean running = false;
+    private final AtomicLong rejected = new AtomicLong();
+
+    public AudioFanoutBus(int capacity, Subscriber[] subscribers, int sampleRate) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two >= 2");
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.frames = new AtomicReferenceArray<>(capacity);
+        this.voiced = new boolean[capacity];
+        this.subscribers = subscribers.clone();
+        this.threads = new Thread[subscribers.length];
+        this.sampleRate = sampleRate;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public void start() {
+        if (running) {
+            throw new IllegalStateException("Bus already started");
+        }
+        running = true;
+        for (int i = 0; i < subscribers.length; i++) {
+            Subscriber subscriber = subscribers[i];
+            subscriber.attach();
+            Thread thread = new Thread(() -> consume(subscriber), "AudioFanout-" + subscriber.name);
+            subscriber.thread = thread;
+            threads[i] = thread;
+            thread.start();
+        }
+    }
+
+    // Gọi từ luồng thu. Bus giữ một tham chiếu tới frame cho tới khi slot bị ghi đè;
+    // trả về false nếu frame bị từ chối do một consumer BLOCK (hoặc đang bận) giữ slot cũ nhất
+    public boolean publish(AudioFrame frame, boolean voiceDetected) {
+        long next = publishedSequence + 1;
+        long wrap = next - capacity;
+        if (wrap >= 0 && !reclaim(wrap)) {
+            rejected.incrementAndGet();
+            return false;
+        }
+
+        int index = (int) (next & mask);
+        AudioFrame previous = frames.get(index);
+        if (previous != null) {
+            previous.release();
+        }
+        voiced[index] = voiceDetected;
+        frames.set(index, frame.retain());
+        publishedSequence = next;
+
+        for (Subscriber subscriber : subscribers) {
+            subscriber.onPublished(next);
+        }
+        return true;
+    }
+
+    // Dừng bus: consumer xử lý nốt frame đã phát rồi thoát, sau đó trả mọi frame về pool
+    public void close() {
+        running = false;
+        for (Subscriber subscriber : subscribers) {
+            LockSupport.unpark(subscriber.thread);
+        }
+        boolean interrupted = false;
+        boolean stuck = false;
+        for (Thread thread : threads) {
+            if (thread == null) {
+                continue;
+            }
+            try {
+                thread.join(JOIN_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+            stuck |= thread.isAlive();
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.thread = null;
+        }
+        // Consumer treo vẫn có thể đang đọc slot: để frame cho GC thay vì trả về pool
+        for (int i = 0; i < capacity && !stuck; i++) {
+            AudioFrame frame = frames.getAndSet(i, null);
+            if (frame != null) {
+                frame.release();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getPublished() {
+        return publishedSequence + 1;
+    }
+
+    // Số frame lớn nhất mà một consumer còn chưa xử lý, đo ở lần phát gần nhất
+    public long getDepth() {
+        long depth = 0;
+        for (Subscriber subscriber : subscribers) {
+            depth = Math.max(depth, subscriber.getLag());
+        }
+        return depth;
+    }
+
+    // Số frame bị từ chối ở đầu vào (mọi consumer đều không nhận)
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    // Đảm bảo không consumer nào còn cần slot của sequence wrap
+    private boolean reclaim(long wrap) {
+        for (Subscriber subscriber : subscribers) {
+            while (true) {
+                long cursor = subscriber.cursor.get();
+                long position = cursor & ~BUSY;
+                if (position > wrap) {
+                    break;
+                }
+                if ((cursor & BUSY) != 0) {
+                    // Consumer đang lấy đúng slot wrap: giữ hộ frame rồi hoàn tất thay nó
+                    AudioFrame frame = frames.get((int) (wrap & mask)).retain();
+                    subscriber.handoff.set(frame);
+                    if (subscriber.cursor.compareAndSet(cursor, wrap + 1)) {
+                        break;
+                    }
+                    // Consumer đã tự hoàn tất, lấy lại tham chiếu giữ hộ
+                    subscriber.handoff.getAndSet(null).release();
+                    continue;
+                }
+                if (subscriber.policy == OverflowPolicy.BLOCK) {
+                    subscriber.blocked.incrementAndGet();
+                    return false;
+                }
+                // Consumer DROP/COALESCE tụt quá một vòng: đẩy cursor lên slot cũ nhất còn giữ
+                if (subscriber.cursor.compareAndSet(cursor, wrap + 1)) {
+                    subscriber.dropped.addAndGet(wrap + 1 - position);
+                    break;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void consume(Subscriber subscriber) {
+        AudioStage stage = subscriber.stage;
+        stage.onStart(sampleRate);
+        try {
+            while (true) {
+                long cursor = subscriber.cursor.get();
+                long available = publishedSequence;
+                if (cursor > available) {
+                    if (!running) {
+                        break;
+                    }
+                    subscriber.waiting = true;
+                    if (subscriber.cursor.get() > publishedSequence && running) {
+                        LockSupport.parkNanos(this, PARK_NANOS);
+                    }
+                    subscriber.waiting = false;
+                    continue;
+                }
+
+                // Đọc slot trước khi đánh dấu BUSY: nếu producer đã ghi đè slot thì nó đã đẩy
+                // cursor trước đó, và compareAndSet bên dưới thất bại
+                long sequence = subscriber.policy == OverflowPolicy.COALESCE ? available : cursor;
+                int index = (int) (sequence & mask);
+                AudioFrame frame = frames.get(index);
+                boolean voiceDetected = voiced[index];
+                if (!subscriber.cursor.compareAndSet(cursor, sequence | BUSY)) {
+                    // Producer vừa đẩy cursor (frame bị bỏ), đọc lại
+                    continue;
+                }
+                // Giữ frame bằng tham chiếu riêng rồi nhả slot ngay, để producer có thể ghi đè
+                // slot trong lúc consumer chậm còn đang xử lý
+                frame.retain();
+                if (!subscriber.cursor.compareAndSet(sequence | BUSY, sequence + 1)) {
+                    // Producer đã hoàn tất thay và giữ hộ một tham chiếu
+                    subscriber.handoff.getAndSet(null).release();
+                }
+                subscriber.coalesced.addAndGet(sequence - cursor);
+
+                try {
+                    stage.onFrame(frame, voiceDetected);
+                } finally {
+                    frame.release();
+                }
+                subscriber.delivered.incrementAndGet();
+            }
+        } catch (RuntimeException e) {
+            // Consumer lỗi không được làm dừng luồng thu; cursor để lại ở cuối để không giữ vòng
+            subscriber.failure = e;
+            subscriber.cursor.set(Long.MAX_VALUE & ~BUSY);
+        } finally {
+            stage.onStop();
+        }
+    }
+
+    // Đăng ký một consumer: stage chạy trên luồng riêng "AudioFanout-<name>".
+    // Bộ đếm được giữ qua các phiên thu; cursor được đặt lại mỗi lần bus start.
+    public static final class Subscriber {
+        private final String name;
+        private final AudioStage stage;
+        private final OverflowPolicy policy;
+
+        private final AtomicLong cursor = new AtomicLong();
+        private final AtomicReference<AudioFrame> handoff = new AtomicReference<>();
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong coalesced = new AtomicLong();
+        private final AtomicLong blocked = new AtomicLong();
+        private volatile long lag;
+        private volatile long maxLag;
+        private volatile boolean waiting;
+        private volatile RuntimeException failure;
+        private volatile Thread thread;
+
+        public Subscriber(String name, AudioStage stage, OverflowPolicy policy) {
+            if (name == null || stage == null || policy == null) {
+                throw new IllegalArgumentException("name, stage and policy must not be null");
+            }
+            this.name = name;
+            this.stage = stage;
+            this.policy = policy;
+        }
+
+        private void attach() {
+            if (thread != null) {
+                throw new IllegalStateException("Subscriber " + name + " is attached to another bus");
+            }
+            cursor.set(0);
+            lag = 0;
+            failure = null;
+        }
+
+        // Gọi trên luồng thu sau mỗi frame được phát
+        private void onPublished(long sequence) {
+            long current = (sequence + 1) - (cursor.get() & ~BUSY);
+            if (current < 0) {
+                current = 0;
+            }
+            lag = current;
+            if (current > maxLag) {
+                maxLag = current;
+            }
+            if (waiting) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public OverflowPolicy getPolicy() {
+            return policy;
+        }
+
+        // Số frame đã phát mà consumer chưa xử lý, đo ở lần phát gần nhất
+        public long getLag() {
+            return lag;
+        }
+
+        public long getMaxLag() {
+            return maxLag;
+        }
+
+        public long getDelivered() {
+            return delivered.get();
+        }
+
+        // Frame bị bỏ vì consumer DROP tụt quá dung lượng vòng
+        public long getDropped() {
+            return dropped.get();
+        }
+
+        // Frame bị bỏ qua vì consumer COALESCE chỉ đọc frame mới nhất
+        public long getCoalesced() {
+            return coalesced.get();
+        }
+
+        // Số lần consumer này giữ slot cũ nhất khiến frame mới bị từ chối
+        public long getBlocked() {
+            return blocked.get();
+        }
+
+        // Lỗi làm consumer dừng trong phiên thu gần nhất, null nếu không có
+        public RuntimeException getFailure() {
+            return failure;
+        }
+
+        public void resetMetrics() {
+            delivered.set(0);
+            dropped.set(0);
+            coalesced.set(0);
+            blocked.set(0);
+            maxLag = 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%s(%s): lag=%d, maxLag=%d, delivered=%d, dropped=%d, coalesced=%d, blocked=%d%s",
+                    name, policy, lag, maxLag, getDelivered(), getDropped(), getCoalesced(),
+                    getBlocked(), failure != null ? ", failed: " + failure : "");
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.bk_meeting;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Một frame PCM 16-bit mono, little-endian, lấy từ AudioFramePool.
+// Frame được đếm tham chiếu: mỗi consumer giữ frame thì retain(), xong thì release();
+// khi consumer cuối cùng release, frame quay về pool để tái sử dụng.
+// Sau khi setByteLength(), position/limit của data() không đổi nữa: consumer trên luồng khác
+// (AudioFanoutBus) chỉ đọc tuyệt đối qua getSample()/copySamples(); luồng thu dùng captureView().
+public final class AudioFrame {
+
+    private final AudioFramePool pool;
+    private final ByteBuffer data;
+    private final ShortBuffer samples;
+    private final ByteBuffer captureView;
+    private final AtomicInteger refCount = new AtomicInteger();
+
+    private int byteLength;
+
+    AudioFrame(AudioFramePool pool, ByteBuffer data) {
+        this.pool = pool;
+        this.data = data;
+        this.samples = data.asShortBuffer();
+        this.captureView = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // Buffer gốc, limit = số byte hợp lệ; không đổi position/limit sau khi frame được phát đi
+    public ByteBuffer data() {
+        return data;
+    }
+
+    // View riêng của luồng thu (ghi segment, drain bộ đệm vòng), position 0, limit = số byte hợp lệ.
+    // Chỉnh position/limit của view này không ảnh hưởng consumer khác
+    ByteBuffer captureView() {
+        captureView.limit(byteLength).position(0);
+        return captureView;
+    }
+
+    // Đọc tuyệt đối, an toàn khi nhiều luồng cùng đọc
+    public short getSample(int index) {
+        return data.getShort(index * 2);
+    }
+
+    // Chép toàn bộ mẫu vào dst từ offset, trả về số mẫu; an toàn khi nhiều luồng cùng đọc
+    public int copySamples(short[] dst, int offset) {
+        int count = getSampleCount();
+        for (int i = 0; i < count; i++) {
+            dst[offset + i] = data.getShort(i * 2);
+        }
+        return count;
+    }
+
+    // View mẫu 16-bit, position 0, limit = số mẫu hợp lệ. Chỉ dùng trên luồng thu
+    public ShortBuffer samples() {
+        samples.limit(getSampleCount()).position(0);
+        return samples;
+    }
+
+    // View ghi được trên toàn bộ dung lượng, dùng bởi stage tạo ra frame (ví dụ resampler);
+    // gọi setByteLength() sau khi ghi xong
+    ShortBuffer writableSamples() {
+        samples.clear();
+        return samples;
+    }
+
+    public int getByteLength() {
+        return byteLength;
+    }
+
+    public int getSampleCount() {
+        return byteLength / 2;
+    }
+
+    public int getCapacity() {
+        return data.capacity();
+    }
+
+    public boolean isDirect() {
+        return data.isDirect();
+    }
+
+    void setByteLength(int byteLength) {
+        this.byteLength = byteLength;
+        data.limit(byteLength).position(0);
+    }
+
+    public AudioFrame retain() {
+        refCount.incrementAndGet();
+        return this;
+    }
+
+    public void release() {
+        int remaining = refCount.decrementAndGet();
+        if (remaining == 0) {
+            pool.recycle(this);
+        } else if (remaining < 0) {
+            throw new IllegalStateException("AudioFrame released too many times");
+        }
+    }
+
+    void onAcquire() {
+        refCount.set(1);
+        data.clear();
+        byteLength = 0;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.bk_meeting;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ArrayBlockingQueue;
+
+// Pool frame PCM cấp phát sẵn. Ở chế độ direct, AudioRecord.read(ByteBuffer, int) ghi
+// thẳng vào frame và chính buffer đó được đưa qua VAD và FileChannel.write,
+// không có bản sao trung gian trên heap.
+// Khi pool cạn, frame mới được cấp phát (và được đếm trong CapturePathCounters)
+// thay vì chặn luồng thu âm.
+public class AudioFramePool {
+
+    private final int frameBytes;
+    private final boolean direct;
+    private final ArrayBlockingQueue<AudioFrame> free;
+    private final CapturePathCounters counters;
+
+    public AudioFramePool(int frameBytes, int frameCount, boolean direct, CapturePathCounters counters) {
+        if (frameBytes <= 0 || (frameBytes & 1) != 0 || frameCount <= 0) {
+            throw new IllegalArgumentException("frameBytes must be even and > 0, frameCount > 0");
+        }
+        this.frameBytes = frameBytes;
+        this.direct = direct;
+        this.counters = counters;
+        // Chừa chỗ cho frame cấp phát thêm khi pool cạn
+        this.free = new ArrayBlockingQueue<>(frameCount * 2);
+
+        for (int i = 0; i < frameCount; i++) {
+            free.offer(newFrame());
+        }
+    }
+
+    public AudioFrame acquire() {
+        AudioFrame frame = free.poll();
+        if (frame == null) {
+            frame = newFrame();
+        }
+        frame.onAcquire();
+        return frame;
+    }
+
+    public int getFrameBytes() {
+        return frameBytes;
+    }
+
+    public boolean isDirect() {
+        return direct;
+    }
+
+    public int available() {
+        return free.size();
+    }
+
+    void recycle(AudioFrame frame) {
+        // Nếu pool đã đầy (frame cấp phát thêm), bỏ frame cho GC
+        free.offer(frame);
+    }
+
+    private AudioFrame newFrame() {
+        ByteBuffer data = direct
+                ? ByteBuffer.allocateDirect(frameBytes)
+                : ByteBuffer.allocate(frameBytes);
+        data.order(ByteOrder.LITTLE_ENDIAN);
+        counters.onAllocation(frameBytes);
+        return new AudioFrame(this, data);
+    }
+}
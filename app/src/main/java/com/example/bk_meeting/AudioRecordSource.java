@@ -0,0 +1,88 @@
+package com.example.bk_meeting;
+
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.MediaRecorder;
+import android.util.Log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// Micro qua AudioRecord: đọc thẳng vào frame, AudioRecord.read(ByteBuffer) cho frame direct,
+// byte[] cho frame heap. Mỗi lần đọc đúng getMinBufferSize() byte như vòng thu cũ
+public class AudioRecordSource implements AudioSource {
+
+    private static final String TAG = "AudioRecordSource";
+
+    private final int sampleRate;
+    private final int bufferSize;
+    private final AudioRecord recorder;
+
+    public AudioRecordSource(int sampleRate) throws SecurityException {
+        int channelConfig = AudioFormat.CHANNEL_IN_MONO;
+        int audioFormat = AudioFormat.ENCODING_PCM_16BIT;
+        this.sampleRate = sampleRate;
+        this.bufferSize = AudioRecord.getMinBufferSize(sampleRate, channelConfig, audioFormat);
+
+        recorder = new AudioRecord(
+                MediaRecorder.AudioSource.MIC,
+                sampleRate,
+                channelConfig,
+                audioFormat,
+                bufferSize
+        );
+
+        if (recorder.getState() != AudioRecord.STATE_INITIALIZED) {
+            recorder.release();
+            throw new RuntimeException("Failed to initialize AudioRecord");
+        }
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public int getFrameBytes() {
+        return bufferSize;
+    }
+
+    @Override
+    public int getBufferBytes() {
+        return bufferSize;
+    }
+
+    @Override
+    public void start() throws IOException {
+        recorder.startRecording();
+        if (recorder.getRecordingState() != AudioRecord.RECORDSTATE_RECORDING) {
+            throw new IOException("AudioRecord did not start recording");
+        }
+    }
+
+    @Override
+    public int read(AudioFrame frame) {
+        ByteBuffer data = frame.data();
+        return frame.isDirect()
+                ? recorder.read(data, frame.getCapacity())
+                : recorder.read(data.array(), data.arrayOffset(), frame.getCapacity());
+    }
+
+    @Override
+    public void stop() {
+        try {
+            if (recorder.getRecordingState() == AudioRecord.RECORDSTATE_RECORDING) {
+                recorder.stop();
+            }
+        } catch (IllegalStateException e) {
+            Log.e(TAG, "Error stopping AudioRecord", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+        recorder.release();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.bk_meeting;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// Đích ghi một segment PCM 16-bit mono (WAV, FLAC...). Được ghi từ luồng thu âm;
+// close()/discard() có thể gọi từ luồng khác sau khi luồng thu đã ngừng ghi.
+public interface AudioSegmentWriter extends Closeable {
+
+    // Ghi phần còn lại của src (PCM little-endian), position của src được tiến tới limit
+    void write(ByteBuffer src) throws IOException;
+
+    void write(short[] samples, int offset, int length) throws IOException;
+
+    // Số byte PCM đã nhận (trước khi nén)
+    long getDataLength();
+
+    long getDurationMs();
+
+    File getFile();
+
+    // Tên hiển thị/log của segment; writer ghi nhiều segment vào chung một file ghi đè
+    default String getName() {
+        return getFile().getName();
+    }
+
+    // Vị trí byte của PCM thô (16-bit mono little-endian) trong getFile() để phát lại/memory-map
+    // trực tiếp, -1 nếu dữ liệu đã nén
+    default long getPcmOffset() {
+        return -1;
+    }
+
+    // Đóng và xoá file, dùng khi segment bị huỷ hoặc ghi lỗi
+    void discard();
+}
@@ -0,0 +1,34 @@
+package com.example.bk_meeting;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// Nguồn PCM 16-bit mono little-endian cho VoiceSegmenter: micro (AudioRecordSource)
+// hoặc file/stream WAV (WavAudioSource) để chạy lại dữ liệu ghi sẵn nhanh hơn thời gian thực.
+// read() được gọi từ một luồng thu duy nhất; stop()/close() có thể gọi từ luồng khác.
+public interface AudioSource extends Closeable {
+
+    // read() trả về giá trị này khi không còn dữ liệu (file đã đọc hết)
+    int END_OF_STREAM = Integer.MIN_VALUE;
+
+    int getSampleRate();
+
+    // Số byte mỗi lần đọc (một frame thu)
+    int getFrameBytes();
+
+    // Buffer trong của nguồn (byte): đọc chậm hơn thời lượng này thì mẫu bị ghi đè.
+    // 0 nếu nguồn không mất dữ liệu khi đọc chậm (file)
+    int getBufferBytes();
+
+    void start() throws IOException;
+
+    // Đọc tối đa frame.getCapacity() byte vào frame.data() từ vị trí 0 (không gọi setByteLength).
+    // Trả về số byte đọc được, < 0 là mã lỗi của nguồn, END_OF_STREAM khi hết dữ liệu
+    int read(AudioFrame frame);
+
+    // Ngừng thu; read() đang chờ sẽ trả về
+    void stop();
+
+    @Override
+    void close();
+}
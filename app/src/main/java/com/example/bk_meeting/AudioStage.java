@@ -0,0 +1,20 @@
+package com.example.bk_meeting;
+
+// Một bước xử lý trong pipeline của AudioEngine: nguồn (AudioRecord) -> VAD -> resample
+// -> các stage -> writer segment -> sink (VoiceDetectionCallback).
+// Stage thêm bằng addStage() chạy trên luồng thu âm, nên không được chặn hay cấp phát theo frame;
+// stage có thể sửa mẫu tại chỗ qua samples() (ví dụ NoiseSuppressionStage), các stage sau,
+// fan-out và writer nhận âm thanh đã sửa.
+// Stage thêm bằng addConsumer() chạy trên luồng riêng của AudioFanoutBus: frame được nhiều luồng
+// đọc cùng lúc, chỉ đọc qua getSample()/copySamples().
+public interface AudioStage {
+
+    // Gọi trước frame đầu tiên của phiên thu; sampleRate là tần số của frame nhận được
+    void onStart(int sampleRate);
+
+    // frame chỉ hợp lệ trong lời gọi (retain() nếu cần giữ lại), không thay đổi position/limit
+    void onFrame(AudioFrame frame, boolean voiceDetected);
+
+    // Gọi sau frame cuối cùng, kể cả khi phiên thu dừng do lỗi
+    void onStop();
+}
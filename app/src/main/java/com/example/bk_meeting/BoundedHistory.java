@@ -0,0 +1,67 @@
+package com.example.bk_meeting;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+// Danh sách N mục gần nhất (mục cũ nhất bị đẩy ra khi đầy), dùng cho các danh sách hiển thị
+// lớn dần theo buổi họp như danh sách câu đã lưu. Bộ nhớ cố định theo capacity.
+// Không thread-safe, chỉ dùng trên main thread
+public class BoundedHistory<T> extends AbstractList<T> implements RandomAccess {
+
+    private final Object[] items;
+    private int head; // chỉ số mục cũ nhất
+    private int size;
+    private long totalAdded;
+
+    public BoundedHistory(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be > 0");
+        }
+        items = new Object[capacity];
+    }
+
+    // Thêm vào cuối; trả về mục cũ nhất bị đẩy ra, null nếu chưa đầy
+    @SuppressWarnings("unchecked")
+    public T append(T item) {
+        totalAdded++;
+        if (size < items.length) {
+            items[(head + size++) % items.length] = item;
+            return null;
+        }
+        T evicted = (T) items[head];
+        items[head] = item;
+        head = (head + 1) % items.length;
+        return evicted;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+        return (T) items[(head + index) % items.length];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return items.length;
+    }
+
+    // Tổng số mục đã thêm, kể cả các mục đã bị đẩy ra
+    public long getTotalAdded() {
+        return totalAdded;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(items, null);
+        head = 0;
+        size = 0;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.bk_meeting;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Số liệu của vòng thu âm: độ trễ mỗi lần AudioRecord.read(), jitter giữa các lần đọc,
+// lần đọc thiếu/lỗi, overrun ước lượng, byte thu được, số segment và độ trễ lưu file.
+// Các hàm on*() không cấp phát nên có thể bật thường trực; toString() dùng cho log/dump.
+public class CaptureMetrics {
+
+    // Luồng thu là nơi duy nhất gọi onRead(); các bộ đếm khác có thể tăng từ luồng lưu file
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong shortReads = new AtomicLong();
+    private final AtomicLong failedReads = new AtomicLong();
+    private final AtomicLong overruns = new AtomicLong();
+    private final AtomicLong overrunMicros = new AtomicLong();
+    private final AtomicLong bytesCaptured = new AtomicLong();
+    private final AtomicLong segments = new AtomicLong();
+    private final AtomicLong saveFailures = new AtomicLong();
+    private final AtomicLong encoderSpills = new AtomicLong();
+    private final AtomicLong encoderSpilledMicros = new AtomicLong();
+
+    private final FixedBucketHistogram readLatencyMicros = new FixedBucketHistogram("µs");
+    private final FixedBucketHistogram readJitterMicros = new FixedBucketHistogram("µs");
+    private final FixedBucketHistogram saveLatencyMillis = new FixedBucketHistogram("ms");
+    private final FixedBucketHistogram fanoutDepth = new FixedBucketHistogram("frames", 16);
+
+    // Cấu hình của phiên thu, chỉ luồng thu ghi
+    private volatile int sampleRate;
+    private volatile long framePeriodNanos;
+    private volatile long bufferPeriodNanos;
+    private long lastReadEndNanos = -1;
+    private volatile long sessionStartNanos = System.nanoTime();
+
+    // Gọi trước lần đọc đầu tiên: frameBytes là kích thước mỗi lần đọc, bufferBytes là
+    // buffer trong của AudioRecord (đọc chậm hơn thời lượng này thì mẫu bị ghi đè)
+    public void onSessionStart(int sampleRate, int frameBytes, int bufferBytes) {
+        reset();
+        this.sampleRate = sampleRate;
+        this.framePeriodNanos = bytesToNanos(frameBytes, sampleRate);
+        this.bufferPeriodNanos = bytesToNanos(bufferBytes, sampleRate);
+    }
+
+    public void onRead(long startNanos, long endNanos, int bytesRead, int requestedBytes) {
+        reads.incrementAndGet();
+        readLatencyMicros.record((endNanos - startNanos) / 1000);
+
+        if (lastReadEndNanos >= 0) {
+            // Jitter: lệch so với chu kỳ frame lý tưởng
+            readJitterMicros.record(Math.abs(endNanos - lastReadEndNanos - framePeriodNanos) / 1000);
+
+            // Luồng thu không đọc trong khoảng dài hơn buffer của AudioRecord: phần vượt quá đã mất
+            long gap = startNanos - lastReadEndNanos;
+            if (bufferPeriodNanos > 0 && gap > bufferPeriodNanos) {
+                overruns.incrementAndGet();
+                overrunMicros.addAndGet((gap - bufferPeriodNanos) / 1000);
+            }
+        }
+        lastReadEndNanos = endNanos;
+
+        if (bytesRead <= 0) {
+            failedReads.incrementAndGet();
+        } else {
+            bytesCaptured.addAndGet(bytesRead);
+            if (bytesRead < requestedBytes) {
+                shortReads.incrementAndGet();
+            }
+        }
+    }
+
+    // Số frame lớn nhất mà một consumer của AudioFanoutBus còn chưa xử lý
+    public void onFanoutDepth(long frames) {
+        fanoutDepth.record(frames);
+    }
+
+    // latencyNanos: từ lúc kết thúc segment trên luồng thu tới khi file đóng xong
+    public void onSegmentSaved(long latencyNanos) {
+        segments.incrementAndGet();
+        saveLatencyMillis.record(TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+    }
+
+    // Encoder của segment (FLAC) không theo kịp, một block mẫu đi qua file tạm thay vì chặn luồng thu
+    public void onEncoderSpill(long spilledMicros) {
+        encoderSpills.incrementAndGet();
+        encoderSpilledMicros.addAndGet(spilledMicros);
+    }
+
+    public void onSaveFailed(long latencyNanos) {
+        saveFailures.incrementAndGet();
+        saveLatencyMillis.record(TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+    }
+
+    public long getReads() {
+        return reads.get();
+    }
+
+    public long getShortReads() {
+        return shortReads.get();
+    }
+
+    public long getFailedReads() {
+        return failedReads.get();
+    }
+
+    public long getOverruns() {
+        return overruns.get();
+    }
+
+    // Thời lượng âm thanh ước lượng đã mất do overrun
+    public long getOverrunMillis() {
+        return overrunMicros.get() / 1000;
+    }
+
+    public long getEncoderSpills() {
+        return encoderSpills.get();
+    }
+
+    // Thời lượng âm thanh phải ghi ra file tạm do encoder không theo kịp
+    public long getEncoderSpilledMillis() {
+        return encoderSpilledMicros.get() / 1000;
+    }
+
+    public long getBytesCaptured() {
+        return bytesCaptured.get();
+    }
+
+    public long getSegments() {
+        return segments.get();
+    }
+
+    public long getSaveFailures() {
+        return saveFailures.get();
+    }
+
+    public FixedBucketHistogram getReadLatencyMicros() {
+        return readLatencyMicros;
+    }
+
+    public FixedBucketHistogram getReadJitterMicros() {
+        return readJitterMicros;
+    }
+
+    public FixedBucketHistogram getSaveLatencyMillis() {
+        return saveLatencyMillis;
+    }
+
+    public FixedBucketHistogram getFanoutDepth() {
+        return fanoutDepth;
+    }
+
+    public long getSessionMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sessionStartNanos);
+    }
+
+    public void reset() {
+        reads.set(0);
+        shortReads.set(0);
+        failedReads.set(0);
+        overruns.set(0);
+        overrunMicros.set(0);
+        bytesCaptured.set(0);
+        segments.set(0);
+        saveFailures.set(0);
+        encoderSpills.set(0);
+        encoderSpilledMicros.set(0);
+        readLatencyMicros.reset();
+        readJitterMicros.reset();
+        saveLatencyMillis.reset();
+        fanoutDepth.reset();
+        lastReadEndNanos = -1;
+        sessionStartNanos = System.nanoTime();
+    }
+
+    private static long bytesToNanos(int bytes, int sampleRate) {
+        return sampleRate > 0 ? TimeUnit.SECONDS.toNanos(bytes / 2) / sampleRate : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+                "session=%d ms rate=%d reads=%d short=%d failed=%d overruns=%d (~%d ms lost) captured=%d B"
+                        + " segments=%d saveFailures=%d encoderSpills=%d (~%d ms spilled) | read latency %s | jitter %s | save %s | fan-out depth %s",
+                getSessionMillis(), sampleRate, getReads(), getShortReads(), getFailedReads(), getOverruns(),
+                getOverrunMillis(), getBytesCaptured(), getSegments(), getSaveFailures(),
+                getEncoderSpills(), getEncoderSpilledMillis(),
+                readLatencyMicros, readJitterMicros, saveLatencyMillis, fanoutDepth);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.bk_meeting;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bộ đếm cho đường thu âm: số byte thu được, số byte bị chép trung gian
+// và số lần cấp phát buffer. Tăng bộ đếm không cấp phát bộ nhớ.
+public class CapturePathCounters {
+
+    private final AtomicLong bytesCaptured = new AtomicLong();
+    private final AtomicLong bytesCopied = new AtomicLong();
+    private final AtomicLong allocations = new AtomicLong();
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private volatile long startNanos = System.nanoTime();
+
+    public void onCaptured(int bytes) {
+        bytesCaptured.addAndGet(bytes);
+    }
+
+    public void onCopied(long bytes) {
+        bytesCopied.addAndGet(bytes);
+    }
+
+    public void onAllocation(int bytes) {
+        allocations.incrementAndGet();
+        allocatedBytes.addAndGet(bytes);
+    }
+
+    public long getBytesCaptured() {
+        return bytesCaptured.get();
+    }
+
+    public long getBytesCopied() {
+        return bytesCopied.get();
+    }
+
+    public long getAllocations() {
+        return allocations.get();
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    public double getBytesCopiedPerSecond() {
+        return perSecond(bytesCopied.get());
+    }
+
+    public double getAllocationsPerSecond() {
+        return perSecond(allocations.get());
+    }
+
+    public void reset() {
+        bytesCaptured.set(0);
+        bytesCopied.set(0);
+        allocations.set(0);
+        allocatedBytes.set(0);
+        startNanos = System.nanoTime();
+    }
+
+    private double perSecond(long value) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds > 0 ? value / seconds : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+                "captured=%d B, copied=%d B (%.0f B/s), allocations=%d (%.2f/s, %d B)",
+                getBytesCaptured(), getBytesCopied(), getBytesCopiedPerSecond(),
+                getAllocations(), getAllocationsPerSecond(), getAllocatedBytes());
+    }
+}
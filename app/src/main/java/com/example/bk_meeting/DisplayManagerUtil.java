@@ -3,7 +3,6 @@ package com.example.bk_meeting;
 import android.app.ActivityOptions;
 import android.content.Context;
 import android.content.Intent;
-import android.hardware.display.DisplayManager;
 import android.os.Build;
 import android.util.DisplayMetrics;
 import android.util.Log;
@@ -14,13 +13,13 @@ public class DisplayManagerUtil {
 
     private static final String TAG = "DisplayManagerUtil";
 
+    // Danh sách display lấy từ DisplayRegistry (đã cache, cập nhật khi cắm/rút màn hình)
     public static Display[] getAvailableDisplays(Context context) {
-        DisplayManager displayManager = (DisplayManager) context.getSystemService(Context.DISPLAY_SERVICE);
-        return displayManager.getDisplays();
+        return DisplayRegistry.getInstance(context).getDisplays();
     }
 
     public static boolean isDualScreenAvailable(Context context) {
-        return getAvailableDisplays(context).length >= 2;
+        return DisplayRegistry.getInstance(context).isDualScreenAvailable();
     }
 
     public static void logDisplayInfo(Context context) {
@@ -81,10 +80,10 @@ public class DisplayManagerUtil {
     }
 
     public static boolean launchOnSecondaryDisplay(Context context, Intent intent) {
-        Display[] displays = getAvailableDisplays(context);
+        Display secondary = DisplayRegistry.getInstance(context).getSecondaryDisplay();
 
-        if (displays.length >= 2) {
-            return launchOnSpecificDisplay(context, intent, displays[1].getDisplayId());
+        if (secondary != null) {
+            return launchOnSpecificDisplay(context, intent, secondary.getDisplayId());
         } else {
             Log.w(TAG, "No secondary display available");
             Toast.makeText(context, "No secondary display available", Toast.LENGTH_SHORT).show();
@@ -95,12 +94,24 @@ public class DisplayManagerUtil {
     }
 
     public static Display getPrimaryDisplay(Context context) {
-        Display[] displays = getAvailableDisplays(context);
-        return displays.length > 0 ? displays[0] : null;
+        return DisplayRegistry.getInstance(context).getPrimaryDisplay();
     }
 
     public static Display getSecondaryDisplay(Context context) {
-        Display[] displays = getAvailableDisplays(context);
-        return displays.length >= 2 ? displays[1] : null;
+        return DisplayRegistry.getInstance(context).getSecondaryDisplay();
+    }
+
+    // Đưa SecondScreenActivity (singleInstance) lên màn hình phụ, hoặc cạnh màn hình chính khi không có
+    // màn hình phụ. Dùng lại instance đang có (onNewIntent) thay vì tạo task mới với
+    // FLAG_ACTIVITY_MULTIPLE_TASK; task đang nằm ở display khác được chuyển sang display được chọn.
+    public static void showSecondScreen(Context context, Display secondary) {
+        Intent intent = new Intent(context, SecondScreenActivity.class);
+        intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_REORDER_TO_FRONT);
+        if (secondary != null) {
+            launchOnSpecificDisplay(context, intent, secondary.getDisplayId(), false);
+        } else {
+            intent.addFlags(Intent.FLAG_ACTIVITY_LAUNCH_ADJACENT);
+            context.startActivity(intent);
+        }
     }
 }
\ No newline at end of file
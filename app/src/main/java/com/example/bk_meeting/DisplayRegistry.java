@@ -0,0 +1,112 @@
+package com.example.bk_meeting;
+
+import android.content.Context;
+import android.hardware.display.DisplayManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.Display;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Danh sách display dùng chung cho cả ứng dụng, cập nhật qua DisplayManager.DisplayListener
+// thay vì gọi getDisplays() ở mỗi helper. Quy ước như trước: displays[0] là màn hình chính,
+// displays[1] (nếu có) là màn hình phụ (màn hình phòng họp qua HDMI).
+// Listener được báo trên main thread khi màn hình phụ xuất hiện, biến mất hoặc đổi sang display khác.
+public final class DisplayRegistry {
+
+    public interface Listener {
+        // secondary == null: không còn màn hình phụ
+        void onSecondaryDisplayChanged(Display secondary);
+    }
+
+    private static final String TAG = "DisplayRegistry";
+
+    private static DisplayRegistry instance;
+
+    private final DisplayManager displayManager;
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    // Ghi trên main thread, đọc từ mọi luồng; mảng không bao giờ bị sửa sau khi gán
+    private volatile Display[] displays;
+    private int secondaryId;
+
+    private final DisplayManager.DisplayListener displayListener = new DisplayManager.DisplayListener() {
+        @Override
+        public void onDisplayAdded(int displayId) {
+            refresh();
+        }
+
+        @Override
+        public void onDisplayRemoved(int displayId) {
+            refresh();
+        }
+
+        @Override
+        public void onDisplayChanged(int displayId) {
+            // Đối tượng Display tự cập nhật kích thước/trạng thái, danh sách không đổi
+        }
+    };
+
+    public static synchronized DisplayRegistry getInstance(Context context) {
+        if (instance == null) {
+            instance = new DisplayRegistry(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private DisplayRegistry(Context appContext) {
+        displayManager = (DisplayManager) appContext.getSystemService(Context.DISPLAY_SERVICE);
+        displays = displayManager.getDisplays();
+        secondaryId = idOf(getSecondaryDisplay());
+        displayManager.registerDisplayListener(displayListener, new Handler(Looper.getMainLooper()));
+    }
+
+    public Display[] getDisplays() {
+        return displays.clone();
+    }
+
+    public int getDisplayCount() {
+        return displays.length;
+    }
+
+    public boolean isDualScreenAvailable() {
+        return displays.length >= 2;
+    }
+
+    public Display getPrimaryDisplay() {
+        Display[] current = displays;
+        return current.length > 0 ? current[0] : null;
+    }
+
+    public Display getSecondaryDisplay() {
+        Display[] current = displays;
+        return current.length >= 2 ? current[1] : null;
+    }
+
+    // Listener giữ tham chiếu tới Activity: phải removeListener() trong onDestroy
+    public void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private void refresh() {
+        displays = displayManager.getDisplays();
+        Display secondary = getSecondaryDisplay();
+        int id = idOf(secondary);
+        if (id == secondaryId) {
+            return;
+        }
+        Log.d(TAG, "Secondary display " + secondaryId + " -> " + id + " (" + displays.length + " displays)");
+        secondaryId = id;
+        for (Listener listener : listeners) {
+            listener.onSecondaryDisplayChanged(secondary);
+        }
+    }
+
+    private static int idOf(Display display) {
+        return display != null ? display.getDisplayId() : Display.INVALID_DISPLAY;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.bk_meeting;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+// Đo time-to-first-paint của trang trong WebView: từ onCreate của Activity tới
+// onPageCommitVisible (nội dung trang mới bắt đầu được vẽ), tách riêng phần tạo WebView.
+// pooled=false là số liệu khởi động lạnh để so sánh với WebViewPool (WebViewPool.setEnabled(false); bản debug: MainActivity với extra webview_pool=false).
+// Chỉ ghi lần vẽ đầu tiên; đọc bằng: adb logcat -s FirstPaintTimer
+public class FirstPaintTimer {
+
+    private static final String TAG = "FirstPaintTimer";
+
+    private final String screen;
+    private final long startMillis;
+    private long webViewMillis = -1;
+    private boolean pooled;
+    private long firstPaintMillis = -1;
+
+    public FirstPaintTimer(String screen) {
+        this.screen = screen;
+        this.startMillis = SystemClock.uptimeMillis();
+    }
+
+    public void onWebViewReady(boolean pooled) {
+        this.pooled = pooled;
+        webViewMillis = SystemClock.uptimeMillis() - startMillis;
+    }
+
+    public void onPageCommitVisible(String url) {
+        if (firstPaintMillis >= 0) {
+            return;
+        }
+        firstPaintMillis = SystemClock.uptimeMillis() - startMillis;
+        Log.i(TAG, screen + ": first paint " + firstPaintMillis + " ms (WebView ready " + webViewMillis
+                + " ms, pooled=" + pooled + ", engine init " + WebViewPool.getEngineInitMillis() + " ms) " + url);
+    }
+
+    // -1 nếu trang chưa được vẽ
+    public long getFirstPaintMillis() {
+        return firstPaintMillis;
+    }
+}
@@ -3,10 +3,11 @@ package com.example.bk_meeting;
 import android.Manifest;
 import android.content.Intent;
 import android.os.Bundle;
+import android.view.Display;
+import android.view.View;
 import android.widget.Button;
 import android.widget.TextView;
 import android.widget.Toast;
-import android.widget.LinearLayout;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.camera.core.CameraSelector;
 import androidx.camera.core.Preview;
@@ -14,25 +15,16 @@ import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import androidx.camera.view.PreviewView;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import android.content.pm.PackageManager;
 import com.google.common.util.concurrent.ListenableFuture;
 import java.io.File;
 import java.util.concurrent.ExecutionException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
-// Voice Recording imports
-import android.media.AudioFormat;
-import android.media.AudioRecord;
-import android.media.MediaRecorder;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.OutputStream;
-import java.text.SimpleDateFormat;
-import java.io.ByteArrayOutputStream;
-import java.util.Date;
-import java.util.Locale;
-
 public class FirstScreenActivity extends AppCompatActivity {
 
     private PreviewView previewView;
@@ -40,23 +32,59 @@ public class FirstScreenActivity extends AppCompatActivity {
     private Button btnToggleMicrophone;
     private Button btnJoinMeeting;
     private TextView tvRecordingStatus;
-    private LinearLayout sentenceListLayout;
+    private RecyclerView sentenceList;
+    private TextView tvEmptySentences;
+    private SentenceAdapter sentenceAdapter;
+
+    // RecyclerView chỉ giữ view cho các dòng đang hiện; model giữ tối đa MAX_VISIBLE_SENTENCES câu
+    // gần nhất (đủ cho buổi họp 6-8 giờ, mỗi câu ~1-2 KB waveform thu gọn). File cũ vẫn nằm trên đĩa
+    private static final int MAX_VISIBLE_SENTENCES = 2000;
+    private final BoundedHistory<SavedSegment> sentenceHistory = new BoundedHistory<>(MAX_VISIBLE_SENTENCES);
+
+    // Chạm vào một câu để nghe lại; waveform của câu đang phát đổi màu
+    private SegmentPlayer segmentPlayer;
 
     private boolean isCameraRunning = false;
     private boolean isMicrophoneRunning = false;
 
-    // Voice Recording variables - nguyên bản từ MainActivity
-    private AudioRecord recorder;
-    private boolean isRecording = false;
-    private boolean isSpeaking = false;
-    private Thread recordingThread;
+    // Voice Recording: engine dùng chung, Activity chỉ nhận sự kiện
+    private AudioEngine audioEngine;
+
+    // Màn hình phòng họp (HDMI) được cắm lại giữa buổi họp: đưa SecondScreenActivity đang có sang đó;
+    // bị rút: đưa nó về cạnh màn hình chính
+    private DisplayRegistry displayRegistry;
+    private final DisplayRegistry.Listener displayListener = new DisplayRegistry.Listener() {
+        @Override
+        public void onSecondaryDisplayChanged(Display secondary) {
+            DisplayManagerUtil.showSecondScreen(FirstScreenActivity.this, secondary);
+            Toast.makeText(FirstScreenActivity.this,
+                    secondary != null ? "🖥️ Đã kết nối màn hình phụ" : "📱 Màn hình phụ đã ngắt kết nối",
+                    Toast.LENGTH_SHORT).show();
+        }
+    };
+    private final VoiceDetectionManager.VoiceDetectionCallback voiceCallback =
+            new VoiceDetectionManager.VoiceDetectionCallback() {
+                @Override
+                public void onStateChanged(VoiceState state, String message) {
+                    showVoiceState(state, message);
+                }
+
+                @Override
+                public void onAudioFileSaved(String fileName, File audioFile) {
+                    // Không có waveform/PCM: chỉ hiện tên
+                    addSentence(new SavedSegment(fileName, audioFile, 0, -1, 0, true, null));
+                }
+
+                @Override
+                public void onSegmentSaved(SavedSegment segment) {
+                    addSentence(segment);
+                }
 
-    private final int minSentenceDurationMs = 15_000;
-    private final int sampleRate = 44100;
-    private final int channelConfig = AudioFormat.CHANNEL_IN_MONO;
-    private final int audioFormat = AudioFormat.ENCODING_PCM_16BIT;
-    private final int silenceThreshold = 6000; // độ lớn tối thiểu (amplitude)
-    private final int silenceTimeoutMs = 1000; // thời gian im lặng để kết thúc câu(ms)
+                @Override
+                public void onError(String error) {
+                    Toast.makeText(FirstScreenActivity.this, error, Toast.LENGTH_SHORT).show();
+                }
+            };
 
     private static final int PERMISSION_REQUEST_CODE = 102;
 
@@ -68,6 +96,35 @@ public class FirstScreenActivity extends AppCompatActivity {
         initializeViews();
         checkPermissions();
         setupButtonListeners();
+
+        // Engine có thể đang chạy từ trước (Activity được tạo lại), subscribe() phát lại trạng thái
+        audioEngine = AudioEngine.getInstance(this);
+        audioEngine.subscribe(voiceCallback);
+
+        displayRegistry = DisplayRegistry.getInstance(this);
+        displayRegistry.addListener(displayListener);
+
+        // Đo khởi động lạnh tới khi màn hình này vẽ xong và dùng được (adb logcat -s Startup)
+        getWindow().getDecorView().post(() -> MainActivity.reportInteractive(this));
+    }
+
+    // Thêm câu vào model rồi đưa snapshot mới cho adapter; diff chạy trên luồng nền
+    private void addSentence(SavedSegment segment) {
+        SavedSegment evicted = sentenceHistory.append(segment);
+        if (evicted != null && evicted == segmentPlayer.getPlaying()) {
+            segmentPlayer.stop();
+        }
+        boolean atBottom = !sentenceList.canScrollVertically(1);
+        List<SavedSegment> snapshot = Collections.unmodifiableList(new ArrayList<>(sentenceHistory));
+        sentenceAdapter.submitList(snapshot, () -> {
+            // Chỉ tự cuộn khi người dùng đang ở cuối danh sách
+            if (atBottom) {
+                sentenceList.scrollToPosition(snapshot.size() - 1);
+            }
+        });
+        tvEmptySentences.setVisibility(View.GONE);
+
+        Toast.makeText(this, "Đã lưu: " + segment.name, Toast.LENGTH_SHORT).show();
     }
 
     private void initializeViews() {
@@ -76,7 +133,19 @@ public class FirstScreenActivity extends AppCompatActivity {
         btnToggleMicrophone = findViewById(R.id.btnToggleMicrophone);
         btnJoinMeeting = findViewById(R.id.btnJoinMeeting);
         tvRecordingStatus = findViewById(R.id.tvRecordingStatus);
-        sentenceListLayout = findViewById(R.id.sentenceListLayout);
+        sentenceList = findViewById(R.id.rvSentenceList);
+        tvEmptySentences = findViewById(R.id.tvEmptySentences);
+        segmentPlayer = new SegmentPlayer((segment, playing) -> sentenceAdapter.setPlaying(segment, playing));
+        sentenceAdapter = new SentenceAdapter(segment -> {
+            if (segmentPlayer.getPlaying() == segment) {
+                segmentPlayer.stop();
+            } else {
+                segmentPlayer.play(segment);
+            }
+        });
+        sentenceList.setLayoutManager(new LinearLayoutManager(this));
+        sentenceList.setHasFixedSize(true);
+        sentenceList.setAdapter(sentenceAdapter);
 
         // Set initial microphone status
         tvRecordingStatus.setText("🔴 Microphone tắt");
@@ -146,183 +215,41 @@ public class FirstScreenActivity extends AppCompatActivity {
     }
 
     private void startMicrophone() {
-        try {
-            startListening();
+        if (audioEngine.start()) {
             isMicrophoneRunning = true;
             btnToggleMicrophone.setText("Tắt Micro");
             Toast.makeText(this, "Microphone đã bật - Bắt đầu voice recording", Toast.LENGTH_SHORT).show();
-        } catch (Exception e) {
-            Toast.makeText(this, "Lỗi microphone: " + e.getMessage(), Toast.LENGTH_SHORT).show();
         }
     }
 
     private void stopMicrophone() {
-        try {
-            isRecording = false;
-            if (recordingThread != null) {
-                recordingThread.interrupt();
-            }
-            if (recorder != null) {
-                recorder.stop();
-                recorder.release();
-                recorder = null;
-            }
-
-            isMicrophoneRunning = false;
-            btnToggleMicrophone.setText("Bật Micro");
-            tvRecordingStatus.setText("🔴 Microphone tắt");
-            Toast.makeText(this, "Microphone đã tắt", Toast.LENGTH_SHORT).show();
-        } catch (Exception e) {
-            // Reset state even on error
-            isMicrophoneRunning = false;
-            btnToggleMicrophone.setText("Bật Micro");
-            tvRecordingStatus.setText("🔴 Microphone tắt");
-            Toast.makeText(this, "Microphone đã tắt", Toast.LENGTH_SHORT).show();
-        }
+        audioEngine.stop();
+        isMicrophoneRunning = false;
+        btnToggleMicrophone.setText("Bật Micro");
+        Toast.makeText(this, "Microphone đã tắt", Toast.LENGTH_SHORT).show();
     }
 
-    // Voice Recording Methods - nguyên bản từ MainActivity
-    private void startListening() {
-        if (ContextCompat.checkSelfPermission(this, Manifest.permission.RECORD_AUDIO)
-                != PackageManager.PERMISSION_GRANTED) {
-            Toast.makeText(this, "Bạn cần cấp quyền ghi âm", Toast.LENGTH_SHORT).show();
-            return;
-        }
-
-        int bufferSize = AudioRecord.getMinBufferSize(sampleRate, channelConfig, audioFormat);
-        recorder = new AudioRecord(MediaRecorder.AudioSource.MIC,
-                sampleRate, channelConfig, audioFormat, bufferSize);
-
-        recorder.startRecording();
-        isRecording = true;
-
-        runOnUiThread(() -> tvRecordingStatus.setText("🔴 Đang lắng nghe..."));
-
-        recordingThread = new Thread(() -> {
-            byte[] buffer = new byte[bufferSize];
-            ByteArrayOutputStream sentenceBuffer = new ByteArrayOutputStream();
-            long lastVoiceTime = System.currentTimeMillis();
-            long sentenceStartTime = 0;
-
-            while (isRecording) {
-                int read = recorder.read(buffer, 0, buffer.length);
-                if (read <= 0) continue;
-
-                int amplitude = calculateAmplitude(buffer, read);
-                long now = System.currentTimeMillis();
-
-                if (amplitude > silenceThreshold) {
-                    if (!isSpeaking) {
-                        isSpeaking = true;
-                        sentenceBuffer.reset();
-                        sentenceStartTime = now;
-                        runOnUiThread(() -> tvRecordingStatus.setText("🎙️ Đang phát hiện giọng nói..."));
-                    }
-                    sentenceBuffer.write(buffer, 0, read);
-                    lastVoiceTime = now;
-
-                    // Update status during recording
-                    long currentDuration = now - sentenceStartTime;
-                    if (currentDuration >= minSentenceDurationMs) {
-                        runOnUiThread(() -> tvRecordingStatus.setText("🎙️ Đang ghi âm... (" + (currentDuration / 1000) + "s)"));
-                    }
-                } else if (isSpeaking) {
-                    long sentenceDuration = now - sentenceStartTime;
-
-                    if (sentenceDuration >= minSentenceDurationMs && now - lastVoiceTime > silenceTimeoutMs) {
-                        // đủ 15s và người đã ngừng nói → lưu file
-                        runOnUiThread(() -> tvRecordingStatus.setText("💾 Đang lưu file..."));
-                        saveWavFile(sentenceBuffer.toByteArray());
-                        sentenceBuffer.reset();
-                        isSpeaking = false;
-                        runOnUiThread(() -> tvRecordingStatus.setText("🔴 Đang lắng nghe..."));
-                    } else {
-                        // vẫn đang trong 15s hoặc người tạm dừng → tiếp tục ghi
-                        sentenceBuffer.write(buffer, 0, read);
-                    }
-                }
-            }
-
-            if (recorder != null) {
-                recorder.stop();
-                recorder.release();
-            }
-        });
-
-        recordingThread.start();
-    }
+    private void showVoiceState(VoiceState state, String message) {
+        isMicrophoneRunning = state != VoiceState.IDLE;
+        btnToggleMicrophone.setText(isMicrophoneRunning ? "Tắt Micro" : "Bật Micro");
 
-    private int calculateAmplitude(byte[] buffer, int read) {
-        int max = 0;
-        for (int i = 0; i < read - 1; i += 2) {
-            int value = (buffer[i + 1] << 8) | (buffer[i] & 0xFF);
-            max = Math.max(max, Math.abs(value));
-        }
-        return max;
-    }
-
-    private void saveWavFile(byte[] pcmData) {
-        try {
-            String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date());
-            File wavFile = new File(getExternalFilesDir(null), "voice_" + timeStamp + ".wav");
-            FileOutputStream fos = new FileOutputStream(wavFile);
-
-            String displayName = wavFile.getName();
-
-            runOnUiThread(() -> {
-                TextView tv = new TextView(this);
-                tv.setText("🟢 " + displayName);
-                tv.setTextSize(14f);
-                tv.setPadding(8, 4, 8, 4);
-                sentenceListLayout.addView(tv);
-
-                Toast.makeText(this, "Đã lưu: " + displayName, Toast.LENGTH_SHORT).show();
-            });
-
-            writeWavHeader(fos, pcmData.length, sampleRate, 1, 16);
-            fos.write(pcmData);
-            fos.close();
-        } catch (IOException e) {
-            e.printStackTrace();
-            runOnUiThread(() -> Toast.makeText(this, "Lỗi lưu file: " + e.getMessage(), Toast.LENGTH_SHORT).show());
+        switch (state) {
+            case IDLE:
+                tvRecordingStatus.setText("🔴 Microphone tắt");
+                break;
+            case LISTENING:
+                tvRecordingStatus.setText("🔴 " + message);
+                break;
+            case DETECTING_SPEECH:
+            case RECORDING:
+                tvRecordingStatus.setText("🎙️ " + message);
+                break;
+            case SAVING:
+                tvRecordingStatus.setText("💾 " + message);
+                break;
         }
     }
 
-    private void writeWavHeader(OutputStream out, int totalAudioLen, int sampleRate, int channels, int bitsPerSample) throws IOException {
-        long totalDataLen = totalAudioLen + 36;
-        long byteRate = sampleRate * channels * bitsPerSample / 8;
-
-        byte[] header = new byte[44];
-        header[0] = 'R'; header[1] = 'I'; header[2] = 'F'; header[3] = 'F';
-        header[4] = (byte) (totalDataLen & 0xff);
-        header[5] = (byte) ((totalDataLen >> 8) & 0xff);
-        header[6] = (byte) ((totalDataLen >> 16) & 0xff);
-        header[7] = (byte) ((totalDataLen >> 24) & 0xff);
-        header[8] = 'W'; header[9] = 'A'; header[10] = 'V'; header[11] = 'E';
-        header[12] = 'f'; header[13] = 'm'; header[14] = 't'; header[15] = ' ';
-        header[16] = 16; header[17] = 0; header[18] = 0; header[19] = 0;
-        header[20] = 1; header[21] = 0;
-        header[22] = (byte) channels; header[23] = 0;
-        header[24] = (byte) (sampleRate & 0xff);
-        header[25] = (byte) ((sampleRate >> 8) & 0xff);
-        header[26] = (byte) ((sampleRate >> 16) & 0xff);
-        header[27] = (byte) ((sampleRate >> 24) & 0xff);
-        header[28] = (byte) (byteRate & 0xff);
-        header[29] = (byte) ((byteRate >> 8) & 0xff);
-        header[30] = (byte) ((byteRate >> 16) & 0xff);
-        header[31] = (byte) ((byteRate >> 24) & 0xff);
-        header[32] = (byte) (channels * bitsPerSample / 8);
-        header[33] = 0;
-        header[34] = (byte) bitsPerSample; header[35] = 0;
-        header[36] = 'd'; header[37] = 'a'; header[38] = 't'; header[39] = 'a';
-        header[40] = (byte) (totalAudioLen & 0xff);
-        header[41] = (byte) ((totalAudioLen >> 8) & 0xff);
-        header[42] = (byte) ((totalAudioLen >> 16) & 0xff);
-        header[43] = (byte) ((totalAudioLen >> 24) & 0xff);
-
-        out.write(header, 0, 44);
-    }
-
     private void startCamera() {
         ListenableFuture<ProcessCameraProvider> cameraProviderFuture = ProcessCameraProvider.getInstance(this);
 
@@ -398,18 +325,12 @@ public class FirstScreenActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        // Cleanup voice recording
-        isRecording = false;
-        if (recordingThread != null) {
-            recordingThread.interrupt();
-        }
-        if (recorder != null) {
-            try {
-                recorder.stop();
-                recorder.release();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+        audioEngine.unsubscribe(voiceCallback);
+        displayRegistry.removeListener(displayListener);
+        segmentPlayer.stop();
+        // Chỉ dừng thu khi rời màn hình, không dừng khi Activity được tạo lại
+        if (isFinishing()) {
+            audioEngine.stop();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+package com.example.bk_meeting;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Histogram với các bucket cố định theo luỹ thừa 2: bucket 0 chứa giá trị <= 0,
+// bucket i chứa [2^(i-1), 2^i), bucket cuối chứa mọi giá trị lớn hơn.
+// record() chỉ tăng vài AtomicLong, không cấp phát, an toàn khi gọi từ nhiều luồng.
+// Percentile trả về cận trên của bucket (sai số tối đa 2 lần), đủ cho giám sát.
+public class FixedBucketHistogram {
+
+    public static final int DEFAULT_BUCKETS = 32;
+
+    private final String unit;
+    private final AtomicLongArray buckets;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    public FixedBucketHistogram(String unit) {
+        this(unit, DEFAULT_BUCKETS);
+    }
+
+    public FixedBucketHistogram(String unit, int bucketCount) {
+        if (bucketCount < 2 || bucketCount > 64) {
+            throw new IllegalArgumentException("bucketCount must be in [2, 64]");
+        }
+        this.unit = unit;
+        this.buckets = new AtomicLongArray(bucketCount);
+    }
+
+    public void record(long value) {
+        int bucket = value <= 0 ? 0 : Math.min(64 - Long.numberOfLeadingZeros(value), buckets.length() - 1);
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // thử lại khi luồng khác vừa cập nhật max
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return count.get() > 0 ? max.get() : 0;
+    }
+
+    public double getMean() {
+        long n = count.get();
+        return n > 0 ? (double) sum.get() / n : 0;
+    }
+
+    // Cận trên của bucket chứa percentile p (0..100); bucket cuối trả về max
+    public long getPercentile(double p) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(n * p / 100));
+        long seen = 0;
+        int last = buckets.length() - 1;
+        for (int i = 0; i < last; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    public long getBucketCount(int bucket) {
+        return buckets.get(bucket);
+    }
+
+    public int bucketCount() {
+        return buckets.length();
+    }
+
+    // Giá trị lớn nhất thuộc bucket (trừ bucket cuối, không giới hạn)
+    public static long upperBound(int bucket) {
+        return bucket == 0 ? 0 : (1L << bucket) - 1;
+    }
+
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(Long.MIN_VALUE);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "n=%d mean=%.1f p50=%d p95=%d p99=%d max=%d %s",
+                getCount(), getMean(), getPercentile(50), getPercentile(95), getPercentile(99),
+                getMax(), unit);
+    }
+}
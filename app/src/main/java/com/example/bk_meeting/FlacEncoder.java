@@ -0,0 +1,530 @@
+package com.example.bk_meeting;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+// Bộ mã hoá FLAC tối giản cho PCM 16-bit mono: mỗi block chọn subframe nhỏ nhất trong
+// CONSTANT / VERBATIM / FIXED (bậc 0-4) / LPC (bậc 1-8), phần dư mã hoá Rice có phân vùng.
+// Mọi bộ đệm được cấp phát một lần trong constructor.
+// Không thread-safe: FlacSegmentWriter chỉ gọi từ luồng mã hoá.
+class FlacEncoder {
+
+    static final int BLOCK_SIZE = 4096;
+    static final int STREAM_HEADER_SIZE = 42; // "fLaC" + header STREAMINFO + STREAMINFO
+
+    private static final int BITS_PER_SAMPLE = 16;
+    private static final int MAX_FIXED_ORDER = 4;
+    private static final int MAX_LPC_ORDER = 8;
+    private static final int QLP_PRECISION = 12;
+    private static final int MAX_PARTITION_ORDER = 6;
+    private static final int MAX_RICE_PARAM = 14;
+
+    private static final int TYPE_VERBATIM = 1;
+    private static final int TYPE_FIXED = 2;
+    private static final int TYPE_LPC = 3;
+
+    private final int sampleRate;
+    private final BitWriter bits = new BitWriter(BLOCK_SIZE * 3 + 64);
+    private final MessageDigest md5;
+    private final byte[] md5Scratch = new byte[BLOCK_SIZE * 2];
+
+    private final int[] residual = new int[BLOCK_SIZE];
+    private final int[] partitionParams = new int[1 << MAX_PARTITION_ORDER];
+    private final double[] windowed = new double[BLOCK_SIZE];
+    private final double[] autocorrelation = new double[MAX_LPC_ORDER + 1];
+    private final double[][] lpcCoefficients = new double[MAX_LPC_ORDER + 1][MAX_LPC_ORDER];
+    private final int[] quantized = new int[MAX_LPC_ORDER];
+    private final int[] bestQuantized = new int[MAX_LPC_ORDER];
+
+    // Rice: partition order và tham số của phương án tốt nhất vừa ước lượng
+    private int riceOrder;
+    private final int[] riceParams = new int[1 << MAX_PARTITION_ORDER];
+
+    private long frameNumber = 0;
+    private long totalSamples = 0;
+    private int minFrameSize = Integer.MAX_VALUE;
+    private int maxFrameSize = 0;
+
+    FlacEncoder(int sampleRate) {
+        this.sampleRate = sampleRate;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+
+    // Mã hoá một block (length <= BLOCK_SIZE); kết quả nằm trong buffer()[0, trả về)
+    int encodeFrame(short[] samples, int length) {
+        updateMd5(samples, length);
+        bits.reset();
+
+        writeFrameHeader(length);
+        writeSubframe(samples, length);
+        bits.alignToByte();
+        int crc16 = crc16(bits.buffer(), bits.byteLength());
+        bits.writeBits(crc16, 16);
+
+        int size = bits.byteLength();
+        frameNumber++;
+        totalSamples += length;
+        minFrameSize = Math.min(minFrameSize, size);
+        maxFrameSize = Math.max(maxFrameSize, size);
+        return size;
+    }
+
+    byte[] buffer() {
+        return bits.buffer();
+    }
+
+    long getTotalSamples() {
+        return totalSamples;
+    }
+
+    // "fLaC" + STREAMINFO; gọi lại khi kết thúc để có tổng số mẫu, kích thước frame và MD5
+    byte[] streamHeader(boolean finished) {
+        BitWriter header = new BitWriter(STREAM_HEADER_SIZE);
+        header.writeBits('f', 8);
+        header.writeBits('L', 8);
+        header.writeBits('a', 8);
+        header.writeBits('C', 8);
+
+        // Metadata block header: last-block = 1, type = 0 (STREAMINFO), length = 34
+        header.writeBits(0x80, 8);
+        header.writeBits(34, 24);
+
+        header.writeBits(BLOCK_SIZE, 16);
+        header.writeBits(BLOCK_SIZE, 16);
+        header.writeBits(finished && frameNumber > 0 ? minFrameSize : 0, 24);
+        header.writeBits(finished ? maxFrameSize : 0, 24);
+        header.writeBits(sampleRate, 20);
+        header.writeBits(0, 3); // channels - 1
+        header.writeBits(BITS_PER_SAMPLE - 1, 5);
+        header.writeBits((int) (totalSamples >>> 32) & 0xF, 4);
+        header.writeBits((int) totalSamples, 32);
+
+        byte[] digest = finished ? md5.digest() : new byte[16];
+        for (byte b : digest) {
+            header.writeBits(b & 0xFF, 8);
+        }
+        return Arrays.copyOf(header.buffer(), header.byteLength());
+    }
+
+    private void updateMd5(short[] samples, int length) {
+        for (int i = 0; i < length; i++) {
+            md5Scratch[i * 2] = (byte) samples[i];
+            md5Scratch[i * 2 + 1] = (byte) (samples[i] >> 8);
+        }
+        md5.update(md5Scratch, 0, length * 2);
+    }
+
+    private void writeFrameHeader(int length) {
+        int blockSizeCode;
+        if (length == BLOCK_SIZE) {
+            blockSizeCode = 12; // 256 * 2^(12-8) = 4096
+        } else if (length <= 256) {
+            blockSizeCode = 6;  // 8 bit (blocksize - 1) ở cuối header
+        } else {
+            blockSizeCode = 7;  // 16 bit (blocksize - 1) ở cuối header
+        }
+
+        bits.writeBits(0x3FFE, 14); // sync
+        bits.writeBits(0, 1);
+        bits.writeBits(0, 1); // fixed-blocksize stream
+        bits.writeBits(blockSizeCode, 4);
+        bits.writeBits(sampleRateCode(sampleRate), 4);
+        bits.writeBits(0, 4); // mono
+        bits.writeBits(4, 3); // 16 bits per sample
+        bits.writeBits(0, 1);
+        writeUtf8(frameNumber);
+
+        if (blockSizeCode == 6) {
+            bits.writeBits(length - 1, 8);
+        } else if (blockSizeCode == 7) {
+            bits.writeBits(length - 1, 16);
+        }
+
+        bits.writeBits(crc8(bits.buffer(), bits.byteLength()), 8);
+    }
+
+    private void writeUtf8(long value) {
+        if (value < 0x80) {
+            bits.writeBits((int) value, 8);
+            return;
+        }
+        int extraBytes = value < 0x800 ? 1
+                : value < 0x10000 ? 2
+                : value < 0x200000 ? 3
+                : value < 0x4000000 ? 4
+                : value < 0x80000000L ? 5 : 6;
+        int firstBits = 6 - extraBytes;
+        int prefix = (0xFF << (7 - extraBytes)) & 0xFF;
+        bits.writeBits(prefix | (int) (value >>> (6 * extraBytes)) & ((1 << firstBits) - 1), 8);
+        for (int i = extraBytes - 1; i >= 0; i--) {
+            bits.writeBits(0x80 | (int) (value >>> (6 * i)) & 0x3F, 8);
+        }
+    }
+
+    private void writeSubframe(short[] x, int n) {
+        if (isConstant(x, n)) {
+            bits.writeBits(0, 1);
+            bits.writeBits(0, 6);
+            bits.writeBits(0, 1);
+            bits.writeSigned(x[0], BITS_PER_SAMPLE);
+            return;
+        }
+
+        // Ước lượng số bit cho từng phương án, giữ phương án nhỏ nhất
+        long bestBits = (long) n * BITS_PER_SAMPLE;
+        int bestType = TYPE_VERBATIM;
+        int bestOrder = 0;
+        int bestShift = 0;
+
+        for (int order = 0; order <= MAX_FIXED_ORDER && order < n; order++) {
+            fixedResidual(x, n, order);
+            long cost = (long) order * BITS_PER_SAMPLE + estimateRice(n, order);
+            if (cost < bestBits) {
+                bestBits = cost;
+                bestType = TYPE_FIXED;
+                bestOrder = order;
+            }
+        }
+
+        int maxLpcOrder = Math.min(MAX_LPC_ORDER, n - 1);
+        if (maxLpcOrder > 0 && computeLpc(x, n, maxLpcOrder)) {
+            for (int order = 1; order <= maxLpcOrder; order++) {
+                int shift = quantizeLpc(lpcCoefficients[order], order);
+                if (shift < 0) {
+                    continue;
+                }
+                lpcResidual(x, n, order, quantized, shift);
+                long cost = (long) order * (BITS_PER_SAMPLE + QLP_PRECISION) + 9
+                        + estimateRice(n, order);
+                if (cost < bestBits) {
+                    bestBits = cost;
+                    bestType = TYPE_LPC;
+                    bestOrder = order;
+                    bestShift = shift;
+                    System.arraycopy(quantized, 0, bestQuantized, 0, order);
+                }
+            }
+        }
+
+        bits.writeBits(0, 1);
+        switch (bestType) {
+            case TYPE_FIXED:
+                bits.writeBits(0x08 | bestOrder, 6);
+                bits.writeBits(0, 1);
+                writeWarmup(x, bestOrder);
+                fixedResidual(x, n, bestOrder);
+                estimateRice(n, bestOrder);
+                writeResidual(n, bestOrder);
+                break;
+            case TYPE_LPC:
+                bits.writeBits(0x20 | (bestOrder - 1), 6);
+                bits.writeBits(0, 1);
+                writeWarmup(x, bestOrder);
+                bits.writeBits(QLP_PRECISION - 1, 4);
+                bits.writeSigned(bestShift, 5);
+                for (int i = 0; i < bestOrder; i++) {
+                    bits.writeSigned(bestQuantized[i], QLP_PRECISION);
+                }
+                lpcResidual(x, n, bestOrder, bestQuantized, bestShift);
+                estimateRice(n, bestOrder);
+                writeResidual(n, bestOrder);
+                break;
+            default:
+                bits.writeBits(TYPE_VERBATIM, 6);
+                bits.writeBits(0, 1);
+                for (int i = 0; i < n; i++) {
+                    bits.writeSigned(x[i], BITS_PER_SAMPLE);
+                }
+                break;
+        }
+    }
+
+    private void writeWarmup(short[] x, int order) {
+        for (int i = 0; i < order; i++) {
+            bits.writeSigned(x[i], BITS_PER_SAMPLE);
+        }
+    }
+
+    private static boolean isConstant(short[] x, int n) {
+        for (int i = 1; i < n; i++) {
+            if (x[i] != x[0]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void fixedResidual(short[] x, int n, int order) {
+        for (int i = order; i < n; i++) {
+            int r;
+            switch (order) {
+                case 0:
+                    r = x[i];
+                    break;
+                case 1:
+                    r = x[i] - x[i - 1];
+                    break;
+                case 2:
+                    r = x[i] - 2 * x[i - 1] + x[i - 2];
+                    break;
+                case 3:
+                    r = x[i] - 3 * x[i - 1] + 3 * x[i - 2] - x[i - 3];
+                    break;
+                default:
+                    r = x[i] - 4 * x[i - 1] + 6 * x[i - 2] - 4 * x[i - 3] + x[i - 4];
+                    break;
+            }
+            residual[i] = r;
+        }
+    }
+
+    private void lpcResidual(short[] x, int n, int order, int[] coefficients, int shift) {
+        for (int i = order; i < n; i++) {
+            long sum = 0;
+            for (int j = 0; j < order; j++) {
+                sum += (long) coefficients[j] * x[i - j - 1];
+            }
+            residual[i] = x[i] - (int) (sum >> shift);
+        }
+    }
+
+    // Tự tương quan trên tín hiệu có cửa sổ Welch, rồi Levinson-Durbin cho mọi bậc <= maxOrder
+    private boolean computeLpc(short[] x, int n, int maxOrder) {
+        double half = (n - 1) / 2.0;
+        for (int i = 0; i < n; i++) {
+            double t = (i - half) / (half + 1);
+            windowed[i] = x[i] * (1 - t * t);
+        }
+        for (int lag = 0; lag <= maxOrder; lag++) {
+            double sum = 0;
+            for (int i = lag; i < n; i++) {
+                sum += windowed[i] * windowed[i - lag];
+            }
+            autocorrelation[lag] = sum;
+        }
+        if (autocorrelation[0] == 0) {
+            return false;
+        }
+
+        // lpcCoefficients[order][j] là hệ số của x[i - j - 1] cho predictor bậc order
+        double error = autocorrelation[0];
+        for (int order = 1; order <= maxOrder; order++) {
+            double[] previous = lpcCoefficients[order - 1];
+            double[] current = lpcCoefficients[order];
+
+            double acc = autocorrelation[order];
+            for (int j = 0; j < order - 1; j++) {
+                acc -= previous[j] * autocorrelation[order - 1 - j];
+            }
+            double k = error > 0 ? acc / error : 0;
+
+            for (int j = 0; j < order - 1; j++) {
+                current[j] = previous[j] - k * previous[order - 2 - j];
+            }
+            current[order - 1] = k;
+            error *= (1 - k * k);
+        }
+        return true;
+    }
+
+    // Lượng tử hoá hệ số LPC với sai số lan truyền; trả về shift, hoặc -1 nếu không biểu diễn được
+    private int quantizeLpc(double[] coefficients, int order) {
+        double max = 0;
+        for (int i = 0; i < order; i++) {
+            max = Math.max(max, Math.abs(coefficients[i]));
+        }
+        if (max <= 0) {
+            return -1;
+        }
+
+        int log2 = Math.getExponent(max) + 1;
+        int shift = Math.min(15, QLP_PRECISION - 1 - log2);
+        if (shift < 0) {
+            return -1;
+        }
+
+        int qMax = (1 << (QLP_PRECISION - 1)) - 1;
+        int qMin = -(qMax + 1);
+        double error = 0;
+        for (int i = 0; i < order; i++) {
+            error += coefficients[i] * (1 << shift);
+            long q = Math.round(error);
+            q = Math.max(qMin, Math.min(qMax, q));
+            quantized[i] = (int) q;
+            error -= q;
+        }
+        return shift;
+    }
+
+    // Chọn partition order và tham số Rice cho residual[order, n), trả về số bit ước lượng
+    private long estimateRice(int n, int predictorOrder) {
+        long best = Long.MAX_VALUE;
+        int bestOrder = 0;
+
+        for (int p = 0; p <= MAX_PARTITION_ORDER; p++) {
+            int partitions = 1 << p;
+            if (n % partitions != 0 || (n >> p) <= predictorOrder) {
+                break;
+            }
+            int partitionSize = n >> p;
+            long total = 6; // coding method + partition order
+
+            int start = predictorOrder;
+            for (int part = 0; part < partitions; part++) {
+                int end = (part + 1) * partitionSize;
+                long sum = 0;
+                for (int i = start; i < end; i++) {
+                    int r = residual[i];
+                    sum += (r << 1) ^ (r >> 31);
+                }
+                int count = end - start;
+                int k = riceParameter(sum, count);
+                total += 4 + (long) count * (k + 1) + (sum >> k);
+                partitionParams[part] = k;
+                start = end;
+            }
+
+            if (total < best) {
+                best = total;
+                bestOrder = p;
+                System.arraycopy(partitionParams, 0, riceParams, 0, partitions);
+            }
+        }
+
+        riceOrder = bestOrder;
+        return best;
+    }
+
+    private static int riceParameter(long sum, int count) {
+        if (count == 0 || sum < count) {
+            return 0;
+        }
+        int k = 63 - Long.numberOfLeadingZeros(sum / count);
+        return Math.min(MAX_RICE_PARAM, k);
+    }
+
+    private void writeResidual(int n, int predictorOrder) {
+        bits.writeBits(0, 2); // Rice, tham số 4 bit
+        bits.writeBits(riceOrder, 4);
+
+        int partitions = 1 << riceOrder;
+        int partitionSize = n >> riceOrder;
+        int start = predictorOrder;
+        for (int part = 0; part < partitions; part++) {
+            int k = riceParams[part];
+            int end = (part + 1) * partitionSize;
+            bits.writeBits(k, 4);
+            for (int i = start; i < end; i++) {
+                int r = residual[i];
+                bits.writeRice((r << 1) ^ (r >> 31), k);
+            }
+            start = end;
+        }
+    }
+
+    private static int sampleRateCode(int sampleRate) {
+        switch (sampleRate) {
+            case 8000: return 4;
+            case 16000: return 5;
+            case 22050: return 6;
+            case 24000: return 7;
+            case 32000: return 8;
+            case 44100: return 9;
+            case 48000: return 10;
+            default: return 0; // lấy từ STREAMINFO
+        }
+    }
+
+    static int crc8(byte[] data, int length) {
+        int crc = 0;
+        for (int i = 0; i < length; i++) {
+            crc ^= data[i] & 0xFF;
+            for (int b = 0; b < 8; b++) {
+                crc = (crc & 0x80) != 0 ? ((crc << 1) ^ 0x07) & 0xFF : (crc << 1) & 0xFF;
+            }
+        }
+        return crc;
+    }
+
+    static int crc16(byte[] data, int length) {
+        int crc = 0;
+        for (int i = 0; i < length; i++) {
+            crc ^= (data[i] & 0xFF) << 8;
+            for (int b = 0; b < 8; b++) {
+                crc = (crc & 0x8000) != 0 ? ((crc << 1) ^ 0x8005) & 0xFFFF : (crc << 1) & 0xFFFF;
+            }
+        }
+        return crc;
+    }
+
+    // Ghi bit theo thứ tự MSB trước vào mảng byte, tự mở rộng trong trường hợp hiếm
+    static final class BitWriter {
+        private byte[] buffer;
+        private int bytePosition;
+        private long accumulator;
+        private int accumulatedBits;
+
+        BitWriter(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        void reset() {
+            bytePosition = 0;
+            accumulator = 0;
+            accumulatedBits = 0;
+        }
+
+        void writeBits(int value, int count) {
+            if (count == 0) {
+                return;
+            }
+            accumulator = (accumulator << count) | (value & (0xFFFFFFFFL >>> (32 - count)));
+            accumulatedBits += count;
+            while (accumulatedBits >= 8) {
+                accumulatedBits -= 8;
+                put((byte) (accumulator >>> accumulatedBits));
+            }
+        }
+
+        void writeSigned(int value, int count) {
+            writeBits(value, count);
+        }
+
+        void writeRice(int value, int k) {
+            int quotient = value >>> k;
+            while (quotient >= 32) {
+                writeBits(0, 32);
+                quotient -= 32;
+            }
+            writeBits(0, quotient);
+            writeBits((1 << k) | (value & ((1 << k) - 1)), k + 1);
+        }
+
+        void alignToByte() {
+            if (accumulatedBits > 0) {
+                writeBits(0, 8 - accumulatedBits);
+            }
+        }
+
+        byte[] buffer() {
+            return buffer;
+        }
+
+        // Chỉ tính các byte đã đầy
+        int byteLength() {
+            return bytePosition;
+        }
+
+        private void put(byte b) {
+            if (bytePosition == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[bytePosition++] = b;
+        }
+    }
+}
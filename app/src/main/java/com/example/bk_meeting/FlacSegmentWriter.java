@@ -0,0 +1,352 @@
+package com.example.bk_meeting;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Ghi segment dạng FLAC (lossless). Luồng thu chỉ chép mẫu vào block 4096 mẫu;
+// việc mã hoá và ghi đĩa chạy trên một luồng nền dùng chung.
+// write() không bao giờ chờ luồng mã hoá: mỗi segment có QUEUE_BLOCKS block cấp phát sẵn; khi
+// luồng mã hoá tụt lại (đang finish() segment khác), cấp thêm block tới tối đa MAX_BLOCKS.
+// Quá giới hạn đó block vừa đầy được ghi thô ra file tạm (.spill) đúng thứ tự, luồng mã hoá đọc
+// lại và mã hoá sau: không mất mẫu nào, file FLAC vẫn giải mã ra đúng PCM gốc.
+// File chỉ được đóng trên luồng mã hoá, sau mọi block của segment.
+public class FlacSegmentWriter implements AudioSegmentWriter {
+
+    private static final int QUEUE_BLOCKS = 8;
+    // 128 block x 4096 mẫu: ~33 s âm thanh 16 kHz (1 MB) chờ mã hoá
+    static final int MAX_BLOCKS = 128;
+
+    static final ExecutorService ENCODER_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "FlacEncoderThread");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        return thread;
+    });
+
+    private final File file;
+    private final File spillFile;
+    private final RandomAccessFile raf;
+    private final int sampleRate;
+    private final FlacEncoder encoder;
+    private final ArrayBlockingQueue<Block> freeBlocks = new ArrayBlockingQueue<>(MAX_BLOCKS);
+    private final CaptureMetrics captureMetrics;
+
+    private Block current;
+    // Chỉ luồng thu đọc/ghi
+    private int allocatedBlocks;
+    private long spilledSamples;
+    private ByteBuffer spillStaging;
+    private long spillLength;
+    private long dataLength = 0;
+    private boolean closed = false;
+    // Mở trên luồng thu khi cần, trước khi gửi block tràn đầu tiên; đóng trên luồng mã hoá
+    private FileChannel spill;
+
+    // Chỉ luồng mã hoá dùng
+    private ByteBuffer spillReadBuffer;
+    private short[] spillSamples;
+    private boolean filesClosed;
+
+    // Chỉ luồng mã hoá ghi; luồng thu đọc để báo lỗi sớm
+    private volatile IOException failure;
+    private volatile long encodedBytes = FlacEncoder.STREAM_HEADER_SIZE;
+    // Các block còn trong hàng đợi của segment đã discard() được bỏ qua
+    private volatile boolean discarded;
+
+    public FlacSegmentWriter(File file, int sampleRate) throws IOException {
+        this(file, sampleRate, null);
+    }
+
+    // captureMetrics (có thể null) nhận số block phải ghi ra file tạm khi luồng mã hoá không theo kịp
+    public FlacSegmentWriter(File file, int sampleRate, CaptureMetrics captureMetrics) throws IOException {
+        this.file = file;
+        this.spillFile = new File(file.getPath() + ".spill");
+        this.sampleRate = sampleRate;
+        this.captureMetrics = captureMetrics;
+        this.encoder = new FlacEncoder(sampleRate);
+
+        raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(0);
+            // STREAMINFO tạm, được ghi lại khi close()
+            raf.write(encoder.streamHeader(false));
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+
+        for (int i = 0; i < QUEUE_BLOCKS; i++) {
+            freeBlocks.offer(new Block());
+        }
+        allocatedBlocks = QUEUE_BLOCKS;
+        current = freeBlocks.poll();
+    }
+
+    @Override
+    public void write(ByteBuffer src) throws IOException {
+        ensureOpen();
+        ByteOrder order = src.order();
+        src.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            while (src.remaining() >= 2) {
+                current.samples[current.length++] = src.getShort();
+                dataLength += 2;
+                if (current.length == FlacEncoder.BLOCK_SIZE) {
+                    submitCurrent();
+                }
+            }
+        } finally {
+            src.order(order);
+        }
+    }
+
+    @Override
+    public void write(short[] samples, int offset, int length) throws IOException {
+        ensureOpen();
+        while (length > 0) {
+            int chunk = Math.min(length, FlacEncoder.BLOCK_SIZE - current.length);
+            System.arraycopy(samples, offset, current.samples, current.length, chunk);
+            current.length += chunk;
+            dataLength += (long) chunk * 2;
+            offset += chunk;
+            length -= chunk;
+            if (current.length == FlacEncoder.BLOCK_SIZE) {
+                submitCurrent();
+            }
+        }
+    }
+
+    @Override
+    public long getDataLength() {
+        return dataLength;
+    }
+
+    // Số mẫu đã đi qua file tạm vì luồng mã hoá tụt quá MAX_BLOCKS block
+    public long getSpilledSamples() {
+        return spilledSamples;
+    }
+
+    // Số block đã cấp phát (QUEUE_BLOCKS cộng các block cấp thêm khi luồng mã hoá tụt lại)
+    public int getAllocatedBlocks() {
+        return allocatedBlocks;
+    }
+
+    // Kích thước file FLAC đã mã hoá tới thời điểm hiện tại
+    public long getEncodedLength() {
+        return encodedBytes;
+    }
+
+    @Override
+    public long getDurationMs() {
+        return dataLength / 2 * 1000 / sampleRate;
+    }
+
+    @Override
+    public File getFile() {
+        return file;
+    }
+
+    // Chờ luồng mã hoá xử lý hết các block rồi ghi lại STREAMINFO.
+    // Không gọi từ luồng thu âm.
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (current.length > 0) {
+            ENCODER_EXECUTOR.execute(current);
+        }
+        current = null;
+
+        // finish() đóng file trên luồng mã hoá, kể cả khi luồng gọi bị ngắt và không chờ nữa
+        Future<?> finished = ENCODER_EXECUTOR.submit(this::finish);
+        try {
+            finished.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while finishing " + file.getName());
+        } catch (ExecutionException e) {
+            throw new IOException("FLAC encoder failed", e.getCause());
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // Không chờ luồng mã hoá, gọi được từ luồng thu: các block còn trong hàng đợi bị bỏ qua,
+    // file được đóng và xoá trên luồng mã hoá
+    @Override
+    public void discard() {
+        if (discarded) {
+            return;
+        }
+        discarded = true;
+        closed = true;
+        current = null;
+        ENCODER_EXECUTOR.execute(() -> {
+            closeFiles();
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        });
+    }
+
+    // Trên luồng thu: không chờ luồng mã hoá
+    private void submitCurrent() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        Block next = freeBlocks.poll();
+        if (next == null && allocatedBlocks < MAX_BLOCKS) {
+            next = new Block();
+            allocatedBlocks++;
+        }
+        if (next == null) {
+            // Không chặn luồng thu (AudioRecord sẽ tràn buffer): block vừa đầy ra file tạm, dùng lại block
+            spillCurrent();
+            return;
+        }
+        ENCODER_EXECUTOR.execute(current);
+        current = next;
+    }
+
+    private void spillCurrent() throws IOException {
+        if (spill == null) {
+            spill = new RandomAccessFile(spillFile, "rw").getChannel();
+            spillStaging = ByteBuffer.allocateDirect(FlacEncoder.BLOCK_SIZE * 2).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        int samples = current.length;
+        spillStaging.clear();
+        spillStaging.asShortBuffer().put(current.samples, 0, samples);
+        spillStaging.limit(samples * 2);
+        long position = spillLength;
+        while (spillStaging.hasRemaining()) {
+            spill.write(spillStaging, position + spillStaging.position());
+        }
+        spillLength += samples * 2L;
+        spilledSamples += samples;
+        current.length = 0;
+        ENCODER_EXECUTOR.execute(() -> encodeSpilled(position, samples));
+        if (captureMetrics != null) {
+            captureMetrics.onEncoderSpill(samples * 1_000_000L / sampleRate);
+        }
+    }
+
+    // Chạy trên luồng mã hoá
+    private void encode(Block block) {
+        try {
+            encodeSamples(block.samples, block.length);
+        } finally {
+            block.length = 0;
+            freeBlocks.offer(block);
+        }
+    }
+
+    // Chạy trên luồng mã hoá: đọc lại block tràn từ file tạm
+    private void encodeSpilled(long position, int samples) {
+        if (failure != null || discarded) {
+            return;
+        }
+        try {
+            if (spillReadBuffer == null) {
+                spillReadBuffer = ByteBuffer.allocateDirect(FlacEncoder.BLOCK_SIZE * 2).order(ByteOrder.LITTLE_ENDIAN);
+                spillSamples = new short[FlacEncoder.BLOCK_SIZE];
+            }
+            spillReadBuffer.clear().limit(samples * 2);
+            while (spillReadBuffer.hasRemaining()) {
+                if (spill.read(spillReadBuffer, position + spillReadBuffer.position()) < 0) {
+                    throw new EOFException("Spill file truncated: " + spillFile.getName());
+                }
+            }
+            spillReadBuffer.flip();
+            spillReadBuffer.asShortBuffer().get(spillSamples, 0, samples);
+        } catch (IOException e) {
+            failure = e;
+            return;
+        }
+        encodeSamples(spillSamples, samples);
+    }
+
+    private void encodeSamples(short[] samples, int length) {
+        if (failure != null || discarded) {
+            return;
+        }
+        try {
+            int size = encoder.encodeFrame(samples, length);
+            raf.write(encoder.buffer(), 0, size);
+            encodedBytes += size;
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    // Chạy trên luồng mã hoá, sau mọi block đã gửi
+    private void finish() {
+        try {
+            if (failure == null && !discarded) {
+                raf.seek(0);
+                raf.write(encoder.streamHeader(true));
+            }
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            closeFiles();
+        }
+    }
+
+    // Chạy trên luồng mã hoá; gọi lại không làm gì
+    private void closeFiles() {
+        if (filesClosed) {
+            return;
+        }
+        filesClosed = true;
+        try {
+            raf.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+        if (spill != null) {
+            try {
+                spill.close();
+            } catch (IOException ignored) {
+                // Chỉ là file tạm, bị xoá ngay sau đó
+            }
+            //noinspection ResultOfMethodCallIgnored
+            spillFile.delete();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Segment already closed: " + file.getName());
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // Block mẫu cấp phát sẵn; chính block là Runnable gửi cho luồng mã hoá
+    private final class Block implements Runnable {
+        final short[] samples = new short[FlacEncoder.BLOCK_SIZE];
+        int length;
+
+        @Override
+        public void run() {
+            encode(this);
+        }
+    }
+}
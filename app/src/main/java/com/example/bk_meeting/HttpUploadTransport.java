@@ -0,0 +1,181 @@
+package com.example.bk_meeting;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+
+// UploadTransport qua HTTP(S) với HttpURLConnection, không cần thư viện ngoài.
+//
+// Tải lên có thể tiếp tục (segment lớn), theo kiểu resumable upload quen thuộc:
+//   PUT <endpoint>/<id>  Content-Range: bytes a-b/total  + phần thân là các byte a..b
+//     -> 308 + "Range: bytes=0-n" khi chưa đủ, 200/201 khi server đã nhận đủ total byte
+//   PUT <endpoint>/<id>  Content-Range: bytes */total, thân rỗng: hỏi server đã nhận tới đâu
+// Gộp nhiều segment nhỏ (một request):
+//   POST <endpoint>/batch  Content-Type: BATCH_CONTENT_TYPE, thân (big-endian, DataOutputStream):
+//     số item (int) | mỗi item: id, name, contentType (UTF) | độ dài (long) | các byte
+// id của item là khoá idempotent: gửi lại cùng id không tạo bản ghi mới trên server.
+public class HttpUploadTransport implements UploadTransport {
+
+    public static final String BATCH_CONTENT_TYPE = "application/vnd.bk-meeting.segment-batch";
+    static final int RESUME_INCOMPLETE = 308;
+
+    private final String endpoint;
+    private int connectTimeoutMs = 15_000;
+    private int readTimeoutMs = 30_000;
+
+    // endpoint: URL gốc, ví dụ https://host/api/segments (không có "/" ở cuối)
+    public HttpUploadTransport(URL endpoint) {
+        if (endpoint == null) {
+            throw new IllegalArgumentException("endpoint must not be null");
+        }
+        String base = endpoint.toString();
+        this.endpoint = base.endsWith("/") ? base.substring(0, base.length() - 1) : base;
+    }
+
+    public void setTimeouts(int connectTimeoutMs, int readTimeoutMs) {
+        if (connectTimeoutMs <= 0 || readTimeoutMs <= 0) {
+            throw new IllegalArgumentException("timeouts must be > 0");
+        }
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    @Override
+    public long queryProgress(UploadQueue.Item item, long total) throws IOException {
+        HttpURLConnection connection = open(itemUrl(item), "PUT", item);
+        try {
+            connection.setRequestProperty("Content-Range", "bytes */" + total);
+            connection.setFixedLengthStreamingMode(0);
+            connection.getOutputStream().close();
+            return readProgress(connection, total);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Override
+    public long uploadChunk(UploadQueue.Item item, long total, long offset, byte[] data, int length)
+            throws IOException {
+        HttpURLConnection connection = open(itemUrl(item), "PUT", item);
+        try {
+            connection.setRequestProperty("Content-Type", item.contentType);
+            connection.setRequestProperty("Content-Range",
+                    "bytes " + offset + "-" + (offset + length - 1) + "/" + total);
+            connection.setFixedLengthStreamingMode(length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(data, 0, length);
+            }
+            return readProgress(connection, total);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Override
+    public void uploadBatch(List<UploadQueue.Item> items, List<byte[]> payloads) throws IOException {
+        List<byte[]> headers = new ArrayList<>(items.size());
+        long bodyLength = 4;
+        for (int i = 0; i < items.size(); i++) {
+            UploadQueue.Item item = items.get(i);
+            ByteArrayOutputStream header = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(header);
+            out.writeUTF(item.id);
+            out.writeUTF(item.name);
+            out.writeUTF(item.contentType);
+            out.writeLong(payloads.get(i).length);
+            headers.add(header.toByteArray());
+            bodyLength += header.size() + payloads.get(i).length;
+        }
+        HttpURLConnection connection = open(endpoint + "/batch", "POST", null);
+        try {
+            connection.setRequestProperty("Content-Type", BATCH_CONTENT_TYPE);
+            connection.setFixedLengthStreamingMode(bodyLength);
+            // Viết lần lượt header + nội dung từng item, không ghép thành một mảng lớn
+            try (DataOutputStream out = new DataOutputStream(connection.getOutputStream())) {
+                out.writeInt(items.size());
+                for (int i = 0; i < items.size(); i++) {
+                    out.write(headers.get(i));
+                    out.write(payloads.get(i));
+                }
+            }
+            int status = connection.getResponseCode();
+            drain(connection, status);
+            if (status != HttpURLConnection.HTTP_OK && status != HttpURLConnection.HTTP_CREATED) {
+                throw statusError(status, "batch of " + items.size());
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private HttpURLConnection open(String url, String method, UploadQueue.Item item) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        connection.setDoOutput(true);
+        connection.setUseCaches(false);
+        // 308 ở đây nghĩa là "chưa nhận đủ", không phải chuyển hướng
+        connection.setInstanceFollowRedirects(false);
+        connection.setConnectTimeout(connectTimeoutMs);
+        connection.setReadTimeout(readTimeoutMs);
+        if (item != null) {
+            connection.setRequestProperty("X-Segment-Name", item.name);
+        }
+        return connection;
+    }
+
+    private String itemUrl(UploadQueue.Item item) throws IOException {
+        return endpoint + "/" + URLEncoder.encode(item.id, "UTF-8");
+    }
+
+    private static long readProgress(HttpURLConnection connection, long total) throws IOException {
+        int status = connection.getResponseCode();
+        drain(connection, status);
+        if (status == HttpURLConnection.HTTP_OK || status == HttpURLConnection.HTTP_CREATED) {
+            return total;
+        }
+        if (status != RESUME_INCOMPLETE) {
+            throw statusError(status, connection.getURL().getPath());
+        }
+        // "Range: bytes=0-n": đã nhận n + 1 byte; không có header: chưa nhận gì
+        String range = connection.getHeaderField("Range");
+        if (range == null) {
+            return 0;
+        }
+        int dash = range.lastIndexOf('-');
+        try {
+            return Long.parseLong(range.substring(dash + 1).trim()) + 1;
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            throw new IOException("Bad Range header: " + range);
+        }
+    }
+
+    // Đọc hết phần thân để kết nối được dùng lại (keep-alive)
+    private static void drain(HttpURLConnection connection, int status) {
+        try (InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream()) {
+            if (in != null) {
+                byte[] buffer = new byte[1024];
+                while (in.read(buffer) != -1) {
+                    // bỏ qua
+                }
+            }
+        } catch (IOException ignored) {
+            // Phần thân không quan trọng, mã trạng thái đã có
+        }
+    }
+
+    // 408/429/5xx là lỗi tạm thời; các mã 4xx khác là yêu cầu sai, gửi lại cũng vô ích
+    private static IOException statusError(int status, String what) {
+        String message = "HTTP " + status + " for " + what;
+        if (status == 408 || status == 429 || status >= 500) {
+            return new IOException(message);
+        }
+        return new UploadQueue.PermanentUploadException(message);
+    }
+}
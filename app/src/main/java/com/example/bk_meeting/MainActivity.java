@@ -1,120 +1,221 @@
 package com.example.bk_meeting;
 
+import android.Manifest;
+import android.app.Activity;
 import android.content.Intent;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
 import androidx.appcompat.app.AppCompatActivity;
-import android.hardware.display.DisplayManager;
+import androidx.core.app.ActivityCompat;
+import androidx.core.content.ContextCompat;
 import android.view.Display;
-import android.content.Context;
 import android.widget.Toast;
-import android.app.ActivityOptions;
 import android.util.DisplayMetrics;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 public class MainActivity extends AppCompatActivity {
 
-    private DisplayManager displayManager;
+    private static final String TAG = "Startup";
+    private static final int PERMISSION_REQUEST_CODE = 101;
+    private static final long KEEP_ALIVE_SECONDS = 10;
+    // Thời hạn của các việc chờ callback: quá hạn thì việc lỗi và màn hình vẫn được mở
+    // (WebView tạo lúc mở màn hình, FirstScreenActivity tự hỏi lại quyền)
+    private static final long WEBVIEW_TIMEOUT_MS = 5_000;
+    private static final long PERMISSIONS_TIMEOUT_MS = 60_000;
+    // Hộp thoại quyền đang mở khi activity bị tạo lại: kết quả sẽ về instance mới
+    private static final String STATE_PERMISSIONS_PENDING = "permissions_pending";
+    // Chỉ bản debug: tắt WebViewPool để đo so sánh thời gian mở màn hình khi không pre-warm
+    //   adb shell am start -S -W -n com.example.bk_meeting/.MainActivity --ez webview_pool false
+    // rồi so log "FirstPaintTimer" / "WebViewPool" với lần chạy không có extra
+    static final String EXTRA_WEBVIEW_POOL = "webview_pool";
+
+    // Thời điểm MainActivity được tạo, dùng khi không có Process.getStartUptimeMillis (API < 24)
+    private static long launchUptimeMillis;
+    private static boolean coldStartReported;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private ThreadPoolExecutor startupExecutor;
+    private StartupGraph startup;
+    // Chờ kết quả hộp thoại quyền, chỉ truy cập trên main thread
+    private StartupGraph.Completion permissionsCompletion;
+    private boolean permissionsPending;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        if (savedInstanceState == null) {
+            launchUptimeMillis = SystemClock.uptimeMillis();
+        } else {
+            permissionsPending = savedInstanceState.getBoolean(STATE_PERMISSIONS_PENDING);
+        }
         setContentView(R.layout.activity_main);
 
-        displayManager = (DisplayManager) getSystemService(Context.DISPLAY_SERVICE);
+        // Splash hiển thị tới khi các việc khởi tạo xong, không chờ cố định:
+        //   displays ─┬─ launchFirst (permissions, audio) ─┐
+        //             └─ launchSecond (webview) ───────────┴─ finish
+        // Hai màn hình mở độc lập: màn hình meeting không phải chờ WebView
+        startupExecutor = new ThreadPoolExecutor(2, 2, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> new Thread(r, "Startup"));
+        startupExecutor.allowCoreThreadTimeOut(true);
+        startup = new StartupGraph(mainHandler::post, startupExecutor, mainHandler::postDelayed,
+                new StartupGraph.Listener() {
+                    @Override
+                    public void onTaskFinished(String name, long waitNanos, long runNanos, Throwable error) {
+                        if (error != null) {
+                            Log.w(TAG, name + " failed after " + runNanos / 1_000_000 + " ms", error);
+                        } else {
+                            Log.d(TAG, name + ": waited " + waitNanos / 1_000_000 + " ms, ran " + runNanos / 1_000_000 + " ms");
+                        }
+                    }
+
+                    @Override
+                    public void onFinished(long totalNanos) {
+                        Log.i(TAG, "Startup graph finished in " + totalNanos / 1_000_000 + " ms");
+                        startupExecutor.shutdown();
+                    }
+                });
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            WebViewPool.setEnabled(getIntent().getBooleanExtra(EXTRA_WEBVIEW_POOL, true));
+        }
+        // Khởi tạo engine WebView, giữ sẵn WebView cho hai màn hình, mở trước kết nối tới máy chủ meeting
+        startup.addTask("webview", true, WEBVIEW_TIMEOUT_MS,
+                completion -> WebViewPool.prewarm(this, WebViewActivity.MEETING_ORIGIN, completion::done));
+        // AudioEngine (VoiceDetectionManager, hàng đợi upload) tạo ở luồng nền thay vì trong onCreate của FirstScreenActivity
+        startup.add("audio", false, () -> AudioEngine.getInstance(getApplicationContext()));
+        startup.addTask("permissions", true, PERMISSIONS_TIMEOUT_MS, this::requestPermissions);
+        startup.add("displays", true, this::checkDisplaysAndLaunch);
+        startup.start();
+    }
 
-        // Delay một chút để hiển thị splash screen
-        new Handler(Looper.getMainLooper()).postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                checkDisplaysAndLaunch();
-            }
-        }, 1500);
+    // Gọi khi màn hình meeting đã vẽ khung hình đầu: ghi thời gian khởi động lạnh tới lúc tương tác được,
+    // tính từ khi tiến trình khởi động (API < 24: từ khi MainActivity được tạo). Chỉ ghi lần đầu.
+    static void reportInteractive(Activity activity) {
+        if (coldStartReported) {
+            return;
+        }
+        coldStartReported = true;
+        long startMillis = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+                ? Process.getStartUptimeMillis() : launchUptimeMillis;
+        if (startMillis > 0) {
+            Log.i(TAG, activity.getClass().getSimpleName() + " interactive "
+                    + (SystemClock.uptimeMillis() - startMillis) + " ms after process start");
+        }
+        activity.reportFullyDrawn();
     }
 
-    private void checkDisplaysAndLaunch() {
-        Display[] displays = displayManager.getDisplays();
+    // Hỏi quyền ngay trong splash để FirstScreenActivity mở ra là dùng được camera/micro;
+    // bị từ chối vẫn tiếp tục, FirstScreenActivity sẽ hỏi lại
+    private void requestPermissions(StartupGraph.Completion completion) {
+        List<String> permissions = new ArrayList<>();
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA) != PackageManager.PERMISSION_GRANTED) {
+            permissions.add(Manifest.permission.CAMERA);
+        }
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.RECORD_AUDIO) != PackageManager.PERMISSION_GRANTED) {
+            permissions.add(Manifest.permission.RECORD_AUDIO);
+        }
+        if (permissions.isEmpty()) {
+            completion.done();
+            return;
+        }
+        permissionsCompletion = completion;
+        if (permissionsPending) {
+            // Yêu cầu của instance trước vẫn đang chờ, không hỏi lại
+            return;
+        }
+        permissionsPending = true;
+        ActivityCompat.requestPermissions(this, permissions.toArray(new String[0]), PERMISSION_REQUEST_CODE);
+    }
 
-        if (displays.length >= 2) {
-            // Có nhiều màn hình - launch dual screen
-            launchDualScreenMode(displays);
-        } else {
-            // Chỉ có 1 màn hình - launch single screen mode
-            launchSingleScreenMode();
+    @Override
+    public void onRequestPermissionsResult(int requestCode, String[] permissions, int[] grantResults) {
+        super.onRequestPermissionsResult(requestCode, permissions, grantResults);
+        if (requestCode != PERMISSION_REQUEST_CODE) {
+            return;
+        }
+        permissionsPending = false;
+        if (permissionsCompletion != null) {
+            StartupGraph.Completion completion = permissionsCompletion;
+            permissionsCompletion = null;
+            completion.done();
         }
     }
 
-    private void launchDualScreenMode(Display[] displays) {
-        Toast.makeText(this, "🖥️ Dual Screen Mode - " + displays.length + " displays detected", Toast.LENGTH_LONG).show();
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putBoolean(STATE_PERMISSIONS_PENDING, permissionsPending);
+    }
 
-        // Display 0: Màn hình chính - Meeting App (FirstScreenActivity)
-        Display primaryDisplay = displays[0];
+    @Override
+    protected void onDestroy() {
+        // Bị tạo lại (xoay màn hình...): instance mới chạy đồ thị riêng. Kết thúc việc đang chờ
+        // để đồ thị cũ không giữ activity này; các việc mở màn hình của nó sẽ bỏ qua
+        if (permissionsCompletion != null) {
+            StartupGraph.Completion completion = permissionsCompletion;
+            permissionsCompletion = null;
+            completion.fail(new IllegalStateException("MainActivity destroyed"));
+        }
+        super.onDestroy();
+    }
 
-        // Display 1: Màn hình phụ - Facebook (SecondScreenActivity)
-        Display secondaryDisplay = displays[1];
+    private void checkDisplaysAndLaunch() {
+        DisplayRegistry displayRegistry = DisplayRegistry.getInstance(this);
 
-        // Launch FirstScreenActivity trên màn hình chính
-        Intent meetingIntent = new Intent(this, FirstScreenActivity.class);
-        meetingIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_MULTIPLE_TASK);
+        if (displayRegistry.isDualScreenAvailable()) {
+            // Có nhiều màn hình - launch dual screen
+            Toast.makeText(this, "🖥️ Dual Screen Mode - " + displayRegistry.getDisplayCount() + " displays detected", Toast.LENGTH_LONG).show();
+        } else {
+            // Chỉ có 1 màn hình - launch single screen mode (màn hình phụ mở kề bên)
+            Toast.makeText(this, "📱 Single Screen Mode", Toast.LENGTH_SHORT).show();
+        }
+        startup.add("launchFirst", true, this::launchFirstScreen, "displays", "permissions", "audio");
+        startup.add("launchSecond", true, this::launchSecondScreen, "displays", "webview");
+        // Đóng MainActivity khi cả hai màn hình đã được mở
+        startup.add("finish", true, this::finish, "launchFirst", "launchSecond");
+    }
 
-        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.O) {
-            ActivityOptions primaryOptions = ActivityOptions.makeBasic();
-            primaryOptions.setLaunchDisplayId(primaryDisplay.getDisplayId());
-            startActivity(meetingIntent, primaryOptions.toBundle());
+    // Màn hình chính - Meeting App (FirstScreenActivity). Cắm/rút màn hình phụ sau đó do
+    // FirstScreenActivity xử lý qua DisplayRegistry
+    private void launchFirstScreen() {
+        if (isFinishing() || isDestroyed()) {
+            return;
+        }
+        Intent meetingIntent = new Intent(this, FirstScreenActivity.class);
+        Display primaryDisplay = DisplayRegistry.getInstance(this).getPrimaryDisplay();
+        if (primaryDisplay != null && DisplayRegistry.getInstance(this).isDualScreenAvailable()) {
+            meetingIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+            DisplayManagerUtil.launchOnSpecificDisplay(this, meetingIntent, primaryDisplay.getDisplayId(), false);
         } else {
             startActivity(meetingIntent);
         }
-
-        // Launch SecondScreenActivity trên màn hình phụ
-        new Handler(Looper.getMainLooper()).postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                Intent facebookIntent = new Intent(MainActivity.this, SecondScreenActivity.class);
-                facebookIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_MULTIPLE_TASK);
-
-                if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.O) {
-                    ActivityOptions secondaryOptions = ActivityOptions.makeBasic();
-                    secondaryOptions.setLaunchDisplayId(secondaryDisplay.getDisplayId());
-                    startActivity(facebookIntent, secondaryOptions.toBundle());
-                } else {
-                    startActivity(facebookIntent);
-                }
-
-                Toast.makeText(MainActivity.this, "✅ Launched on both screens!", Toast.LENGTH_SHORT).show();
-            }
-        }, 500);
-
-        // Đóng MainActivity
-        new Handler(Looper.getMainLooper()).postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                finish();
-            }
-        }, 1000);
     }
 
-    private void launchSingleScreenMode() {
-        Toast.makeText(this, "📱 Single Screen Mode", Toast.LENGTH_SHORT).show();
-
-        // Launch như cũ với FLAG_ACTIVITY_LAUNCH_ADJACENT để simulate dual screen
-        Intent facebookIntent = new Intent(this, SecondScreenActivity.class);
-        facebookIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK |
-                Intent.FLAG_ACTIVITY_MULTIPLE_TASK |
-                Intent.FLAG_ACTIVITY_LAUNCH_ADJACENT);
-        startActivity(facebookIntent);
-
-        new Handler(Looper.getMainLooper()).postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                Intent meetingIntent = new Intent(MainActivity.this, FirstScreenActivity.class);
-                startActivity(meetingIntent);
-                finish();
-            }
-        }, 300);
+    // Màn hình phụ - Facebook (SecondScreenActivity); một màn hình: mở kề bên để simulate dual screen
+    private void launchSecondScreen() {
+        if (isFinishing() || isDestroyed()) {
+            return;
+        }
+        Display secondaryDisplay = DisplayRegistry.getInstance(this).getSecondaryDisplay();
+        DisplayManagerUtil.showSecondScreen(this, secondaryDisplay);
+        if (secondaryDisplay != null) {
+            Toast.makeText(this, "✅ Launched on both screens!", Toast.LENGTH_SHORT).show();
+        }
     }
 
     private void logDisplayInfo() {
-        Display[] displays = displayManager.getDisplays();
+        Display[] displays = DisplayRegistry.getInstance(this).getDisplays();
         for (int index = 0; index < displays.length; index++) {
             Display display = displays[index];
             DisplayMetrics displayMetrics = new DisplayMetrics();
@@ -0,0 +1,46 @@
+package com.example.bk_meeting;
+
+// Một ghi chú đã lưu; bất biến nên dùng chung được giữa UI, adapter diff và NoteJournal
+public final class MeetingNote {
+
+    public final long id;
+    public final String title;
+    public final String content;
+    public final long createdAtMillis;
+    public final long updatedAtMillis;
+
+    public MeetingNote(long id, String title, String content, long createdAtMillis, long updatedAtMillis) {
+        if (title == null || content == null) {
+            throw new IllegalArgumentException("title and content must not be null");
+        }
+        this.id = id;
+        this.title = title;
+        this.content = content;
+        this.createdAtMillis = createdAtMillis;
+        this.updatedAtMillis = updatedAtMillis;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MeetingNote)) {
+            return false;
+        }
+        MeetingNote other = (MeetingNote) o;
+        return id == other.id && createdAtMillis == other.createdAtMillis
+                && updatedAtMillis == other.updatedAtMillis
+                && title.equals(other.title) && content.equals(other.content);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return "MeetingNote{id=" + id + ", title=" + title + "}";
+    }
+}
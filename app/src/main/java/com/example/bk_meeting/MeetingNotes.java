@@ -0,0 +1,87 @@
+package com.example.bk_meeting;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Ghi chú trong buổi họp, hiển thị dạng "[HH:mm] tiêu đề: nội dung". Ghi chú là dữ liệu người dùng
+// nên không giới hạn số lượng; bộ nhớ chỉ tăng theo nội dung đã nhập (RecyclerView tái sử dụng view).
+// Mỗi thay đổi tạo một danh sách bất biến mới (copy-on-write) để adapter diff trên luồng nền
+// giữa hai snapshot. Lưu bền qua NoteJournal. Không thread-safe, chỉ dùng trên main thread
+public class MeetingNotes {
+
+    private List<MeetingNote> notes = Collections.emptyList();
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
+    private long textChars;
+    private long lastId;
+
+    // Trả về ghi chú đã thêm, null nếu cả tiêu đề và nội dung đều trống
+    public MeetingNote add(String title, String content, Date time) {
+        title = title == null ? "" : title.trim();
+        content = content == null ? "" : content.trim();
+        if (title.isEmpty() && content.isEmpty()) {
+            return null;
+        }
+
+        // id tăng dần theo thời gian: không trùng với ghi chú của các phiên trước trong journal
+        lastId = Math.max(lastId + 1, time.getTime());
+        MeetingNote note = new MeetingNote(lastId, title, content, time.getTime(), time.getTime());
+        List<MeetingNote> next = new ArrayList<>(notes.size() + 1);
+        next.addAll(notes);
+        next.add(note);
+        notes = Collections.unmodifiableList(next);
+        textChars += title.length() + content.length();
+        return note;
+    }
+
+    // Gộp các ghi chú nạp từ journal với các ghi chú đã thêm trong lúc nạp (cùng id thì bản mới hơn thắng),
+    // sắp theo thời gian tạo
+    public void restore(List<MeetingNote> loaded) {
+        Map<Long, MeetingNote> byId = new LinkedHashMap<>();
+        for (MeetingNote note : loaded) {
+            byId.put(note.id, note);
+        }
+        for (MeetingNote note : notes) {
+            MeetingNote existing = byId.get(note.id);
+            if (existing == null || existing.updatedAtMillis <= note.updatedAtMillis) {
+                byId.put(note.id, note);
+            }
+        }
+        List<MeetingNote> next = new ArrayList<>(byId.values());
+        Collections.sort(next, (a, b) -> a.createdAtMillis != b.createdAtMillis
+                ? Long.compare(a.createdAtMillis, b.createdAtMillis) : Long.compare(a.id, b.id));
+        textChars = 0;
+        for (MeetingNote note : next) {
+            textChars += note.title.length() + note.content.length();
+            lastId = Math.max(lastId, note.id);
+        }
+        notes = Collections.unmodifiableList(next);
+    }
+
+    public String format(MeetingNote note) {
+        String timestamp = timeFormat.format(new Date(note.createdAtMillis));
+        if (!note.title.isEmpty()) {
+            return "[" + timestamp + "] " + note.title + ": " + note.content;
+        }
+        return "[" + timestamp + "] " + note.content;
+    }
+
+    // Snapshot bất biến tại thời điểm gọi, an toàn khi đọc từ luồng khác
+    public List<MeetingNote> snapshot() {
+        return notes;
+    }
+
+    public int size() {
+        return notes.size();
+    }
+
+    // Tổng số ký tự tiêu đề + nội dung, để ước lượng bộ nhớ giữ lại
+    public long getTextChars() {
+        return textChars;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.bk_meeting;
+
+import java.util.Locale;
+
+// Stage khử nhiễu (SpectralNoiseSuppressor) sửa frame tại chỗ trên luồng thu, trước các stage khác,
+// fan-out, bộ đệm vòng và writer segment. VAD vẫn chạy trên âm thanh gốc và cung cấp khung im lặng
+// để học phổ nhiễu. Âm thanh ra trễ getLatencySamples() (~32 ms ở 16 kHz), nằm gọn trong
+// pre-roll/hang-over nên ranh giới câu không bị cắt vào giọng nói.
+// Ngân sách CPU: thời gian xử lý được đo so với thời lượng âm thanh theo từng cửa sổ; cửa sổ nào
+// vượt cpuBudget (tỉ lệ thời gian thực của một lõi) thì suppressor chuyển sang bypass tới hết phiên,
+// vẫn giữ đúng độ trễ để file không bị hụt mẫu.
+public class NoiseSuppressionStage implements AudioStage {
+
+    private static final int BUDGET_WINDOW_MS = 5_000;
+
+    private final float cpuBudget;
+    private volatile SpectralNoiseSuppressor suppressor;
+
+    // Chỉ luồng thu ghi; đọc từ luồng khác để log
+    private volatile long processNanos;
+    private volatile long processedSamples;
+    private volatile float peakWindowLoad;
+    private long windowNanos;
+    private long windowSamples;
+    private long windowLimitSamples;
+    private int sampleRate;
+
+    public NoiseSuppressionStage() {
+        this(0.25f);
+    }
+
+    // cpuBudget: phần thời gian thực tối đa được dùng, ví dụ 0.25 = 25% một lõi
+    public NoiseSuppressionStage(float cpuBudget) {
+        if (cpuBudget <= 0) {
+            throw new IllegalArgumentException("cpuBudget must be > 0");
+        }
+        this.cpuBudget = cpuBudget;
+    }
+
+    @Override
+    public void onStart(int sampleRate) {
+        if (suppressor == null || this.sampleRate != sampleRate) {
+            suppressor = new SpectralNoiseSuppressor(sampleRate);
+        } else {
+            suppressor.reset();
+        }
+        this.sampleRate = sampleRate;
+        windowLimitSamples = (long) sampleRate * BUDGET_WINDOW_MS / 1000;
+        processNanos = 0;
+        processedSamples = 0;
+        peakWindowLoad = 0;
+        windowNanos = 0;
+        windowSamples = 0;
+    }
+
+    @Override
+    public void onFrame(AudioFrame frame, boolean voiceDetected) {
+        long start = System.nanoTime();
+        suppressor.process(frame.samples(), voiceDetected);
+        long elapsed = System.nanoTime() - start;
+
+        int samples = frame.getSampleCount();
+        processNanos += elapsed;
+        processedSamples += samples;
+        windowNanos += elapsed;
+        windowSamples += samples;
+        if (windowSamples >= windowLimitSamples) {
+            float load = windowNanos / (windowSamples * 1e9f / sampleRate);
+            if (load > peakWindowLoad) {
+                peakWindowLoad = load;
+            }
+            if (load > cpuBudget) {
+                suppressor.setBypass(true);
+            }
+            windowNanos = 0;
+            windowSamples = 0;
+        }
+    }
+
+    @Override
+    public void onStop() {
+    }
+
+    // Tỉ lệ thời gian xử lý / thời lượng âm thanh của cả phiên (1.0 = một lõi chạy đủ thời gian thực)
+    public float getCpuLoad() {
+        long samples = processedSamples;
+        return samples > 0 && sampleRate > 0 ? processNanos / (samples * 1e9f / sampleRate) : 0;
+    }
+
+    // Tải cao nhất của một cửa sổ BUDGET_WINDOW_MS
+    public float getPeakWindowLoad() {
+        return peakWindowLoad;
+    }
+
+    public boolean isBypassed() {
+        SpectralNoiseSuppressor current = suppressor;
+        return current != null && current.isBypassed();
+    }
+
+    // Suppressor của phiên hiện tại (null trước onStart), để chỉnh tham số trên luồng thu
+    SpectralNoiseSuppressor getSuppressor() {
+        return suppressor;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "NoiseSuppression{load=%.2f%%, peak=%.2f%%, budget=%.0f%%, bypassed=%s}",
+                getCpuLoad() * 100, peakWindowLoad * 100, cpuBudget * 100, isBypassed());
+    }
+}
@@ -0,0 +1,400 @@
+package com.example.bk_meeting;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.CRC32;
+
+// Lưu bền ghi chú dưới dạng journal nối đuôi (append-only) các bản ghi có cấu trúc.
+// put()/delete() chỉ đưa bản ghi vào hàng đợi; một luồng nền gom mọi bản ghi đang chờ thành một lần
+// write + một lần fsync (group commit), nên main thread không bao giờ chạm đĩa.
+// load() đọc cả file một lần và dựng lại trạng thái; bản ghi cuối ghi dở (app bị dừng) bị bỏ qua và
+// cắt đi. Khi số bản ghi cũ (bị ghi đè/xoá) vượt số ghi chú còn sống, journal được viết lại thành
+// một file gọn (ghi file tạm, fsync, rename) ngay trên luồng nền.
+// Mọi instance dùng chung một luồng nền: Activity bị huỷ rồi mở lại ngay (back, đổi màn hình)
+// tạo journal mới trên cùng file, commit còn chờ của journal cũ luôn chạy trước lần nạp của
+// journal mới, nên lần nạp không cắt mất bản ghi vừa ghi.
+//
+// File: header HEADER_SIZE byte (magic "BKNJ", version) rồi các bản ghi little-endian:
+//   length (int, độ dài phần thân) | crc32 (int, của phần thân) | thân:
+//   type (byte) | id | createdAt | updatedAt (long) | title, content (int độ dài + UTF-8)
+public class NoteJournal {
+
+    public interface Listener {
+        // Gọi trên luồng journal sau mỗi lần commit
+        void onCommitted(int records, long latencyNanos);
+
+        // Bản ghi của lần commit lỗi vẫn nằm trong hàng đợi và được thử lại ở lần put() sau
+        void onFailed(IOException error);
+    }
+
+    public interface LoadCallback {
+        // Gọi trên luồng journal
+        void onLoaded(List<MeetingNote> notes, long loadNanos);
+
+        void onLoadFailed(IOException error);
+    }
+
+    static final int MAGIC = 0x4A4E4B42; // "BKNJ" little-endian
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int RECORD_PREFIX = 8;
+    static final byte TYPE_PUT = 1;
+    static final byte TYPE_DELETE = 2;
+
+    private static final int COMPACT_MIN_RECORDS = 256;
+    private static final long KEEP_ALIVE_SECONDS = 10;
+
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS,
+            TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> new Thread(r, "NoteJournal"));
+
+    static {
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    private final File file;
+    private final Listener listener;
+
+    // Hàng đợi của main thread; luồng journal lấy cả lô trong một lần
+    private final Object lock = new Object();
+    private List<Record> pending = new ArrayList<>();
+    private boolean commitScheduled;
+    private long enqueuedAtNanos;
+
+    // Chỉ luồng journal truy cập
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private final Map<Long, MeetingNote> live = new LinkedHashMap<>();
+    private int recordCount;
+    private ByteBuffer encodeBuffer = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+    private final CRC32 crc = new CRC32();
+    private long commits;
+
+    private static final class Record {
+        final byte type;
+        final MeetingNote note; // null với TYPE_DELETE
+        final long id;
+
+        Record(byte type, MeetingNote note, long id) {
+            this.type = type;
+            this.note = note;
+            this.id = id;
+        }
+    }
+
+    public NoteJournal(File file, Listener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("listener must not be null");
+        }
+        this.file = file;
+        this.listener = listener;
+    }
+
+    // Nạp trên luồng journal; các put() gọi trước đó được ghi sau khi nạp xong
+    public void load(LoadCallback callback) {
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                ensureOpen();
+                callback.onLoaded(Collections.unmodifiableList(new ArrayList<>(live.values())),
+                        System.nanoTime() - start);
+            } catch (IOException e) {
+                callback.onLoadFailed(e);
+            }
+        });
+    }
+
+    // Thêm hoặc thay ghi chú cùng id
+    public void put(MeetingNote note) {
+        enqueue(new Record(TYPE_PUT, note, note.id));
+    }
+
+    public void delete(long id) {
+        enqueue(new Record(TYPE_DELETE, null, id));
+    }
+
+    private void enqueue(Record record) {
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                enqueuedAtNanos = System.nanoTime();
+            }
+            pending.add(record);
+            if (commitScheduled) {
+                // Lần commit đã lên lịch sẽ gom luôn bản ghi này
+                return;
+            }
+            commitScheduled = true;
+        }
+        executor.execute(this::commit);
+    }
+
+    // Chờ mọi bản ghi đã gửi trước đó được ghi bền; false nếu hết thời gian
+    public boolean awaitIdle(long timeoutMs) throws InterruptedException {
+        try {
+            executor.submit(() -> { }).get(timeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Ghi nốt các bản ghi đang chờ rồi đóng file; không chặn luồng gọi
+    public void close() {
+        executor.execute(() -> {
+            try {
+                closeChannel();
+            } catch (IOException e) {
+                listener.onFailed(e);
+            }
+        });
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    // Số lần group commit (fsync) đã thực hiện
+    public long getCommitCount() {
+        synchronized (lock) {
+            return commits;
+        }
+    }
+
+    private void commit() {
+        List<Record> batch;
+        long enqueuedAt;
+        synchronized (lock) {
+            batch = pending;
+            enqueuedAt = enqueuedAtNanos;
+            pending = new ArrayList<>();
+            commitScheduled = false;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            ensureOpen();
+            encodeBuffer.clear();
+            for (Record record : batch) {
+                encode(record);
+            }
+            encodeBuffer.flip();
+            long position = channel.size();
+            while (encodeBuffer.hasRemaining()) {
+                position += channel.write(encodeBuffer, position);
+            }
+            channel.force(false);
+            for (Record record : batch) {
+                apply(record.type, record.id, record.note);
+            }
+            synchronized (lock) {
+                commits++;
+            }
+            listener.onCommitted(batch.size(), System.nanoTime() - enqueuedAt);
+            if (recordCount >= COMPACT_MIN_RECORDS && recordCount > 2 * live.size()) {
+                compact();
+            }
+        } catch (IOException e) {
+            // Trả lô về đầu hàng đợi để thử lại cùng lần commit sau; phần ghi dở bị cắt ở lần mở lại
+            synchronized (lock) {
+                batch.addAll(pending);
+                pending = batch;
+            }
+            try {
+                closeChannel();
+            } catch (IOException ignored) {
+                // Đã báo lỗi ghi
+            }
+            listener.onFailed(e);
+        }
+    }
+
+    private void apply(byte type, long id, MeetingNote note) {
+        if (type == TYPE_PUT) {
+            live.put(id, note);
+        } else {
+            live.remove(id);
+        }
+        recordCount++;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (channel != null) {
+            return;
+        }
+        live.clear();
+        recordCount = 0;
+        long validEnd = HEADER_SIZE;
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+        if (raf.length() > 0) {
+            // Đọc cả file một lần (vài trăm KB cho hàng nghìn ghi chú) rồi giải mã trong bộ nhớ
+            byte[] bytes = new byte[(int) raf.length()];
+            raf.readFully(bytes);
+            try {
+                validEnd = replay(bytes);
+            } catch (IOException e) {
+                // Không phải journal: để riêng ra cho lần commit sau bắt đầu file mới
+                closeChannel();
+                File corrupt = new File(file.getPath() + ".corrupt");
+                if (!corrupt.delete() && corrupt.exists() || !file.renameTo(corrupt)) {
+                    throw new IOException("Cannot move aside " + file, e);
+                }
+                throw e;
+            }
+        }
+        if (validEnd == HEADER_SIZE && channel.size() < HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            channel.write(header, 0);
+        }
+        if (channel.size() > validEnd) {
+            // Bản ghi cuối ghi dở
+            channel.truncate(validEnd);
+        }
+        channel.force(false);
+        if (recordCount >= COMPACT_MIN_RECORDS && recordCount > 2 * live.size()) {
+            compact();
+        }
+    }
+
+    // Dựng lại live từ nội dung file, trả về vị trí kết thúc của bản ghi hợp lệ cuối cùng
+    private long replay(byte[] bytes) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (bytes.length < HEADER_SIZE || in.getInt(0) != MAGIC || in.getInt(4) != VERSION) {
+            throw new IOException("Không phải file ghi chú: " + file.getName());
+        }
+        int position = HEADER_SIZE;
+        while (position + RECORD_PREFIX <= bytes.length) {
+            int length = in.getInt(position);
+            int checksum = in.getInt(position + 4);
+            int body = position + RECORD_PREFIX;
+            if (length <= 0 || length > bytes.length - body) {
+                break;
+            }
+            crc.reset();
+            crc.update(bytes, body, length);
+            if ((int) crc.getValue() != checksum || !decode(in, body, length)) {
+                break;
+            }
+            position = body + length;
+        }
+        return position;
+    }
+
+    private boolean decode(ByteBuffer in, int body, int length) {
+        try {
+            in.limit(body + length).position(body);
+            byte type = in.get();
+            long id = in.getLong();
+            long createdAt = in.getLong();
+            long updatedAt = in.getLong();
+            if (type == TYPE_PUT) {
+                String title = readString(in);
+                String content = readString(in);
+                apply(type, id, new MeetingNote(id, title, content, createdAt, updatedAt));
+            } else if (type == TYPE_DELETE) {
+                apply(type, id, null);
+            } else {
+                return false;
+            }
+            return true;
+        } catch (RuntimeException e) {
+            // Độ dài chuỗi sai trong bản ghi có CRC đúng: coi như hỏng
+            return false;
+        } finally {
+            in.limit(in.capacity());
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private void encode(Record record) {
+        byte[] title = record.note != null ? record.note.title.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        byte[] content = record.note != null ? record.note.content.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int length = 1 + 8 * 3 + (record.type == TYPE_PUT ? 8 + title.length + content.length : 0);
+        ensureCapacity(RECORD_PREFIX + length);
+
+        int start = encodeBuffer.position();
+        encodeBuffer.position(start + RECORD_PREFIX);
+        encodeBuffer.put(record.type);
+        encodeBuffer.putLong(record.id);
+        encodeBuffer.putLong(record.note != null ? record.note.createdAtMillis : 0);
+        encodeBuffer.putLong(record.note != null ? record.note.updatedAtMillis : 0);
+        if (record.type == TYPE_PUT) {
+            encodeBuffer.putInt(title.length).put(title);
+            encodeBuffer.putInt(content.length).put(content);
+        }
+        crc.reset();
+        crc.update(encodeBuffer.array(), start + RECORD_PREFIX, length);
+        encodeBuffer.putInt(start, length);
+        encodeBuffer.putInt(start + 4, (int) crc.getValue());
+    }
+
+    private void ensureCapacity(int extra) {
+        if (encodeBuffer.remaining() < extra) {
+            int capacity = Math.max(encodeBuffer.capacity() * 2, encodeBuffer.position() + extra);
+            ByteBuffer grown = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+            encodeBuffer.flip();
+            grown.put(encodeBuffer);
+            encodeBuffer = grown;
+        }
+    }
+
+    // Viết lại journal chỉ gồm các ghi chú còn sống; rename là nguyên tử nên app bị dừng giữa chừng
+    // vẫn để lại file cũ hoặc file mới đầy đủ
+    private void compact() throws IOException {
+        File temp = new File(file.getPath() + ".compact");
+        encodeBuffer.clear();
+        encodeBuffer.putInt(MAGIC).putInt(VERSION);
+        for (MeetingNote note : live.values()) {
+            encode(new Record(TYPE_PUT, note, note.id));
+        }
+        encodeBuffer.flip();
+        try (RandomAccessFile out = new RandomAccessFile(temp, "rw")) {
+            out.setLength(0);
+            FileChannel outChannel = out.getChannel();
+            while (encodeBuffer.hasRemaining()) {
+                outChannel.write(encodeBuffer);
+            }
+            outChannel.force(false);
+        }
+        closeChannel();
+        if (!temp.renameTo(file)) {
+            throw new IOException("Cannot rename " + temp + " to " + file);
+        }
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+        recordCount = live.size();
+    }
+
+    private void closeChannel() throws IOException {
+        if (raf != null) {
+            channel = null;
+            RandomAccessFile closing = raf;
+            raf = null;
+            closing.close();
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.example.bk_meeting;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// Chỉ mục ngược (inverted index) trong bộ nhớ cho tìm kiếm ghi chú khi đang gõ.
+// Token được chuẩn hoá bỏ dấu tiếng Việt và chữ hoa ("Họp" -> "hop", "Đề" -> "de") nên gõ không dấu
+// vẫn tìm được. Cập nhật tăng dần: put() chỉ thêm posting của một ghi chú, không dựng lại cả chỉ mục.
+// Mỗi ghi chú có một docId nội bộ tăng dần nên posting list luôn chỉ nối đuôi; sửa/xoá đánh dấu docId
+// cũ là chết và posting của nó được bỏ qua khi truy vấn, dọn hẳn khi số doc chết vượt số doc sống.
+// Term được giữ trong TreeMap để tìm theo tiền tố: mọi token của truy vấn đều khớp tiền tố
+// ("ho" khớp "hop", "hoc"), khớp nguyên từ được điểm cao hơn. Các token kết hợp theo AND.
+// Không thread-safe: NoteSearcher chỉ truy cập trên một luồng nền.
+public class NoteSearchIndex {
+
+    static final int TITLE_WEIGHT = 3;
+    static final float PREFIX_FACTOR = 0.5f;
+    private static final int MIN_REBUILD_DEAD = 1024;
+    private static final int INITIAL_DOCS = 256;
+
+    // Bảng bỏ dấu cho U+0000..U+1EFF (Latin, Latin mở rộng và khối tiếng Việt U+1EA0..U+1EF9),
+    // dựng một lần bằng Normalizer thay vì chuẩn hoá từng chuỗi
+    private static final char FOLD_LIMIT = 0x1F00;
+    private static final char[] FOLD = buildFoldTable();
+
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] weights = new int[4];
+        int size;
+        int live; // số posting của doc còn sống, làm document frequency
+
+        void add(int doc, int weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size] = weight;
+            size++;
+            live++;
+        }
+    }
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Long, Integer> docByNoteId = new HashMap<>();
+    private MeetingNote[] notes = new MeetingNote[INITIAL_DOCS];
+    private String[][] docTerms = new String[INITIAL_DOCS][];
+    private int docCount;
+    private int liveDocs;
+
+    // Bộ đệm dùng lại giữa các truy vấn (chỉ một luồng truy cập)
+    private float[] scores = new float[INITIAL_DOCS];
+    private int[] matched = new int[INITIAL_DOCS];
+    private int[] touched = new int[INITIAL_DOCS];
+    private final Map<String, Integer> tokenWeights = new HashMap<>();
+
+    // Thêm hoặc thay ghi chú cùng id
+    public void put(MeetingNote note) {
+        remove(note.id);
+        tokenWeights.clear();
+        countTokens(note.title, TITLE_WEIGHT);
+        countTokens(note.content, 1);
+
+        int doc = docCount++;
+        if (doc == notes.length) {
+            notes = Arrays.copyOf(notes, doc * 2);
+            docTerms = Arrays.copyOf(docTerms, doc * 2);
+        }
+        notes[doc] = note;
+        String[] keys = new String[tokenWeights.size()];
+        int k = 0;
+        for (Map.Entry<String, Integer> entry : tokenWeights.entrySet()) {
+            String term = entry.getKey();
+            Postings postings = terms.get(term);
+            if (postings == null) {
+                postings = new Postings();
+                terms.put(term, postings);
+            }
+            postings.add(doc, entry.getValue());
+            keys[k++] = term;
+        }
+        docTerms[doc] = keys;
+        docByNoteId.put(note.id, doc);
+        liveDocs++;
+    }
+
+    public void putAll(List<MeetingNote> list) {
+        for (MeetingNote note : list) {
+            put(note);
+        }
+    }
+
+    // Trả về false nếu không có ghi chú với id này
+    public boolean remove(long noteId) {
+        Integer doc = docByNoteId.remove(noteId);
+        if (doc == null) {
+            return false;
+        }
+        for (String term : docTerms[doc]) {
+            Postings postings = terms.get(term);
+            if (--postings.live == 0) {
+                terms.remove(term);
+            }
+        }
+        notes[doc] = null;
+        docTerms[doc] = null;
+        liveDocs--;
+        int dead = docCount - liveDocs;
+        if (dead >= MIN_REBUILD_DEAD && dead > liveDocs) {
+            rebuild();
+        }
+        return true;
+    }
+
+    public void clear() {
+        terms.clear();
+        docByNoteId.clear();
+        Arrays.fill(notes, 0, docCount, null);
+        Arrays.fill(docTerms, 0, docCount, null);
+        docCount = 0;
+        liveDocs = 0;
+    }
+
+    public int size() {
+        return liveDocs;
+    }
+
+    public int getTermCount() {
+        return terms.size();
+    }
+
+    // Tối đa limit ghi chú khớp mọi token của query, điểm cao trước (cùng điểm thì ghi chú mới trước).
+    // Điểm mỗi token: tổng trọng số (tiêu đề x TITLE_WEIGHT) * idf của các term khớp, term chỉ khớp
+    // tiền tố nhân PREFIX_FACTOR. Query rỗng trả về danh sách rỗng
+    public List<MeetingNote> search(String query, int limit) {
+        String[] tokens = tokenize(query);
+        if (tokens.length == 0 || limit <= 0 || liveDocs == 0) {
+            return Collections.emptyList();
+        }
+        ensureScratch();
+        int touchedCount = 0;
+        try {
+            for (int t = 0; t < tokens.length; t++) {
+                String token = tokens[t];
+                SortedMap<String, Postings> range = terms.subMap(token, token + Character.MAX_VALUE);
+                if (range.isEmpty()) {
+                    return Collections.emptyList();
+                }
+                boolean any = false;
+                for (Map.Entry<String, Postings> entry : range.entrySet()) {
+                    Postings postings = entry.getValue();
+                    float idf = (float) Math.log(1 + (double) liveDocs / postings.live);
+                    if (entry.getKey().length() != token.length()) {
+                        idf *= PREFIX_FACTOR;
+                    }
+                    for (int i = 0; i < postings.size; i++) {
+                        int doc = postings.docs[i];
+                        // matched[doc] == t: đã khớp mọi token trước; == t + 1: term khác của cùng token
+                        int m = matched[doc];
+                        if (m != t && m != t + 1 || notes[doc] == null) {
+                            continue;
+                        }
+                        if (t == 0 && m == 0) {
+                            touched[touchedCount++] = doc;
+                        }
+                        matched[doc] = t + 1;
+                        scores[doc] += postings.weights[i] * idf;
+                        any = true;
+                    }
+                }
+                if (!any) {
+                    return Collections.emptyList();
+                }
+            }
+            return topResults(tokens.length, touchedCount, limit);
+        } finally {
+            for (int i = 0; i < touchedCount; i++) {
+                matched[touched[i]] = 0;
+                scores[touched[i]] = 0;
+            }
+        }
+    }
+
+    private List<MeetingNote> topResults(int tokenCount, int touchedCount, int limit) {
+        // Chỉ giữ limit doc tốt nhất: sắp xếp mảng khoá (điểm, doc) đã đóng gói thay vì so sánh đối tượng
+        long[] keys = new long[touchedCount];
+        int hits = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            int doc = touched[i];
+            if (matched[doc] == tokenCount) {
+                // float dương so sánh được như int; doc lớn hơn là ghi chú mới hơn
+                keys[hits++] = ((long) Float.floatToIntBits(scores[doc]) << 32) | doc;
+            }
+        }
+        Arrays.sort(keys, 0, hits);
+        int count = Math.min(limit, hits);
+        List<MeetingNote> result = new ArrayList<>(count);
+        for (int i = hits - 1; i >= hits - count; i--) {
+            result.add(notes[(int) keys[i]]);
+        }
+        return result;
+    }
+
+    private void ensureScratch() {
+        if (scores.length < docCount) {
+            int capacity = Math.max(docCount, scores.length * 2);
+            scores = new float[capacity];
+            matched = new int[capacity];
+            touched = new int[capacity];
+        }
+    }
+
+    private void countTokens(String text, int weight) {
+        for (String token : tokenize(text)) {
+            Integer current = tokenWeights.get(token);
+            tokenWeights.put(token, current == null ? weight : current + weight);
+        }
+    }
+
+    // Dựng lại với docId liền nhau khi quá nhiều doc chết (posting của chúng vẫn chiếm bộ nhớ và thời gian quét)
+    private void rebuild() {
+        List<MeetingNote> alive = new ArrayList<>(liveDocs);
+        for (int doc = 0; doc < docCount; doc++) {
+            if (notes[doc] != null) {
+                alive.add(notes[doc]);
+            }
+        }
+        clear();
+        putAll(alive);
+    }
+
+    // Token đã chuẩn hoá (bỏ dấu, chữ thường) theo thứ tự xuất hiện; ký tự không phải chữ/số là dấu tách
+    public static String[] tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return new String[0];
+        }
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 0x0300 && c <= 0x036F) {
+                // Dấu kết hợp (bàn phím gõ dạng NFD): bỏ, không tách token
+                continue;
+            }
+            char folded = fold(c);
+            if (Character.isLetterOrDigit(folded)) {
+                token.append(folded);
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    // Một ký tự về dạng không dấu, chữ thường: 'Ộ' -> 'o', 'đ' -> 'd'
+    public static char fold(char c) {
+        if (c < 0x80) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+        }
+        if (c < FOLD_LIMIT) {
+            return FOLD[c];
+        }
+        return Character.toLowerCase(c);
+    }
+
+    public static String fold(String text) {
+        StringBuilder out = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x0300 || c > 0x036F) {
+                out.append(fold(c));
+            }
+        }
+        return out.toString();
+    }
+
+    private static char[] buildFoldTable() {
+        char[] table = new char[FOLD_LIMIT];
+        for (int c = 0; c < FOLD_LIMIT; c++) {
+            char lower = Character.toLowerCase((char) c);
+            String decomposed = Normalizer.normalize(String.valueOf(lower), Normalizer.Form.NFD);
+            char base = decomposed.charAt(0);
+            // Chỉ nhận phân rã về chữ Latin cơ bản; ký tự khác giữ dạng chữ thường
+            table[c] = base < 0x80 && Character.isLetter(base) ? base : lower;
+        }
+        // Đ/đ không phân rã theo Unicode
+        table[0x0110] = 'd';
+        table[0x0111] = 'd';
+        return table;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.bk_meeting;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Chạy NoteSearchIndex trên một luồng nền: cập nhật chỉ mục và truy vấn đều không chạm main thread.
+// Khi gõ nhanh, chỉ truy vấn mới nhất được chạy và trả kết quả; các truy vấn cũ còn trong hàng đợi bị bỏ.
+// Cập nhật và truy vấn đi chung một hàng đợi nên kết quả luôn thấy mọi put() gửi trước nó.
+public class NoteSearcher {
+
+    public interface Callback {
+        // Gọi trên luồng tìm kiếm, chỉ cho truy vấn mới nhất
+        void onResults(String query, List<MeetingNote> results, long searchNanos);
+    }
+
+    public static final int DEFAULT_LIMIT = 200;
+    private static final long KEEP_ALIVE_SECONDS = 10;
+
+    private final NoteSearchIndex index = new NoteSearchIndex();
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong generation = new AtomicLong();
+
+    public NoteSearcher() {
+        executor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> new Thread(r, "NoteSearcher"));
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public void put(MeetingNote note) {
+        executor.execute(() -> index.put(note));
+    }
+
+    // list phải là snapshot bất biến (MeetingNotes.snapshot())
+    public void putAll(List<MeetingNote> list) {
+        executor.execute(() -> index.putAll(list));
+    }
+
+    public void remove(long noteId) {
+        executor.execute(() -> index.remove(noteId));
+    }
+
+    public void search(String query, int limit, Callback callback) {
+        long id = generation.incrementAndGet();
+        executor.execute(() -> {
+            if (generation.get() != id) {
+                return;
+            }
+            long start = System.nanoTime();
+            List<MeetingNote> results = index.search(query, limit);
+            long searchNanos = System.nanoTime() - start;
+            if (generation.get() == id) {
+                callback.onResults(query, results, searchNanos);
+            }
+        });
+    }
+
+    // Huỷ truy vấn đang chờ (ví dụ khi ô tìm kiếm bị xoá trống)
+    public void cancelSearch() {
+        generation.incrementAndGet();
+    }
+
+    // Chờ mọi thao tác đã gửi trước đó chạy xong; false nếu hết thời gian
+    public boolean awaitIdle(long timeoutMs) throws InterruptedException {
+        try {
+            executor.submit(() -> { }).get(timeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public void close() {
+        cancelSearch();
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.bk_meeting;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+// Danh sách ghi chú: nhận snapshot bất biến của MeetingNotes, diff trên luồng nền nên mỗi lần lưu
+// chỉ bind dòng mới thay vì notifyDataSetChanged() bind lại cả danh sách
+public class NotesAdapter extends ListAdapter<MeetingNote, NotesAdapter.Holder> {
+
+    private static final DiffUtil.ItemCallback<MeetingNote> DIFF = new DiffUtil.ItemCallback<MeetingNote>() {
+        @Override
+        public boolean areItemsTheSame(MeetingNote oldItem, MeetingNote newItem) {
+            return oldItem.id == newItem.id;
+        }
+
+        @Override
+        public boolean areContentsTheSame(MeetingNote oldItem, MeetingNote newItem) {
+            return oldItem.equals(newItem);
+        }
+    };
+
+    private final MeetingNotes formatter;
+
+    // formatter: định dạng "[HH:mm] tiêu đề: nội dung" của MeetingNotes
+    public NotesAdapter(MeetingNotes formatter) {
+        super(DIFF);
+        this.formatter = formatter;
+    }
+
+    @Override
+    public Holder onCreateViewHolder(ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(android.R.layout.simple_list_item_1, parent, false);
+        return new Holder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(Holder holder, int position) {
+        holder.text.setText(formatter.format(getItem(position)));
+    }
+
+    static final class Holder extends RecyclerView.ViewHolder {
+        final TextView text;
+
+        Holder(View itemView) {
+            super(itemView);
+            text = itemView.findViewById(android.R.id.text1);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.bk_meeting;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// Bộ đệm vòng PCM cấp phát sẵn, dùng trên luồng thu âm để giữ pre-roll/hang-over.
+// Bộ đệm giữ tham chiếu tới AudioFrame (retain/release) thay vì chép mẫu, nên frame
+// thu được đi thẳng tới FileChannel mà không có bản sao trung gian.
+// Dung lượng tính theo mẫu; số slot frame cố định. Không cấp phát trong write/skip/drain.
+// Không thread-safe: chỉ luồng thu âm được phép truy cập.
+public class PcmRingBuffer {
+
+    private final AudioFrame[] frames;
+    private final int capacitySamples;
+
+    private int head = 0;       // slot của frame cũ nhất
+    private int count = 0;      // số frame đang giữ
+    private int headOffset = 0; // số mẫu đã tiêu thụ của frame cũ nhất
+    private int size = 0;       // tổng số mẫu còn lại
+
+    public PcmRingBuffer(int capacitySamples, int maxFrames) {
+        if (capacitySamples <= 0 || maxFrames <= 0) {
+            throw new IllegalArgumentException("capacitySamples and maxFrames must be > 0");
+        }
+        this.capacitySamples = capacitySamples;
+        this.frames = new AudioFrame[maxFrames];
+    }
+
+    public int capacity() {
+        return capacitySamples;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Hết slot frame (ví dụ nhiều lần đọc ngắn), cần skip/drain frame cũ nhất trước khi write
+    public boolean isFull() {
+        return count == frames.length;
+    }
+
+    // Số mẫu còn lại của frame cũ nhất
+    public int oldestFrameSamples() {
+        return count == 0 ? 0 : frames[head].getSampleCount() - headOffset;
+    }
+
+    // Thêm frame vào cuối; bộ đệm giữ một tham chiếu cho tới khi mẫu bị skip/drain
+    public void write(AudioFrame frame) {
+        if (isFull()) {
+            throw new IllegalStateException("No free frame slot");
+        }
+        frames[(head + count) % frames.length] = frame.retain();
+        count++;
+        size += frame.getSampleCount();
+    }
+
+    // Bỏ đi length mẫu cũ nhất
+    public void skip(int length) {
+        while (length > 0 && count > 0) {
+            int take = Math.min(length, oldestFrameSamples());
+            consume(take);
+            length -= take;
+        }
+    }
+
+    // Chuyển length mẫu cũ nhất sang writer rồi bỏ khỏi bộ đệm, trả về số byte đã ghi
+    public int drainTo(AudioSegmentWriter writer, int length) throws IOException {
+        int written = 0;
+        while (length > 0 && count > 0) {
+            AudioFrame frame = frames[head];
+            int take = Math.min(length, oldestFrameSamples());
+
+            ByteBuffer data = frame.captureView();
+            data.limit((headOffset + take) * 2).position(headOffset * 2);
+            writer.write(data);
+
+            consume(take);
+            length -= take;
+            written += take * 2;
+        }
+        return written;
+    }
+
+    // Ghi length mẫu cũ nhất sang writer nhưng vẫn giữ chúng trong bộ đệm (phần chồng lấn
+    // giữa hai segment liên tiếp), trả về số byte đã ghi
+    public int copyTo(AudioSegmentWriter writer, int length) throws IOException {
+        int written = 0;
+        int slot = head;
+        int offset = headOffset;
+        for (int i = 0; i < count && length > 0; i++) {
+            AudioFrame frame = frames[slot];
+            int take = Math.min(length, frame.getSampleCount() - offset);
+
+            ByteBuffer data = frame.captureView();
+            data.limit((offset + take) * 2).position(offset * 2);
+            writer.write(data);
+
+            length -= take;
+            written += take * 2;
+            slot = (slot + 1) % frames.length;
+            offset = 0;
+        }
+        return written;
+    }
+
+    // Vị trí cắt (số mẫu tính từ mẫu cũ nhất) ở giữa frame có năng lượng trung bình thấp nhất
+    // trong windowSamples mẫu mới nhất; 0 nếu bộ đệm rỗng
+    public int findQuietestCut(int windowSamples) {
+        int windowStart = Math.max(0, size - windowSamples);
+        int position = 0;
+        int slot = head;
+        int offset = headOffset;
+        int cut = 0;
+        double quietest = Double.MAX_VALUE;
+
+        for (int i = 0; i < count; i++) {
+            AudioFrame frame = frames[slot];
+            int available = frame.getSampleCount() - offset;
+            int from = Math.max(position, windowStart);
+            int to = position + available;
+            if (to > from) {
+                long energy = 0;
+                for (int k = from - position + offset; k < to - position + offset; k++) {
+                    int sample = frame.getSample(k);
+                    energy += sample * sample;
+                }
+                double mean = (double) energy / (to - from);
+                if (mean < quietest) {
+                    quietest = mean;
+                    cut = (from + to) / 2;
+                }
+            }
+            position = to;
+            slot = (slot + 1) % frames.length;
+            offset = 0;
+        }
+        return cut;
+    }
+
+    public void clear() {
+        while (count > 0) {
+            consume(oldestFrameSamples());
+        }
+    }
+
+    private void consume(int samples) {
+        size -= samples;
+        headOffset += samples;
+        if (headOffset >= frames[head].getSampleCount()) {
+            frames[head].release();
+            frames[head] = null;
+            head = (head + 1) % frames.length;
+            count--;
+            headOffset = 0;
+        }
+    }
+}
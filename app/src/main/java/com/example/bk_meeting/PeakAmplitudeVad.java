@@ -0,0 +1,47 @@
+package com.example.bk_meeting;
+
+import java.nio.ShortBuffer;
+
+// VAD cũ: so sánh biên độ đỉnh của cả buffer với một ngưỡng cố định.
+// Giữ lại để so sánh và cho các thiết bị cần hành vi như trước.
+public class PeakAmplitudeVad implements VoiceActivityDetector {
+
+    public static final int DEFAULT_THRESHOLD = 6000; // Độ lớn tối thiểu (amplitude)
+
+    private final int threshold;
+
+    public PeakAmplitudeVad() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    public PeakAmplitudeVad(int threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public boolean process(short[] samples, int offset, int length) {
+        return calculateAmplitude(samples, offset, length) > threshold;
+    }
+
+    @Override
+    public boolean process(ShortBuffer samples) {
+        int max = 0;
+        for (int i = samples.position(); i < samples.limit(); i++) {
+            max = Math.max(max, Math.abs(samples.get(i)));
+        }
+        return max > threshold;
+    }
+
+    @Override
+    public void reset() {
+        // Không có trạng thái
+    }
+
+    static int calculateAmplitude(short[] samples, int offset, int length) {
+        int max = 0;
+        for (int i = offset; i < offset + length; i++) {
+            max = Math.max(max, Math.abs(samples[i]));
+        }
+        return max;
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.bk_meeting;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Kim tự tháp min/max của một segment để vẽ waveform mà không đọc lại PCM.
+// Tầng 0: một cặp (min, max) cho mỗi BASE_BLOCK mẫu; tầng k+1 gộp từng hai khối của tầng k.
+// Được cập nhật dần trên luồng thu khi frame tới (add), sau đó chỉ đọc (render) - bàn giao
+// sang luồng khác qua executor/Handler là đủ để đồng bộ.
+// render(columns) chọn tầng thô nhất còn đủ cột nên chi phí tỉ lệ với số cột, không với độ dài.
+public class PeakPyramid {
+
+    static final int BASE_BLOCK = 256; // 16 ms ở 16 kHz
+    private static final int MAX_LEVELS = 24;
+    private static final int INITIAL_BLOCKS = 256;
+
+    // mins[k][i], maxs[k][i]: khối thứ i của tầng k; counts[k] khối đã đầy
+    private final short[][] mins = new short[MAX_LEVELS][];
+    private final short[][] maxs = new short[MAX_LEVELS][];
+    private final int[] counts = new int[MAX_LEVELS];
+    private int levels = 1;
+
+    // Khối tầng 0 đang tích luỹ
+    private int pendingSamples;
+    private short pendingMin = Short.MAX_VALUE;
+    private short pendingMax = Short.MIN_VALUE;
+    private long sampleCount;
+    private boolean compacted;
+
+    public PeakPyramid() {
+        mins[0] = new short[INITIAL_BLOCKS];
+        maxs[0] = new short[INITIAL_BLOCKS];
+    }
+
+    public void add(short[] samples, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            addSample(samples[i]);
+        }
+    }
+
+    // Thêm phần còn lại của src (PCM 16-bit little-endian), không đổi position của src
+    public void add(ByteBuffer src) {
+        int end = src.position() + (src.remaining() & ~1);
+        for (int i = src.position(); i < end; i += 2) {
+            addSample((short) ((src.get(i) & 0xFF) | (src.get(i + 1) << 8)));
+        }
+    }
+
+    private void addSample(short sample) {
+        if (compacted) {
+            throw new IllegalStateException("PeakPyramid already compacted");
+        }
+        if (sample < pendingMin) {
+            pendingMin = sample;
+        }
+        if (sample > pendingMax) {
+            pendingMax = sample;
+        }
+        sampleCount++;
+        if (++pendingSamples == BASE_BLOCK) {
+            push(0, pendingMin, pendingMax);
+            pendingSamples = 0;
+            pendingMin = Short.MAX_VALUE;
+            pendingMax = Short.MIN_VALUE;
+        }
+    }
+
+    // Thêm một khối đầy vào tầng level, gộp lên tầng trên mỗi khi đủ cặp
+    private void push(int level, short min, short max) {
+        while (true) {
+            int index = counts[level];
+            if (index == mins[level].length) {
+                // Nhân đôi: chỉ xảy ra O(log n) lần cho mỗi segment
+                mins[level] = Arrays.copyOf(mins[level], index * 2);
+                maxs[level] = Arrays.copyOf(maxs[level], index * 2);
+            }
+            mins[level][index] = min;
+            maxs[level][index] = max;
+            counts[level] = index + 1;
+            if ((index & 1) == 0 || level + 1 == MAX_LEVELS) {
+                return;
+            }
+            min = (short) Math.min(min, mins[level][index - 1]);
+            max = (short) Math.max(max, maxs[level][index - 1]);
+            level++;
+            if (level == levels) {
+                mins[level] = new short[INITIAL_BLOCKS];
+                maxs[level] = new short[INITIAL_BLOCKS];
+                levels++;
+            }
+        }
+    }
+
+    // Bỏ các tầng mịn không cần cho tối đa maxColumns cột (giữ tầng có <= 2 * maxColumns khối),
+    // giải phóng phần lớn bộ nhớ khi segment chỉ còn dùng làm thumbnail. Sau đó không add() được nữa
+    public void compact(int maxColumns) {
+        if (maxColumns <= 0) {
+            throw new IllegalArgumentException("maxColumns must be > 0");
+        }
+        int drop = 0;
+        while (drop + 1 < levels && blocksAt(drop) > maxColumns * 2) {
+            drop++;
+        }
+        if (drop > 0) {
+            // Phần đuôi của tầng mới thấp nhất trở thành khối đang tích luỹ
+            long tail = tailAt(drop);
+            boolean hasTail = hasTail(drop);
+            pendingMin = hasTail ? (short) (tail >> 16) : Short.MAX_VALUE;
+            pendingMax = hasTail ? (short) tail : Short.MIN_VALUE;
+            pendingSamples = hasTail ? 1 : 0;
+            for (int k = 0; k < MAX_LEVELS; k++) {
+                int from = k + drop;
+                mins[k] = from < levels ? mins[from] : null;
+                maxs[k] = from < levels ? maxs[from] : null;
+                counts[k] = from < levels ? counts[from] : 0;
+            }
+            levels -= drop;
+        }
+        for (int k = 0; k < levels; k++) {
+            mins[k] = Arrays.copyOf(mins[k], counts[k]);
+            maxs[k] = Arrays.copyOf(maxs[k], counts[k]);
+        }
+        compacted = true;
+    }
+
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    // Ghi min/max của columns cột chia đều toàn bộ segment vào minOut/maxOut, trả về số cột thật
+    // (ít hơn columns nếu segment ngắn hơn số cột ở tầng 0)
+    public int render(int columns, short[] minOut, short[] maxOut) {
+        if (columns <= 0 || sampleCount == 0) {
+            return 0;
+        }
+        int level = 0;
+        while (level + 1 < levels && blocksAt(level + 1) >= columns) {
+            level++;
+        }
+        int blocks = blocksAt(level);
+        columns = Math.min(columns, blocks);
+        for (int c = 0; c < columns; c++) {
+            int from = (int) ((long) c * blocks / columns);
+            int to = (int) ((long) (c + 1) * blocks / columns);
+            short min = Short.MAX_VALUE;
+            short max = Short.MIN_VALUE;
+            for (int b = from; b < to; b++) {
+                if (b < counts[level]) {
+                    min = (short) Math.min(min, mins[level][b]);
+                    max = (short) Math.max(max, maxs[level][b]);
+                } else {
+                    long tail = tailAt(level);
+                    min = (short) Math.min(min, (short) (tail >> 16));
+                    max = (short) Math.max(max, (short) tail);
+                }
+            }
+            minOut[c] = min;
+            maxOut[c] = max;
+        }
+        return columns;
+    }
+
+    // Số khối ở tầng level, kể cả khối cuối chưa đầy
+    private int blocksAt(int level) {
+        return counts[level] + (hasTail(level) ? 1 : 0);
+    }
+
+    private boolean hasTail(int level) {
+        if (pendingSamples > 0) {
+            return true;
+        }
+        for (int k = 0; k < level; k++) {
+            if ((counts[k] & 1) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Min/max của các mẫu chưa thuộc khối đầy nào ở tầng level: khối tầng 0 đang tích luỹ cộng
+    // khối lẻ cuối của mỗi tầng thấp hơn. Đóng gói (min << 16) | (max & 0xFFFF) để không cấp phát
+    private long tailAt(int level) {
+        short min = pendingMin;
+        short max = pendingMax;
+        for (int k = 0; k < level; k++) {
+            if ((counts[k] & 1) != 0) {
+                min = (short) Math.min(min, mins[k][counts[k] - 1]);
+                max = (short) Math.max(max, maxs[k][counts[k] - 1]);
+            }
+        }
+        return ((long) min << 16) | (max & 0xFFFF);
+    }
+}
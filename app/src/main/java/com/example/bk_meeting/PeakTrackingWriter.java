@@ -0,0 +1,88 @@
+package com.example.bk_meeting;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// Bọc writer của segment để dựng PeakPyramid ngay trên luồng thu khi PCM được ghi,
+// thay vì đọc lại file sau khi lưu
+public class PeakTrackingWriter implements AudioSegmentWriter {
+
+    static final int THUMBNAIL_COLUMNS = 512;
+
+    private final AudioSegmentWriter delegate;
+    private final int sampleRate;
+    private final PeakPyramid peaks = new PeakPyramid();
+
+    public PeakTrackingWriter(AudioSegmentWriter delegate, int sampleRate) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate must not be null");
+        }
+        this.delegate = delegate;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public void write(ByteBuffer src) throws IOException {
+        peaks.add(src);
+        delegate.write(src);
+    }
+
+    @Override
+    public void write(short[] samples, int offset, int length) throws IOException {
+        peaks.add(samples, offset, length);
+        delegate.write(samples, offset, length);
+    }
+
+    @Override
+    public long getDataLength() {
+        return delegate.getDataLength();
+    }
+
+    @Override
+    public long getDurationMs() {
+        return delegate.getDurationMs();
+    }
+
+    @Override
+    public File getFile() {
+        return delegate.getFile();
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public long getPcmOffset() {
+        return delegate.getPcmOffset();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    @Override
+    public void discard() {
+        delegate.discard();
+    }
+
+    public AudioSegmentWriter getDelegate() {
+        return delegate;
+    }
+
+    // Gọi sau khi segment đã đóng (luồng lưu). Waveform được thu gọn còn đủ cho một thumbnail
+    // rộng THUMBNAIL_COLUMNS cột (~1-2 KB) để danh sách cả buổi họp không giữ kim tự tháp đầy đủ
+    public SavedSegment toSavedSegment(boolean endOfSentence) {
+        peaks.compact(THUMBNAIL_COLUMNS);
+        return new SavedSegment(getName(), getFile(), sampleRate, getPcmOffset(),
+                getDataLength() / 2, endOfSentence, peaks);
+    }
+
+    // Chỉ đọc sau khi segment đã đóng
+    public PeakPyramid getPeaks() {
+        return peaks;
+    }
+}
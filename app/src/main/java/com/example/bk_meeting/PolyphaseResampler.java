@@ -0,0 +1,195 @@
+package com.example.bk_meeting;
+
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+// Bộ chuyển tần số lấy mẫu polyphase dùng windowed-sinc (cửa sổ Kaiser), tỉ lệ hữu tỉ
+// outputRate/inputRate = up/down. Xử lý từng frame với trạng thái lọc cấp phát sẵn,
+// nên có thể đặt giữa luồng thu âm và writer mà không cấp phát bộ nhớ.
+// Không thread-safe: mỗi luồng dùng một instance riêng.
+public class PolyphaseResampler {
+
+    private static final int DEFAULT_TAPS_PER_PHASE = 32;
+    private static final double KAISER_BETA = 8.0;
+    private static final double CUTOFF_RATIO = 0.95;
+
+    private final int inputRate;
+    private final int outputRate;
+    private final int up;
+    private final int down;
+    private final int taps;
+    private final int maxInputSamples;
+
+    // coefficients[phase * taps + k] áp dụng cho x[i - k]
+    private final float[] coefficients;
+    // (taps - 1) mẫu lịch sử + frame đầu vào hiện tại
+    private final float[] history;
+
+    // Vị trí mẫu ra tiếp theo, đơn vị 1/up mẫu vào, tính từ đầu frame hiện tại
+    private long position;
+
+    public PolyphaseResampler(int inputRate, int outputRate, int maxInputSamples) {
+        this(inputRate, outputRate, maxInputSamples, DEFAULT_TAPS_PER_PHASE);
+    }
+
+    public PolyphaseResampler(int inputRate, int outputRate, int maxInputSamples, int tapsPerPhase) {
+        if (inputRate <= 0 || outputRate <= 0 || maxInputSamples <= 0 || tapsPerPhase <= 0) {
+            throw new IllegalArgumentException("rates, maxInputSamples and tapsPerPhase must be > 0");
+        }
+        int gcd = gcd(inputRate, outputRate);
+        this.inputRate = inputRate;
+        this.outputRate = outputRate;
+        this.up = outputRate / gcd;
+        this.down = inputRate / gcd;
+        this.taps = tapsPerPhase;
+        this.maxInputSamples = maxInputSamples;
+        this.coefficients = designFilter(up, down, tapsPerPhase);
+        this.history = new float[tapsPerPhase - 1 + maxInputSamples];
+    }
+
+    public int getInputRate() {
+        return inputRate;
+    }
+
+    public int getOutputRate() {
+        return outputRate;
+    }
+
+    public int getMaxInputSamples() {
+        return maxInputSamples;
+    }
+
+    // Số mẫu ra tối đa cho một lần process() với inputSamples mẫu vào
+    public int maxOutputSamples(int inputSamples) {
+        return (int) (((long) inputSamples * up + down - 1) / down) + 1;
+    }
+
+    public int process(short[] in, int offset, int length, short[] out, int outOffset) {
+        checkLength(length);
+        int base = taps - 1;
+        for (int i = 0; i < length; i++) {
+            history[base + i] = in[offset + i];
+        }
+        return filter(length, out, outOffset, null);
+    }
+
+    // Đọc từ position tới limit của in (không đổi position), ghi vào out bắt đầu từ
+    // position của out và tiến position tương ứng
+    public int process(ShortBuffer in, ShortBuffer out) {
+        int length = in.remaining();
+        checkLength(length);
+        int base = taps - 1;
+        int start = in.position();
+        for (int i = 0; i < length; i++) {
+            history[base + i] = in.get(start + i);
+        }
+        return filter(length, null, 0, out);
+    }
+
+    public void reset() {
+        Arrays.fill(history, 0f);
+        position = 0;
+    }
+
+    private int filter(int length, short[] out, int outOffset, ShortBuffer outBuffer) {
+        int base = taps - 1;
+        long end = (long) length * up;
+        int produced = 0;
+        int outPosition = outBuffer != null ? outBuffer.position() : 0;
+
+        while (position < end) {
+            int index = (int) (position / up);
+            int phase = (int) (position - (long) index * up);
+            int c = phase * taps;
+            int x = base + index;
+
+            float acc = 0f;
+            for (int k = 0; k < taps; k++) {
+                acc += coefficients[c + k] * history[x - k];
+            }
+
+            short sample = clamp(acc);
+            if (outBuffer != null) {
+                outBuffer.put(outPosition + produced, sample);
+            } else {
+                out[outOffset + produced] = sample;
+            }
+            produced++;
+            position += down;
+        }
+
+        // Giữ (taps - 1) mẫu cuối làm lịch sử cho frame sau
+        position -= end;
+        System.arraycopy(history, length, history, 0, base);
+
+        if (outBuffer != null) {
+            outBuffer.position(outPosition + produced);
+        }
+        return produced;
+    }
+
+    private void checkLength(int length) {
+        if (length > maxInputSamples) {
+            throw new IllegalArgumentException("Frame too large: " + length + " > " + maxInputSamples);
+        }
+    }
+
+    private static short clamp(float value) {
+        int rounded = Math.round(value);
+        if (rounded > Short.MAX_VALUE) {
+            return Short.MAX_VALUE;
+        }
+        if (rounded < Short.MIN_VALUE) {
+            return Short.MIN_VALUE;
+        }
+        return (short) rounded;
+    }
+
+    // Bộ lọc thông thấp ở tần số đã upsample (x up), cắt tại 0.95 * Nyquist của tần số thấp hơn
+    private static float[] designFilter(int up, int down, int taps) {
+        int length = up * taps;
+        double cutoff = CUTOFF_RATIO * 0.5 / Math.max(up, down);
+        double center = (length - 1) / 2.0;
+        double i0Beta = besselI0(KAISER_BETA);
+
+        float[] table = new float[length];
+        for (int j = 0; j < length; j++) {
+            double t = j - center;
+            double sinc = t == 0 ? 1.0 : Math.sin(2 * Math.PI * cutoff * t) / (2 * Math.PI * cutoff * t);
+            double ratio = 2.0 * j / (length - 1) - 1.0;
+            double window = length > 1
+                    ? besselI0(KAISER_BETA * Math.sqrt(Math.max(0, 1 - ratio * ratio))) / i0Beta
+                    : 1.0;
+            double h = 2 * cutoff * sinc * window * up;
+
+            // Sắp xếp lại theo phase: h[phase + k * up] -> table[phase * taps + k]
+            int phase = j % up;
+            int k = j / up;
+            table[phase * taps + k] = (float) h;
+        }
+        return table;
+    }
+
+    private static double besselI0(double x) {
+        double sum = 1.0;
+        double term = 1.0;
+        double half = x / 2;
+        for (int k = 1; k < 50; k++) {
+            term *= (half / k) * (half / k);
+            sum += term;
+            if (term < sum * 1e-12) {
+                break;
+            }
+        }
+        return sum;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.bk_meeting;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+// File log xoay vòng: ghi nối từng dòng vào file, khi vượt maxBytes thì đổi tên thành
+// file.1, file.1 thành file.2... và chỉ giữ tối đa maxFiles file cũ
+public class RollingMetricsLog {
+
+    private final File file;
+    private final long maxBytes;
+    private final int maxFiles;
+
+    public RollingMetricsLog(File file, long maxBytes, int maxFiles) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be > 0");
+        }
+        if (maxFiles < 0) {
+            throw new IllegalArgumentException("maxFiles must be >= 0");
+        }
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+    }
+
+    public synchronized void append(String line) throws IOException {
+        byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        if (file.length() > 0 && file.length() + bytes.length > maxBytes) {
+            rotate();
+        }
+        File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        try (OutputStream out = new FileOutputStream(file, true)) {
+            out.write(bytes);
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    // file.i của lần xoay thứ i trước đó (i >= 1)
+    public File getRolledFile(int index) {
+        return new File(file.getPath() + "." + index);
+    }
+
+    private void rotate() throws IOException {
+        if (maxFiles == 0) {
+            if (!file.delete()) {
+                throw new IOException("Cannot delete " + file);
+            }
+            return;
+        }
+        File oldest = getRolledFile(maxFiles);
+        if (oldest.exists() && !oldest.delete()) {
+            throw new IOException("Cannot delete " + oldest);
+        }
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            File rolled = getRolledFile(i);
+            if (rolled.exists() && !rolled.renameTo(getRolledFile(i + 1))) {
+                throw new IOException("Cannot rename " + rolled);
+            }
+        }
+        if (!file.renameTo(getRolledFile(1))) {
+            throw new IOException("Cannot rename " + file);
+        }
+    }
+}
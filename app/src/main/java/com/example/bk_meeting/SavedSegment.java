@@ -0,0 +1,36 @@
+package com.example.bk_meeting;
+
+import java.io.File;
+
+// Một segment đã lưu, gửi lên UI: đủ để vẽ waveform (peaks) và phát lại trực tiếp từ file
+// (pcmOffset) mà không phải giải mã hay quét lại PCM
+public final class SavedSegment {
+
+    public final String name;
+    public final File file;
+    public final int sampleRate;
+    // Byte đầu tiên của PCM 16-bit mono little-endian trong file, -1 nếu file đã nén (FLAC)
+    public final long pcmOffset;
+    public final long sampleCount;
+    public final boolean endOfSentence;
+    public final PeakPyramid peaks;
+
+    public SavedSegment(String name, File file, int sampleRate, long pcmOffset, long sampleCount,
+                        boolean endOfSentence, PeakPyramid peaks) {
+        this.name = name;
+        this.file = file;
+        this.sampleRate = sampleRate;
+        this.pcmOffset = pcmOffset;
+        this.sampleCount = sampleCount;
+        this.endOfSentence = endOfSentence;
+        this.peaks = peaks;
+    }
+
+    public boolean isPlayable() {
+        return pcmOffset >= 0 && sampleCount > 0;
+    }
+
+    public long getDurationMs() {
+        return sampleRate > 0 ? sampleCount * 1000 / sampleRate : 0;
+    }
+}
@@ -8,14 +8,24 @@ import android.webkit.WebSettings;
 import android.widget.*;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.activity.OnBackPressedCallback;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.text.format.DateFormat;
 import android.os.Handler;
 import android.os.Looper;
+import android.util.Log;
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 
 public class SecondScreenActivity extends AppCompatActivity {
 
+    private static final String TAG = "SecondScreenActivity";
+
     private WebView webView;
+    private FirstPaintTimer firstPaintTimer;
     private Button btnBack;
     private Button btnRefresh;
     private Button btnHome;
@@ -27,16 +37,38 @@ public class SecondScreenActivity extends AppCompatActivity {
     private Button btnSaveNote;
     private Button btnClearNote;
     private Button btnNewNote;
-    private ListView lvNotesList;
+    private RecyclerView rvNotesList;
     private TextView tvCurrentTime;
     private TextView tvNoteCount;
 
-    private List<String> notesList = new ArrayList<>();
-    private ArrayAdapter<String> notesAdapter;
+    private final MeetingNotes notes = new MeetingNotes();
+    private NotesAdapter notesAdapter;
+
+    // Ghi chú được lưu bền (filesDir/notes.journal) để không mất khi màn hình 2 bị huỷ;
+    // ghi đĩa và nạp lại đều trên luồng của journal
+    private static final String NOTES_JOURNAL_FILE = "notes.journal";
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private NoteJournal noteJournal;
+
+    // Tìm kiếm khi đang gõ: chỉ mục và truy vấn chạy trên luồng của NoteSearcher
+    private EditText etNoteSearch;
+    private NoteSearcher noteSearcher;
+    private String searchQuery = "";
+
+    // Cập nhật đồng hồ mỗi phút; gỡ trong onDestroy để Handler không giữ Activity đã huỷ
+    private final Handler clockHandler = new Handler(Looper.getMainLooper());
+    private final Runnable updateTimeRunnable = new Runnable() {
+        @Override
+        public void run() {
+            updateCurrentTime();
+            clockHandler.postDelayed(this, 60000); // Update every minute
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        firstPaintTimer = new FirstPaintTimer("Screen 2");
 
         // Use the XML layout instead of creating programmatically
         setContentView(R.layout.activity_second_screen);
@@ -62,9 +94,10 @@ public class SecondScreenActivity extends AppCompatActivity {
         btnSaveNote = findViewById(R.id.btnSaveNote);
         btnClearNote = findViewById(R.id.btnClearNote);
         btnNewNote = findViewById(R.id.btnNewNote);
-        lvNotesList = findViewById(R.id.lvNotesList);
+        rvNotesList = findViewById(R.id.rvNotesList);
         tvCurrentTime = findViewById(R.id.tvCurrentTime);
         tvNoteCount = findViewById(R.id.tvNoteCount);
+        etNoteSearch = findViewById(R.id.etNoteSearch);
 
         // Create WebView and toolbar programmatically since they're not in XML
         createWebViewAndToolbar();
@@ -119,8 +152,9 @@ public class SecondScreenActivity extends AppCompatActivity {
         headerLayout.addView(btnRefresh);
         headerLayout.addView(btnHome);
 
-        // Create WebView
-        webView = new WebView(this);
+        // WebView đã khởi tạo sẵn trong splash (MainActivity)
+        webView = WebViewPool.acquire(this);
+        firstPaintTimer.onWebViewReady(WebViewPool.isPooled(webView));
         webView.setLayoutParams(new LinearLayout.LayoutParams(
                 LinearLayout.LayoutParams.MATCH_PARENT,
                 400 // Fixed height for WebView
@@ -188,6 +222,12 @@ public class SecondScreenActivity extends AppCompatActivity {
                 tvStatus.setText("🔄 Loading Facebook...");
             }
 
+            @Override
+            public void onPageCommitVisible(WebView view, String url) {
+                super.onPageCommitVisible(view, url);
+                firstPaintTimer.onPageCommitVisible(url);
+            }
+
             @Override
             public void onPageFinished(WebView view, String url) {
                 super.onPageFinished(view, url);
@@ -218,9 +258,33 @@ public class SecondScreenActivity extends AppCompatActivity {
     }
 
     private void setupNoteTaking() {
-        // Initialize notes adapter
-        notesAdapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1, notesList);
-        lvNotesList.setAdapter(notesAdapter);
+        // Danh sách ảo hoá: chỉ các dòng đang hiện có view, cập nhật theo diff của hai snapshot
+        notesAdapter = new NotesAdapter(notes);
+        rvNotesList.setLayoutManager(new LinearLayoutManager(this));
+        rvNotesList.setHasFixedSize(true);
+        rvNotesList.setAdapter(notesAdapter);
+        notesAdapter.submitList(notes.snapshot());
+        noteSearcher = new NoteSearcher();
+        openNoteJournal();
+
+        etNoteSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                String query = s.toString().trim();
+                if (!query.equals(searchQuery)) {
+                    searchQuery = query;
+                    showNotes();
+                }
+            }
+        });
 
         // Save note button
         btnSaveNote.setOnClickListener(v -> saveNote());
@@ -231,43 +295,83 @@ public class SecondScreenActivity extends AppCompatActivity {
         // New note button
         btnNewNote.setOnClickListener(v -> newNote());
 
-        // Update time initially
-        updateCurrentTime();
+        // Update time initially, then periodically
+        clockHandler.post(updateTimeRunnable);
+    }
 
-        // Update time periodically
-        Handler handler = new Handler(Looper.getMainLooper());
-        Runnable updateTimeRunnable = new Runnable() {
+    private void openNoteJournal() {
+        noteJournal = new NoteJournal(new File(getFilesDir(), NOTES_JOURNAL_FILE), new NoteJournal.Listener() {
             @Override
-            public void run() {
-                updateCurrentTime();
-                handler.postDelayed(this, 60000); // Update every minute
+            public void onCommitted(int records, long latencyNanos) {
+                Log.d(TAG, "Notes committed: " + records + " in " + latencyNanos / 1_000_000 + " ms");
             }
-        };
-        handler.post(updateTimeRunnable);
-    }
 
-    private void saveNote() {
-        String title = etNoteTitle.getText().toString().trim();
-        String content = etNoteContent.getText().toString().trim();
+            @Override
+            public void onFailed(IOException error) {
+                Log.e(TAG, "Cannot save notes", error);
+                mainHandler.post(() -> Toast.makeText(SecondScreenActivity.this,
+                        "Lỗi lưu ghi chú: " + error.getMessage(), Toast.LENGTH_SHORT).show());
+            }
+        });
+        noteJournal.load(new NoteJournal.LoadCallback() {
+            @Override
+            public void onLoaded(List<MeetingNote> loaded, long loadNanos) {
+                Log.d(TAG, "Notes loaded: " + loaded.size() + " in " + loadNanos / 1_000_000 + " ms");
+                mainHandler.post(() -> {
+                    if (isDestroyed()) {
+                        return;
+                    }
+                    notes.restore(loaded);
+                    // Cùng id thì thay, nên các ghi chú đã đưa vào chỉ mục trong lúc nạp không bị trùng
+                    noteSearcher.putAll(notes.snapshot());
+                    showNotes();
+                });
+            }
 
-        if (title.isEmpty() && content.isEmpty()) {
-            Toast.makeText(this, "Please enter note content", Toast.LENGTH_SHORT).show();
+            @Override
+            public void onLoadFailed(IOException error) {
+                Log.e(TAG, "Cannot load notes", error);
+                mainHandler.post(() -> Toast.makeText(SecondScreenActivity.this,
+                        "Lỗi đọc ghi chú: " + error.getMessage(), Toast.LENGTH_SHORT).show());
+            }
+        });
+    }
+
+    private void showNotes() {
+        if (!searchQuery.isEmpty()) {
+            showSearchResults();
             return;
         }
+        noteSearcher.cancelSearch();
+        List<MeetingNote> snapshot = notes.snapshot();
+        notesAdapter.submitList(snapshot, () -> rvNotesList.scrollToPosition(snapshot.size() - 1));
+        tvNoteCount.setText("📋 Total: " + notes.size() + " notes");
+    }
 
-        String timestamp = DateFormat.format("HH:mm", new Date()).toString();
-        String noteText;
-        if (!title.isEmpty()) {
-            noteText = "[" + timestamp + "] " + title + ": " + content;
-        } else {
-            noteText = "[" + timestamp + "] " + content;
-        }
+    // Kết quả xếp theo độ liên quan; chỉ hiển thị nếu ô tìm kiếm chưa đổi trong lúc truy vấn
+    private void showSearchResults() {
+        String query = searchQuery;
+        noteSearcher.search(query, NoteSearcher.DEFAULT_LIMIT, (q, results, searchNanos) -> mainHandler.post(() -> {
+            if (isDestroyed() || !q.equals(searchQuery)) {
+                return;
+            }
+            notesAdapter.submitList(results, () -> rvNotesList.scrollToPosition(0));
+            tvNoteCount.setText("🔍 " + results.size() + "/" + notes.size() + " notes");
+        }));
+    }
 
-        notesList.add(noteText);
-        notesAdapter.notifyDataSetChanged();
+    private void saveNote() {
+        MeetingNote note = notes.add(etNoteTitle.getText().toString(),
+                etNoteContent.getText().toString(), new Date());
+        if (note == null) {
+            Toast.makeText(this, "Please enter note content", Toast.LENGTH_SHORT).show();
+            return;
+        }
 
-        // Update count
-        tvNoteCount.setText("📋 Total: " + notesList.size() + " notes");
+        // Chỉ xếp hàng; luồng journal gom và fsync
+        noteJournal.put(note);
+        noteSearcher.put(note);
+        showNotes();
 
         // Clear inputs
         etNoteTitle.setText("");
@@ -336,6 +440,14 @@ public class SecondScreenActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        clockHandler.removeCallbacks(updateTimeRunnable);
+        if (noteJournal != null) {
+            // Các ghi chú còn trong hàng đợi vẫn được ghi trước khi đóng file
+            noteJournal.close();
+        }
+        if (noteSearcher != null) {
+            noteSearcher.close();
+        }
         if (webView != null) {
             webView.destroy();
         }
@@ -0,0 +1,165 @@
+package com.example.bk_meeting;
+
+import android.media.AudioAttributes;
+import android.media.AudioFormat;
+import android.media.AudioTrack;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+// Phát lại một segment đã lưu: PCM được memory-map từ file (WAV hoặc container phiên) và đưa
+// thẳng vào AudioTrack MODE_STREAM từ một luồng riêng, không đọc/giải mã trên main thread.
+// Mỗi lúc chỉ phát một segment; play() dừng segment đang phát. Listener được gọi trên main thread.
+public class SegmentPlayer {
+
+    private static final String TAG = "SegmentPlayer";
+    private static final int CHUNK_BYTES = 8 * 1024;
+
+    public interface Listener {
+        void onPlaybackChanged(SavedSegment segment, boolean playing);
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Listener listener;
+    private Playback current; // chỉ truy cập trên main thread
+
+    public SegmentPlayer(Listener listener) {
+        this.listener = listener;
+    }
+
+    // Gọi trên main thread
+    public void play(SavedSegment segment) {
+        if (!segment.isPlayable()) {
+            throw new IllegalArgumentException("Segment is not raw PCM: " + segment.name);
+        }
+        stop();
+        current = new Playback(segment);
+        Thread thread = new Thread(current, TAG);
+        thread.start();
+        listener.onPlaybackChanged(segment, true);
+    }
+
+    public void stop() {
+        Playback playback = current;
+        if (playback != null) {
+            current = null;
+            playback.cancel();
+            listener.onPlaybackChanged(playback.segment, false);
+        }
+    }
+
+    public SavedSegment getPlaying() {
+        Playback playback = current;
+        return playback != null ? playback.segment : null;
+    }
+
+    private void onFinished(Playback playback) {
+        mainHandler.post(() -> {
+            if (current == playback) {
+                current = null;
+                listener.onPlaybackChanged(playback.segment, false);
+            }
+        });
+    }
+
+    private final class Playback implements Runnable {
+
+        final SavedSegment segment;
+        private volatile boolean cancelled;
+        private AudioTrack track; // đồng bộ trên this
+
+        Playback(SavedSegment segment) {
+            this.segment = segment;
+        }
+
+        void cancel() {
+            cancelled = true;
+            synchronized (this) {
+                if (track != null) {
+                    // Mở khoá write() đang chặn trên luồng phát
+                    track.pause();
+                    track.flush();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_AUDIO);
+            try (RandomAccessFile raf = new RandomAccessFile(segment.file, "r");
+                 FileChannel channel = raf.getChannel()) {
+                long length = Math.min(segment.sampleCount * 2, channel.size() - segment.pcmOffset) & ~1L;
+                MappedByteBuffer pcm = channel.map(FileChannel.MapMode.READ_ONLY, segment.pcmOffset, length);
+                if (!open()) {
+                    return;
+                }
+                while (pcm.hasRemaining() && !cancelled) {
+                    // Buffer map là direct: AudioTrack đọc thẳng từ page cache
+                    int written = track.write(pcm, Math.min(CHUNK_BYTES, pcm.remaining()), AudioTrack.WRITE_BLOCKING);
+                    if (written < 0) {
+                        throw new IOException("AudioTrack.write error " + written);
+                    }
+                }
+                drain(length / 2);
+            } catch (IOException | RuntimeException e) {
+                Log.e(TAG, "Cannot play " + segment.name, e);
+            } finally {
+                synchronized (this) {
+                    if (track != null) {
+                        track.release();
+                        track = null;
+                    }
+                }
+                onFinished(this);
+            }
+        }
+
+        private synchronized boolean open() {
+            if (cancelled) {
+                return false;
+            }
+            int minBuffer = AudioTrack.getMinBufferSize(segment.sampleRate,
+                    AudioFormat.CHANNEL_OUT_MONO, AudioFormat.ENCODING_PCM_16BIT);
+            track = new AudioTrack.Builder()
+                    .setAudioAttributes(new AudioAttributes.Builder()
+                            .setUsage(AudioAttributes.USAGE_MEDIA)
+                            .setContentType(AudioAttributes.CONTENT_TYPE_SPEECH)
+                            .build())
+                    .setAudioFormat(new AudioFormat.Builder()
+                            .setSampleRate(segment.sampleRate)
+                            .setEncoding(AudioFormat.ENCODING_PCM_16BIT)
+                            .setChannelMask(AudioFormat.CHANNEL_OUT_MONO)
+                            .build())
+                    .setBufferSizeInBytes(Math.max(minBuffer, CHUNK_BYTES * 2))
+                    .setTransferMode(AudioTrack.MODE_STREAM)
+                    .build();
+            track.play();
+            return true;
+        }
+
+        // Chờ phần còn lại trong buffer của AudioTrack phát xong trước khi release
+        private void drain(long frames) {
+            if (cancelled) {
+                return;
+            }
+            // MODE_STREAM: stop() vẫn phát hết dữ liệu đã ghi; đầu phát dừng ở frames
+            track.stop();
+            long remainingMs = (frames - track.getPlaybackHeadPosition()) * 1000 / segment.sampleRate;
+            long deadline = System.nanoTime() + (remainingMs + 500) * 1_000_000L;
+            while (!cancelled && track.getPlaybackHeadPosition() < frames && System.nanoTime() < deadline) {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
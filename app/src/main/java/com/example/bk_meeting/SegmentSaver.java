@@ -0,0 +1,72 @@
+package com.example.bk_meeting;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Đóng segment (vá header WAV, flush encoder FLAC) trên một luồng nền dùng chung, theo đúng thứ tự lưu.
+// Thay cho new Thread mỗi lần lưu: số luồng không tăng theo số câu trong buổi họp dài,
+// luồng tự kết thúc sau KEEP_ALIVE_SECONDS không có việc và được tạo lại khi cần
+public class SegmentSaver {
+
+    public interface Listener {
+        // Gọi trên luồng lưu; latencyNanos tính từ lúc save()
+        void onSaved(AudioSegmentWriter writer, boolean endOfSentence, long latencyNanos);
+
+        // writer đã bị discard()
+        void onFailed(AudioSegmentWriter writer, boolean endOfSentence, IOException error, long latencyNanos);
+    }
+
+    private static final long KEEP_ALIVE_SECONDS = 10;
+
+    private final Listener listener;
+    private final ThreadPoolExecutor executor;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public SegmentSaver(Listener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("listener must not be null");
+        }
+        this.listener = listener;
+        executor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> new Thread(r, "SegmentSaver"));
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public void save(AudioSegmentWriter writer, boolean endOfSentence) {
+        long requestedNanos = System.nanoTime();
+        pending.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                writer.close();
+                listener.onSaved(writer, endOfSentence, System.nanoTime() - requestedNanos);
+            } catch (IOException e) {
+                writer.discard();
+                listener.onFailed(writer, endOfSentence, e, System.nanoTime() - requestedNanos);
+            } finally {
+                pending.decrementAndGet();
+            }
+        });
+    }
+
+    // Số segment đang chờ hoặc đang được đóng
+    public int getPending() {
+        return pending.get();
+    }
+
+    // Chờ các segment đã gửi trước đó lưu xong; false nếu hết thời gian
+    public boolean awaitIdle(long timeoutMs) throws InterruptedException {
+        try {
+            executor.submit(() -> { }).get(timeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
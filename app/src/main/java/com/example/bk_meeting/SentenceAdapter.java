@@ -0,0 +1,129 @@
+package com.example.bk_meeting;
+
+import android.util.TypedValue;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.List;
+import java.util.Locale;
+
+// Danh sách câu đã lưu (tên, thời lượng, waveform). Dữ liệu là các snapshot bất biến đưa vào
+// submitList(); ListAdapter diff hai snapshot trên luồng nền rồi chỉ báo phần thay đổi
+// (thường là một dòng thêm ở cuối), RecyclerView chỉ giữ view cho các dòng đang hiện
+public class SentenceAdapter extends ListAdapter<SavedSegment, SentenceAdapter.Holder> {
+
+    public interface OnSentenceClickListener {
+        void onSentenceClick(SavedSegment segment);
+    }
+
+    // SavedSegment bất biến: cùng đối tượng là cùng nội dung
+    private static final DiffUtil.ItemCallback<SavedSegment> DIFF = new DiffUtil.ItemCallback<SavedSegment>() {
+        @Override
+        public boolean areItemsTheSame(SavedSegment oldItem, SavedSegment newItem) {
+            return oldItem == newItem;
+        }
+
+        @Override
+        public boolean areContentsTheSame(SavedSegment oldItem, SavedSegment newItem) {
+            return oldItem == newItem;
+        }
+    };
+
+    private final OnSentenceClickListener clickListener;
+    private SavedSegment playing;
+
+    public SentenceAdapter(OnSentenceClickListener clickListener) {
+        super(DIFF);
+        this.clickListener = clickListener;
+    }
+
+    // Đổi màu waveform của câu đang phát; chỉ bind lại hai dòng liên quan
+    public void setPlaying(SavedSegment segment, boolean isPlaying) {
+        SavedSegment previous = playing;
+        playing = isPlaying ? segment : (playing == segment ? null : playing);
+        if (previous != playing) {
+            notifyChanged(previous);
+            notifyChanged(playing);
+        }
+    }
+
+    private void notifyChanged(SavedSegment segment) {
+        if (segment == null) {
+            return;
+        }
+        List<SavedSegment> items = getCurrentList();
+        for (int i = items.size() - 1; i >= 0; i--) {
+            if (items.get(i) == segment) {
+                notifyItemChanged(i);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public Holder onCreateViewHolder(ViewGroup parent, int viewType) {
+        LinearLayout row = new LinearLayout(parent.getContext());
+        row.setOrientation(LinearLayout.HORIZONTAL);
+        row.setLayoutParams(new RecyclerView.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+
+        TextView label = new TextView(parent.getContext());
+        label.setTextSize(14f);
+        label.setPadding(8, 4, 8, 4);
+        row.addView(label);
+
+        WaveformView waveform = new WaveformView(parent.getContext());
+        int height = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 28,
+                parent.getResources().getDisplayMetrics());
+        row.addView(waveform, new LinearLayout.LayoutParams(0, height, 1f));
+        return new Holder(row, label, waveform);
+    }
+
+    @Override
+    public void onBindViewHolder(Holder holder, int position) {
+        SavedSegment segment = getItem(position);
+        holder.bind(segment, segment == playing);
+    }
+
+    final class Holder extends RecyclerView.ViewHolder implements View.OnClickListener {
+        private final TextView label;
+        private final WaveformView waveform;
+        private SavedSegment segment;
+
+        Holder(View itemView, TextView label, WaveformView waveform) {
+            super(itemView);
+            this.label = label;
+            this.waveform = waveform;
+            itemView.setOnClickListener(this);
+        }
+
+        void bind(SavedSegment segment, boolean isPlaying) {
+            if (this.segment != segment) {
+                this.segment = segment;
+                if (segment.sampleRate > 0) {
+                    long seconds = segment.getDurationMs() / 1000;
+                    label.setText(String.format(Locale.US, "🟢 %s (%d:%02d)",
+                            segment.name, seconds / 60, seconds % 60));
+                } else {
+                    label.setText("🟢 " + segment.name);
+                }
+                waveform.setPeaks(segment.peaks);
+            }
+            waveform.setPlaying(isPlaying);
+            itemView.setClickable(segment.isPlayable());
+        }
+
+        @Override
+        public void onClick(View v) {
+            if (segment != null && segment.isPlayable()) {
+                clickListener.onSentenceClick(segment);
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.bk_meeting;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+// Đọc một file phiên thu (SessionContainer): mục lục được nạp một lần, PCM của từng segment
+// được memory-map theo yêu cầu nên truy cập ngẫu nhiên không phải quét file.
+// Chỉ thấy các segment đã commit: đọc được cả khi phiên vẫn đang ghi hoặc app bị dừng đột ngột
+// (bản ghi mục lục hỏng/chưa ghi xong ở cuối bị bỏ qua).
+//
+// File dữ liệu (.bks): header DATA_HEADER_SIZE byte rồi PCM 16-bit mono little-endian nối tiếp.
+//   0 magic "BKSS" | 4 version | 8 sampleRate | 12 channels (short) | 14 bits (short) | 16 createdAt (ms)
+// File mục lục (.bks.idx): header INDEX_HEADER_SIZE byte rồi các bản ghi ENTRY_SIZE byte:
+//   0 sampleOffset | 8 startTime (ms) | 16 sampleCount | 20 rms | 24 peak (short) | 26 flags (short) | 28 crc32
+public class SessionArchive implements AutoCloseable {
+
+    static final int DATA_MAGIC = 0x53534B42; // "BKSS" little-endian
+    static final int INDEX_MAGIC = 0x49534B42; // "BKSI"
+    static final int VERSION = 1;
+    static final int DATA_HEADER_SIZE = 64;
+    static final int INDEX_HEADER_SIZE = 16;
+    static final int ENTRY_SIZE = 32;
+    static final int FLAG_END_OF_SENTENCE = 1;
+    static final String INDEX_SUFFIX = ".idx";
+
+    // Một segment trong mục lục
+    public static final class Entry {
+        public final int index;
+        public final long sampleOffset; // tính từ đầu vùng PCM
+        public final int sampleCount;
+        public final long startTimeMillis;
+        public final short peak;
+        public final float rms;
+        public final boolean endOfSentence;
+
+        Entry(int index, long sampleOffset, int sampleCount, long startTimeMillis, short peak, float rms,
+              boolean endOfSentence) {
+            this.index = index;
+            this.sampleOffset = sampleOffset;
+            this.sampleCount = sampleCount;
+            this.startTimeMillis = startTimeMillis;
+            this.peak = peak;
+            this.rms = rms;
+            this.endOfSentence = endOfSentence;
+        }
+
+        public long getDurationMs(int sampleRate) {
+            return (long) sampleCount * 1000 / sampleRate;
+        }
+
+        // Ghi bản ghi vào out từ position hiện tại (ENTRY_SIZE byte)
+        void writeTo(ByteBuffer out, CRC32 crc) {
+            int start = out.position();
+            out.putLong(sampleOffset);
+            out.putLong(startTimeMillis);
+            out.putInt(sampleCount);
+            out.putFloat(rms);
+            out.putShort(peak);
+            out.putShort((short) (endOfSentence ? FLAG_END_OF_SENTENCE : 0));
+            out.putInt((int) checksum(out, start, crc));
+        }
+
+        // null nếu bản ghi hỏng (ghi dở khi app bị dừng)
+        static Entry read(ByteBuffer in, int index, CRC32 crc) {
+            int start = in.position();
+            long expected = checksum(in, start, crc);
+            long sampleOffset = in.getLong();
+            long startTime = in.getLong();
+            int sampleCount = in.getInt();
+            float rms = in.getFloat();
+            short peak = in.getShort();
+            short flags = in.getShort();
+            int stored = in.getInt();
+            if (stored != (int) expected || sampleOffset < 0 || sampleCount < 0) {
+                return null;
+            }
+            return new Entry(index, sampleOffset, sampleCount, startTime, peak, rms,
+                    (flags & FLAG_END_OF_SENTENCE) != 0);
+        }
+
+        private static long checksum(ByteBuffer buffer, int start, CRC32 crc) {
+            crc.reset();
+            for (int i = start; i < start + ENTRY_SIZE - 4; i++) {
+                crc.update(buffer.get(i));
+            }
+            return crc.getValue();
+        }
+    }
+
+    private final File dataFile;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private final int sampleRate;
+    private final long createdAtMillis;
+    private final Entry[] entries;
+
+    public SessionArchive(File dataFile) throws IOException {
+        this.dataFile = dataFile;
+        raf = new RandomAccessFile(dataFile, "r");
+        try {
+            channel = raf.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(DATA_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                // FileChannel trả về -1 ở cuối file
+            }
+            header.flip();
+            if (header.remaining() < DATA_HEADER_SIZE || header.getInt(0) != DATA_MAGIC) {
+                throw new IOException("Không phải file phiên thu: " + dataFile.getName());
+            }
+            if (header.getInt(4) != VERSION || header.getShort(12) != 1 || header.getShort(14) != 16) {
+                throw new IOException("Định dạng phiên thu không hỗ trợ: " + dataFile.getName());
+            }
+            sampleRate = header.getInt(8);
+            createdAtMillis = header.getLong(16);
+            entries = readIndex(indexFileFor(dataFile), (channel.size() - DATA_HEADER_SIZE) / 2);
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    static File indexFileFor(File dataFile) {
+        return new File(dataFile.getPath() + INDEX_SUFFIX);
+    }
+
+    // Các bản ghi hợp lệ liên tiếp từ đầu; dừng ở bản ghi hỏng hoặc trỏ ra ngoài dữ liệu
+    private static Entry[] readIndex(File indexFile, long dataSamples) throws IOException {
+        // java.nio.file.Files cần API 26, minSdk là 23
+        byte[] bytes;
+        try (RandomAccessFile indexRaf = new RandomAccessFile(indexFile, "r")) {
+            bytes = new byte[(int) indexRaf.length()];
+            indexRaf.readFully(bytes);
+        }
+        ByteBuffer in = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (bytes.length < INDEX_HEADER_SIZE || in.getInt(0) != INDEX_MAGIC || in.getInt(4) != VERSION) {
+            throw new IOException("Mục lục phiên thu không hợp lệ: " + indexFile.getName());
+        }
+        int count = (bytes.length - INDEX_HEADER_SIZE) / ENTRY_SIZE;
+        Entry[] entries = new Entry[count];
+        CRC32 crc = new CRC32();
+        int valid = 0;
+        in.position(INDEX_HEADER_SIZE);
+        while (valid < count) {
+            Entry entry = Entry.read(in, valid, crc);
+            if (entry == null || entry.sampleOffset + entry.sampleCount > dataSamples) {
+                break;
+            }
+            entries[valid++] = entry;
+        }
+        return valid == count ? entries : Arrays.copyOf(entries, valid);
+    }
+
+    public int getSegmentCount() {
+        return entries.length;
+    }
+
+    public Entry getEntry(int index) {
+        return entries[index];
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    public File getDataFile() {
+        return dataFile;
+    }
+
+    // PCM của segment (little-endian), memory-map chỉ đọc, không chép
+    public MappedByteBuffer map(int index) throws IOException {
+        Entry entry = entries[index];
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY,
+                DATA_HEADER_SIZE + entry.sampleOffset * 2, (long) entry.sampleCount * 2);
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        return mapped;
+    }
+
+    public ShortBuffer samples(int index) throws IOException {
+        return map(index).asShortBuffer();
+    }
+
+    // Xuất một segment ra file WAV riêng (ví dụ để gửi đi hoặc mở bằng ứng dụng khác)
+    public File exportWav(int index, File out) throws IOException {
+        WavSegmentWriter writer = new WavSegmentWriter(out, sampleRate, 1, 16);
+        try {
+            writer.write(map(index));
+            writer.close();
+        } catch (IOException | RuntimeException e) {
+            writer.discard();
+            throw e;
+        }
+        return out;
+    }
+
+    @Override
+    public void close() throws IOException {
+        raf.close();
+    }
+}
@@ -0,0 +1,386 @@
+package com.example.bk_meeting;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+// Ghi cả phiên thu vào một file dữ liệu nối đuôi (append-only) cộng một file mục lục nhị phân,
+// thay cho một file WAV mỗi câu: không mở/đóng/fsync hàng trăm file nhỏ trong buổi họp dài.
+// Định dạng xem SessionArchive. File dữ liệu được cấp trước theo từng khối PREALLOCATE_BYTES,
+// cắt về đúng kích thước khi finish().
+// Mỗi segment là một AudioSegmentWriter (openSegment()), ghi trên luồng thu, luôn nối tiếp segment
+// trước nên tại một thời điểm chỉ có một segment đang ghi. close() của segment (có thể trên luồng
+// lưu) fsync dữ liệu rồi mới thêm bản ghi mục lục, nên mục lục không bao giờ trỏ tới dữ liệu chưa ghi.
+// fsync và ghi mục lục chạy ngoài lock của container: luồng thu mở segment kế tiếp không phải chờ.
+public class SessionContainer {
+
+    public static final String EXTENSION = ".bks";
+
+    private static final long PREALLOCATE_BYTES = 4L * 1024 * 1024; // ~2 phút ở 16 kHz
+    private static final int STAGING_SIZE = 16 * 1024;
+
+    private final File dataFile;
+    private final File indexFile;
+    private final int sampleRate;
+    private final RandomAccessFile dataRaf;
+    private final FileChannel data;
+    private final RandomAccessFile indexRaf;
+    private final FileChannel index;
+    // Các commit nối tiếp nhau trên commitLock (giữ thứ tự bản ghi mục lục), không giữ lock của container
+    private final Object commitLock = new Object();
+    private final ByteBuffer entryBuffer = ByteBuffer.allocate(SessionArchive.ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final CRC32 crc = new CRC32();
+    private boolean forceOnCommit = true;
+
+    // staging chỉ luồng thu dùng; tailBytes/allocatedBytes và các bộ đếm đồng bộ trên this
+    // (commit/discard có thể chạy trên luồng lưu)
+    private final ByteBuffer staging = ByteBuffer.allocateDirect(STAGING_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private long tailBytes = SessionArchive.DATA_HEADER_SIZE; // vị trí ghi tiếp theo trong file dữ liệu
+    private long allocatedBytes;
+    private int committed;
+    private int openSegments;
+    private int openedSegments;
+    private boolean finishing;
+    private boolean closed;
+
+    public SessionContainer(File dataFile, int sampleRate) throws IOException {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sampleRate must be > 0");
+        }
+        this.dataFile = dataFile;
+        this.indexFile = SessionArchive.indexFileFor(dataFile);
+        this.sampleRate = sampleRate;
+
+        dataRaf = new RandomAccessFile(dataFile, "rw");
+        RandomAccessFile openedIndex = null;
+        try {
+            dataRaf.setLength(0);
+            data = dataRaf.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(SessionArchive.DATA_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(SessionArchive.DATA_MAGIC).putInt(SessionArchive.VERSION).putInt(sampleRate)
+                    .putShort((short) 1).putShort((short) 16).putLong(System.currentTimeMillis());
+            header.clear();
+            writeFully(data, header, 0);
+            preallocate(tailBytes);
+
+            openedIndex = new RandomAccessFile(indexFile, "rw");
+            openedIndex.setLength(0);
+            indexRaf = openedIndex;
+            index = indexRaf.getChannel();
+            ByteBuffer indexHeader = ByteBuffer.allocate(SessionArchive.INDEX_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            indexHeader.putInt(SessionArchive.INDEX_MAGIC).putInt(SessionArchive.VERSION).putInt(sampleRate);
+            indexHeader.clear();
+            writeFully(index, indexHeader, 0);
+        } catch (IOException | RuntimeException e) {
+            dataRaf.close();
+            if (openedIndex != null) {
+                openedIndex.close();
+            }
+            throw e;
+        }
+    }
+
+    // Segment mới bắt đầu ở cuối dữ liệu; startTimeMillis là thời điểm (epoch) của mẫu đầu tiên
+    public synchronized SegmentWriter openSegment(long startTimeMillis) throws IOException {
+        if (finishing || closed) {
+            throw new IOException("Session already finished: " + dataFile.getName());
+        }
+        openSegments++;
+        return new SegmentWriter(++openedSegments, startTimeMillis, tailBytes);
+    }
+
+    // Không nhận segment mới; file được cắt gọn và đóng khi segment cuối cùng commit hoặc bị huỷ
+    public synchronized void finish() throws IOException {
+        finishing = true;
+        if (openSegments == 0) {
+            closeFiles();
+        }
+    }
+
+    // Tắt fsync mỗi segment (nhanh hơn, có thể mất các segment cuối nếu máy tắt đột ngột)
+    public void setForceOnCommit(boolean forceOnCommit) {
+        this.forceOnCommit = forceOnCommit;
+    }
+
+    public File getDataFile() {
+        return dataFile;
+    }
+
+    public File getIndexFile() {
+        return indexFile;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public synchronized int getCommittedCount() {
+        return committed;
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    // Vị trí ghi tiếp theo, file đã được cấp đủ chỗ cho thêm length byte
+    private synchronized long reserveTail(long length) throws IOException {
+        preallocate(tailBytes + length);
+        return tailBytes;
+    }
+
+    private synchronized void advanceTail(long bytes) {
+        tailBytes += bytes;
+    }
+
+    // Gọi trong synchronized (hoặc từ constructor)
+    private void preallocate(long requiredBytes) throws IOException {
+        if (requiredBytes > allocatedBytes) {
+            allocatedBytes = (requiredBytes / PREALLOCATE_BYTES + 1) * PREALLOCATE_BYTES;
+            dataRaf.setLength(allocatedBytes);
+        }
+    }
+
+    // Gọi từ commit/discard của segment, trong synchronized
+    private void onSegmentEnded() throws IOException {
+        openSegments--;
+        if (finishing && openSegments == 0) {
+            closeFiles();
+        }
+    }
+
+    private void closeFiles() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            dataRaf.setLength(tailBytes);
+            data.force(true);
+        } finally {
+            try {
+                dataRaf.close();
+            } finally {
+                indexRaf.close();
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer src, long position) throws IOException {
+        while (src.hasRemaining()) {
+            position += channel.write(src, position);
+        }
+    }
+
+    // Một segment trong container: PCM ghi thẳng vào cuối file dữ liệu, peak/RMS tính khi ghi
+    public class SegmentWriter implements AudioSegmentWriter {
+
+        private final int sequence;
+        private final long startTimeMillis;
+        private final long startBytes;
+        private long dataLength;
+        private long sumSquares;
+        private int peak;
+        private boolean closed;
+        private int entryIndex = -1;
+        private volatile boolean endOfSentence;
+
+        SegmentWriter(int sequence, long startTimeMillis, long startBytes) {
+            this.sequence = sequence;
+            this.startTimeMillis = startTimeMillis;
+            this.startBytes = startBytes;
+        }
+
+        @Override
+        public void write(ByteBuffer src) throws IOException {
+            ensureOpen();
+            int length = src.remaining() & ~1;
+            boolean bigEndian = src.order() == ByteOrder.BIG_ENDIAN;
+            int from = src.position();
+            for (int i = from; i < from + length; i += 2) {
+                short sample = src.getShort(i);
+                measure(bigEndian ? Short.reverseBytes(sample) : sample);
+            }
+            long position = reserveTail(length);
+            if (src.isDirect() && !bigEndian) {
+                // Frame direct little-endian: ghi thẳng, không chép qua staging
+                int limit = src.limit();
+                src.limit(from + length);
+                try {
+                    writeFully(data, src, position);
+                } finally {
+                    src.limit(limit);
+                }
+                advance(length);
+            } else {
+                for (int done = 0; done < length; ) {
+                    int chunk = Math.min(length - done, staging.capacity());
+                    staging.clear();
+                    for (int i = 0; i < chunk; i += 2) {
+                        short sample = src.getShort(from + done + i);
+                        staging.putShort(bigEndian ? Short.reverseBytes(sample) : sample);
+                    }
+                    staging.flip();
+                    writeFully(data, staging, position);
+                    position += chunk;
+                    advance(chunk);
+                    done += chunk;
+                }
+            }
+            src.position(src.limit());
+        }
+
+        @Override
+        public void write(short[] samples, int offset, int length) throws IOException {
+            ensureOpen();
+            long position = reserveTail((long) length * 2);
+            while (length > 0) {
+                staging.clear();
+                int chunk = Math.min(length, staging.capacity() / 2);
+                for (int i = 0; i < chunk; i++) {
+                    short sample = samples[offset + i];
+                    measure(sample);
+                    staging.putShort(sample);
+                }
+                staging.flip();
+                writeFully(data, staging, position);
+                position += chunk * 2;
+                advance(chunk * 2);
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+
+        private void measure(short sample) {
+            sumSquares += sample * sample;
+            int magnitude = Math.abs((int) sample);
+            if (magnitude > peak) {
+                peak = magnitude;
+            }
+        }
+
+        private void advance(int bytes) {
+            dataLength += bytes;
+            advanceTail(bytes);
+        }
+
+        @Override
+        public long getDataLength() {
+            return dataLength;
+        }
+
+        @Override
+        public long getDurationMs() {
+            return dataLength / 2 * 1000 / sampleRate;
+        }
+
+        // File dữ liệu của cả phiên
+        @Override
+        public File getFile() {
+            return dataFile;
+        }
+
+        // "<tên phiên>#<số thứ tự segment>" sau khi commit
+        @Override
+        public String getName() {
+            return dataFile.getName() + "#" + entryIndex;
+        }
+
+        @Override
+        public long getPcmOffset() {
+            return startBytes;
+        }
+
+        public long getStartTimeMillis() {
+            return startTimeMillis;
+        }
+
+        // Ghi vào cờ của bản ghi mục lục; gọi trước close()
+        public void setEndOfSentence(boolean endOfSentence) {
+            this.endOfSentence = endOfSentence;
+        }
+
+        // Số thứ tự trong mục lục, -1 trước khi commit
+        public int getEntryIndex() {
+            return entryIndex;
+        }
+
+        // Commit: fsync dữ liệu rồi thêm bản ghi mục lục. Lock của container chỉ giữ khi đổi bộ đếm;
+        // file chưa bị đóng vì segment này vẫn được tính trong openSegments tới cuối
+        @Override
+        public void close() throws IOException {
+            synchronized (SessionContainer.this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            try {
+                if (dataLength > 0) {
+                    synchronized (commitLock) {
+                        commit();
+                    }
+                }
+            } finally {
+                synchronized (SessionContainer.this) {
+                    onSegmentEnded();
+                }
+            }
+        }
+
+        // Trong commitLock: chỉ một commit ghi mục lục tại một thời điểm
+        private void commit() throws IOException {
+            if (forceOnCommit) {
+                data.force(false);
+            }
+            int slot;
+            synchronized (SessionContainer.this) {
+                slot = committed;
+            }
+            long samples = dataLength / 2;
+            SessionArchive.Entry entry = new SessionArchive.Entry(slot,
+                    (startBytes - SessionArchive.DATA_HEADER_SIZE) / 2, (int) samples,
+                    startTimeMillis, (short) Math.min(peak, Short.MAX_VALUE),
+                    (float) Math.sqrt((double) sumSquares / samples), endOfSentence);
+            entryBuffer.clear();
+            entry.writeTo(entryBuffer, crc);
+            entryBuffer.flip();
+            writeFully(index, entryBuffer,
+                    SessionArchive.INDEX_HEADER_SIZE + (long) slot * SessionArchive.ENTRY_SIZE);
+            if (forceOnCommit) {
+                index.force(false);
+            }
+            synchronized (SessionContainer.this) {
+                entryIndex = committed++;
+            }
+        }
+
+        @Override
+        public void discard() {
+            synchronized (SessionContainer.this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                // Segment mở sau cùng bị huỷ: lùi đuôi để segment sau ghi đè lên
+                if (sequence == openedSegments) {
+                    tailBytes = startBytes;
+                }
+                try {
+                    onSegmentEnded();
+                } catch (IOException ignored) {
+                    // Đóng file khi finish(): dữ liệu đã commit vẫn còn nguyên
+                }
+            }
+        }
+
+        private void ensureOpen() throws IOException {
+            if (closed) {
+                throw new IOException("Segment already closed: " + getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.bk_meeting;
+
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+// Khử nhiễu nền ổn định (quạt điều hoà, máy chiếu) bằng spectral gating trên STFT:
+// - cửa sổ sqrt-Hann, chồng 50%, overlap-add (tái tạo chính xác khi không khử)
+// - phổ công suất nhiễu học trong các khung mà VAD báo im lặng (trung bình trượt)
+// - mỗi bin nhân gain = 1 - overSubtraction * nhiễu/tín hiệu, không thấp hơn sàn -reductionDb;
+//   gain tăng ngay nhưng giảm dần theo releaseFactor để tránh "musical noise"
+// Xử lý tại chỗ, trễ cố định getLatencySamples() mẫu. Mọi bảng FFT, cửa sổ và buffer
+// cấp phát trong constructor, process() không cấp phát. Không thread-safe, dùng trên luồng thu.
+public class SpectralNoiseSuppressor {
+
+    private static final int FRAME_MS = 20; // cỡ khung tối thiểu, làm tròn lên luỹ thừa 2
+
+    private final int fftSize;
+    private final int hopSize;
+    private final int bins;
+    private final int log2Size;
+
+    // Bảng tính sẵn
+    private final float[] window;
+    private final float[] cos;
+    private final float[] sin;
+    private final int[] bitReverse;
+
+    // Buffer
+    private final float[] input;   // fftSize mẫu vào gần nhất, hop mới nhất ở cuối
+    private final float[] output;  // hop mẫu ra đã hoàn tất overlap-add, phát trong hop tiếp theo
+    private final float[] overlap; // bộ tích luỹ overlap-add
+    private final float[] re;
+    private final float[] im;
+    private final float[] noisePower;
+    private final float[] gain;
+
+    // Tham số
+    private float floorGain = dbToGain(-15);
+    private float overSubtraction = 2f;
+    private float noiseSmoothing = 0.95f;
+    private float releaseFactor = 0.7f;
+    private int minNoiseFrames = 10;
+
+    // Trạng thái
+    private int fill;
+    private boolean voiceInHop;
+    private boolean voiceInPreviousHop = true; // khung đầu tiên chứa mẫu 0 chưa biết, không học
+    private int noiseFrames;
+    private boolean bypass;
+    private long framesProcessed;
+    private long framesGated;
+
+    public SpectralNoiseSuppressor(int sampleRate) {
+        this(sampleRate, Integer.highestOneBit(Math.max(16, sampleRate * FRAME_MS / 1000 - 1)) * 2);
+    }
+
+    public SpectralNoiseSuppressor(int sampleRate, int fftSize) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sampleRate must be > 0");
+        }
+        if (fftSize < 16 || Integer.bitCount(fftSize) != 1) {
+            throw new IllegalArgumentException("fftSize must be a power of two >= 16");
+        }
+        this.fftSize = fftSize;
+        this.hopSize = fftSize / 2;
+        this.bins = fftSize / 2 + 1;
+        this.log2Size = Integer.numberOfTrailingZeros(fftSize);
+
+        window = new float[fftSize];
+        for (int i = 0; i < fftSize; i++) {
+            // sqrt của Hann tuần hoàn: phân tích và tổng hợp, tổng bình phương chồng 50% bằng 1
+            window[i] = (float) Math.sqrt(0.5 - 0.5 * Math.cos(2 * Math.PI * i / fftSize));
+        }
+        cos = new float[fftSize / 2];
+        sin = new float[fftSize / 2];
+        for (int i = 0; i < fftSize / 2; i++) {
+            cos[i] = (float) Math.cos(2 * Math.PI * i / fftSize);
+            sin[i] = (float) -Math.sin(2 * Math.PI * i / fftSize);
+        }
+        bitReverse = new int[fftSize];
+        for (int i = 0; i < fftSize; i++) {
+            bitReverse[i] = Integer.reverse(i) >>> (32 - log2Size);
+        }
+
+        input = new float[fftSize];
+        output = new float[hopSize];
+        overlap = new float[fftSize];
+        re = new float[fftSize];
+        im = new float[fftSize];
+        noisePower = new float[bins];
+        gain = new float[bins];
+        reset();
+    }
+
+    // Khử nhiễu samples[0, limit) tại chỗ; voiceDetected là quyết định VAD cho các mẫu này
+    public void process(ShortBuffer samples, boolean voiceDetected) {
+        int count = samples.limit();
+        voiceInHop |= voiceDetected;
+        int base = fftSize - hopSize;
+        for (int i = 0; i < count; i++) {
+            input[base + fill] = samples.get(i);
+            float y = output[fill];
+            samples.put(i, y >= 32767f ? Short.MAX_VALUE : y <= -32768f ? Short.MIN_VALUE : (short) Math.round(y));
+            if (++fill == hopSize) {
+                fill = 0;
+                processHop();
+                voiceInHop = voiceDetected;
+            }
+        }
+    }
+
+    // Một khung STFT: phát hop cũ nhất đã đủ chồng lấn ra output, trượt input đi một hop
+    private void processHop() {
+        framesProcessed++;
+        if (bypass) {
+            System.arraycopy(input, 0, output, 0, hopSize);
+        } else {
+            for (int i = 0; i < fftSize; i++) {
+                re[i] = input[i] * window[i];
+                im[i] = 0;
+            }
+            fft(re, im);
+            applyGain(!voiceInHop && !voiceInPreviousHop);
+            // IFFT bằng FFT thuận trên liên hợp; chia fftSize khi tổng hợp
+            for (int i = 0; i < fftSize; i++) {
+                im[i] = -im[i];
+            }
+            fft(re, im);
+            float scale = 1f / fftSize;
+            for (int i = 0; i < fftSize; i++) {
+                overlap[i] += re[i] * scale * window[i];
+            }
+            System.arraycopy(overlap, 0, output, 0, hopSize);
+            System.arraycopy(overlap, hopSize, overlap, 0, fftSize - hopSize);
+            for (int i = fftSize - hopSize; i < fftSize; i++) {
+                overlap[i] = 0;
+            }
+        }
+        System.arraycopy(input, hopSize, input, 0, fftSize - hopSize);
+        voiceInPreviousHop = voiceInHop;
+    }
+
+    // Cập nhật phổ nhiễu (nếu cả khung là im lặng) và nhân gain cho từng bin, đối xứng liên hợp
+    private void applyGain(boolean learnNoise) {
+        if (learnNoise) {
+            float keep = noiseFrames == 0 ? 0f : noiseSmoothing;
+            for (int k = 0; k < bins; k++) {
+                float power = re[k] * re[k] + im[k] * im[k];
+                noisePower[k] = keep * noisePower[k] + (1 - keep) * power;
+            }
+            noiseFrames++;
+        }
+        if (noiseFrames < minNoiseFrames) {
+            return; // chưa có phổ nhiễu tin cậy: giữ nguyên tín hiệu
+        }
+        framesGated++;
+        for (int k = 0; k < bins; k++) {
+            float power = re[k] * re[k] + im[k] * im[k];
+            float target = power > 0 ? 1 - overSubtraction * noisePower[k] / power : 0;
+            if (target < floorGain) {
+                target = floorGain;
+            }
+            float g = Math.max(target, gain[k] * releaseFactor);
+            gain[k] = g;
+            re[k] *= g;
+            im[k] *= g;
+            if (k > 0 && k < fftSize / 2) {
+                re[fftSize - k] *= g;
+                im[fftSize - k] *= g;
+            }
+        }
+    }
+
+    // FFT phức radix-2 tại chỗ, bảng twiddle và hoán vị đảo bit tính sẵn
+    private void fft(float[] re, float[] im) {
+        for (int i = 0; i < fftSize; i++) {
+            int j = bitReverse[i];
+            if (j > i) {
+                float t = re[i];
+                re[i] = re[j];
+                re[j] = t;
+                t = im[i];
+                im[i] = im[j];
+                im[j] = t;
+            }
+        }
+        for (int size = 2; size <= fftSize; size <<= 1) {
+            int half = size >> 1;
+            int step = fftSize / size;
+            for (int start = 0; start < fftSize; start += size) {
+                for (int k = 0, t = 0; k < half; k++, t += step) {
+                    int a = start + k;
+                    int b = a + half;
+                    float wr = cos[t];
+                    float wi = sin[t];
+                    float xr = re[b] * wr - im[b] * wi;
+                    float xi = re[b] * wi + im[b] * wr;
+                    re[b] = re[a] - xr;
+                    im[b] = im[a] - xi;
+                    re[a] += xr;
+                    im[a] += xi;
+                }
+            }
+        }
+    }
+
+    // Quên phổ nhiễu và dữ liệu đang chờ, dùng khi bắt đầu phiên thu mới
+    public void reset() {
+        Arrays.fill(input, 0);
+        Arrays.fill(output, 0);
+        Arrays.fill(overlap, 0);
+        Arrays.fill(noisePower, 0);
+        Arrays.fill(gain, 1);
+        fill = 0;
+        voiceInHop = false;
+        voiceInPreviousHop = true;
+        noiseFrames = 0;
+        bypass = false;
+        framesProcessed = 0;
+        framesGated = 0;
+    }
+
+    // Bỏ qua FFT, chỉ giữ đường trễ (độ trễ không đổi, gần như không tốn CPU)
+    public void setBypass(boolean bypass) {
+        if (bypass && !this.bypass) {
+            Arrays.fill(overlap, 0);
+        }
+        this.bypass = bypass;
+    }
+
+    // Mức giảm tối đa cho bin chỉ có nhiễu (dB, > 0)
+    public void setReductionDb(float reductionDb) {
+        if (reductionDb <= 0) {
+            throw new IllegalArgumentException("reductionDb must be > 0");
+        }
+        this.floorGain = dbToGain(-reductionDb);
+    }
+
+    // Hệ số nhân phổ nhiễu khi trừ, > 1 khử mạnh hơn nhưng dễ làm méo giọng
+    public void setOverSubtraction(float overSubtraction) {
+        if (overSubtraction <= 0) {
+            throw new IllegalArgumentException("overSubtraction must be > 0");
+        }
+        this.overSubtraction = overSubtraction;
+    }
+
+    // Số khung im lặng cần học trước khi bắt đầu khử
+    public void setMinNoiseFrames(int minNoiseFrames) {
+        if (minNoiseFrames < 1) {
+            throw new IllegalArgumentException("minNoiseFrames must be >= 1");
+        }
+        this.minNoiseFrames = minNoiseFrames;
+    }
+
+    public boolean isBypassed() {
+        return bypass;
+    }
+
+    public boolean isNoiseProfileReady() {
+        return noiseFrames >= minNoiseFrames;
+    }
+
+    public int getFftSize() {
+        return fftSize;
+    }
+
+    // Trễ từ mẫu vào tới mẫu ra tương ứng
+    public int getLatencySamples() {
+        return fftSize;
+    }
+
+    public long getFramesProcessed() {
+        return framesProcessed;
+    }
+
+    // Số khung đã áp dụng gain (sau khi có phổ nhiễu, không bypass)
+    public long getFramesGated() {
+        return framesGated;
+    }
+
+    private static float dbToGain(float db) {
+        return (float) Math.pow(10, db / 20);
+    }
+}
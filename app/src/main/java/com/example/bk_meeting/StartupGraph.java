@@ -0,0 +1,237 @@
+package com.example.bk_meeting;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
+
+// Bộ lập lịch khởi động: các việc khởi tạo có phụ thuộc, mỗi việc chạy ngay khi mọi việc nó phụ
+// thuộc đã xong, trên main thread hoặc luồng nền; các nhánh độc lập chạy song song.
+// Thay cho chuỗi postDelayed cố định: máy nhanh không phải chờ, máy chậm không bị chạy trước.
+//
+// Phụ thuộc phải được add() trước việc dùng nó, nên đồ thị không thể có chu trình. Một việc có
+// thể add() thêm việc mới khi đang chạy (ví dụ chọn màn hình sau khi biết số display);
+// onFinished() chỉ gọi khi không còn việc nào chưa xong.
+// Việc lỗi vẫn được coi là xong (ghi vào Listener) để phần khởi động còn lại không bị kẹt.
+// Việc bất đồng bộ có thể không bao giờ gọi completion (callback bị mất): đặt timeoutMillis để
+// việc tự lỗi với TimeoutException sau thời hạn, tính từ lúc bắt đầu chạy.
+public class StartupGraph {
+
+    public interface Task {
+        // Việc đồng bộ gọi completion.done() trước khi trả về; việc bất đồng bộ (hộp thoại quyền,
+        // chờ WebView) giữ completion và gọi sau, trên luồng bất kỳ
+        void run(Completion completion) throws Exception;
+    }
+
+    public interface Completion {
+        void done();
+
+        void fail(Throwable error);
+    }
+
+    // Chạy action sau delayMillis (Handler.postDelayed trên Android), dùng cho thời hạn của việc
+    public interface Scheduler {
+        void schedule(Runnable action, long delayMillis);
+    }
+
+    public interface Listener {
+        // waitNanos: từ start() tới lúc việc bắt đầu chạy; runNanos: từ lúc chạy tới khi xong
+        void onTaskFinished(String name, long waitNanos, long runNanos, Throwable error);
+
+        void onFinished(long totalNanos);
+    }
+
+    private static final class Node {
+        final String name;
+        final boolean onMainThread;
+        final Task task;
+        final long timeoutMillis;
+        final List<Node> dependents = new ArrayList<>();
+        int pendingDependencies;
+        boolean dispatched;
+        boolean finished;
+        long startedAtNanos;
+
+        Node(String name, boolean onMainThread, Task task, long timeoutMillis) {
+            this.name = name;
+            this.onMainThread = onMainThread;
+            this.task = task;
+            this.timeoutMillis = timeoutMillis;
+        }
+    }
+
+    private final Executor mainExecutor;
+    private final Executor backgroundExecutor;
+    private final Scheduler scheduler;
+    private final Listener listener;
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+    private long startNanos;
+    private boolean started;
+    private int unfinished;
+
+    public StartupGraph(Executor mainExecutor, Executor backgroundExecutor, Scheduler scheduler,
+                        Listener listener) {
+        if (mainExecutor == null || backgroundExecutor == null || scheduler == null || listener == null) {
+            throw new IllegalArgumentException("executors, scheduler and listener must not be null");
+        }
+        this.mainExecutor = mainExecutor;
+        this.backgroundExecutor = backgroundExecutor;
+        this.scheduler = scheduler;
+        this.listener = listener;
+    }
+
+    // Việc đồng bộ: xong khi action trả về
+    public StartupGraph add(String name, boolean onMainThread, Runnable action, String... dependsOn) {
+        return addTask(name, onMainThread, completion -> {
+            action.run();
+            completion.done();
+        }, dependsOn);
+    }
+
+    // Không có thời hạn: chỉ dùng cho việc chắc chắn gọi completion
+    public StartupGraph addTask(String name, boolean onMainThread, Task task, String... dependsOn) {
+        return addTask(name, onMainThread, 0, task, dependsOn);
+    }
+
+    // timeoutMillis = 0: không có thời hạn
+    public StartupGraph addTask(String name, boolean onMainThread, long timeoutMillis, Task task,
+                                String... dependsOn) {
+        if (name == null || task == null) {
+            throw new IllegalArgumentException("name and task must not be null");
+        }
+        if (timeoutMillis < 0) {
+            throw new IllegalArgumentException("timeoutMillis must be >= 0");
+        }
+        Node node = new Node(name, onMainThread, task, timeoutMillis);
+        boolean ready;
+        synchronized (this) {
+            if (nodes.containsKey(name)) {
+                throw new IllegalArgumentException("Duplicate startup task: " + name);
+            }
+            if (started && unfinished == 0) {
+                throw new IllegalStateException("Startup already finished");
+            }
+            List<Node> dependencies = new ArrayList<>(dependsOn.length);
+            for (String dependency : dependsOn) {
+                Node parent = nodes.get(dependency);
+                if (parent == null) {
+                    throw new IllegalArgumentException("Unknown dependency " + dependency + " of " + name);
+                }
+                dependencies.add(parent);
+            }
+            for (Node parent : dependencies) {
+                if (!parent.finished) {
+                    parent.dependents.add(node);
+                    node.pendingDependencies++;
+                }
+            }
+            nodes.put(name, node);
+            unfinished++;
+            ready = started && node.pendingDependencies == 0;
+            if (ready) {
+                node.dispatched = true;
+            }
+        }
+        if (ready) {
+            dispatch(node);
+        }
+        return this;
+    }
+
+    public void start() {
+        List<Node> ready = new ArrayList<>();
+        synchronized (this) {
+            if (started) {
+                throw new IllegalStateException("StartupGraph already started");
+            }
+            started = true;
+            startNanos = System.nanoTime();
+            for (Node node : nodes.values()) {
+                if (node.pendingDependencies == 0) {
+                    node.dispatched = true;
+                    ready.add(node);
+                }
+            }
+        }
+        if (ready.isEmpty()) {
+            listener.onFinished(0);
+            return;
+        }
+        for (Node node : ready) {
+            dispatch(node);
+        }
+    }
+
+    public synchronized boolean isFinished(String name) {
+        Node node = nodes.get(name);
+        return node != null && node.finished;
+    }
+
+    private void dispatch(Node node) {
+        Executor executor = node.onMainThread ? mainExecutor : backgroundExecutor;
+        executor.execute(() -> run(node));
+    }
+
+    private void run(Node node) {
+        node.startedAtNanos = System.nanoTime();
+        Completion completion = new Completion() {
+            private boolean completed;
+
+            @Override
+            public void done() {
+                finish(null);
+            }
+
+            @Override
+            public void fail(Throwable error) {
+                finish(error != null ? error : new IllegalStateException("failed"));
+            }
+
+            private void finish(Throwable error) {
+                synchronized (this) {
+                    if (completed) {
+                        return;
+                    }
+                    completed = true;
+                }
+                complete(node, error);
+            }
+        };
+        if (node.timeoutMillis > 0) {
+            scheduler.schedule(() -> completion.fail(new TimeoutException(
+                    node.name + " did not complete within " + node.timeoutMillis + " ms")), node.timeoutMillis);
+        }
+        try {
+            node.task.run(completion);
+        } catch (Exception | Error e) {
+            completion.fail(e);
+        }
+    }
+
+    private void complete(Node node, Throwable error) {
+        long now = System.nanoTime();
+        List<Node> ready = new ArrayList<>();
+        boolean allDone;
+        synchronized (this) {
+            node.finished = true;
+            unfinished--;
+            for (Node dependent : node.dependents) {
+                if (--dependent.pendingDependencies == 0 && !dependent.dispatched) {
+                    dependent.dispatched = true;
+                    ready.add(dependent);
+                }
+            }
+            node.dependents.clear();
+            allDone = unfinished == 0;
+        }
+        listener.onTaskFinished(node.name, node.startedAtNanos - startNanos, now - node.startedAtNanos, error);
+        for (Node dependent : ready) {
+            dispatch(dependent);
+        }
+        if (allDone) {
+            listener.onFinished(now - startNanos);
+        }
+    }
+}
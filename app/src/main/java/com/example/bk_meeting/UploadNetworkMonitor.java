@@ -0,0 +1,74 @@
+package com.example.bk_meeting;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+
+import java.util.HashSet;
+import java.util.Set;
+
+// Báo cho UploadQueue khi có/mất mạng (quyền ACCESS_NETWORK_STATE): không mở request khi đang
+// offline để khỏi đốt lượt thử lại, và thử lại ngay khi mạng trở lại thay vì chờ hết backoff
+public class UploadNetworkMonitor {
+
+    private final ConnectivityManager connectivityManager;
+    private final UploadQueue queue;
+    // Truy cập trên luồng callback của ConnectivityManager
+    private final Set<Network> networks = new HashSet<>();
+    private boolean registered;
+
+    private final ConnectivityManager.NetworkCallback callback = new ConnectivityManager.NetworkCallback() {
+        @Override
+        public void onAvailable(Network network) {
+            synchronized (networks) {
+                networks.add(network);
+            }
+            queue.setNetworkAvailable(true);
+        }
+
+        @Override
+        public void onLost(Network network) {
+            boolean any;
+            synchronized (networks) {
+                networks.remove(network);
+                any = !networks.isEmpty();
+            }
+            queue.setNetworkAvailable(any);
+        }
+    };
+
+    public UploadNetworkMonitor(Context context, UploadQueue queue) {
+        this.connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        this.queue = queue;
+    }
+
+    public void start() {
+        if (registered || connectivityManager == null) {
+            return;
+        }
+        queue.setNetworkAvailable(isConnected());
+        NetworkRequest request = new NetworkRequest.Builder()
+                .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                .build();
+        connectivityManager.registerNetworkCallback(request, callback);
+        registered = true;
+    }
+
+    public void stop() {
+        if (registered) {
+            connectivityManager.unregisterNetworkCallback(callback);
+            registered = false;
+        }
+    }
+
+    private boolean isConnected() {
+        Network active = connectivityManager.getActiveNetwork();
+        if (active == null) {
+            return false;
+        }
+        NetworkCapabilities capabilities = connectivityManager.getNetworkCapabilities(active);
+        return capabilities != null && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+    }
+}
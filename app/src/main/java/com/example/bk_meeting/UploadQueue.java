@@ -0,0 +1,745 @@
+package com.example.bk_meeting;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+// Hàng đợi tải segment đã lưu lên server, bền qua khởi động lại app.
+// - enqueue() chỉ thêm vào danh sách trong bộ nhớ (gọi được từ main thread); trạng thái được ghi
+//   xuống stateFile trên luồng điều phối (ghi file tạm, fsync, rename) và nạp lại ở start().
+// - Tối đa maxConcurrent request cùng lúc. Segment lớn tải từng khối chunkSize, tiếp tục được từ
+//   byte server đã nhận (hỏi lại server sau lỗi hoặc sau khi khởi động lại). Segment nhỏ
+//   (<= batchThreshold) được giữ tối đa batchLinger để gom vào một request.
+// - Lỗi tạm thời: thử lại với backoff luỹ thừa có jitter; lỗi vĩnh viễn (4xx, file mất): bỏ mục đó.
+// - Mất mạng (setNetworkAvailable(false)): không bắt đầu request mới; có mạng lại thì thử ngay.
+// Mọi luồng của hàng đợi chạy ở MIN_PRIORITY (nice 19 trên Android) nên không tranh CPU với luồng
+// thu URGENT_AUDIO; việc đọc file và mạng không bao giờ chạy trên luồng thu hay main thread.
+public class UploadQueue {
+
+    public interface Listener {
+        // Gọi trên luồng nền của hàng đợi
+        void onUploaded(Item item, long latencyMillis);
+
+        // Mục bị bỏ vì lỗi vĩnh viễn
+        void onGaveUp(Item item, IOException error);
+    }
+
+    // Lỗi gửi lại cũng vô ích (yêu cầu bị từ chối, file không còn)
+    public static class PermanentUploadException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public PermanentUploadException(String message) {
+            super(message);
+        }
+    }
+
+    // Một nội dung cần tải: cả file (length = -1) hoặc một đoạn byte của file (segment trong .bks)
+    public static final class Item {
+        public final String id;
+        public final File file;
+        public final String name;
+        public final String contentType;
+        public final long offset;
+        public final long createdAtMillis;
+
+        // Các trường dưới đây chỉ đọc/ghi khi giữ lock của hàng đợi
+        long length;
+        long uploadedBytes;
+        int attempts;
+        long readyAtNanos;
+        boolean inFlight;
+        boolean resume; // phải hỏi server đã nhận tới đâu trước khi gửi tiếp
+
+        Item(String id, File file, String name, String contentType, long offset, long length,
+             long createdAtMillis) {
+            this.id = id;
+            this.file = file;
+            this.name = name;
+            this.contentType = contentType;
+            this.offset = offset;
+            this.length = length;
+            this.createdAtMillis = createdAtMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "Upload{" + name + ", " + uploadedBytes + "/" + length + "}";
+        }
+    }
+
+    // Số liệu tại một thời điểm, để log/hiển thị
+    public static final class Stats {
+        public final int queued;       // chưa tải xong, kể cả đang tải
+        public final long queuedBytes; // số byte còn phải gửi (chỉ tính mục đã biết kích thước)
+        public final int inFlight;     // request đang chạy
+        public final long uploadedItems;
+        public final long uploadedBytes;
+        public final long requests;
+        public final long failures;
+        public final double bytesPerSecond; // trên thời gian có ít nhất một request đang chạy
+
+        Stats(int queued, long queuedBytes, int inFlight, long uploadedItems, long uploadedBytes,
+              long requests, long failures, double bytesPerSecond) {
+            this.queued = queued;
+            this.queuedBytes = queuedBytes;
+            this.inFlight = inFlight;
+            this.uploadedItems = uploadedItems;
+            this.uploadedBytes = uploadedBytes;
+            this.requests = requests;
+            this.failures = failures;
+            this.bytesPerSecond = bytesPerSecond;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "queued=%d (%d KB) inFlight=%d uploaded=%d (%d KB) requests=%d failures=%d %.1f KB/s",
+                    queued, queuedBytes / 1024, inFlight, uploadedItems, uploadedBytes / 1024,
+                    requests, failures, bytesPerSecond / 1024);
+        }
+    }
+
+    static final int MAGIC = 0x51554B42; // "BKUQ" little-endian
+    static final int VERSION = 1;
+
+    private static final long KEEP_ALIVE_SECONDS = 10;
+
+    private final File stateFile;
+    private final UploadTransport transport;
+    private final Listener listener;
+    private final int maxConcurrent;
+    private final ScheduledThreadPoolExecutor coordinator;
+    private final ThreadPoolExecutor workers;
+    private final Random jitter = new Random();
+
+    private int chunkSize = 256 * 1024;
+    private long batchThreshold = 128 * 1024;
+    private long batchMaxBytes = 1024 * 1024;
+    private int batchMaxItems = 32;
+    private long batchLingerNanos = TimeUnit.SECONDS.toNanos(2);
+    private long initialBackoffMs = 1_000;
+    private long maxBackoffMs = 5 * 60_000;
+
+    // Trạng thái hàng đợi, giữ lock
+    private final Object lock = new Object();
+    private final Object persistLock = new Object();
+    private final List<Item> items = new ArrayList<>();
+    private boolean started;
+    private boolean closed;
+    private boolean networkAvailable = true;
+    private int running;
+    private boolean persistScheduled;
+    private ScheduledFuture<?> wakeUp;
+    private long wakeUpAtNanos;
+    private long uploadedItems;
+    private long uploadedBytes;
+    private long requests;
+    private long failures;
+    private long busySinceNanos;
+    private long busyNanos;
+
+    public UploadQueue(File stateFile, UploadTransport transport, int maxConcurrent, Listener listener) {
+        if (transport == null || listener == null) {
+            throw new IllegalArgumentException("transport and listener must not be null");
+        }
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("maxConcurrent must be > 0");
+        }
+        this.stateFile = stateFile;
+        this.transport = transport;
+        this.listener = listener;
+        this.maxConcurrent = maxConcurrent;
+        coordinator = new ScheduledThreadPoolExecutor(1, lowPriorityThreads("UploadQueue"));
+        coordinator.setKeepAliveTime(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+        coordinator.allowCoreThreadTimeOut(true);
+        coordinator.setRemoveOnCancelPolicy(true);
+        // Sau close() không chờ các lần hẹn giờ backoff
+        coordinator.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        workers = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), lowPriorityThreads("UploadWorker"));
+        workers.allowCoreThreadTimeOut(true);
+    }
+
+    private static ThreadFactory lowPriorityThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        };
+    }
+
+    // Kích thước mỗi request của segment lớn
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be > 0");
+        }
+        synchronized (lock) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    // Segment <= thresholdBytes được gom; mỗi request gom tối đa maxBytes / maxItems, chờ tối đa lingerMs
+    public void setBatching(long thresholdBytes, long maxBytes, int maxItems, long lingerMs) {
+        if (thresholdBytes < 0 || maxBytes < thresholdBytes || maxItems <= 0 || lingerMs < 0) {
+            throw new IllegalArgumentException("invalid batching limits");
+        }
+        synchronized (lock) {
+            batchThreshold = thresholdBytes;
+            batchMaxBytes = maxBytes;
+            batchMaxItems = maxItems;
+            batchLingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        }
+    }
+
+    // Lần thử lại thứ n chờ ngẫu nhiên trong [d/2, d] với d = min(maxMs, initialMs * 2^(n-1))
+    public void setBackoff(long initialMs, long maxMs) {
+        if (initialMs <= 0 || maxMs < initialMs) {
+            throw new IllegalArgumentException("invalid backoff");
+        }
+        synchronized (lock) {
+            initialBackoffMs = initialMs;
+            maxBackoffMs = maxMs;
+        }
+    }
+
+    // Nạp trạng thái đã lưu (trên luồng điều phối) rồi bắt đầu tải
+    public void start() {
+        synchronized (lock) {
+            if (started) {
+                throw new IllegalStateException("UploadQueue already started");
+            }
+            started = true;
+        }
+        coordinator.execute(() -> {
+            List<Item> restored = readState();
+            synchronized (lock) {
+                // Các mục enqueue() trước khi nạp xong đứng sau các mục cũ
+                items.addAll(0, restored);
+            }
+            pump();
+        });
+    }
+
+    // Cả file
+    public Item enqueue(File file, String name, String contentType) {
+        return enqueue(file, name, contentType, 0, -1);
+    }
+
+    // length byte bắt đầu từ offset của file
+    public Item enqueue(File file, String name, String contentType, long offset, long length) {
+        if (file == null || name == null || contentType == null) {
+            throw new IllegalArgumentException("file, name and contentType must not be null");
+        }
+        if (offset < 0 || length < -1) {
+            throw new IllegalArgumentException("invalid range");
+        }
+        Item item = new Item(UUID.randomUUID().toString(), file, name, contentType, offset, length,
+                System.currentTimeMillis());
+        item.readyAtNanos = System.nanoTime();
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("UploadQueue closed");
+            }
+            items.add(item);
+        }
+        schedulePersist();
+        schedulePump();
+        return item;
+    }
+
+    // Gọi khi trạng thái mạng đổi; có mạng lại thì mọi mục đang chờ backoff được thử ngay
+    public void setNetworkAvailable(boolean available) {
+        synchronized (lock) {
+            if (networkAvailable == available) {
+                return;
+            }
+            networkAvailable = available;
+            if (available) {
+                long now = System.nanoTime();
+                for (Item item : items) {
+                    item.readyAtNanos = Math.min(item.readyAtNanos, now);
+                }
+            }
+        }
+        schedulePump();
+    }
+
+    public boolean isNetworkAvailable() {
+        synchronized (lock) {
+            return networkAvailable;
+        }
+    }
+
+    public Stats getStats() {
+        synchronized (lock) {
+            long queuedBytes = 0;
+            for (Item item : items) {
+                if (item.length >= 0) {
+                    queuedBytes += item.length - item.uploadedBytes;
+                }
+            }
+            long busy = busyNanos + (running > 0 ? System.nanoTime() - busySinceNanos : 0);
+            double rate = busy > 0 ? uploadedBytes * 1e9 / busy : 0;
+            return new Stats(items.size(), queuedBytes, running, uploadedItems, uploadedBytes,
+                    requests, failures, rate);
+        }
+    }
+
+    // Chờ tới khi hàng đợi rỗng và không còn request nào chạy; false nếu hết thời gian
+    public boolean awaitDrained(long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        // Để start() nạp xong trạng thái đã lưu
+        if (!awaitPersisted(timeoutMs)) {
+            return false;
+        }
+        synchronized (lock) {
+            while (!items.isEmpty() || running > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+            }
+        }
+        return awaitPersisted(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+    }
+
+    // Chờ trạng thái hiện tại được ghi xuống stateFile
+    public boolean awaitPersisted(long timeoutMs) throws InterruptedException {
+        try {
+            coordinator.submit(() -> { }).get(timeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Không bắt đầu request mới; request đang chạy bị bỏ dở và tiếp tục ở lần start() sau
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+        }
+        schedulePersist();
+        coordinator.shutdown();
+        workers.shutdownNow();
+    }
+
+    private void schedulePump() {
+        try {
+            coordinator.execute(this::pump);
+        } catch (RejectedExecutionException ignored) {
+            // Đã close()
+        }
+    }
+
+    // Trên luồng điều phối: giao các mục đã tới hạn cho worker trong giới hạn maxConcurrent
+    private void pump() {
+        List<Runnable> tasks = new ArrayList<>();
+        List<Item> missing = new ArrayList<>();
+        synchronized (lock) {
+            if (!started || closed || !networkAvailable) {
+                return;
+            }
+            long now = System.nanoTime();
+            long nextWake = Long.MAX_VALUE;
+            List<Item> batch = new ArrayList<>();
+            long batchBytes = 0;
+            long oldestSmall = Long.MAX_VALUE;
+            for (Item item : items) {
+                if (item.inFlight) {
+                    continue;
+                }
+                if (item.readyAtNanos > now) {
+                    nextWake = Math.min(nextWake, item.readyAtNanos);
+                    continue;
+                }
+                if (item.length < 0) {
+                    // Cả file: kích thước chỉ biết chắc sau khi segment đã đóng
+                    if (!item.file.isFile()) {
+                        missing.add(item);
+                        continue;
+                    }
+                    item.length = item.file.length() - item.offset;
+                }
+                if (item.length <= batchThreshold && item.uploadedBytes == 0) {
+                    if (batch.size() < batchMaxItems && batchBytes + item.length <= batchMaxBytes) {
+                        batch.add(item);
+                        batchBytes += item.length;
+                        oldestSmall = Math.min(oldestSmall, item.readyAtNanos);
+                    }
+                    continue;
+                }
+                if (running + tasks.size() < maxConcurrent) {
+                    item.inFlight = true;
+                    tasks.add(() -> runSingle(item));
+                }
+            }
+            if (!batch.isEmpty()) {
+                boolean full = batch.size() == batchMaxItems || batchBytes + batchThreshold > batchMaxBytes;
+                long lingerUntil = oldestSmall + batchLingerNanos;
+                if (!full && lingerUntil > now) {
+                    nextWake = Math.min(nextWake, lingerUntil);
+                } else if (running + tasks.size() < maxConcurrent) {
+                    for (Item item : batch) {
+                        item.inFlight = true;
+                    }
+                    tasks.add(() -> runBatch(batch));
+                }
+            }
+            items.removeAll(missing);
+            if (running == 0 && !tasks.isEmpty()) {
+                busySinceNanos = now;
+            }
+            running += tasks.size();
+            scheduleWakeUp(nextWake, now);
+        }
+        for (Item item : missing) {
+            listener.onGaveUp(item, new PermanentUploadException("File not found: " + item.file));
+        }
+        if (!tasks.isEmpty() || !missing.isEmpty()) {
+            schedulePersist();
+            synchronized (lock) {
+                lock.notifyAll();
+            }
+        }
+        try {
+            for (Runnable task : tasks) {
+                workers.execute(task);
+            }
+        } catch (RejectedExecutionException ignored) {
+            // close() trong lúc điều phối: các mục còn trong stateFile cho lần start() sau
+        }
+    }
+
+    // Trong lock
+    private void scheduleWakeUp(long atNanos, long now) {
+        if (atNanos == Long.MAX_VALUE) {
+            return;
+        }
+        if (wakeUp != null && !wakeUp.isDone()) {
+            if (wakeUpAtNanos <= atNanos) {
+                return;
+            }
+            wakeUp.cancel(false);
+        }
+        wakeUpAtNanos = atNanos;
+        wakeUp = coordinator.schedule(this::pump, atNanos - now, TimeUnit.NANOSECONDS);
+    }
+
+    // Trên worker: tải một segment lớn theo từng khối, tiếp tục từ byte server đã nhận
+    private void runSingle(Item item) {
+        long started = System.nanoTime();
+        IOException error = null;
+        try {
+            long total;
+            long done;
+            boolean resume;
+            int chunk;
+            synchronized (lock) {
+                total = item.length;
+                done = item.uploadedBytes;
+                resume = item.resume || done > 0;
+                chunk = chunkSize;
+            }
+            if (resume) {
+                countRequest();
+                done = transport.queryProgress(item, total);
+                onProgress(item, done, 0);
+            }
+            byte[] buffer = new byte[(int) Math.min(chunk, total)];
+            try (RandomAccessFile in = new RandomAccessFile(item.file, "r")) {
+                while (done < total) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new IOException("Upload interrupted");
+                    }
+                    int length = (int) Math.min(buffer.length, total - done);
+                    in.seek(item.offset + done);
+                    in.readFully(buffer, 0, length);
+                    countRequest();
+                    long acknowledged = transport.uploadChunk(item, total, done, buffer, length);
+                    if (acknowledged <= done && acknowledged < total) {
+                        throw new IOException("Server did not accept bytes from " + done);
+                    }
+                    onProgress(item, acknowledged, Math.min(acknowledged, done + length) - done);
+                    done = acknowledged;
+                }
+            } catch (FileNotFoundException e) {
+                throw new PermanentUploadException("File not found: " + item.file);
+            }
+        } catch (IOException e) {
+            error = e;
+        } catch (RuntimeException e) {
+            error = new IOException(e);
+        }
+        finishItems(Collections.singletonList(item), error, started);
+        releaseSlot();
+    }
+
+    // Trên worker: gửi trọn các segment nhỏ trong một request
+    private void runBatch(List<Item> batch) {
+        long started = System.nanoTime();
+        List<Item> sendable = new ArrayList<>(batch.size());
+        List<byte[]> payloads = new ArrayList<>(batch.size());
+        for (Item item : batch) {
+            try (RandomAccessFile in = new RandomAccessFile(item.file, "r")) {
+                byte[] data = new byte[(int) item.length];
+                in.seek(item.offset);
+                in.readFully(data);
+                sendable.add(item);
+                payloads.add(data);
+            } catch (IOException e) {
+                finishItems(Collections.singletonList(item),
+                        new PermanentUploadException("Cannot read " + item.file + ": " + e.getMessage()), started);
+            }
+        }
+        IOException error = null;
+        if (!sendable.isEmpty()) {
+            try {
+                countRequest();
+                transport.uploadBatch(sendable, payloads);
+                long bytes = 0;
+                for (byte[] payload : payloads) {
+                    bytes += payload.length;
+                }
+                synchronized (lock) {
+                    uploadedBytes += bytes;
+                }
+            } catch (IOException e) {
+                error = e;
+            } catch (RuntimeException e) {
+                error = new IOException(e);
+            }
+        }
+        finishItems(sendable, error, started);
+        releaseSlot();
+    }
+
+    private void countRequest() {
+        synchronized (lock) {
+            requests++;
+        }
+    }
+
+    private void onProgress(Item item, long acknowledged, long sentBytes) {
+        synchronized (lock) {
+            item.uploadedBytes = acknowledged;
+            uploadedBytes += Math.max(0, sentBytes);
+        }
+        schedulePersist();
+    }
+
+    // Kết thúc các mục: bỏ khỏi hàng đợi khi xong hoặc lỗi vĩnh viễn, lên lịch thử lại khi lỗi tạm thời
+    private void finishItems(List<Item> finished, IOException error, long startedNanos) {
+        boolean permanent = error instanceof PermanentUploadException;
+        long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+        synchronized (lock) {
+            long now = System.nanoTime();
+            for (Item item : finished) {
+                item.inFlight = false;
+                if (error == null || permanent) {
+                    items.remove(item);
+                    if (error == null) {
+                        uploadedItems++;
+                    }
+                } else {
+                    item.attempts++;
+                    item.resume = true;
+                    item.readyAtNanos = now + TimeUnit.MILLISECONDS.toNanos(backoffMs(item.attempts));
+                }
+            }
+            if (error != null) {
+                failures++;
+            }
+            lock.notifyAll();
+        }
+        for (Item item : finished) {
+            if (error == null) {
+                listener.onUploaded(item, latencyMillis);
+            } else if (permanent) {
+                listener.onGaveUp(item, error);
+            }
+        }
+        schedulePersist();
+    }
+
+    private void releaseSlot() {
+        synchronized (lock) {
+            running--;
+            if (running == 0) {
+                busyNanos += System.nanoTime() - busySinceNanos;
+                lock.notifyAll();
+            }
+        }
+        schedulePump();
+    }
+
+    // Trong lock
+    private long backoffMs(int attempts) {
+        long delay = initialBackoffMs << Math.min(attempts - 1, 30);
+        if (delay <= 0 || delay > maxBackoffMs) {
+            delay = maxBackoffMs;
+        }
+        return delay / 2 + (long) (jitter.nextDouble() * (delay / 2));
+    }
+
+    private void schedulePersist() {
+        synchronized (lock) {
+            if (persistScheduled || stateFile == null) {
+                return;
+            }
+            persistScheduled = true;
+        }
+        try {
+            coordinator.execute(this::persist);
+        } catch (RejectedExecutionException e) {
+            // close(): ghi lần cuối ngay trên luồng gọi
+            persist();
+        }
+    }
+
+    // Ghi cả hàng đợi: file tạm + fsync + rename, nên stateFile luôn là một bản đầy đủ
+    private void persist() {
+        synchronized (persistLock) {
+            writeState();
+        }
+    }
+
+    private void writeState() {
+        List<Item> snapshot;
+        List<long[]> progress = new ArrayList<>();
+        synchronized (lock) {
+            persistScheduled = false;
+            snapshot = new ArrayList<>(items);
+            for (Item item : snapshot) {
+                progress.add(new long[]{item.length, item.uploadedBytes});
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(256 * (snapshot.size() + 1)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(snapshot.size());
+        for (int i = 0; i < snapshot.size(); i++) {
+            Item item = snapshot.get(i);
+            buffer = putString(buffer, item.id);
+            buffer = putString(buffer, item.file.getPath());
+            buffer = putString(buffer, item.name);
+            buffer = putString(buffer, item.contentType);
+            buffer = ensure(buffer, 32);
+            buffer.putLong(item.offset).putLong(progress.get(i)[0]).putLong(progress.get(i)[1])
+                    .putLong(item.createdAtMillis);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer = ensure(buffer, 4);
+        buffer.putInt((int) crc.getValue());
+
+        File temp = new File(stateFile.getPath() + ".tmp");
+        try {
+            try (FileOutputStream out = new FileOutputStream(temp)) {
+                out.write(buffer.array(), 0, buffer.position());
+                out.getFD().sync();
+            }
+            if (!temp.renameTo(stateFile)) {
+                throw new IOException("Cannot rename " + temp + " to " + stateFile);
+            }
+        } catch (IOException e) {
+            // Lần thay đổi sau sẽ ghi lại; trong bộ nhớ hàng đợi vẫn đúng
+            temp.delete();
+        }
+    }
+
+    private List<Item> readState() {
+        List<Item> restored = new ArrayList<>();
+        if (stateFile == null || !stateFile.isFile()) {
+            return restored;
+        }
+        try (RandomAccessFile in = new RandomAccessFile(stateFile, "r")) {
+            byte[] bytes = new byte[(int) in.length()];
+            in.readFully(bytes);
+            if (bytes.length < 16) {
+                throw new IOException("Truncated upload queue");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 0, bytes.length - 4);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(bytes.length - 4) != (int) crc.getValue()
+                    || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Corrupt upload queue");
+            }
+            int count = buffer.getInt();
+            long now = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                String id = getString(buffer);
+                File file = new File(getString(buffer));
+                String name = getString(buffer);
+                String contentType = getString(buffer);
+                long offset = buffer.getLong();
+                long length = buffer.getLong();
+                long uploaded = buffer.getLong();
+                long createdAt = buffer.getLong();
+                Item item = new Item(id, file, name, contentType, offset, length, createdAt);
+                item.uploadedBytes = uploaded;
+                // Request cuối có thể đã tới server trước khi app dừng
+                item.resume = true;
+                item.readyAtNanos = now;
+                restored.add(item);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Hỏng: giữ lại để xem xét, bắt đầu hàng đợi rỗng
+            stateFile.renameTo(new File(stateFile.getPath() + ".corrupt"));
+            restored.clear();
+        }
+        return restored;
+    }
+
+    private static ByteBuffer putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer = ensure(buffer, 4 + bytes.length);
+        buffer.putInt(bytes.length).put(bytes);
+        return buffer;
+    }
+
+    private static String getString(ByteBuffer buffer) throws IOException {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException("Bad string length " + length);
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static ByteBuffer ensure(ByteBuffer buffer, int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.flip();
+        grown.put(buffer);
+        return grown;
+    }
+}
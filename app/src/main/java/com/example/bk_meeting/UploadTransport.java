@@ -0,0 +1,20 @@
+package com.example.bk_meeting;
+
+import java.io.IOException;
+import java.util.List;
+
+// Giao thức tải lên mà UploadQueue dùng. Mọi phương thức chạy trên luồng worker của UploadQueue.
+// Lỗi tạm thời (mạng, 5xx) ném IOException để được thử lại; lỗi vĩnh viễn ném
+// UploadQueue.PermanentUploadException để bỏ hẳn mục đó.
+public interface UploadTransport {
+
+    // Số byte đầu tiên server đã nhận của item (0 nếu chưa có gì, total nếu đã đủ)
+    long queryProgress(UploadQueue.Item item, long total) throws IOException;
+
+    // Gửi data[0..length) làm các byte [offset, offset + length) của item; trả về số byte server
+    // đã nhận liên tục từ đầu sau lần gửi này
+    long uploadChunk(UploadQueue.Item item, long total, long offset, byte[] data, int length) throws IOException;
+
+    // Gửi trọn các item nhỏ trong một request; payloads[i] là toàn bộ nội dung của items[i]
+    void uploadBatch(List<UploadQueue.Item> items, List<byte[]> payloads) throws IOException;
+}
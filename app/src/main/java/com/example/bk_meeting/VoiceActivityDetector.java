@@ -0,0 +1,18 @@
+package com.example.bk_meeting;
+
+import java.nio.ShortBuffer;
+
+// Bộ phát hiện giọng nói (VAD) dạng plug-in, làm việc trực tiếp trên frame PCM 16-bit
+// đọc từ AudioRecord (short[] hoặc view ShortBuffer của frame direct). Không phụ thuộc Android để test được trên JVM.
+public interface VoiceActivityDetector {
+
+    // Xử lý length mẫu bắt đầu từ offset, trả về true nếu đang có giọng nói
+    boolean process(short[] samples, int offset, int length);
+
+    // Xử lý các mẫu từ position tới limit (ví dụ view của AudioFrame direct),
+    // không thay đổi position của buffer
+    boolean process(ShortBuffer samples);
+
+    // Xoá trạng thái để bắt đầu phiên thu mới
+    void reset();
+}
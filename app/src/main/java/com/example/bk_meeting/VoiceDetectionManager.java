@@ -3,59 +3,120 @@ package com.example.bk_meeting;
 import android.Manifest;
 import android.content.Context;
 import android.content.pm.PackageManager;
-import android.media.AudioFormat;
-import android.media.AudioRecord;
-import android.media.MediaRecorder;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
 import android.util.Log;
 import androidx.core.content.ContextCompat;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class VoiceDetectionManager {
 
     private static final String TAG = "VoiceDetectionManager";
 
     // Audio configuration
-    private final int sampleRate = 44100;
-    private final int channelConfig = AudioFormat.CHANNEL_IN_MONO;
-    private final int audioFormat = AudioFormat.ENCODING_PCM_16BIT;
+    private final int sampleRate = 44100; // Tần số thu từ micro
+    private int outputSampleRate = 16_000; // Tần số của file ghi (đủ cho giọng nói)
 
     // Voice detection parameters
-    private final int silenceThreshold = 6000; // Độ lớn tối thiểu (amplitude)
     private final int silenceTimeoutMs = 1000; // Thời gian im lặng để kết thúc câu (ms)
     private final int minSentenceDurationMs = 15_000; // Thời gian ghi âm tối thiểu (15s)
+    private int preRollMs = 500; // Âm thanh giữ lại trước khi phát hiện giọng nói (ms)
+    private int hangoverMs = 500; // Âm thanh im lặng giữ lại sau khi kết thúc câu (ms)
+    private int maxSegmentDurationMs = 60_000; // Độ dài tối đa của một file, 0 = không giới hạn
+    private int segmentOverlapMs = 500; // Âm thanh lặp lại ở đầu file tiếp theo khi cắt segment dài
+    private int cutSearchWindowMs = 3_000; // Cửa sổ tìm frame yên tĩnh nhất để cắt
 
     // Recording state
-    private AudioRecord recorder;
-    private boolean isRecording = false;
-    private boolean isSpeaking = false;
+    // Vòng thu (VAD, bộ đệm vòng, máy trạng thái câu) nằm trong VoiceSegmenter, không phụ thuộc Android;
+    // mỗi phiên thu một segmenter đọc từ AudioRecordSource
+    private AudioSource audioSource;
+    private volatile VoiceSegmenter segmenter;
+    private volatile boolean isRecording = false;
     private Thread recordingThread;
     private Context context;
     private VoiceDetectionCallback callback;
 
+    // VAD, mặc định là bộ phát hiện thích nghi theo năng lượng/ZCR
+    private VoiceActivityDetector voiceActivityDetector = new AdaptiveEnergyVad(sampleRate);
+
+    // Đường thu âm: frame lấy từ pool, mặc định là buffer direct
+    private CaptureMode captureMode = CaptureMode.DIRECT;
+    private volatile SegmentFormat segmentFormat = SegmentFormat.WAV;
+    private RecordingMode recordingMode = RecordingMode.FILE_PER_SEGMENT;
+    private volatile SessionContainer sessionContainer;
+    private final CapturePathCounters capturePathCounters = new CapturePathCounters();
+
+    // Số liệu vòng thu, ghi định kỳ vào file log xoay vòng (metricsDumpIntervalMs = 0 để tắt)
+    private static final String METRICS_FILE_NAME = "capture_metrics.log";
+    private static final long METRICS_FILE_MAX_BYTES = 256 * 1024;
+    private static final int METRICS_FILE_COUNT = 3;
+    private final CaptureMetrics captureMetrics = new CaptureMetrics();
+    private int metricsDumpIntervalMs = 60_000;
+    private ScheduledExecutorService metricsDumper;
+    private RollingMetricsLog metricsLog;
+
+    // Đóng segment trên một luồng nền dùng chung thay vì một luồng mỗi lần lưu
+    private final SegmentSaver segmentSaver = new SegmentSaver(new SaverListener());
+
+    // Khử nhiễu nền trước khi ghi file, tắt mặc định; áp dụng cho lần startVoiceDetection() tiếp theo
+    private volatile boolean noiseSuppressionEnabled = false;
+    private final NoiseSuppressionStage noiseSuppressionStage = new NoiseSuppressionStage();
+
+    // Các stage nhận mọi frame (ở tần số ra) trên luồng thu, sau VAD và resample
+    private final CopyOnWriteArrayList<AudioStage> stages = new CopyOnWriteArrayList<>();
+
+    // Consumer chạy trên luồng riêng, nhận frame qua AudioFanoutBus (level meter, encoder, upload...)
+    private final CopyOnWriteArrayList<AudioFanoutBus.Subscriber> consumers = new CopyOnWriteArrayList<>();
+
     // UI Handler
     private Handler mainHandler = new Handler(Looper.getMainLooper());
 
-    public enum VoiceState {
-        IDLE,
-        LISTENING,
-        DETECTING_SPEECH,
-        RECORDING,
-        SAVING
+    // Trạng thái gửi lên UI: bỏ trùng, gộp cập nhật tiến độ (mặc định 4 Hz)
+    private final VoiceStatePublisher statePublisher;
+
+    public enum CaptureMode {
+        HEAP,   // AudioRecord.read(byte[]), PCM chép qua staging của writer
+        DIRECT  // AudioRecord.read(ByteBuffer) vào frame direct, không chép trung gian
+    }
+
+    public enum SegmentFormat {
+        WAV(".wav"),  // PCM thô
+        FLAC(".flac"); // Lossless, khoảng một nửa kích thước WAV với giọng nói
+
+        final String extension;
+
+        SegmentFormat(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    public enum RecordingMode {
+        FILE_PER_SEGMENT,  // Mỗi câu một file (segmentFormat)
+        SESSION_CONTAINER  // Cả phiên trong một file .bks + mục lục, PCM; đọc/xuất WAV qua SessionArchive
     }
 
     public interface VoiceDetectionCallback {
         void onStateChanged(VoiceState state, String message);
         void onAudioFileSaved(String fileName, File audioFile);
+
+        // Segment đã lưu kèm waveform và vị trí PCM để phát lại; mặc định chuyển sang onAudioFileSaved
+        default void onSegmentSaved(SavedSegment segment) {
+            onAudioFileSaved(segment.name, segment.file);
+        }
         void onError(String error);
     }
 
@@ -77,6 +138,17 @@ public class VoiceDetectionManager {
                 Log.e(TAG, "Error: " + error);
             }
         };
+        this.statePublisher = new VoiceStatePublisher(new VoiceStatePublisher.Scheduler() {
+            @Override
+            public long uptimeMillis() {
+                return SystemClock.uptimeMillis();
+            }
+
+            @Override
+            public void schedule(Runnable task, long delayMs) {
+                mainHandler.postDelayed(task, delayMs);
+            }
+        }, this.callback);
     }
 
     public boolean startVoiceDetection() {
@@ -93,15 +165,27 @@ public class VoiceDetectionManager {
         }
 
         try {
-            initializeAudioRecord();
+            audioSource = new AudioRecordSource(sampleRate);
+            sessionContainer = null;
+            if (recordingMode == RecordingMode.SESSION_CONTAINER) {
+                String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date());
+                sessionContainer = new SessionContainer(
+                        uniqueFile(getRecordingsDir(), "session_" + timeStamp, SessionContainer.EXTENSION),
+                        outputSampleRate);
+            }
+            // Mở publisher trước khi luồng thu chạy để trạng thái đầu tiên của phiên không bị bỏ
+            statePublisher.start("Đang lắng nghe...");
             startRecordingLoop();
 
-            mainHandler.post(() -> callback.onStateChanged(VoiceState.LISTENING, "Đang lắng nghe..."));
             Log.d(TAG, "Voice detection started successfully");
             return true;
 
         } catch (Exception e) {
             Log.e(TAG, "Failed to start voice detection", e);
+            isRecording = false;
+            statePublisher.stop("Đã dừng");
+            cleanup();
+            finishSessionContainer();
             mainHandler.post(() -> callback.onError("Lỗi khởi tạo: " + e.getMessage()));
             return false;
         }
@@ -109,37 +193,28 @@ public class VoiceDetectionManager {
 
     public void stopVoiceDetection() {
         isRecording = false;
+        VoiceSegmenter session = segmenter;
+        if (session != null) {
+            session.stop();
+        }
 
         if (recordingThread != null) {
             recordingThread.interrupt();
         }
 
         cleanup();
-        mainHandler.post(() -> callback.onStateChanged(VoiceState.IDLE, "Đã dừng"));
+        stopMetricsDump();
+        // Segment cuối có thể lưu xong sau đây; publisher bỏ SAVING/"Đã lưu" của phiên đã dừng
+        statePublisher.stop("Đã dừng");
         Log.d(TAG, "Voice detection stopped");
     }
 
-    private void initializeAudioRecord() throws SecurityException {
-        int bufferSize = AudioRecord.getMinBufferSize(sampleRate, channelConfig, audioFormat);
-
-        recorder = new AudioRecord(
-                MediaRecorder.AudioSource.MIC,
-                sampleRate,
-                channelConfig,
-                audioFormat,
-                bufferSize
-        );
-
-        if (recorder.getState() != AudioRecord.STATE_INITIALIZED) {
-            throw new RuntimeException("Failed to initialize AudioRecord");
-        }
-    }
-
-    private void startRecordingLoop() {
+    private void startRecordingLoop() throws IOException {
+        audioSource.start();
         isRecording = true;
-        recorder.startRecording();
 
         recordingThread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
             try {
                 processAudioLoop();
             } catch (Exception e) {
@@ -150,189 +225,394 @@ public class VoiceDetectionManager {
 
         recordingThread.setName("VoiceDetectionThread");
         recordingThread.start();
+        startMetricsDump();
     }
 
-    private void processAudioLoop() {
-        int bufferSize = AudioRecord.getMinBufferSize(sampleRate, channelConfig, audioFormat);
-        byte[] buffer = new byte[bufferSize];
-        ByteArrayOutputStream sentenceBuffer = new ByteArrayOutputStream();
+    private void startMetricsDump() {
+        if (metricsDumpIntervalMs <= 0 || metricsDumper != null) {
+            return;
+        }
+        metricsLog = new RollingMetricsLog(new File(context.getFilesDir(), METRICS_FILE_NAME),
+                METRICS_FILE_MAX_BYTES, METRICS_FILE_COUNT);
+        metricsDumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "CaptureMetricsDump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        metricsDumper.scheduleWithFixedDelay(this::dumpMetrics,
+                metricsDumpIntervalMs, metricsDumpIntervalMs, TimeUnit.MILLISECONDS);
+    }
 
-        long lastVoiceTime = System.currentTimeMillis();
-        long sentenceStartTime = 0;
+    // Dừng lịch dump và ghi lần cuối cho phiên vừa kết thúc
+    private void stopMetricsDump() {
+        if (metricsDumper == null) {
+            return;
+        }
+        // Lần dump cuối chạy trên chính luồng dump rồi luồng kết thúc, không tạo luồng mới
+        metricsDumper.execute(this::dumpMetrics);
+        metricsDumper.shutdown();
+        metricsDumper = null;
+    }
 
-        while (isRecording && !Thread.currentThread().isInterrupted()) {
-            int bytesRead = recorder.read(buffer, 0, buffer.length);
+    private void dumpMetrics() {
+        RollingMetricsLog log = metricsLog;
+        if (log == null) {
+            return;
+        }
+        try {
+            log.append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US).format(new Date())
+                    + " " + captureMetrics);
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot write capture metrics", e);
+        }
+    }
 
-            if (bytesRead <= 0) {
-                continue;
+    private void processAudioLoop() {
+        VoiceSegmenter session = new VoiceSegmenter(audioSource, voiceActivityDetector, this::openSegment,
+                new SegmenterListener(), capturePathCounters, captureMetrics);
+        session.setOutputSampleRate(outputSampleRate);
+        session.setDirect(captureMode == CaptureMode.DIRECT);
+        session.setSilenceTimeoutMs(silenceTimeoutMs);
+        session.setMinSentenceDurationMs(minSentenceDurationMs);
+        session.setPreRollMs(preRollMs);
+        session.setHangoverMs(hangoverMs);
+        session.setMaxSegmentDurationMs(maxSegmentDurationMs);
+        session.setSegmentOverlapMs(segmentOverlapMs);
+        session.setCutSearchWindowMs(cutSearchWindowMs);
+        // Chụp danh sách stage/consumer một lần cho cả phiên, không cấp phát theo frame.
+        // Khử nhiễu chạy trước mọi stage khác
+        List<AudioStage> activeStages = new ArrayList<>();
+        if (noiseSuppressionEnabled) {
+            activeStages.add(noiseSuppressionStage);
+        }
+        activeStages.addAll(stages);
+        session.setStages(activeStages.toArray(new AudioStage[0]));
+        AudioFanoutBus.Subscriber[] activeConsumers = consumers.toArray(new AudioFanoutBus.Subscriber[0]);
+        session.setConsumers(activeConsumers);
+
+        segmenter = session;
+        if (!isRecording) {
+            // stopVoiceDetection() chạy trước khi segmenter được gán
+            session.stop();
+        }
+        try {
+            session.run();
+        } finally {
+            if (activeConsumers.length > 0) {
+                Log.d(TAG, "Fan-out: published=" + session.getFanoutPublished()
+                        + ", rejected=" + session.getFanoutRejected());
+                for (AudioFanoutBus.Subscriber consumer : activeConsumers) {
+                    Log.d(TAG, "Fan-out " + consumer);
+                }
             }
+            if (noiseSuppressionEnabled) {
+                Log.d(TAG, noiseSuppressionStage.toString());
+            }
+            Log.d(TAG, "Capture path (" + captureMode + "): " + capturePathCounters);
+            Log.d(TAG, "Capture metrics: " + captureMetrics);
+            // Luồng thu không mở thêm segment; container đóng khi segment cuối được lưu
+            finishSessionContainer();
+        }
+    }
 
-            int amplitude = calculateAmplitude(buffer, bytesRead);
-            long currentTime = System.currentTimeMillis();
-
-            if (amplitude > silenceThreshold) {
-                // Voice detected
-                if (!isSpeaking) {
-                    // Start new sentence
-                    isSpeaking = true;
-                    sentenceBuffer.reset();
-                    sentenceStartTime = currentTime;
-
-                    mainHandler.post(() -> callback.onStateChanged(
-                            VoiceState.DETECTING_SPEECH,
-                            "Phát hiện giọng nói..."
-                    ));
-                }
+    private void finishSessionContainer() {
+        SessionContainer container = sessionContainer;
+        if (container == null) {
+            return;
+        }
+        try {
+            container.finish();
+        } catch (IOException e) {
+            Log.e(TAG, "Error finishing session " + container.getDataFile().getName(), e);
+        }
+    }
 
-                sentenceBuffer.write(buffer, 0, bytesRead);
-                lastVoiceTime = currentTime;
+    private AudioSegmentWriter openSegment(int sampleRate) throws IOException {
+        SessionContainer container = sessionContainer;
+        if (container != null) {
+            return new PeakTrackingWriter(container.openSegment(System.currentTimeMillis()), sampleRate);
+        }
 
-                // Update to recording state if minimum duration reached
-                long sentenceDuration = currentTime - sentenceStartTime;
-                if (sentenceDuration >= minSentenceDurationMs) {
-                    mainHandler.post(() -> callback.onStateChanged(
-                            VoiceState.RECORDING,
-                            "Đang ghi âm... (" + (sentenceDuration / 1000) + "s)"
-                    ));
-                }
+        String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault())
+                .format(new Date());
+        File file = uniqueFile(getRecordingsDir(), "voice_" + timeStamp, segmentFormat.extension);
+        AudioSegmentWriter writer = segmentFormat == SegmentFormat.FLAC
+                ? new FlacSegmentWriter(file, sampleRate, captureMetrics)
+                : new WavSegmentWriter(file, sampleRate, 1, 16);
+        // Waveform của segment được dựng khi ghi, UI không phải đọc lại file
+        return new PeakTrackingWriter(writer, sampleRate);
+    }
 
-            } else if (isSpeaking) {
-                // Silence detected while speaking
-                long sentenceDuration = currentTime - sentenceStartTime;
-                long silenceDuration = currentTime - lastVoiceTime;
-
-                if (sentenceDuration >= minSentenceDurationMs && silenceDuration > silenceTimeoutMs) {
-                    // Sentence complete - save file
-                    saveSentenceFile(sentenceBuffer.toByteArray());
-                    sentenceBuffer.reset();
-                    isSpeaking = false;
-
-                    // Return to listening state
-                    mainHandler.post(() -> callback.onStateChanged(
-                            VoiceState.LISTENING,
-                            "Đang lắng nghe..."
-                    ));
-                } else {
-                    // Continue recording (still within minimum duration or brief pause)
-                    sentenceBuffer.write(buffer, 0, bytesRead);
-                }
-            }
+    private File getRecordingsDir() {
+        // Use app's external files directory (no permission required)
+        File filesDir = context.getExternalFilesDir(null);
+        if (filesDir == null) {
+            filesDir = context.getFilesDir(); // Fallback to internal storage
         }
+        return filesDir;
     }
 
-    private int calculateAmplitude(byte[] buffer, int bytesRead) {
-        int max = 0;
-        for (int i = 0; i < bytesRead - 1; i += 2) {
-            int value = (buffer[i + 1] << 8) | (buffer[i] & 0xFF);
-            max = Math.max(max, Math.abs(value));
+    // Tên theo giây có thể trùng (segment dài bị cắt, câu ngắn liên tiếp): thêm _1, _2...
+    // Chỉ luồng thu tạo file nên kiểm tra exists() là đủ
+    static File uniqueFile(File dir, String baseName, String extension) {
+        File file = new File(dir, baseName + extension);
+        for (int n = 1; file.exists(); n++) {
+            file = new File(dir, baseName + "_" + n + extension);
         }
-        return max;
+        return file;
     }
 
-    private void saveSentenceFile(byte[] pcmData) {
-        mainHandler.post(() -> callback.onStateChanged(VoiceState.SAVING, "Đang lưu file..."));
+    // Sự kiện từ luồng thu: trạng thái qua statePublisher, lỗi và file đã lưu qua main thread
+    private class SegmenterListener implements VoiceSegmenter.Listener {
+        @Override
+        public void onStateChanged(VoiceState state, String message) {
+            statePublisher.publish(state, message);
+        }
+
+        @Override
+        public void onProgress(VoiceState state, long seconds) {
+            // Gọi mỗi frame nhưng chỉ gửi khi số giây đổi, tối đa maxRateHz lần/giây
+            statePublisher.publishProgress(state, seconds);
+        }
 
-        // Save in background thread
-        new Thread(() -> {
-            try {
-                String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault())
-                        .format(new Date());
-                String fileName = "voice_" + timeStamp + ".wav";
-
-                // Use app's external files directory (no permission required)
-                File filesDir = context.getExternalFilesDir(null);
-                if (filesDir == null) {
-                    filesDir = context.getFilesDir(); // Fallback to internal storage
-                }
+        @Override
+        public void onSegmentReady(AudioSegmentWriter writer, boolean endOfSentence) {
+            saveSentenceFile(writer, endOfSentence);
+        }
 
-                File wavFile = new File(filesDir, fileName);
-                FileOutputStream fos = new FileOutputStream(wavFile);
+        @Override
+        public void onError(String message, Exception cause) {
+            Log.e(TAG, message, cause);
+            mainHandler.post(() -> callback.onError(message));
+        }
 
-                // Write WAV header and PCM data
-                writeWavHeader(fos, pcmData.length, sampleRate, 1, 16);
-                fos.write(pcmData);
-                fos.close();
+        @Override
+        public void onWarning(String message, Exception cause) {
+            Log.w(TAG, message, cause);
+        }
+    }
 
-                Log.d(TAG, "Audio file saved: " + wavFile.getAbsolutePath());
+    // endOfSentence = false khi cắt segment dài: vẫn đang ghi âm nên không đổi trạng thái
+    private void saveSentenceFile(AudioSegmentWriter writer, boolean endOfSentence) {
+        if (endOfSentence) {
+            statePublisher.publish(VoiceState.SAVING, "Đang lưu file...");
+        }
 
-                // Notify callback on main thread
-                mainHandler.post(() -> {
-                    callback.onAudioFileSaved(fileName, wavFile);
-                    callback.onStateChanged(VoiceState.LISTENING, "Đã lưu: " + fileName);
-                });
+        // Finalize header trên luồng SegmentSaver - PCM đã nằm trên đĩa
+        AudioSegmentWriter target = writer instanceof PeakTrackingWriter
+                ? ((PeakTrackingWriter) writer).getDelegate() : writer;
+        if (target instanceof SessionContainer.SegmentWriter) {
+            ((SessionContainer.SegmentWriter) target).setEndOfSentence(endOfSentence);
+        }
+        segmentSaver.save(writer, endOfSentence);
+    }
+
+    private class SaverListener implements SegmentSaver.Listener {
+        @Override
+        public void onSaved(AudioSegmentWriter writer, boolean endOfSentence, long latencyNanos) {
+            File wavFile = writer.getFile();
+            String fileName = writer.getName();
+            captureMetrics.onSegmentSaved(latencyNanos);
+
+            Log.d(TAG, "Audio file saved: " + wavFile.getAbsolutePath()
+                    + " (" + writer.getDataLength() + " bytes)");
+
+            // Notify callback on main thread
+            if (writer instanceof PeakTrackingWriter) {
+                SavedSegment segment = ((PeakTrackingWriter) writer).toSavedSegment(endOfSentence);
+                mainHandler.post(() -> callback.onSegmentSaved(segment));
+            } else {
+                mainHandler.post(() -> callback.onAudioFileSaved(fileName, wavFile));
+            }
+            if (endOfSentence) {
+                statePublisher.publish(VoiceState.LISTENING, "Đã lưu: " + fileName);
+            }
+        }
 
-            } catch (IOException e) {
-                Log.e(TAG, "Error saving audio file", e);
-                mainHandler.post(() -> {
-                    callback.onError("Lỗi lưu file: " + e.getMessage());
-                    callback.onStateChanged(VoiceState.LISTENING, "Lỗi lưu file, tiếp tục lắng nghe...");
-                });
+        @Override
+        public void onFailed(AudioSegmentWriter writer, boolean endOfSentence, IOException error,
+                             long latencyNanos) {
+            Log.e(TAG, "Error saving audio file", error);
+            captureMetrics.onSaveFailed(latencyNanos);
+            mainHandler.post(() -> callback.onError("Lỗi lưu file: " + error.getMessage()));
+            statePublisher.publish(VoiceState.LISTENING, "Lỗi lưu file, tiếp tục lắng nghe...");
+        }
+    }
+
+    private void cleanup() {
+        try {
+            if (audioSource != null) {
+                audioSource.close();
+                audioSource = null;
             }
-        }).start();
+        } catch (Exception e) {
+            Log.e(TAG, "Error during cleanup", e);
+        }
     }
 
-    private void writeWavHeader(OutputStream out, int totalAudioLen, int sampleRate,
-                                int channels, int bitsPerSample) throws IOException {
-        long totalDataLen = totalAudioLen + 36;
-        long byteRate = sampleRate * channels * bitsPerSample / 8;
+    // Stage mới được áp dụng cho lần startVoiceDetection() tiếp theo
+    public void addStage(AudioStage stage) {
+        if (stage == null) {
+            throw new IllegalArgumentException("stage must not be null");
+        }
+        stages.addIfAbsent(stage);
+    }
 
-        byte[] header = new byte[44];
+    public void removeStage(AudioStage stage) {
+        stages.remove(stage);
+    }
 
-        // RIFF header
-        header[0] = 'R'; header[1] = 'I'; header[2] = 'F'; header[3] = 'F';
-        header[4] = (byte) (totalDataLen & 0xff);
-        header[5] = (byte) ((totalDataLen >> 8) & 0xff);
-        header[6] = (byte) ((totalDataLen >> 16) & 0xff);
-        header[7] = (byte) ((totalDataLen >> 24) & 0xff);
+    // Consumer nhận frame trên luồng riêng qua AudioFanoutBus, áp dụng cho lần
+    // startVoiceDetection() tiếp theo. Trả về Subscriber để đọc lag/drop của consumer
+    public AudioFanoutBus.Subscriber addConsumer(String name, AudioStage stage,
+                                                 AudioFanoutBus.OverflowPolicy policy) {
+        AudioFanoutBus.Subscriber subscriber = new AudioFanoutBus.Subscriber(name, stage, policy);
+        consumers.add(subscriber);
+        return subscriber;
+    }
 
-        // WAVE header
-        header[8] = 'W'; header[9] = 'A'; header[10] = 'V'; header[11] = 'E';
+    public void removeConsumer(AudioFanoutBus.Subscriber subscriber) {
+        consumers.remove(subscriber);
+    }
 
-        // fmt chunk
-        header[12] = 'f'; header[13] = 'm'; header[14] = 't'; header[15] = ' ';
-        header[16] = 16; header[17] = 0; header[18] = 0; header[19] = 0;
-        header[20] = 1; header[21] = 0;
-        header[22] = (byte) channels; header[23] = 0;
+    public List<AudioFanoutBus.Subscriber> getConsumers() {
+        return Collections.unmodifiableList(consumers);
+    }
 
-        // Sample rate
-        header[24] = (byte) (sampleRate & 0xff);
-        header[25] = (byte) ((sampleRate >> 8) & 0xff);
-        header[26] = (byte) ((sampleRate >> 16) & 0xff);
-        header[27] = (byte) ((sampleRate >> 24) & 0xff);
+    // Độ dài tối đa của một file; câu nói dài hơn được cắt thành nhiều file nối tiếp,
+    // chồng lấn segmentOverlapMs. 0 để tắt. Áp dụng cho lần startVoiceDetection() tiếp theo
+    public void setMaxSegmentDurationMs(int maxSegmentDurationMs) {
+        if (maxSegmentDurationMs != 0 && (maxSegmentDurationMs < minSentenceDurationMs
+                || maxSegmentDurationMs <= cutSearchWindowMs + segmentOverlapMs)) {
+            throw new IllegalArgumentException("maxSegmentDurationMs must be 0 or >= " + minSentenceDurationMs
+                    + " and > cutSearchWindowMs + segmentOverlapMs");
+        }
+        if (isRecording) {
+            throw new IllegalStateException("Cannot change segment length while recording");
+        }
+        this.maxSegmentDurationMs = maxSegmentDurationMs;
+    }
 
-        // Byte rate
-        header[28] = (byte) (byteRate & 0xff);
-        header[29] = (byte) ((byteRate >> 8) & 0xff);
-        header[30] = (byte) ((byteRate >> 16) & 0xff);
-        header[31] = (byte) ((byteRate >> 24) & 0xff);
+    // Áp dụng cho lần startVoiceDetection() tiếp theo, tối đa bằng cutSearchWindowMs
+    public void setSegmentOverlapMs(int segmentOverlapMs) {
+        if (segmentOverlapMs < 0) {
+            throw new IllegalArgumentException("segmentOverlapMs must be >= 0");
+        }
+        if (isRecording) {
+            throw new IllegalStateException("Cannot change segment overlap while recording");
+        }
+        this.segmentOverlapMs = segmentOverlapMs;
+    }
 
-        // Block align and bits per sample
-        header[32] = (byte) (channels * bitsPerSample / 8);
-        header[33] = 0;
-        header[34] = (byte) bitsPerSample; header[35] = 0;
+    // Áp dụng cho lần startVoiceDetection() tiếp theo
+    public void setCutSearchWindowMs(int cutSearchWindowMs) {
+        if (cutSearchWindowMs <= 0) {
+            throw new IllegalArgumentException("cutSearchWindowMs must be > 0");
+        }
+        if (isRecording) {
+            throw new IllegalStateException("Cannot change cut search window while recording");
+        }
+        this.cutSearchWindowMs = cutSearchWindowMs;
+    }
 
-        // data chunk
-        header[36] = 'd'; header[37] = 'a'; header[38] = 't'; header[39] = 'a';
-        header[40] = (byte) (totalAudioLen & 0xff);
-        header[41] = (byte) ((totalAudioLen >> 8) & 0xff);
-        header[42] = (byte) ((totalAudioLen >> 16) & 0xff);
-        header[43] = (byte) ((totalAudioLen >> 24) & 0xff);
+    // Chu kỳ ghi CaptureMetrics vào file log (filesDir/capture_metrics.log), 0 để tắt.
+    // Áp dụng cho lần startVoiceDetection() tiếp theo
+    public void setMetricsDumpIntervalMs(int metricsDumpIntervalMs) {
+        if (metricsDumpIntervalMs < 0) {
+            throw new IllegalArgumentException("metricsDumpIntervalMs must be >= 0");
+        }
+        this.metricsDumpIntervalMs = metricsDumpIntervalMs;
+    }
 
-        out.write(header, 0, 44);
+    // Bật khử nhiễu nền (quạt, máy chiếu) trước khi ghi file: file nén nhỏ hơn, ít nhiễu hơn.
+    // Áp dụng cho lần startVoiceDetection() tiếp theo
+    public void setNoiseSuppressionEnabled(boolean enabled) {
+        if (isRecording) {
+            throw new IllegalStateException("Cannot change noise suppression while recording");
+        }
+        this.noiseSuppressionEnabled = enabled;
     }
 
-    private void cleanup() {
-        try {
-            if (recorder != null) {
-                if (recorder.getRecordingState() == AudioRecord.RECORDSTATE_RECORDING) {
-                    recorder.stop();
-                }
-                recorder.release();
-                recorder = null;
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error during cleanup", e);
+    public boolean isNoiseSuppressionEnabled() {
+        return noiseSuppressionEnabled;
+    }
+
+    // Tải CPU và trạng thái bypass của bộ khử nhiễu trong phiên gần nhất
+    public NoiseSuppressionStage getNoiseSuppressionStage() {
+        return noiseSuppressionStage;
+    }
+
+    // Tần số tối đa gửi cập nhật tiến độ lên callback (mặc định 4 Hz)
+    public void setStateUpdateRateHz(float maxRateHz) {
+        statePublisher.setMaxRateHz(maxRateHz);
+    }
+
+    // Thay VAD, ví dụ new PeakAmplitudeVad() để dùng ngưỡng biên độ cũ.
+    // Áp dụng cho lần startVoiceDetection() tiếp theo
+    public void setVoiceActivityDetector(VoiceActivityDetector detector) {
+        if (detector == null) {
+            throw new IllegalArgumentException("detector must not be null");
         }
+        if (isRecording) {
+            throw new IllegalStateException("Cannot change detector while recording");
+        }
+        this.voiceActivityDetector = detector;
+    }
+
+    // Tần số lấy mẫu của file ghi; bằng tần số thu (44100) để tắt resample.
+    // Áp dụng cho lần startVoiceDetection() tiếp theo
+    public void setOutputSampleRate(int outputSampleRate) {
+        if (outputSampleRate <= 0 || outputSampleRate > sampleRate) {
+            throw new IllegalArgumentException("outputSampleRate must be in (0, " + sampleRate + "]");
+        }
+        if (isRecording) {
+            throw new IllegalStateException("Cannot change sample rate while recording");
+        }
+        this.outputSampleRate = outputSampleRate;
+    }
+
+    // Định dạng file của các câu ghi được, áp dụng từ câu tiếp theo
+    public void setSegmentFormat(SegmentFormat segmentFormat) {
+        if (segmentFormat == null) {
+            throw new IllegalArgumentException("segmentFormat must not be null");
+        }
+        this.segmentFormat = segmentFormat;
+    }
+
+    // Ghi mỗi câu một file hay cả phiên vào một SessionContainer. Áp dụng cho lần
+    // startVoiceDetection() tiếp theo; chế độ container luôn ghi PCM, bỏ qua segmentFormat
+    public void setRecordingMode(RecordingMode recordingMode) {
+        if (recordingMode == null) {
+            throw new IllegalArgumentException("recordingMode must not be null");
+        }
+        if (isRecording) {
+            throw new IllegalStateException("Cannot change recording mode while recording");
+        }
+        this.recordingMode = recordingMode;
+    }
+
+    // Áp dụng cho lần startVoiceDetection() tiếp theo
+    public void setCaptureMode(CaptureMode captureMode) {
+        if (isRecording) {
+            throw new IllegalStateException("Cannot change capture mode while recording");
+        }
+        this.captureMode = captureMode;
+    }
+
+    // Áp dụng cho lần startVoiceDetection() tiếp theo
+    public void setPreRollMs(int preRollMs) {
+        if (preRollMs < 0) {
+            throw new IllegalArgumentException("preRollMs must be >= 0");
+        }
+        this.preRollMs = preRollMs;
+    }
+
+    // Áp dụng cho lần startVoiceDetection() tiếp theo, tối đa bằng silenceTimeoutMs
+    public void setHangoverMs(int hangoverMs) {
+        if (hangoverMs < 0) {
+            throw new IllegalArgumentException("hangoverMs must be >= 0");
+        }
+        this.hangoverMs = hangoverMs;
     }
 
     // Public getters
@@ -341,6 +621,39 @@ public class VoiceDetectionManager {
     }
 
     public boolean isSpeaking() {
-        return isSpeaking;
+        VoiceSegmenter session = segmenter;
+        return session != null && session.isSpeaking();
+    }
+
+    public int getOutputSampleRate() {
+        return outputSampleRate;
+    }
+
+    public SegmentFormat getSegmentFormat() {
+        return segmentFormat;
+    }
+
+    public CaptureMode getCaptureMode() {
+        return captureMode;
+    }
+
+    public RecordingMode getRecordingMode() {
+        return recordingMode;
+    }
+
+    // File .bks của phiên container gần nhất (null ở chế độ FILE_PER_SEGMENT), mở bằng SessionArchive
+    public File getSessionFile() {
+        SessionContainer container = sessionContainer;
+        return container != null ? container.getDataFile() : null;
+    }
+
+    // Byte thu/chép và số lần cấp phát của phiên thu hiện tại
+    public CapturePathCounters getCapturePathCounters() {
+        return capturePathCounters;
+    }
+
+    // Độ trễ/jitter đọc, overrun, số segment và độ trễ lưu file của phiên thu hiện tại
+    public CaptureMetrics getCaptureMetrics() {
+        return captureMetrics;
     }
 }
\ No newline at end of file
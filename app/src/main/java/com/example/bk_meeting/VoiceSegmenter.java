@@ -0,0 +1,511 @@
+package com.example.bk_meeting;
+
+import java.io.IOException;
+
+// Tách câu từ một AudioSource: VAD -> resample -> stage/fan-out -> bộ đệm vòng pre-roll/hang-over
+// -> máy trạng thái câu -> AudioSegmentWriter. Không phụ thuộc Android: VoiceDetectionManager
+// chạy nó với AudioRecordSource trên luồng thu, test chạy với WavAudioSource nhanh hơn thời gian thực.
+// Thời gian của máy trạng thái là đồng hồ ảo tính từ số mẫu đã đọc, nên kết quả chỉ phụ thuộc dữ liệu.
+// Mỗi instance dùng cho một phiên thu (một lần run()).
+public class VoiceSegmenter {
+
+    static final int FANOUT_CAPACITY = 64;
+
+    // Sự kiện gửi ra ngoài, gọi trên luồng chạy run()
+    public interface Listener {
+        void onStateChanged(VoiceState state, String message);
+
+        // Tiến độ câu đang ghi (giây), gọi mỗi frame khi câu đã đủ thời lượng tối thiểu
+        void onProgress(VoiceState state, long seconds);
+
+        // PCM của segment đã ghi xong, listener đóng writer (có thể trên luồng khác).
+        // endOfSentence = false khi segment bị cắt do quá dài, câu vẫn tiếp tục
+        void onSegmentReady(AudioSegmentWriter writer, boolean endOfSentence);
+
+        // Lỗi cần báo người dùng (tạo/ghi file); segmenter tiếp tục lắng nghe
+        void onError(String message, Exception cause);
+
+        // Lỗi chỉ cần ghi log
+        void onWarning(String message, Exception cause);
+    }
+
+    // Mở file cho segment mới ở tần số sampleRate
+    public interface SegmentFactory {
+        AudioSegmentWriter open(int sampleRate) throws IOException;
+    }
+
+    private final AudioSource source;
+    private final VoiceActivityDetector voiceActivityDetector;
+    private final SegmentFactory segmentFactory;
+    private final Listener listener;
+    private final CapturePathCounters capturePathCounters;
+    private final CaptureMetrics captureMetrics;
+
+    // Cấu hình, đặt trước run()
+    private int outputSampleRate = 16_000;
+    private boolean direct = true;
+    private int silenceTimeoutMs = 1000;
+    private int minSentenceDurationMs = 15_000;
+    private int preRollMs = 500;
+    private int hangoverMs = 500;
+    private int maxSegmentDurationMs = 60_000;
+    private int segmentOverlapMs = 500;
+    private int cutSearchWindowMs = 3_000;
+    private AudioStage[] stages = new AudioStage[0];
+    private AudioFanoutBus.Subscriber[] consumers = new AudioFanoutBus.Subscriber[0];
+
+    // Trạng thái phiên, chỉ luồng thu ghi
+    private volatile boolean running = true; // false sau stop(), kể cả khi run() chưa bắt đầu
+    private volatile boolean speaking;
+    private long capturedSamples;
+    private int pendingSpeechSamples; // phần giọng nói chưa ghi ở đầu bộ đệm vòng (khi chờ cắt segment dài)
+    private int segmentCount;
+    private long fanoutPublished;
+    private long fanoutRejected;
+
+    public VoiceSegmenter(AudioSource source, VoiceActivityDetector voiceActivityDetector,
+                          SegmentFactory segmentFactory, Listener listener,
+                          CapturePathCounters capturePathCounters, CaptureMetrics captureMetrics) {
+        this.source = source;
+        this.voiceActivityDetector = voiceActivityDetector;
+        this.segmentFactory = segmentFactory;
+        this.listener = listener;
+        this.capturePathCounters = capturePathCounters;
+        this.captureMetrics = captureMetrics;
+    }
+
+    // Đọc từ source tới khi stop() hoặc hết dữ liệu; câu đang ghi dở được lưu nếu đủ dài
+    public void run() {
+        int inputRate = source.getSampleRate();
+        int frameBytes = source.getFrameBytes();
+        int frameSamples = frameBytes / 2;
+        AudioSegmentWriter segmentWriter = null;
+        voiceActivityDetector.reset();
+        capturePathCounters.reset();
+        captureMetrics.onSessionStart(inputRate, frameBytes, source.getBufferBytes());
+        capturedSamples = 0;
+
+        // Resample từng frame về outputSampleRate trước bộ đệm vòng và writer.
+        // VAD vẫn chạy trên frame gốc ở tần số thu.
+        PolyphaseResampler resampler = outputSampleRate != inputRate
+                ? new PolyphaseResampler(inputRate, outputSampleRate, frameSamples)
+                : null;
+        int outFrameSamples = resampler != null
+                ? resampler.maxOutputSamples(frameSamples)
+                : frameSamples;
+
+        // Pre-roll / hang-over: mọi frame (ở tần số ra) đều đi qua bộ đệm vòng cấp phát sẵn,
+        // dung lượng đủ chứa pre-roll hoặc toàn bộ khoảng im lặng chờ kết thúc câu.
+        // Pool có đủ frame cho bộ đệm vòng cộng vài frame đang xử lý.
+        int preRollSamples = msToSamples(preRollMs);
+        int hangoverSamples = msToSamples(Math.min(hangoverMs, silenceTimeoutMs));
+        // Segment dài: giữ thêm cửa sổ tìm điểm cắt trong bộ đệm vòng trước khi ghi
+        int maxSegmentSamples = msToSamples(maxSegmentDurationMs);
+        int cutSearchSamples = maxSegmentSamples > 0 ? msToSamples(cutSearchWindowMs) : 0;
+        int overlapSamples = Math.min(msToSamples(segmentOverlapMs), cutSearchSamples);
+        int ringSamples = Math.max(Math.max(preRollSamples, msToSamples(silenceTimeoutMs)), cutSearchSamples)
+                + outFrameSamples;
+        int ringFrames = ringSamples / Math.max(1, outFrameSamples - 1) + 2;
+        PcmRingBuffer ringBuffer = new PcmRingBuffer(ringSamples, ringFrames * 2);
+        AudioFanoutBus.Subscriber[] activeConsumers = consumers;
+        int busFrames = activeConsumers.length > 0 ? FANOUT_CAPACITY : 0;
+        AudioFramePool framePool = new AudioFramePool(outFrameSamples * 2, ringFrames + busFrames + 2,
+                direct, capturePathCounters);
+        AudioFramePool capturePool = resampler != null
+                ? new AudioFramePool(frameBytes, 2, direct, capturePathCounters)
+                : framePool;
+
+        AudioStage[] activeStages = stages;
+        for (AudioStage stage : activeStages) {
+            stage.onStart(outputSampleRate);
+        }
+        AudioFanoutBus fanoutBus = null;
+        if (activeConsumers.length > 0) {
+            fanoutBus = new AudioFanoutBus(FANOUT_CAPACITY, activeConsumers, outputSampleRate);
+            fanoutBus.start();
+        }
+
+        long lastVoiceTime = 0;
+        long sentenceStartTime = 0;
+        boolean continuation = false; // segment hiện tại nối tiếp một segment bị cắt do quá dài
+        pendingSpeechSamples = 0;
+
+        try {
+            while (running && !Thread.currentThread().isInterrupted()) {
+                AudioFrame captured = capturePool.acquire();
+                AudioFrame frame = null;
+                try {
+                    if (!readFrame(captured)) {
+                        continue;
+                    }
+
+                    boolean voiceDetected = voiceActivityDetector.process(captured.samples());
+                    frame = resampleFrame(captured, resampler, framePool);
+                    for (AudioStage stage : activeStages) {
+                        stage.onFrame(frame, voiceDetected);
+                    }
+                    if (fanoutBus != null) {
+                        // Không bao giờ chờ consumer; frame bị từ chối được đếm trong bus
+                        fanoutBus.publish(frame, voiceDetected);
+                        captureMetrics.onFanoutDepth(fanoutBus.getDepth());
+                    }
+                    // Đồng hồ ảo: thời điểm cuối frame vừa đọc tính theo số mẫu
+                    long currentTime = capturedSamples * 1000 / inputRate;
+
+                    if (voiceDetected) {
+                        // Voice detected
+                        if (!speaking) {
+                            // Start new sentence - mở file và ghi thẳng xuống đĩa
+                            segmentWriter = openSegment();
+                            if (segmentWriter == null) {
+                                pushHistory(ringBuffer, frame, null);
+                                continue;
+                            }
+                            speaking = true;
+                            continuation = false;
+                            sentenceStartTime = currentTime;
+
+                            // Giữ lại preRollMs cuối cùng trước khi phát hiện giọng nói
+                            ringBuffer.skip(ringBuffer.size() - preRollSamples);
+                            pendingSpeechSamples = 0;
+
+                            listener.onStateChanged(VoiceState.DETECTING_SPEECH,
+                                    "Phát hiện giọng nói...");
+                        }
+
+                        if (maxSegmentSamples > 0 && segmentSamples(segmentWriter, ringBuffer)
+                                >= maxSegmentSamples - cutSearchSamples) {
+                            // Gần tới độ dài tối đa: giữ frame trong bộ đệm vòng để chọn điểm cắt
+                            if (!pushHistory(ringBuffer, frame, segmentWriter)) {
+                                segmentWriter = null;
+                                continue;
+                            }
+                            pendingSpeechSamples = ringBuffer.size();
+                        } else if (!writeSegment(segmentWriter, ringBuffer, ringBuffer.size())
+                                || !writeSegment(segmentWriter, frame)) {
+                            // Đẩy phần im lặng đang chờ (pre-roll hoặc khoảng ngắt ngắn) rồi tới frame hiện tại
+                            segmentWriter = null;
+                            continue;
+                        }
+                        lastVoiceTime = currentTime;
+
+                        // Update to recording state if minimum duration reached
+                        long sentenceDuration = currentTime - sentenceStartTime;
+                        if (sentenceDuration >= minSentenceDurationMs) {
+                            listener.onProgress(VoiceState.RECORDING, sentenceDuration / 1000);
+                        }
+
+                    } else if (speaking) {
+                        // Silence detected while speaking
+                        long sentenceDuration = currentTime - sentenceStartTime;
+                        long silenceDuration = currentTime - lastVoiceTime;
+
+                        if ((continuation || sentenceDuration >= minSentenceDurationMs)
+                                && silenceDuration > silenceTimeoutMs) {
+                            // Sentence complete - chỉ giữ hangoverMs im lặng ở cuối, phần còn lại
+                            // ở trong bộ đệm vòng làm pre-roll cho câu tiếp theo
+                            if (!pushHistory(ringBuffer, frame, segmentWriter)
+                                    || !writeSegment(segmentWriter, ringBuffer,
+                                    pendingSpeechSamples + hangoverSamples)) {
+                                segmentWriter = null;
+                                continue;
+                            }
+                            finishSegment(segmentWriter, true);
+                            segmentWriter = null;
+                            speaking = false;
+
+                            // Return to listening state
+                            listener.onStateChanged(VoiceState.LISTENING, "Đang lắng nghe...");
+                        } else if (!pushHistory(ringBuffer, frame, segmentWriter)) {
+                            // Continue recording (still within minimum duration or brief pause).
+                            // Im lặng được giữ trong bộ đệm vòng; phần cũ nhất tràn ra thì ghi vào file
+                            segmentWriter = null;
+                        }
+                    } else {
+                        pushHistory(ringBuffer, frame, null);
+                    }
+
+                    // Segment đủ dài: cắt tại frame yên tĩnh nhất, mở file mới nối tiếp
+                    if (speaking && maxSegmentSamples > 0
+                            && segmentSamples(segmentWriter, ringBuffer) >= maxSegmentSamples) {
+                        segmentWriter = rotateSegment(segmentWriter, ringBuffer, cutSearchSamples, overlapSamples);
+                        continuation = segmentWriter != null;
+                        sentenceStartTime = currentTime;
+                    }
+                } finally {
+                    captured.release();
+                    if (frame != null) {
+                        frame.release();
+                    }
+                }
+            }
+        } finally {
+            // Dừng giữa chừng / hết dữ liệu: giữ lại câu đã đủ độ dài, bỏ câu quá ngắn
+            // (phần nối tiếp của segment dài luôn được giữ)
+            if (segmentWriter != null) {
+                if (pendingSpeechSamples > 0
+                        && !writeSegment(segmentWriter, ringBuffer, pendingSpeechSamples)) {
+                    segmentWriter = null;
+                } else if (continuation || segmentWriter.getDurationMs() >= minSentenceDurationMs) {
+                    finishSegment(segmentWriter, true);
+                } else {
+                    segmentWriter.discard();
+                }
+            }
+            ringBuffer.clear();
+            speaking = false;
+            running = false;
+            for (AudioStage stage : activeStages) {
+                try {
+                    stage.onStop();
+                } catch (RuntimeException e) {
+                    listener.onWarning("Error stopping stage " + stage, e);
+                }
+            }
+            if (fanoutBus != null) {
+                fanoutBus.close();
+                fanoutPublished = fanoutBus.getPublished();
+                fanoutRejected = fanoutBus.getRejected();
+            }
+        }
+    }
+
+    // Gọi từ luồng khác; run() kết thúc sau frame đang xử lý
+    public void stop() {
+        running = false;
+    }
+
+    private boolean readFrame(AudioFrame frame) {
+        long start = System.nanoTime();
+        int bytesRead = source.read(frame);
+        long end = System.nanoTime();
+        if (bytesRead == AudioSource.END_OF_STREAM) {
+            running = false;
+            return false;
+        }
+        captureMetrics.onRead(start, end, bytesRead, frame.getCapacity());
+
+        if (bytesRead <= 0) {
+            return false;
+        }
+        frame.setByteLength(bytesRead & ~1);
+        capturePathCounters.onCaptured(bytesRead);
+        capturedSamples += bytesRead / 2;
+        return true;
+    }
+
+    // Frame ở tần số ra; không resample thì dùng chính frame thu (thêm một tham chiếu)
+    private AudioFrame resampleFrame(AudioFrame captured, PolyphaseResampler resampler,
+                                     AudioFramePool framePool) {
+        if (resampler == null) {
+            return captured.retain();
+        }
+        AudioFrame out = framePool.acquire();
+        int produced = resampler.process(captured.samples(), out.writableSamples());
+        out.setByteLength(produced * 2);
+        return out;
+    }
+
+    // Đưa frame vào bộ đệm vòng; phần cũ nhất tràn ra được ghi vào segment (nếu có) hoặc bỏ đi
+    private boolean pushHistory(PcmRingBuffer ringBuffer, AudioFrame frame, AudioSegmentWriter writer) {
+        if (ringBuffer.isFull() && !evictHistory(ringBuffer, writer, ringBuffer.oldestFrameSamples())) {
+            return false;
+        }
+        ringBuffer.write(frame);
+
+        int overflow = ringBuffer.size() - ringBuffer.capacity();
+        return overflow <= 0 || evictHistory(ringBuffer, writer, overflow);
+    }
+
+    private boolean evictHistory(PcmRingBuffer ringBuffer, AudioSegmentWriter writer, int samples) {
+        if (writer == null) {
+            ringBuffer.skip(samples);
+            return true;
+        }
+        return writeSegment(writer, ringBuffer, samples);
+    }
+
+    private AudioSegmentWriter openSegment() {
+        try {
+            return segmentFactory.open(outputSampleRate);
+        } catch (IOException e) {
+            listener.onError("Lỗi tạo file: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    // Ghi frame vào segment; nếu lỗi thì huỷ segment và quay lại lắng nghe
+    private boolean writeSegment(AudioSegmentWriter writer, AudioFrame frame) {
+        try {
+            writer.write(frame.captureView());
+            countCopied(frame.getByteLength());
+            return true;
+        } catch (IOException e) {
+            onSegmentWriteFailed(writer, e);
+            return false;
+        }
+    }
+
+    private boolean writeSegment(AudioSegmentWriter writer, PcmRingBuffer ringBuffer, int length) {
+        try {
+            int bytes = ringBuffer.drainTo(writer, length);
+            pendingSpeechSamples = Math.max(0, pendingSpeechSamples - bytes / 2);
+            countCopied(bytes);
+            return true;
+        } catch (IOException e) {
+            onSegmentWriteFailed(writer, e);
+            return false;
+        }
+    }
+
+    // Frame heap phải chép qua staging của writer trước khi tới FileChannel
+    private void countCopied(int bytes) {
+        if (!direct) {
+            capturePathCounters.onCopied(bytes);
+        }
+    }
+
+    // Số mẫu của segment hiện tại: đã ghi cộng phần còn trong bộ đệm vòng
+    private static long segmentSamples(AudioSegmentWriter writer, PcmRingBuffer ringBuffer) {
+        return writer.getDataLength() / 2 + ringBuffer.size();
+    }
+
+    // Cắt segment tại frame yên tĩnh nhất trong cửa sổ tìm kiếm: file cũ kết thúc ở điểm cắt,
+    // file mới bắt đầu sớm hơn overlapSamples. Trả về writer mới, null nếu lỗi
+    private AudioSegmentWriter rotateSegment(AudioSegmentWriter writer, PcmRingBuffer ringBuffer,
+                                             int cutSearchSamples, int overlapSamples) {
+        int cut = ringBuffer.findQuietestCut(cutSearchSamples);
+        try {
+            countCopied(ringBuffer.copyTo(writer, cut));
+        } catch (IOException e) {
+            onSegmentWriteFailed(writer, e);
+            return null;
+        }
+        int skipped = Math.max(0, cut - overlapSamples);
+        ringBuffer.skip(skipped);
+        pendingSpeechSamples = Math.max(0, pendingSpeechSamples - skipped);
+        finishSegment(writer, false);
+
+        AudioSegmentWriter next = openSegment();
+        if (next == null) {
+            speaking = false;
+            pendingSpeechSamples = 0;
+            listener.onStateChanged(VoiceState.LISTENING, "Đang lắng nghe...");
+        }
+        return next;
+    }
+
+    private void finishSegment(AudioSegmentWriter writer, boolean endOfSentence) {
+        segmentCount++;
+        listener.onSegmentReady(writer, endOfSentence);
+    }
+
+    private void onSegmentWriteFailed(AudioSegmentWriter writer, IOException e) {
+        writer.discard();
+        speaking = false;
+        pendingSpeechSamples = 0;
+        listener.onError("Lỗi lưu file: " + e.getMessage(), e);
+        listener.onStateChanged(VoiceState.LISTENING, "Lỗi lưu file, tiếp tục lắng nghe...");
+    }
+
+    // Số mẫu ở tần số ra (tần số của bộ đệm vòng và file)
+    private int msToSamples(int ms) {
+        return (int) ((long) outputSampleRate * ms / 1000);
+    }
+
+    public void setOutputSampleRate(int outputSampleRate) {
+        if (outputSampleRate <= 0) {
+            throw new IllegalArgumentException("outputSampleRate must be > 0");
+        }
+        this.outputSampleRate = outputSampleRate;
+    }
+
+    // Frame direct (AudioRecord.read(ByteBuffer)) hay heap (byte[])
+    public void setDirect(boolean direct) {
+        this.direct = direct;
+    }
+
+    public void setSilenceTimeoutMs(int silenceTimeoutMs) {
+        if (silenceTimeoutMs <= 0) {
+            throw new IllegalArgumentException("silenceTimeoutMs must be > 0");
+        }
+        this.silenceTimeoutMs = silenceTimeoutMs;
+    }
+
+    public void setMinSentenceDurationMs(int minSentenceDurationMs) {
+        if (minSentenceDurationMs < 0) {
+            throw new IllegalArgumentException("minSentenceDurationMs must be >= 0");
+        }
+        this.minSentenceDurationMs = minSentenceDurationMs;
+    }
+
+    public void setPreRollMs(int preRollMs) {
+        if (preRollMs < 0) {
+            throw new IllegalArgumentException("preRollMs must be >= 0");
+        }
+        this.preRollMs = preRollMs;
+    }
+
+    public void setHangoverMs(int hangoverMs) {
+        if (hangoverMs < 0) {
+            throw new IllegalArgumentException("hangoverMs must be >= 0");
+        }
+        this.hangoverMs = hangoverMs;
+    }
+
+    // 0 để tắt cắt segment dài
+    public void setMaxSegmentDurationMs(int maxSegmentDurationMs) {
+        if (maxSegmentDurationMs < 0) {
+            throw new IllegalArgumentException("maxSegmentDurationMs must be >= 0");
+        }
+        this.maxSegmentDurationMs = maxSegmentDurationMs;
+    }
+
+    public void setSegmentOverlapMs(int segmentOverlapMs) {
+        if (segmentOverlapMs < 0) {
+            throw new IllegalArgumentException("segmentOverlapMs must be >= 0");
+        }
+        this.segmentOverlapMs = segmentOverlapMs;
+    }
+
+    public void setCutSearchWindowMs(int cutSearchWindowMs) {
+        if (cutSearchWindowMs <= 0) {
+            throw new IllegalArgumentException("cutSearchWindowMs must be > 0");
+        }
+        this.cutSearchWindowMs = cutSearchWindowMs;
+    }
+
+    public void setStages(AudioStage[] stages) {
+        this.stages = stages.clone();
+    }
+
+    public void setConsumers(AudioFanoutBus.Subscriber[] consumers) {
+        this.consumers = consumers.clone();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public boolean isSpeaking() {
+        return speaking;
+    }
+
+    // Thời lượng âm thanh đã đọc từ source (ms), theo đồng hồ ảo
+    public long getCapturedMillis() {
+        return capturedSamples * 1000 / source.getSampleRate();
+    }
+
+    // Số segment đã chuyển cho listener (kể cả phần cắt từ câu dài)
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    public long getFanoutPublished() {
+        return fanoutPublished;
+    }
+
+    public long getFanoutRejected() {
+        return fanoutRejected;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.bk_meeting;
+
+// Trạng thái thu/tách câu gửi lên UI. Enum riêng, không lồng trong VoiceDetectionManager, để
+// VoiceSegmenter và các lớp thuần Java khác biên dịch được khi không có Android (:benchmarks).
+public enum VoiceState {
+    IDLE,
+    LISTENING,
+    DETECTING_SPEECH,
+    RECORDING,
+    SAVING
+}
@@ -0,0 +1,139 @@
+package com.example.bk_meeting;
+
+// Chuyển trạng thái từ luồng thu sang VoiceDetectionCallback trên main thread.
+// Chỉ giữ giá trị mới nhất: trạng thái trùng bị bỏ, cập nhật tiến độ (cùng trạng thái) được gộp
+// lại tối đa maxRateHz lần/giây, chuyển trạng thái được gửi ngay.
+// Dùng lại một Runnable duy nhất (chính publisher), chuỗi tiến độ chỉ được tạo khi thực sự gửi.
+// Sau stop(), trạng thái của phiên cũ (segment cuối lưu xong muộn: SAVING, "Đã lưu") bị bỏ để
+// UI và lastState của AudioEngine giữ IDLE cho tới start() tiếp theo.
+public class VoiceStatePublisher implements Runnable {
+
+    public static final float DEFAULT_MAX_RATE_HZ = 4f;
+
+    // Lập lịch trên main thread; tách ra để test trên JVM
+    public interface Scheduler {
+        long uptimeMillis();
+
+        void schedule(Runnable task, long delayMs);
+    }
+
+    private final Scheduler scheduler;
+    private final VoiceDetectionManager.VoiceDetectionCallback callback;
+    private volatile long minIntervalMs;
+
+    // Giá trị mới nhất, được bảo vệ bởi this
+    private VoiceState latestState;
+    private String latestMessage;
+    private long latestProgressSeconds = -1;
+    private boolean dirty;
+    private boolean stopped;
+    private boolean scheduled;
+    private long scheduledAt;
+    private VoiceState deliveredState;
+    private long lastDeliveryMs = Long.MIN_VALUE / 2;
+
+    private long published;
+    private long delivered;
+
+    public VoiceStatePublisher(Scheduler scheduler, VoiceDetectionManager.VoiceDetectionCallback callback) {
+        this.scheduler = scheduler;
+        this.callback = callback;
+        setMaxRateHz(DEFAULT_MAX_RATE_HZ);
+    }
+
+    public void setMaxRateHz(float maxRateHz) {
+        if (!(maxRateHz > 0)) {
+            throw new IllegalArgumentException("maxRateHz must be > 0");
+        }
+        this.minIntervalMs = (long) Math.ceil(1000 / maxRateHz);
+    }
+
+    // Bắt đầu phiên thu: nhận lại trạng thái từ luồng thu/luồng lưu
+    public void start(String message) {
+        offer(VoiceState.LISTENING, message, -1, true);
+    }
+
+    // Dừng phiên thu: gửi IDLE, bỏ mọi trạng thái khác tới start() tiếp theo
+    public void stop(String message) {
+        offer(VoiceState.IDLE, message, -1, true);
+    }
+
+    // Trạng thái với thông điệp cố định, gọi từ bất kỳ luồng nào
+    public void publish(VoiceState state, String message) {
+        offer(state, message, -1, false);
+    }
+
+    // Tiến độ ghi âm; thông điệp "Đang ghi âm... (Ns)" được tạo trên main thread khi gửi
+    public void publishProgress(VoiceState state, long seconds) {
+        offer(state, null, seconds, false);
+    }
+
+    private void offer(VoiceState state, String message, long progressSeconds, boolean control) {
+        long delay;
+        synchronized (this) {
+            if (control) {
+                stopped = state == VoiceState.IDLE;
+            } else if (stopped) {
+                return;
+            }
+            if (state == latestState && progressSeconds == latestProgressSeconds
+                    && (message == null ? latestMessage == null : message.equals(latestMessage))) {
+                return;
+            }
+            latestState = state;
+            latestMessage = message;
+            latestProgressSeconds = progressSeconds;
+            dirty = true;
+            published++;
+
+            long now = scheduler.uptimeMillis();
+            delay = state != deliveredState
+                    ? 0
+                    : Math.max(0, lastDeliveryMs + minIntervalMs - now);
+            // Đã có lần gửi đủ sớm, giá trị mới sẽ đi cùng lần đó
+            if (scheduled && scheduledAt <= now + delay) {
+                return;
+            }
+            scheduled = true;
+            scheduledAt = now + delay;
+        }
+        scheduler.schedule(this, delay);
+    }
+
+    // Chạy trên main thread
+    @Override
+    public void run() {
+        VoiceState state;
+        String message;
+        long progressSeconds;
+        synchronized (this) {
+            long now = scheduler.uptimeMillis();
+            if (scheduledAt <= now) {
+                scheduled = false;
+            }
+            if (!dirty) {
+                return;
+            }
+            state = latestState;
+            message = latestMessage;
+            progressSeconds = latestProgressSeconds;
+            dirty = false;
+            deliveredState = state;
+            lastDeliveryMs = now;
+            delivered++;
+        }
+        if (message == null) {
+            message = "Đang ghi âm... (" + progressSeconds + "s)";
+        }
+        callback.onStateChanged(state, message);
+    }
+
+    // Số giá trị khác nhau nhận từ luồng thu / số lần thực sự gọi callback
+    public synchronized long getPublishedCount() {
+        return published;
+    }
+
+    public synchronized long getDeliveredCount() {
+        return delivered;
+    }
+}
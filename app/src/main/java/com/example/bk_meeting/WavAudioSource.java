@@ -0,0 +1,225 @@
+package com.example.bk_meeting;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Nguồn từ file/stream WAV PCM 16-bit để chạy lại dữ liệu ghi sẵn qua VoiceSegmenter,
+// nhanh nhất CPU cho phép (không chờ theo thời gian thực). File nhiều kênh được trộn về mono.
+// Header có độ dài data bằng 0 hoặc 0xFFFFFFFF (file đang ghi dở) thì đọc tới hết stream.
+public class WavAudioSource implements AudioSource {
+
+    public static final int DEFAULT_FRAME_MS = 20;
+
+    private static final long UNKNOWN_LENGTH = -1;
+
+    private final InputStream in;
+    private final int sampleRate;
+    private final int channels;
+    private final int frameBytes;
+    private final byte[] staging;
+    private long remaining; // byte còn lại trong chunk data, UNKNOWN_LENGTH nếu đọc tới hết stream
+    private volatile boolean stopped;
+    private IOException readError;
+
+    public WavAudioSource(File file) throws IOException {
+        this(new BufferedInputStream(new FileInputStream(file), 64 * 1024), DEFAULT_FRAME_MS);
+    }
+
+    public WavAudioSource(InputStream in, int frameMs) throws IOException {
+        if (frameMs <= 0) {
+            throw new IllegalArgumentException("frameMs must be > 0");
+        }
+        this.in = in;
+        try {
+            boolean riff = "RIFF".equals(readId());
+            readInt(); // kích thước RIFF, không dùng
+            if (!riff || !"WAVE".equals(readId())) {
+                throw new IOException("Không phải file WAV");
+            }
+            int format = -1;
+            int channelCount = 0;
+            int rate = 0;
+            while (true) {
+                String id = readId();
+                long size = readInt() & 0xFFFFFFFFL;
+                if ("fmt ".equals(id)) {
+                    format = readShort();
+                    channelCount = readShort();
+                    rate = readInt();
+                    skip(6); // byteRate, blockAlign
+                    int bits = readShort();
+                    // 0xFFFE = WAVE_FORMAT_EXTENSIBLE, coi như PCM
+                    if ((format != 1 && format != 0xFFFE) || bits != 16 || channelCount <= 0 || rate <= 0) {
+                        throw new IOException("Chỉ hỗ trợ WAV PCM 16-bit (format=" + format + ", bits=" + bits + ")");
+                    }
+                    skip(size - 16 + (size & 1));
+                } else if ("data".equals(id)) {
+                    if (format < 0) {
+                        throw new IOException("Thiếu chunk fmt trước data");
+                    }
+                    remaining = size == 0 || size == 0xFFFFFFFFL ? UNKNOWN_LENGTH : size;
+                    break;
+                } else {
+                    skip(size + (size & 1));
+                }
+            }
+            this.sampleRate = rate;
+            this.channels = channelCount;
+        } catch (IOException e) {
+            closeQuietly();
+            throw e;
+        }
+        this.frameBytes = Math.max(1, sampleRate * frameMs / 1000) * 2;
+        this.staging = new byte[frameBytes * channels];
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public int getFrameBytes() {
+        return frameBytes;
+    }
+
+    @Override
+    public int getBufferBytes() {
+        return 0;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    // Lỗi đọc làm stream kết thúc sớm, null nếu đọc hết bình thường
+    public IOException getReadError() {
+        return readError;
+    }
+
+    @Override
+    public void start() {
+        stopped = false;
+    }
+
+    @Override
+    public int read(AudioFrame frame) {
+        if (stopped || remaining == 0) {
+            return END_OF_STREAM;
+        }
+        int blockAlign = channels * 2;
+        int want = Math.min(frame.getCapacity(), frameBytes) / 2 * blockAlign;
+        if (remaining != UNKNOWN_LENGTH) {
+            want = (int) Math.min(want, remaining / blockAlign * blockAlign);
+        }
+        int filled = 0;
+        try {
+            while (filled < want) {
+                int n = in.read(staging, filled, want - filled);
+                if (n < 0) {
+                    break;
+                }
+                filled += n;
+            }
+        } catch (IOException e) {
+            readError = e;
+            remaining = 0;
+            return filled > 0 ? toMono(frame, filled) : END_OF_STREAM;
+        }
+        if (filled < want || want == 0) {
+            remaining = 0; // hết stream (hoặc chunk data bị cắt cụt)
+            if (filled < blockAlign) {
+                return END_OF_STREAM;
+            }
+        } else if (remaining != UNKNOWN_LENGTH) {
+            remaining -= filled;
+        }
+        return toMono(frame, filled);
+    }
+
+    // Chép các khung đầy đủ vào frame, trộn các kênh về mono; trả về số byte mono
+    private int toMono(AudioFrame frame, int bytes) {
+        ByteBuffer data = frame.data();
+        int samples = bytes / (channels * 2);
+        if (channels == 1) {
+            data.put(staging, 0, samples * 2);
+        } else {
+            for (int i = 0; i < samples; i++) {
+                int sum = 0;
+                for (int c = 0; c < channels; c++) {
+                    int at = (i * channels + c) * 2;
+                    sum += (short) ((staging[at] & 0xFF) | (staging[at + 1] << 8));
+                }
+                data.putShort(i * 2, (short) (sum / channels));
+            }
+        }
+        return samples * 2;
+    }
+
+    @Override
+    public void stop() {
+        stopped = true;
+    }
+
+    @Override
+    public void close() {
+        stop();
+        closeQuietly();
+    }
+
+    private void closeQuietly() {
+        try {
+            in.close();
+        } catch (IOException ignored) {
+            // Chỉ đọc, không mất dữ liệu
+        }
+    }
+
+    private String readId() throws IOException {
+        byte[] id = new byte[4];
+        readFully(id);
+        return new String(id, StandardCharsets.US_ASCII);
+    }
+
+    private int readInt() throws IOException {
+        byte[] b = new byte[4];
+        readFully(b);
+        return (b[0] & 0xFF) | (b[1] & 0xFF) << 8 | (b[2] & 0xFF) << 16 | (b[3] & 0xFF) << 24;
+    }
+
+    private int readShort() throws IOException {
+        byte[] b = new byte[2];
+        readFully(b);
+        return (b[0] & 0xFF) | (b[1] & 0xFF) << 8;
+    }
+
+    private void readFully(byte[] b) throws IOException {
+        int filled = 0;
+        while (filled < b.length) {
+            int n = in.read(b, filled, b.length - filled);
+            if (n < 0) {
+                throw new EOFException("WAV header bị cắt cụt");
+            }
+            filled += n;
+        }
+    }
+
+    private void skip(long bytes) throws IOException {
+        while (bytes > 0) {
+            long n = in.skip(bytes);
+            if (n <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException("WAV header bị cắt cụt");
+                }
+                n = 1;
+            }
+            bytes -= n;
+        }
+    }
+}
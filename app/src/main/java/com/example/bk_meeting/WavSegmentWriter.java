@@ -0,0 +1,229 @@
+package com.example.bk_meeting;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+
+// Ghi một segment WAV theo kiểu streaming: PCM được đẩy xuống đĩa ngay khi thu,
+// kích thước RIFF/data trong header được vá lại khi đóng segment.
+// Bộ nhớ heap dùng cho mỗi segment là cố định, không phụ thuộc độ dài câu nói.
+public class WavSegmentWriter implements AudioSegmentWriter {
+
+    static final int HEADER_SIZE = 44;
+
+    private static final int STAGING_SIZE = 16 * 1024;
+    private static final long MAX_DATA_LENGTH = 0xFFFFFFFFL - 36;
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private final ByteBuffer staging;
+    private final ShortBuffer stagingShorts;
+
+    private final int sampleRate;
+    private final int channels;
+    private final int bitsPerSample;
+
+    private long dataLength = 0;
+    private boolean closed = false;
+
+    public WavSegmentWriter(File file, int sampleRate, int channels, int bitsPerSample) throws IOException {
+        this.file = file;
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+        this.bitsPerSample = bitsPerSample;
+
+        raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(0);
+            channel = raf.getChannel();
+            staging = ByteBuffer.allocateDirect(STAGING_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            stagingShorts = staging.asShortBuffer();
+
+            // Header tạm với kích thước 0, sẽ được vá trong close()
+            writeWavHeader(staging, 0, sampleRate, channels, bitsPerSample);
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    public void write(byte[] pcm, int offset, int length) throws IOException {
+        ensureOpen();
+        dataLength += length;
+
+        while (length > 0) {
+            if (!staging.hasRemaining()) {
+                flushStaging();
+            }
+            int chunk = Math.min(length, staging.remaining());
+            staging.put(pcm, offset, chunk);
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    // Ghi phần còn lại của src (PCM little-endian). Buffer direct được đưa thẳng cho
+    // FileChannel.write, không chép qua staging.
+    @Override
+    public void write(ByteBuffer src) throws IOException {
+        ensureOpen();
+        dataLength += src.remaining();
+
+        if (src.isDirect()) {
+            flushStaging();
+            while (src.hasRemaining()) {
+                channel.write(src);
+            }
+            return;
+        }
+
+        int limit = src.limit();
+        while (src.hasRemaining()) {
+            if (!staging.hasRemaining()) {
+                flushStaging();
+            }
+            src.limit(Math.min(limit, src.position() + staging.remaining()));
+            staging.put(src);
+            src.limit(limit);
+        }
+    }
+
+    // Ghi mẫu 16-bit little-endian, chép thẳng vào staging bằng view ShortBuffer
+    @Override
+    public void write(short[] samples, int offset, int length) throws IOException {
+        ensureOpen();
+        dataLength += (long) length * 2;
+
+        while (length > 0) {
+            if (staging.remaining() < 2) {
+                flushStaging();
+            }
+            if ((staging.position() & 1) != 0) {
+                // Lệch byte sau một lần write(byte[]) lẻ, ghi từng mẫu
+                staging.putShort(samples[offset++]);
+                length--;
+                continue;
+            }
+            int chunk = Math.min(length, staging.remaining() / 2);
+            stagingShorts.position(staging.position() / 2);
+            stagingShorts.put(samples, offset, chunk);
+            staging.position(staging.position() + chunk * 2);
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    @Override
+    public long getDataLength() {
+        return dataLength;
+    }
+
+    @Override
+    public long getDurationMs() {
+        long bytesPerSecond = (long) sampleRate * channels * bitsPerSample / 8;
+        return bytesPerSecond > 0 ? dataLength * 1000 / bytesPerSecond : 0;
+    }
+
+    @Override
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public long getPcmOffset() {
+        return channels == 1 && bitsPerSample == 16 ? HEADER_SIZE : -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            flushStaging();
+
+            // Vá kích thước RIFF (offset 4) và data (offset 40)
+            long audioLen = Math.min(dataLength, MAX_DATA_LENGTH);
+            staging.clear();
+            staging.putInt(0, (int) (audioLen + 36));
+            staging.limit(4);
+            writeFully(staging, 4);
+
+            staging.clear();
+            staging.putInt(0, (int) audioLen);
+            staging.limit(4);
+            writeFully(staging, 40);
+        } finally {
+            raf.close();
+        }
+    }
+
+    @Override
+    public void discard() {
+        try {
+            close();
+        } catch (IOException ignored) {
+            // File sẽ bị xoá ngay sau đó
+        }
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    private void flushStaging() throws IOException {
+        staging.flip();
+        while (staging.hasRemaining()) {
+            channel.write(staging);
+        }
+        staging.clear();
+    }
+
+    private void writeFully(ByteBuffer src, long position) throws IOException {
+        while (src.hasRemaining()) {
+            position += channel.write(src, position);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Segment already closed: " + file.getName());
+        }
+    }
+
+    static void writeWavHeader(ByteBuffer out, long totalAudioLen, int sampleRate,
+                               int channels, int bitsPerSample) {
+        long totalDataLen = totalAudioLen + 36;
+        int byteRate = sampleRate * channels * bitsPerSample / 8;
+        ByteOrder order = out.order();
+        out.order(ByteOrder.LITTLE_ENDIAN);
+
+        // RIFF header
+        out.put((byte) 'R').put((byte) 'I').put((byte) 'F').put((byte) 'F');
+        out.putInt((int) totalDataLen);
+
+        // WAVE header
+        out.put((byte) 'W').put((byte) 'A').put((byte) 'V').put((byte) 'E');
+
+        // fmt chunk (PCM)
+        out.put((byte) 'f').put((byte) 'm').put((byte) 't').put((byte) ' ');
+        out.putInt(16);
+        out.putShort((short) 1);
+        out.putShort((short) channels);
+        out.putInt(sampleRate);
+        out.putInt(byteRate);
+        out.putShort((short) (channels * bitsPerSample / 8));
+        out.putShort((short) bitsPerSample);
+
+        // data chunk
+        out.put((byte) 'd').put((byte) 'a').put((byte) 't').put((byte) 'a');
+        out.putInt((int) totalAudioLen);
+
+        out.order(order);
+    }
+}
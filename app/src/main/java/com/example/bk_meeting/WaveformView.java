@@ -0,0 +1,92 @@
+package com.example.bk_meeting;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.View;
+
+// Thumbnail waveform của một segment, vẽ từ PeakPyramid: mỗi cột là một vạch min..max.
+// Toạ độ các vạch được tính một lần khi đổi kích thước hoặc đổi dữ liệu; onDraw() chỉ còn một
+// lần drawLines() nên danh sách hàng trăm waveform vẫn cuộn mượt, không đụng tới PCM
+public class WaveformView extends View {
+
+    private static final int COLUMN_SPACING_PX = 3;
+    private static final int MIN_FULL_SCALE = 2048;
+
+    private final Paint paint = new Paint();
+    private PeakPyramid peaks;
+    private float[] lines = new float[0];
+    private int lineCount;
+    private short[] columnMins = new short[0];
+    private short[] columnMaxs = new short[0];
+
+    public WaveformView(Context context) {
+        this(context, null);
+    }
+
+    public WaveformView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        paint.setStrokeWidth(2f);
+        setPlaying(false);
+    }
+
+    public void setPeaks(PeakPyramid peaks) {
+        this.peaks = peaks;
+        layoutLines(getWidth(), getHeight());
+        invalidate();
+    }
+
+    public void setPlaying(boolean playing) {
+        paint.setColor(playing ? Color.rgb(0xE6, 0x51, 0x00) : Color.rgb(0x4C, 0xAF, 0x50));
+        invalidate();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        layoutLines(w, h);
+    }
+
+    private void layoutLines(int width, int height) {
+        lineCount = 0;
+        if (peaks == null || width <= 0 || height <= 0) {
+            return;
+        }
+        int columns = Math.max(1, width / COLUMN_SPACING_PX);
+        if (columnMins.length < columns) {
+            columnMins = new short[columns];
+            columnMaxs = new short[columns];
+            lines = new float[columns * 4];
+        }
+        int rendered = peaks.render(columns, columnMins, columnMaxs);
+        float mid = height / 2f;
+        // Chuẩn hoá theo đỉnh của segment (giọng nói hiếm khi gần full scale), tối thiểu MIN_FULL_SCALE
+        // để đoạn gần như im lặng không bị phóng thành nhiễu
+        int peak = MIN_FULL_SCALE;
+        for (int c = 0; c < rendered; c++) {
+            peak = Math.max(peak, Math.max(-columnMins[c], columnMaxs[c]));
+        }
+        float scale = (height / 2f - 1) / peak;
+        float step = (float) width / Math.max(1, rendered);
+        for (int c = 0; c < rendered; c++) {
+            float x = c * step + step / 2;
+            int i = c * 4;
+            lines[i] = x;
+            lines[i + 1] = mid - columnMaxs[c] * scale;
+            lines[i + 2] = x;
+            // Vạch tối thiểu 1 px để đoạn im lặng vẫn thấy được
+            lines[i + 3] = Math.max(mid - columnMins[c] * scale, lines[i + 1] + 1);
+        }
+        lineCount = rendered * 4;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (lineCount > 0) {
+            canvas.drawLines(lines, 0, lineCount, paint);
+        }
+    }
+}
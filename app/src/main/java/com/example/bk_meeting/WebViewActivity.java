@@ -1,19 +1,39 @@
 package com.example.bk_meeting;
 
+import android.content.Context;
 import android.os.Bundle;
+import android.util.Log;
 import android.webkit.WebView;
 import android.webkit.WebViewClient;
 import android.webkit.WebSettings;
 import android.widget.Button;
+import android.widget.FrameLayout;
 import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import android.webkit.PermissionRequest;
 import android.webkit.WebChromeClient;
 import androidx.activity.OnBackPressedCallback;
+import androidx.webkit.WebViewCompat;
+import androidx.webkit.WebViewFeature;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 
 public class WebViewActivity extends AppCompatActivity {
 
+    private static final String TAG = "WebViewActivity";
+    static final String MEETING_ORIGIN = "https://meet.xbot.vn";
+    private static final String MEDIA_SCRIPT_ASSET = "meeting_media.js";
+
+    // Nội dung assets/meeting_media.js, chỉ truy cập trên main thread
+    private static String mediaScript;
+
     private WebView webView;
+    private FirstPaintTimer firstPaintTimer;
+    private boolean mediaScriptAtDocumentStart;
     private Button btnBack;
     private Button btnRefresh;
     private Button btnTestMedia;
@@ -22,9 +42,16 @@ public class WebViewActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        firstPaintTimer = new FirstPaintTimer("Meeting");
         setContentView(R.layout.activity_webview);
 
-        webView = findViewById(R.id.webView);
+        // WebView đã khởi tạo sẵn trong splash (MainActivity)
+        webView = WebViewPool.acquire(this);
+        firstPaintTimer.onWebViewReady(WebViewPool.isPooled(webView));
+        FrameLayout webViewContainer = findViewById(R.id.webViewContainer);
+        webViewContainer.addView(webView, new FrameLayout.LayoutParams(
+                FrameLayout.LayoutParams.MATCH_PARENT,
+                FrameLayout.LayoutParams.MATCH_PARENT));
         btnBack = findViewById(R.id.btnBack);
         btnRefresh = findViewById(R.id.btnRefresh);
         btnTestMedia = findViewById(R.id.btnTestMedia);
@@ -33,7 +60,7 @@ public class WebViewActivity extends AppCompatActivity {
         setupWebView();
 
         // Load URL meeting
-        String meetingUrl = "https://meet.xbot.vn/HonestReliefsDiscourageRight";
+        String meetingUrl = MEETING_ORIGIN + "/HonestReliefsDiscourageRight";
         webView.loadUrl(meetingUrl);
 
         // Nút quay lại
@@ -96,6 +123,8 @@ public class WebViewActivity extends AppCompatActivity {
         // Bật hardware acceleration
         webSettings.setRenderPriority(WebSettings.RenderPriority.HIGH);
 
+        installMediaScript();
+
         // Cài đặt WebViewClient để giữ navigation trong app
         webView.setWebViewClient(new WebViewClient() {
             @Override
@@ -104,28 +133,27 @@ public class WebViewActivity extends AppCompatActivity {
                 return true;
             }
 
+            @Override
+            public void onPageCommitVisible(WebView view, String url) {
+                super.onPageCommitVisible(view, url);
+                firstPaintTimer.onPageCommitVisible(url);
+                // WebView cũ không có document-start script: cài ngay khi trang mới được commit,
+                // MutationObserver trong script vẫn bắt được các nút được tạo sau đó
+                if (!mediaScriptAtDocumentStart && mediaScript != null && url != null
+                        && url.startsWith(MEETING_ORIGIN)) {
+                    view.evaluateJavascript(mediaScript, null);
+                }
+            }
+
             @Override
             public void onPageFinished(WebView view, String url) {
                 super.onPageFinished(view, url);
-                // Inject JavaScript để request permissions
-                webView.evaluateJavascript(
-                        "(function() {" +
-                                "    navigator.mediaDevices.getUserMedia({video: true, audio: true})" +
-                                "        .then(function(stream) {" +
-                                "            console.log('Camera and microphone access granted');" +
-                                "        })" +
-                                "        .catch(function(err) {" +
-                                "            console.log('Error accessing media devices:', err);" +
-                                "        });" +
-                                "})();", null);
                 Toast.makeText(WebViewActivity.this, "Đã tải xong trang meeting", Toast.LENGTH_SHORT).show();
             }
         });
 
         // Cài đặt WebChromeClient để xử lý camera/microphone permissions
         webView.setWebChromeClient(new WebChromeClient() {
-            private boolean permissionGranted = false;
-
             @Override
             public void onPermissionRequest(PermissionRequest request) {
                 // Log để debug
@@ -139,7 +167,6 @@ public class WebViewActivity extends AppCompatActivity {
                     public void run() {
                         try {
                             request.grant(request.getResources());
-                            permissionGranted = true;
                             Toast.makeText(WebViewActivity.this,
                                     "Đã cấp quyền: " + String.join(", ", request.getResources()),
                                     Toast.LENGTH_SHORT).show();
@@ -161,95 +188,6 @@ public class WebViewActivity extends AppCompatActivity {
                         Toast.LENGTH_LONG).show();
             }
 
-            @Override
-            public void onProgressChanged(WebView view, int newProgress) {
-                super.onProgressChanged(view, newProgress);
-                // Chỉ chạy một lần khi page load xong
-                if (newProgress == 100 && !permissionGranted) {
-                    // Chờ 5 giây để page ổn định và tự động bật camera
-                    webView.postDelayed(new Runnable() {
-                        @Override
-                        public void run() {
-                            webView.evaluateJavascript(
-                                    "(function() {" +
-                                            "    console.log('Page loaded, auto-enabling camera...');" +
-                                            "    " +
-                                            "    // Tự động bật camera và microphone" +
-                                            "    if (navigator.mediaDevices && navigator.mediaDevices.getUserMedia) {" +
-                                            "        navigator.mediaDevices.getUserMedia({" +
-                                            "            video: { " +
-                                            "                width: { ideal: 640 }, " +
-                                            "                height: { ideal: 480 }," +
-                                            "                facingMode: 'user'" +
-                                            "            }," +
-                                            "            audio: { " +
-                                            "                echoCancellation: true," +
-                                            "                noiseSuppression: true," +
-                                            "                autoGainControl: true" +
-                                            "            }" +
-                                            "        })" +
-                                            "        .then(function(stream) {" +
-                                            "            console.log('Auto-enabled camera/microphone successfully');" +
-                                            "            " +
-                                            "            // Tìm và click nút camera nếu có" +
-                                            "            setTimeout(function() {" +
-                                            "                // Thử các selector khác nhau cho nút camera" +
-                                            "                var cameraSelectors = [" +
-                                            "                    '[data-testid=\"camera-button\"]'," +
-                                            "                    '[aria-label*=\"camera\"]'," +
-                                            "                    '[aria-label*=\"Camera\"]'," +
-                                            "                    'button[title*=\"camera\"]'," +
-                                            "                    'button[title*=\"Camera\"]'," +
-                                            "                    '.camera-button'," +
-                                            "                    '#camera-btn'," +
-                                            "                    'button:contains(\"Camera\")'," +
-                                            "                    '[class*=\"camera\"]'" +
-                                            "                ];" +
-                                            "                " +
-                                            "                for (var i = 0; i < cameraSelectors.length; i++) {" +
-                                            "                    var cameraBtn = document.querySelector(cameraSelectors[i]);" +
-                                            "                    if (cameraBtn) {" +
-                                            "                        console.log('Found camera button with selector:', cameraSelectors[i]);" +
-                                            "                        cameraBtn.click();" +
-                                            "                        break;" +
-                                            "                    }" +
-                                            "                }" +
-                                            "                " +
-                                            "                // Tương tự cho microphone" +
-                                            "                var micSelectors = [" +
-                                            "                    '[data-testid=\"microphone-button\"]'," +
-                                            "                    '[data-testid=\"mic-button\"]'," +
-                                            "                    '[aria-label*=\"microphone\"]'," +
-                                            "                    '[aria-label*=\"Microphone\"]'," +
-                                            "                    'button[title*=\"microphone\"]'," +
-                                            "                    'button[title*=\"Microphone\"]'," +
-                                            "                    '.microphone-button'," +
-                                            "                    '#microphone-btn'," +
-                                            "                    '[class*=\"microphone\"]'" +
-                                            "                ];" +
-                                            "                " +
-                                            "                for (var j = 0; j < micSelectors.length; j++) {" +
-                                            "                    var micBtn = document.querySelector(micSelectors[j]);" +
-                                            "                    if (micBtn) {" +
-                                            "                        console.log('Found microphone button with selector:', micSelectors[j]);" +
-                                            "                        micBtn.click();" +
-                                            "                        break;" +
-                                            "                    }" +
-                                            "                }" +
-                                            "            }, 2000);" +
-                                            "        })" +
-                                            "        .catch(function(err) {" +
-                                            "            console.error('Error auto-enabling camera/microphone:', err);" +
-                                            "        });" +
-                                            "    } else {" +
-                                            "        console.error('MediaDevices API not available');" +
-                                            "    }" +
-                                            "})();", null);
-                        }
-                    }, 5000);
-                }
-            }
-
             @Override
             public boolean onConsoleMessage(android.webkit.ConsoleMessage consoleMessage) {
                 if (consoleMessage != null) {
@@ -260,6 +198,33 @@ public class WebViewActivity extends AppCompatActivity {
         });
     }
 
+    // Script bật camera/micro chạy trước mọi script của trang meeting, trên mọi document của MEETING_ORIGIN
+    private void installMediaScript() {
+        String script = loadMediaScript(this);
+        if (script != null && WebViewFeature.isFeatureSupported(WebViewFeature.DOCUMENT_START_SCRIPT)) {
+            WebViewCompat.addDocumentStartJavaScript(webView, script, Collections.singleton(MEETING_ORIGIN));
+            mediaScriptAtDocumentStart = true;
+        }
+    }
+
+    // Đọc assets/meeting_media.js một lần cho cả tiến trình; null nếu lỗi
+    private static String loadMediaScript(Context context) {
+        if (mediaScript == null) {
+            try (InputStream in = context.getAssets().open(MEDIA_SCRIPT_ASSET)) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                mediaScript = new String(out.toByteArray(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                Log.e(TAG, "Cannot load " + MEDIA_SCRIPT_ASSET, e);
+            }
+        }
+        return mediaScript;
+    }
+
     private void testMediaPermissions() {
         webView.evaluateJavascript(
                 "(function() {" +
@@ -0,0 +1,218 @@
+package com.example.bk_meeting;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.MutableContextWrapper;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.webkit.WebView;
+import android.webkit.WebViewClient;
+
+import java.net.InetAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+// Khởi động sẵn engine WebView trong lúc MainActivity hiện splash.
+//
+// WebView đầu tiên của tiến trình phải nạp provider (Chromium) và khởi tạo engine: vài trăm ms
+// trên luồng chính, trước đây rơi vào onCreate của WebViewActivity/SecondScreenActivity.
+// prewarm() làm việc đó khi luồng chính rảnh trong splash, giữ sẵn vài WebView trên
+// MutableContextWrapper của application context; acquire() đổi context gốc sang Activity
+// (dialog, quyền, IME cần context của Activity) rồi trả về một WebView sạch.
+// Đồng thời phân giải DNS và mở trước kết nối (<link rel=preconnect>) tới máy chủ meeting:
+// socket nằm trong network stack dùng chung của WebView nên trang thật dùng lại được.
+//
+// Chỉ dùng trên luồng chính. WebView đã lấy ra không trả lại pool (trang cũ còn state):
+// Activity tự destroy() như trước, pool nạp lại khi luồng chính rảnh.
+public final class WebViewPool {
+
+    private static final String TAG = "WebViewPool";
+    private static final int POOL_SIZE = 2;
+    // Giữ WebView preconnect đủ lâu để bắt tay TLS xong rồi mới huỷ
+    private static final long PRECONNECT_HOLD_MS = 10_000;
+
+    private static final ArrayDeque<WebView> pool = new ArrayDeque<>();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static Context appContext;
+    private static boolean enabled = true;
+    private static boolean refillScheduled;
+    private static final ArrayList<Runnable> readyCallbacks = new ArrayList<>();
+    // Thời gian tạo WebView đầu tiên của tiến trình (nạp provider + engine); -1 nếu chưa có
+    private static long engineInitMillis = -1;
+
+    private WebViewPool() {
+    }
+
+    // Gọi trong splash: phần nặng chạy khi luồng chính rảnh (sau khung hình đầu của splash).
+    // onReady (có thể null) chạy trên main thread khi pool đã có WebView đầu tiên
+    public static void prewarm(Context context, final String origin, Runnable onReady) {
+        checkMainThread();
+        if (!enabled) {
+            if (onReady != null) {
+                onReady.run();
+            }
+            return;
+        }
+        appContext = context.getApplicationContext();
+        if (onReady != null) {
+            readyCallbacks.add(onReady);
+        }
+        if (origin != null) {
+            prefetchDns(origin);
+        }
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                if (origin != null) {
+                    try {
+                        preconnect(origin);
+                    } catch (RuntimeException e) {
+                        Log.w(TAG, "Preconnect failed", e);
+                    }
+                }
+                scheduleRefill();
+                return false;
+            }
+        });
+    }
+
+    // WebView sẵn sàng gắn vào activity; tạo mới nếu pool rỗng (hoặc bị tắt để đo so sánh)
+    public static WebView acquire(Activity activity) {
+        checkMainThread();
+        WebView webView = enabled ? pool.pollFirst() : null;
+        if (webView == null) {
+            return create(activity);
+        }
+        ((MutableContextWrapper) webView.getContext()).setBaseContext(activity);
+        scheduleRefill();
+        return webView;
+    }
+
+    // WebView này có lấy từ pool không (dùng khi ghi log đo thời gian)
+    public static boolean isPooled(WebView webView) {
+        return webView.getContext() instanceof MutableContextWrapper;
+    }
+
+    // Tắt pool để đo lại thời gian khi khởi động lạnh; huỷ các WebView đang giữ
+    public static void setEnabled(boolean enabled) {
+        checkMainThread();
+        WebViewPool.enabled = enabled;
+        if (!enabled) {
+            clear();
+            runReadyCallbacks();
+        }
+    }
+
+    // Giải phóng bộ nhớ (onTrimMemory, thoát ứng dụng)
+    public static void clear() {
+        checkMainThread();
+        WebView webView;
+        while ((webView = pool.pollFirst()) != null) {
+            webView.destroy();
+        }
+    }
+
+    public static int size() {
+        return pool.size();
+    }
+
+    public static long getEngineInitMillis() {
+        return engineInitMillis;
+    }
+
+    private static void scheduleRefill() {
+        if (refillScheduled || appContext == null) {
+            return;
+        }
+        refillScheduled = true;
+        // Mỗi lần rảnh chỉ tạo một WebView để không chiếm luồng chính quá lâu
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                if (!enabled || pool.size() >= POOL_SIZE) {
+                    refillScheduled = false;
+                    runReadyCallbacks();
+                    return false;
+                }
+                try {
+                    pool.addLast(create(new MutableContextWrapper(appContext)));
+                } catch (RuntimeException e) {
+                    // Không có/không nạp được WebView provider: ngừng nạp pool, nhưng vẫn báo
+                    // onReady để splash không chờ mãi; acquire() sẽ thử tạo lại trong activity
+                    Log.w(TAG, "Pre-warm WebView creation failed", e);
+                    refillScheduled = false;
+                    runReadyCallbacks();
+                    return false;
+                }
+                runReadyCallbacks();
+                if (pool.size() >= POOL_SIZE) {
+                    refillScheduled = false;
+                    return false;
+                }
+                return true;
+            }
+        });
+    }
+
+    private static void runReadyCallbacks() {
+        if (readyCallbacks.isEmpty()) {
+            return;
+        }
+        ArrayList<Runnable> callbacks = new ArrayList<>(readyCallbacks);
+        readyCallbacks.clear();
+        for (Runnable callback : callbacks) {
+            callback.run();
+        }
+    }
+
+    private static WebView create(Context context) {
+        long start = SystemClock.uptimeMillis();
+        WebView webView = new WebView(context);
+        if (engineInitMillis < 0) {
+            engineInitMillis = SystemClock.uptimeMillis() - start;
+            Log.d(TAG, "WebView engine initialised in " + engineInitMillis + " ms"
+                    + (context instanceof Activity ? " (cold, in activity)" : " (pre-warm)"));
+        }
+        return webView;
+    }
+
+    private static void prefetchDns(String origin) {
+        final String host = android.net.Uri.parse(origin).getHost();
+        if (host == null) {
+            return;
+        }
+        // Kết quả vào cache DNS của hệ thống (netd), WebView tra cứu lại sẽ trúng cache
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            try {
+                InetAddress.getAllByName(host);
+            } catch (Exception e) {
+                Log.d(TAG, "DNS prefetch failed for " + host + ": " + e);
+            }
+        }, "WebViewPrewarm");
+        thread.start();
+    }
+
+    // WebView riêng, không vào pool: trang preconnect sẽ nằm trong lịch sử back nếu dùng lại
+    private static void preconnect(String origin) {
+        final WebView webView = create(new MutableContextWrapper(appContext));
+        webView.setWebViewClient(new WebViewClient());
+        String html = "<html><head>"
+                + "<link rel=\"dns-prefetch\" href=\"" + origin + "\">"
+                + "<link rel=\"preconnect\" href=\"" + origin + "\">"
+                + "<link rel=\"preconnect\" href=\"" + origin + "\" crossorigin>"
+                + "</head><body></body></html>";
+        webView.loadDataWithBaseURL("about:blank", html, "text/html", "utf-8", null);
+        mainHandler.postDelayed(webView::destroy, PRECONNECT_HOLD_MS);
+    }
+
+    private static void checkMainThread() {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            throw new IllegalStateException("WebViewPool must be used on the main thread");
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.bk_meeting;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveEnergyVadTest {
+
+    private static final int SAMPLE_RATE = 16000;
+    private static final int CHUNK = 640; // 40 ms, như một lần AudioRecord.read()
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void ignoresShortTransient() {
+        AdaptiveEnergyVad vad = new AdaptiveEnergyVad(SAMPLE_RATE);
+        feed(vad, noise(2000, 100));
+
+        // Tiếng đóng cửa 40 ms rất lớn
+        assertFalse(feed(vad, noise(40, 20000)));
+        assertFalse(feed(vad, noise(500, 100)));
+    }
+
+    @Test
+    public void detectsQuietSpeakerAboveNoiseFloor() {
+        AdaptiveEnergyVad vad = new AdaptiveEnergyVad(SAMPLE_RATE);
+        feed(vad, noise(2000, 30));
+
+        // Giọng nhỏ: biên độ ~600, thấp hơn nhiều ngưỡng 6000 cũ
+        assertTrue(feed(vad, tone(600, 180, 600)));
+        assertFalse(new PeakAmplitudeVad().process(tone(600, 180, 600), 0, SAMPLE_RATE * 600 / 1000));
+    }
+
+    @Test
+    public void releasesAfterSilenceAndAdaptsToSteadyNoise() {
+        AdaptiveEnergyVad vad = new AdaptiveEnergyVad(SAMPLE_RATE);
+        feed(vad, noise(1000, 50));
+        assertTrue(feed(vad, tone(1000, 200, 5000)));
+
+        // Hysteresis: vẫn là giọng nói ngay sau một khoảng ngắt ngắn
+        assertTrue(feed(vad, noise(100, 50)));
+        assertFalse(feed(vad, noise(500, 50)));
+
+        // Quạt/điều hoà bật lên: noise floor thích nghi, không tạo câu mới mãi mãi
+        feed(vad, noise(20000, 1500));
+        assertFalse(feed(vad, noise(1000, 1500)));
+        assertTrue(vad.getNoiseFloorDb() > -40);
+    }
+
+    private boolean feed(AdaptiveEnergyVad vad, short[] samples) {
+        boolean speech = vad.isSpeech();
+        for (int offset = 0; offset < samples.length; offset += CHUNK) {
+            speech = vad.process(samples, offset, Math.min(CHUNK, samples.length - offset));
+        }
+        return speech;
+    }
+
+    private short[] noise(int ms, int amplitude) {
+        short[] out = new short[SAMPLE_RATE * ms / 1000];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = (short) (random.nextGaussian() * amplitude / 3);
+        }
+        return out;
+    }
+
+    private short[] tone(int ms, double frequency, int amplitude) {
+        short[] out = new short[SAMPLE_RATE * ms / 1000];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = (short) (Math.sin(2 * Math.PI * frequency * i / SAMPLE_RATE) * amplitude);
+        }
+        return out;
+    }
+}
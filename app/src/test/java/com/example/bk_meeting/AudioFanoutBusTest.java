@@ -0,0 +1,196 @@
+package com.example.bk_meeting;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AudioFanoutBusTest {
+
+    private static final int FRAME_SAMPLES = 320;
+    private static final int CAPACITY = 16;
+
+    private final CapturePathCounters counters = new CapturePathCounters();
+    private final AudioFramePool pool = new AudioFramePool(FRAME_SAMPLES * 2, CAPACITY + 4, true, counters);
+
+    @Test
+    public void slowConsumersNeverStallProducerAndFastOneSeesEveryFrame() throws Exception {
+        RecordingStage fast = new RecordingStage(0);
+        RecordingStage slowDrop = new RecordingStage(2);
+        RecordingStage meter = new RecordingStage(2);
+        AudioFanoutBus.Subscriber fastSub = new AudioFanoutBus.Subscriber("writer", fast, AudioFanoutBus.OverflowPolicy.DROP);
+        AudioFanoutBus.Subscriber dropSub = new AudioFanoutBus.Subscriber("encoder", slowDrop, AudioFanoutBus.OverflowPolicy.DROP);
+        AudioFanoutBus.Subscriber meterSub = new AudioFanoutBus.Subscriber("meter", meter, AudioFanoutBus.OverflowPolicy.COALESCE);
+        AudioFanoutBus bus = new AudioFanoutBus(CAPACITY, new AudioFanoutBus.Subscriber[]{fastSub, dropSub, meterSub}, 16000);
+        bus.start();
+
+        int frames = 400;
+        for (int i = 0; i < frames; i++) {
+            AudioFrame frame = frame(i);
+            assertTrue(bus.publish(frame, i % 2 == 0));
+            frame.release();
+            // Luồng thu nhanh hơn consumer chậm (~20 ms/frame ở thời gian thực, ở đây 0.5 ms)
+            if (i % 2 == 0) {
+                Thread.sleep(1);
+            }
+        }
+        bus.close();
+
+        // Consumer nhanh nhận đủ và đúng thứ tự
+        assertEquals(frames, fast.count);
+        assertTrue(fast.inOrder);
+        assertEquals(0, fastSub.getDropped());
+
+        // Consumer chậm bị bỏ frame cũ, nhưng mọi frame đều được tính
+        assertTrue(dropSub.getDropped() > 0);
+        assertTrue(slowDrop.inOrder);
+        assertEquals(frames, dropSub.getDelivered() + dropSub.getDropped());
+        assertTrue(dropSub.getMaxLag() >= CAPACITY - 1);
+
+        // Level meter chỉ lấy frame mới nhất, và thấy frame cuối cùng
+        assertTrue(meterSub.getCoalesced() > 0);
+        assertEquals(frames, meterSub.getDelivered() + meterSub.getCoalesced() + meterSub.getDropped());
+        assertEquals(frames - 1, meter.lastValue);
+
+        assertEquals(0, bus.getRejected());
+        assertAllFramesReturned();
+    }
+
+    @Test
+    public void blockingConsumerIsLosslessAndRejectsInsteadOfStallingCapture() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch gate = new CountDownLatch(1);
+        RecordingStage writer = new RecordingStage(0) {
+            @Override
+            public void onFrame(AudioFrame frame, boolean voiceDetected) {
+                entered.countDown();
+                awaitQuietly(gate);
+                super.onFrame(frame, voiceDetected);
+            }
+        };
+        AudioFanoutBus.Subscriber sub = new AudioFanoutBus.Subscriber("writer", writer, AudioFanoutBus.OverflowPolicy.BLOCK);
+        AudioFanoutBus bus = new AudioFanoutBus(CAPACITY, new AudioFanoutBus.Subscriber[]{sub}, 16000);
+        bus.start();
+
+        AudioFrame first = frame(0);
+        assertTrue(bus.publish(first, true));
+        first.release();
+        assertTrue(entered.await(2, TimeUnit.SECONDS));
+
+        int accepted = 1;
+        for (int i = 1; i < CAPACITY * 2; i++) {
+            AudioFrame frame = frame(accepted);
+            if (bus.publish(frame, true)) {
+                accepted++;
+            }
+            frame.release();
+        }
+        // Consumer đang xử lý frame đầu (đã nhả slot), vòng chứa thêm được CAPACITY frame
+        assertEquals(CAPACITY + 1, accepted);
+        assertEquals(CAPACITY - 1, bus.getRejected());
+        assertTrue(sub.getBlocked() > 0);
+        assertEquals(CAPACITY, sub.getLag());
+
+        gate.countDown();
+        bus.close();
+
+        assertEquals(CAPACITY + 1, writer.count);
+        assertTrue(writer.inOrder);
+        assertEquals(0, sub.getDropped());
+        assertAllFramesReturned();
+    }
+
+    @Test
+    public void failingConsumerDoesNotHoldTheRing() throws Exception {
+        RecordingStage broken = new RecordingStage(0) {
+            @Override
+            public void onFrame(AudioFrame frame, boolean voiceDetected) {
+                throw new IllegalStateException("boom");
+            }
+        };
+        AudioFanoutBus.Subscriber sub = new AudioFanoutBus.Subscriber("broken", broken, AudioFanoutBus.OverflowPolicy.BLOCK);
+        AudioFanoutBus bus = new AudioFanoutBus(CAPACITY, new AudioFanoutBus.Subscriber[]{sub}, 16000);
+        bus.start();
+
+        AudioFrame first = frame(0);
+        assertTrue(bus.publish(first, true));
+        first.release();
+        long deadline = System.currentTimeMillis() + 2000;
+        while (sub.getFailure() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertNotNull(sub.getFailure());
+
+        for (int i = 1; i < CAPACITY * 3; i++) {
+            AudioFrame frame = frame(i);
+            assertTrue(bus.publish(frame, true));
+            frame.release();
+        }
+        bus.close();
+        assertTrue(broken.stopped);
+        assertAllFramesReturned();
+    }
+
+    private AudioFrame frame(int value) {
+        AudioFrame frame = pool.acquire();
+        for (int i = 0; i < FRAME_SAMPLES; i++) {
+            frame.data().putShort(i * 2, (short) value);
+        }
+        frame.setByteLength(FRAME_SAMPLES * 2);
+        return frame;
+    }
+
+    private void assertAllFramesReturned() {
+        assertEquals(CAPACITY + 4, pool.available());
+        assertEquals(CAPACITY + 4, counters.getAllocations());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Ghi nhận frame nhận được; mỗi frame mang giá trị = sequence ở mọi mẫu
+    private static class RecordingStage implements AudioStage {
+        private final long delayMs;
+        volatile int count;
+        volatile int lastValue = -1;
+        volatile boolean inOrder = true;
+        volatile boolean stopped;
+
+        RecordingStage(long delayMs) {
+            this.delayMs = delayMs;
+        }
+
+        @Override
+        public void onStart(int sampleRate) {
+        }
+
+        @Override
+        public void onFrame(AudioFrame frame, boolean voiceDetected) {
+            int value = frame.getSample(0);
+            if (value <= lastValue || frame.getSample(FRAME_SAMPLES - 1) != value) {
+                inOrder = false;
+            }
+            lastValue = value;
+            count++;
+            if (delayMs > 0) {
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void onStop() {
+            stopped = true;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.bk_meeting;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CaptureMetricsTest {
+
+    private static final int RATE = 44100;
+    private static final int FRAME_BYTES = 3528; // 40 ms mono 16-bit
+    private static final long FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(40);
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void histogramBucketsAndPercentiles() {
+        FixedBucketHistogram histogram = new FixedBucketHistogram("µs");
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i < 100 ? 100 : 50_000);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(50_000, histogram.getMax());
+        // 100 nằm trong bucket [64, 128)
+        assertEquals(127, histogram.getPercentile(50));
+        assertEquals(127, histogram.getPercentile(99));
+        assertEquals(50_000, histogram.getPercentile(100));
+        assertEquals(99, histogram.getBucketCount(7));
+
+        histogram.record(-5);
+        assertEquals(1, histogram.getBucketCount(0));
+        histogram.record(Long.MAX_VALUE / 4);
+        assertEquals(1, histogram.getBucketCount(histogram.bucketCount() - 1));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(50));
+    }
+
+    @Test
+    public void readsClassifiedAndOverrunEstimated() {
+        CaptureMetrics metrics = new CaptureMetrics();
+        metrics.onSessionStart(RATE, FRAME_BYTES, FRAME_BYTES);
+
+        // Đọc đều đặn: mỗi lần chờ gần trọn chu kỳ frame
+        long t = 0;
+        for (int i = 0; i < 10; i++) {
+            metrics.onRead(t, t + FRAME_NANOS - 100_000, FRAME_BYTES, FRAME_BYTES);
+            t += FRAME_NANOS;
+        }
+        assertEquals(0, metrics.getOverruns());
+        assertTrue(metrics.getReadJitterMicros().getMax() <= 1);
+
+        // Luồng thu bị chặn 100 ms (lâu hơn buffer 40 ms): khoảng 60 ms bị mất
+        long lastEnd = t - 100_000;
+        t = lastEnd + TimeUnit.MILLISECONDS.toNanos(100);
+        metrics.onRead(t, t + 50_000, FRAME_BYTES / 2, FRAME_BYTES);
+        metrics.onRead(t + 60_000, t + 70_000, -3, FRAME_BYTES);
+
+        assertEquals(12, metrics.getReads());
+        assertEquals(1, metrics.getOverruns());
+        assertEquals(60, metrics.getOverrunMillis());
+        assertEquals(1, metrics.getShortReads());
+        assertEquals(1, metrics.getFailedReads());
+        assertEquals(10L * FRAME_BYTES + FRAME_BYTES / 2, metrics.getBytesCaptured());
+        assertTrue(metrics.getReadJitterMicros().getMax() >= 60_000);
+
+        metrics.onSegmentSaved(TimeUnit.MILLISECONDS.toNanos(12));
+        metrics.onSaveFailed(TimeUnit.MILLISECONDS.toNanos(300));
+        assertEquals(1, metrics.getSegments());
+        assertEquals(1, metrics.getSaveFailures());
+        assertEquals(300, metrics.getSaveLatencyMillis().getMax());
+        assertTrue(metrics.toString().contains("overruns=1"));
+    }
+
+    @Test
+    public void recordingDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        CaptureMetrics metrics = new CaptureMetrics();
+        metrics.onSessionStart(RATE, FRAME_BYTES, FRAME_BYTES);
+        // Làm nóng để JIT và các lớp đã được nạp
+        feed(metrics, 20_000);
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        feed(metrics, 100_000);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        // Cho phép vài byte nhiễu của chính phép đo
+        assertTrue("allocated " + allocated + " B", allocated < 1024);
+    }
+
+    @Test
+    public void rollingLogKeepsBoundedFiles() throws Exception {
+        File file = new File(tmp.getRoot(), "metrics/capture_metrics.log");
+        RollingMetricsLog log = new RollingMetricsLog(file, 100, 2);
+        for (int i = 0; i < 20; i++) {
+            log.append(String.format("line %02d %s", i, "x".repeat(30)));
+        }
+        assertTrue(file.length() <= 100);
+        assertTrue(log.getRolledFile(1).exists());
+        assertTrue(log.getRolledFile(2).exists());
+        assertFalse(log.getRolledFile(3).exists());
+
+        String current = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        assertTrue(current.endsWith("line 19 " + "x".repeat(30) + "\n"));
+        String previous = new String(Files.readAllBytes(log.getRolledFile(1).toPath()), StandardCharsets.UTF_8);
+        assertTrue(previous.contains("line 17"));
+    }
+
+    private static void feed(CaptureMetrics metrics, int reads) {
+        long t = 0;
+        for (int i = 0; i < reads; i++) {
+            metrics.onRead(t, t + FRAME_NANOS - (i % 7) * 1000, i % 50 == 0 ? FRAME_BYTES / 2 : FRAME_BYTES,
+                    FRAME_BYTES);
+            metrics.onFanoutDepth(i % 5);
+            t += FRAME_NANOS;
+        }
+        metrics.onSegmentSaved(TimeUnit.MILLISECONDS.toNanos(5));
+    }
+}
@@ -0,0 +1,371 @@
+package com.example.bk_meeting;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class FlacSegmentWriterTest {
+
+    private static final int SAMPLE_RATE = 16000;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void speechLikeSignalIsBitExactAndAboutHalfTheWavSize() throws Exception {
+        short[] pcm = speechLike(SAMPLE_RATE * 20);
+        File file = encode(pcm, 640);
+
+        assertArrayEquals(pcm, decode(file));
+        long wavBytes = WavSegmentWriter.HEADER_SIZE + pcm.length * 2L;
+        double ratio = (double) file.length() / wavBytes;
+        assertTrue("Compression ratio too low: " + ratio, ratio < 0.6);
+    }
+
+    // Chỉ dùng một phần nhỏ của một core, kể cả khi JIT chưa khởi động
+    @Test
+    public void encoderRunsFasterThanRealTime() throws Exception {
+        PerfBounds.assume();
+        short[] pcm = speechLike(SAMPLE_RATE * 20);
+        long start = System.nanoTime();
+        encode(pcm, 640);
+        double realTime = 20 / ((System.nanoTime() - start) / 1e9);
+        assertTrue("Encoder too slow: " + realTime + "x real time", realTime > 10);
+    }
+
+    @Test
+    public void silenceNoiseAndPartialBlocksRoundTrip() throws Exception {
+        Random random = new Random(7);
+        short[] pcm = new short[FlacEncoder.BLOCK_SIZE * 3 + 123];
+        for (int i = FlacEncoder.BLOCK_SIZE; i < pcm.length; i++) {
+            // Nhiễu trắng biên độ lớn, kể cả giá trị cực trị
+            pcm[i] = (short) random.nextInt(65536);
+        }
+        pcm[pcm.length - 1] = Short.MIN_VALUE;
+        pcm[pcm.length - 2] = Short.MAX_VALUE;
+
+        assertArrayEquals(pcm, decode(encode(pcm, 333)));
+        short[] tiny = {5, -5, 1000};
+        assertArrayEquals(tiny, decode(encode(tiny, 3)));
+    }
+
+    @Test
+    public void acceptsDirectFrameBuffers() throws Exception {
+        short[] pcm = speechLike(SAMPLE_RATE * 2);
+        File file = tmp.newFile("direct.flac");
+        FlacSegmentWriter writer = new FlacSegmentWriter(file, SAMPLE_RATE);
+
+        ByteBuffer frame = ByteBuffer.allocateDirect(1280).order(ByteOrder.LITTLE_ENDIAN);
+        for (int offset = 0; offset < pcm.length; offset += 640) {
+            frame.clear();
+            frame.asShortBuffer().put(pcm, offset, Math.min(640, pcm.length - offset));
+            frame.limit(Math.min(640, pcm.length - offset) * 2);
+            writer.write(frame);
+            assertFalse(frame.hasRemaining());
+        }
+        writer.close();
+
+        assertEquals(2000, writer.getDurationMs());
+        assertArrayEquals(pcm, decode(file));
+    }
+
+    @Test(timeout = 20_000)
+    public void writeNeverWaitsForAStalledEncoder() throws Exception {
+        // Luồng mã hoá dùng chung đang bận (ví dụ finish() của segment khác)
+        CountDownLatch release = new CountDownLatch(1);
+        FlacSegmentWriter.ENCODER_EXECUTOR.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CaptureMetrics metrics = new CaptureMetrics();
+        File file = tmp.newFile("stalled.flac");
+        FlacSegmentWriter writer = new FlacSegmentWriter(file, SAMPLE_RATE, metrics);
+        int blocks = FlacSegmentWriter.MAX_BLOCKS + 6;
+        short[] pcm = speechLike(blocks * FlacEncoder.BLOCK_SIZE + 100);
+        try {
+            for (int offset = 0; offset < pcm.length; offset += 640) {
+                writer.write(pcm, offset, Math.min(640, pcm.length - offset));
+            }
+        } finally {
+            release.countDown();
+        }
+        writer.close();
+
+        // MAX_BLOCKS - 1 block đã gửi đi, các block đầy sau đó đi qua file tạm; không mất mẫu nào
+        int spilled = blocks - (FlacSegmentWriter.MAX_BLOCKS - 1);
+        assertEquals(FlacSegmentWriter.MAX_BLOCKS, writer.getAllocatedBlocks());
+        assertEquals((long) spilled * FlacEncoder.BLOCK_SIZE, writer.getSpilledSamples());
+        assertEquals(spilled, metrics.getEncoderSpills());
+        assertEquals(spilled * FlacEncoder.BLOCK_SIZE * 1000L / SAMPLE_RATE, metrics.getEncoderSpilledMillis());
+        assertArrayEquals(pcm, decode(file));
+        assertEquals(pcm.length * 2L, writer.getDataLength());
+        assertFalse(new File(file.getPath() + ".spill").exists());
+    }
+
+    @Test(timeout = 20_000)
+    public void discardDoesNotWaitForTheEncoder() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        FlacSegmentWriter.ENCODER_EXECUTOR.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        File file = tmp.newFile("discarded.flac");
+        FlacSegmentWriter writer = new FlacSegmentWriter(file, SAMPLE_RATE);
+        short[] pcm = speechLike(FlacEncoder.BLOCK_SIZE * 4);
+        try {
+            writer.write(pcm, 0, pcm.length);
+            // Luồng mã hoá còn bị chặn: discard() phải trả về ngay
+            writer.discard();
+            assertTrue(file.exists());
+        } finally {
+            release.countDown();
+        }
+        // File được đóng và xoá trên luồng mã hoá, sau các block còn trong hàng đợi
+        FlacSegmentWriter.ENCODER_EXECUTOR.submit(() -> { }).get();
+        assertFalse(file.exists());
+    }
+
+    private File encode(short[] pcm, int chunk) throws Exception {
+        File file = tmp.newFile();
+        FlacSegmentWriter writer = new FlacSegmentWriter(file, SAMPLE_RATE);
+        for (int offset = 0; offset < pcm.length; offset += chunk) {
+            writer.write(pcm, offset, Math.min(chunk, pcm.length - offset));
+        }
+        writer.close();
+        assertEquals(pcm.length * 2L, writer.getDataLength());
+        return file;
+    }
+
+    // Giọng nói giả lập: các hoạ âm có đường bao âm tiết, thêm nhiễu nền nhỏ
+    private static short[] speechLike(int length) {
+        Random random = new Random(1);
+        short[] out = new short[length];
+        for (int i = 0; i < length; i++) {
+            double t = (double) i / SAMPLE_RATE;
+            double pitch = 140 + 30 * Math.sin(2 * Math.PI * 0.7 * t);
+            double envelope = Math.max(0, Math.sin(2 * Math.PI * 3 * t));
+            double voice = 0;
+            for (int h = 1; h <= 6; h++) {
+                voice += Math.sin(2 * Math.PI * pitch * h * t) / h;
+            }
+            out[i] = (short) (voice * envelope * 6000 + random.nextGaussian() * 10);
+        }
+        return out;
+    }
+
+    // Bộ giải mã FLAC tối giản (mono, 16-bit) đủ cho các loại subframe mà FlacEncoder tạo ra.
+    // Kiểm tra CRC-8, CRC-16 từng frame và MD5 trong STREAMINFO.
+    private static short[] decode(File file) throws Exception {
+        byte[] data = Files.readAllBytes(file.toPath());
+        BitReader in = new BitReader(data);
+
+        assertEquals(0x664C6143, in.read(32)); // "fLaC"
+        assertEquals(0x80, in.read(8));
+        assertEquals(34, in.read(24));
+        in.read(16);
+        in.read(16);
+        in.read(24);
+        in.read(24);
+        assertEquals(SAMPLE_RATE, in.read(20));
+        assertEquals(0, in.read(3));
+        assertEquals(15, in.read(5));
+        long totalSamples = ((long) in.read(4) << 32) | (in.read(32) & 0xFFFFFFFFL);
+        byte[] md5 = new byte[16];
+        for (int i = 0; i < 16; i++) {
+            md5[i] = (byte) in.read(8);
+        }
+
+        short[] out = new short[(int) totalSamples];
+        int position = 0;
+        long expectedFrame = 0;
+        while (position < totalSamples) {
+            int frameStart = in.bytePosition();
+            assertEquals(0x3FFE, in.read(14));
+            in.read(2);
+            int blockSizeCode = in.read(4);
+            in.read(4);
+            assertEquals(0, in.read(4));
+            assertEquals(4, in.read(3));
+            in.read(1);
+            assertEquals(expectedFrame++, readUtf8(in));
+            int blockSize;
+            if (blockSizeCode == 12) {
+                blockSize = 4096;
+            } else if (blockSizeCode == 6) {
+                blockSize = in.read(8) + 1;
+            } else {
+                assertEquals(7, blockSizeCode);
+                blockSize = in.read(16) + 1;
+            }
+            assertEquals(crc8(data, frameStart, in.bytePosition()), in.read(8));
+
+            decodeSubframe(in, out, position, blockSize);
+            in.alignToByte();
+            assertEquals(crc16(data, frameStart, in.bytePosition()), in.read(16));
+            position += blockSize;
+        }
+        assertEquals(data.length, in.bytePosition());
+
+        ByteBuffer le = ByteBuffer.allocate(out.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        le.asShortBuffer().put(out);
+        assertArrayEquals(md5, MessageDigest.getInstance("MD5").digest(le.array()));
+        return out;
+    }
+
+    private static void decodeSubframe(BitReader in, short[] out, int start, int n) {
+        assertEquals(0, in.read(1));
+        int type = in.read(6);
+        assertEquals(0, in.read(1));
+
+        if (type == 0) {
+            Arrays.fill(out, start, start + n, (short) in.readSigned(16));
+        } else if (type == 1) {
+            for (int i = 0; i < n; i++) {
+                out[start + i] = (short) in.readSigned(16);
+            }
+        } else if ((type & 0x38) == 0x08) {
+            int order = type & 0x07;
+            int[] x = warmupAndResidual(in, n, order);
+            for (int i = order; i < n; i++) {
+                switch (order) {
+                    case 0: break;
+                    case 1: x[i] += x[i - 1]; break;
+                    case 2: x[i] += 2 * x[i - 1] - x[i - 2]; break;
+                    case 3: x[i] += 3 * x[i - 1] - 3 * x[i - 2] + x[i - 3]; break;
+                    default: x[i] += 4 * x[i - 1] - 6 * x[i - 2] + 4 * x[i - 3] - x[i - 4]; break;
+                }
+            }
+            copy(x, out, start);
+        } else {
+            assertTrue((type & 0x20) != 0);
+            int order = (type & 0x1F) + 1;
+            int[] warmup = new int[order];
+            for (int i = 0; i < order; i++) {
+                warmup[i] = in.readSigned(16);
+            }
+            int precision = in.read(4) + 1;
+            int shift = in.readSigned(5);
+            int[] coefficients = new int[order];
+            for (int i = 0; i < order; i++) {
+                coefficients[i] = in.readSigned(precision);
+            }
+            int[] x = new int[n];
+            System.arraycopy(warmup, 0, x, 0, order);
+            readResidual(in, x, n, order);
+            for (int i = order; i < n; i++) {
+                long sum = 0;
+                for (int j = 0; j < order; j++) {
+                    sum += (long) coefficients[j] * x[i - j - 1];
+                }
+                x[i] += (int) (sum >> shift);
+            }
+            copy(x, out, start);
+        }
+    }
+
+    private static int[] warmupAndResidual(BitReader in, int n, int order) {
+        int[] x = new int[n];
+        for (int i = 0; i < order; i++) {
+            x[i] = in.readSigned(16);
+        }
+        readResidual(in, x, n, order);
+        return x;
+    }
+
+    private static void readResidual(BitReader in, int[] x, int n, int order) {
+        assertEquals(0, in.read(2));
+        int partitionOrder = in.read(4);
+        int partitions = 1 << partitionOrder;
+        int index = order;
+        for (int p = 0; p < partitions; p++) {
+            int k = in.read(4);
+            assertTrue(k < 15);
+            int end = (p + 1) * (n >> partitionOrder);
+            for (; index < end; index++) {
+                int q = 0;
+                while (in.read(1) == 0) {
+                    q++;
+                }
+                int u = (q << k) | in.read(k);
+                x[index] = (u >>> 1) ^ -(u & 1);
+            }
+        }
+    }
+
+    private static void copy(int[] x, short[] out, int start) {
+        for (int i = 0; i < x.length; i++) {
+            assertTrue(x[i] >= Short.MIN_VALUE && x[i] <= Short.MAX_VALUE);
+            out[start + i] = (short) x[i];
+        }
+    }
+
+    private static long readUtf8(BitReader in) {
+        int first = in.read(8);
+        if ((first & 0x80) == 0) {
+            return first;
+        }
+        int extra = Integer.numberOfLeadingZeros(~(first << 24)) - 1;
+        long value = first & (0x3F >> extra);
+        for (int i = 0; i < extra; i++) {
+            value = (value << 6) | (in.read(8) & 0x3F);
+        }
+        return value;
+    }
+
+    private static int crc8(byte[] data, int from, int to) {
+        return FlacEncoder.crc8(Arrays.copyOfRange(data, from, to), to - from);
+    }
+
+    private static int crc16(byte[] data, int from, int to) {
+        return FlacEncoder.crc16(Arrays.copyOfRange(data, from, to), to - from);
+    }
+
+    private static final class BitReader {
+        private final byte[] data;
+        private long bitPosition;
+
+        BitReader(byte[] data) {
+            this.data = data;
+        }
+
+        int read(int count) {
+            int value = 0;
+            for (int i = 0; i < count; i++) {
+                int b = data[(int) (bitPosition >> 3)] & 0xFF;
+                value = (value << 1) | ((b >> (7 - (bitPosition & 7))) & 1);
+                bitPosition++;
+            }
+            return value;
+        }
+
+        int readSigned(int count) {
+            int value = read(count);
+            return (value << (32 - count)) >> (32 - count);
+        }
+
+        void alignToByte() {
+            bitPosition = (bitPosition + 7) & ~7L;
+        }
+
+        int bytePosition() {
+            return (int) (bitPosition >> 3);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.bk_meeting;
+
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MeetingNotesTest {
+
+    @Test
+    public void formatsAndSkipsEmptyNotes() {
+        MeetingNotes notes = new MeetingNotes();
+        Date time = new Date();
+        assertNull(notes.add("  ", null, time));
+        MeetingNote note = notes.add(" Agenda ", "budget", time);
+        assertEquals("Agenda", note.title);
+        assertEquals(time.getTime(), note.createdAtMillis);
+        assertTrue(notes.format(note), notes.format(note).matches("\\[\\d{2}:\\d{2}] Agenda: budget"));
+        MeetingNote untitled = notes.add("", "no title", time);
+        assertTrue(notes.format(untitled).endsWith("] no title"));
+        // Cùng thời điểm vẫn khác id
+        assertTrue(untitled.id > note.id);
+        assertEquals(2, notes.size());
+        assertEquals("Agendabudgetno title".length(), notes.getTextChars());
+    }
+
+    // Adapter diff snapshot cũ với snapshot mới trên luồng nền: snapshot đã trao đi không được đổi
+    @Test
+    public void snapshotsAreImmutable() {
+        MeetingNotes notes = new MeetingNotes();
+        notes.add("a", "1", new Date());
+        List<MeetingNote> first = notes.snapshot();
+        notes.add("b", "2", new Date());
+        List<MeetingNote> second = notes.snapshot();
+
+        assertEquals(1, first.size());
+        assertEquals(2, second.size());
+        assertNotSame(first, second);
+        assertSame(first.get(0), second.get(0));
+        try {
+            second.add(first.get(0));
+            fail("snapshot is mutable");
+        } catch (UnsupportedOperationException expected) {
+            // ok
+        }
+    }
+
+    @Test
+    public void restoreMergesNotesAddedWhileLoading() {
+        MeetingNotes notes = new MeetingNotes();
+        MeetingNote typed = notes.add("new", "typed before load finished", new Date(5_000));
+        List<MeetingNote> loaded = java.util.Arrays.asList(
+                new MeetingNote(1_000, "", "old 1", 1_000, 1_000),
+                new MeetingNote(2_000, "t", "old 2", 2_000, 2_000));
+        notes.restore(loaded);
+
+        assertEquals(3, notes.size());
+        assertSame(typed, notes.snapshot().get(2));
+        assertEquals("old 1", notes.snapshot().get(0).content);
+        assertEquals("told 2".length() + "old 1".length() + "newtyped before load finished".length(),
+                notes.getTextChars());
+        // id mới luôn lớn hơn mọi id đã nạp
+        assertTrue(notes.add("", "after", new Date(0)).id > typed.id);
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.bk_meeting;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Server giả lập giao thức của HttpUploadTransport trên localhost (com.sun.net.httpserver của JDK):
+// nhận khối resumable, trả lời truy vấn tiến độ, nhận request gộp. Có thể tiêm lỗi và làm chậm
+// để kiểm tra backoff, tiếp tục tải và giới hạn số request đồng thời.
+final class MockUploadServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final Map<String, ByteArrayOutputStream> received = new HashMap<>();
+    private final Map<String, String> names = new HashMap<>();
+    private final Map<String, String> contentTypes = new HashMap<>();
+    private final List<Integer> failures = new ArrayList<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private int requests;
+    private int chunkRequests;
+    private int batchRequests;
+    private int batchedItems;
+    private long bodyBytes;
+    private volatile long delayMs;
+
+    MockUploadServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/segments", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    URL endpoint() throws IOException {
+        return new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/segments");
+    }
+
+    // Các request tiếp theo trả về lần lượt các mã này (không nhận dữ liệu)
+    synchronized void failNext(int... statuses) {
+        for (int status : statuses) {
+            failures.add(status);
+        }
+    }
+
+    void setDelayMs(long delayMs) {
+        this.delayMs = delayMs;
+    }
+
+    synchronized byte[] content(String id) {
+        ByteArrayOutputStream data = received.get(id);
+        return data != null ? data.toByteArray() : null;
+    }
+
+    synchronized byte[] contentByName(String name) {
+        for (Map.Entry<String, String> entry : names.entrySet()) {
+            if (entry.getValue().equals(name)) {
+                return content(entry.getKey());
+            }
+        }
+        return null;
+    }
+
+    synchronized String contentType(String id) {
+        return contentTypes.get(id);
+    }
+
+    synchronized int getRequests() {
+        return requests;
+    }
+
+    synchronized int getChunkRequests() {
+        return chunkRequests;
+    }
+
+    synchronized int getBatchRequests() {
+        return batchRequests;
+    }
+
+    synchronized int getBatchedItems() {
+        return batchedItems;
+    }
+
+    // Tổng số byte thân request đã nhận, kể cả gửi lại
+    synchronized long getBodyBytes() {
+        return bodyBytes;
+    }
+
+    int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int now = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(now, Math::max);
+        boolean counted = true;
+        try {
+            byte[] body = readAll(exchange.getRequestBody());
+            if (delayMs > 0) {
+                Thread.sleep(delayMs);
+            }
+            Integer failure;
+            synchronized (this) {
+                requests++;
+                bodyBytes += body.length;
+                failure = failures.isEmpty() ? null : failures.remove(0);
+            }
+            int status;
+            String path = exchange.getRequestURI().getPath();
+            if (failure != null) {
+                status = failure;
+            } else if (path.equals("/segments/batch") && exchange.getRequestMethod().equals("POST")) {
+                status = handleBatch(exchange, body);
+            } else if (exchange.getRequestMethod().equals("PUT")) {
+                status = handleChunk(exchange, path.substring("/segments/".length()), body);
+            } else {
+                status = 405;
+            }
+            // Rời trạng thái "đang xử lý" trước khi trả lời: client có thể gửi request kế tiếp
+            // ngay khi nhận được phản hồi
+            inFlight.decrementAndGet();
+            counted = false;
+            exchange.sendResponseHeaders(status, -1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            if (counted) {
+                inFlight.decrementAndGet();
+            }
+            exchange.close();
+        }
+    }
+
+    private int handleChunk(HttpExchange exchange, String id, byte[] body) throws IOException {
+        String range = exchange.getRequestHeaders().getFirst("Content-Range");
+        if (range == null || !range.startsWith("bytes ")) {
+            return 400;
+        }
+        String spec = range.substring("bytes ".length());
+        long total = Long.parseLong(spec.substring(spec.indexOf('/') + 1));
+        long have;
+        synchronized (this) {
+            ByteArrayOutputStream data = received.get(id);
+            if (data == null) {
+                data = new ByteArrayOutputStream();
+                received.put(id, data);
+            }
+            names.put(id, exchange.getRequestHeaders().getFirst("X-Segment-Name"));
+            if (!spec.startsWith("*")) {
+                chunkRequests++;
+                contentTypes.put(id, exchange.getRequestHeaders().getFirst("Content-Type"));
+                long start = Long.parseLong(spec.substring(0, spec.indexOf('-')));
+                if (start > data.size()) {
+                    // Lỗ hổng: client phải hỏi lại tiến độ
+                    return 400;
+                }
+                // Phần đã có (gửi lại) được bỏ qua
+                int skip = (int) (data.size() - start);
+                if (skip < body.length) {
+                    data.write(body, skip, body.length - skip);
+                }
+            }
+            have = data.size();
+        }
+        if (have >= total) {
+            return 201;
+        }
+        if (have > 0) {
+            exchange.getResponseHeaders().set("Range", "bytes=0-" + (have - 1));
+        }
+        return HttpUploadTransport.RESUME_INCOMPLETE;
+    }
+
+    private int handleBatch(HttpExchange exchange, byte[] body) throws IOException {
+        if (!HttpUploadTransport.BATCH_CONTENT_TYPE.equals(exchange.getRequestHeaders().getFirst("Content-Type"))) {
+            return 415;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        int count = in.readInt();
+        synchronized (this) {
+            batchRequests++;
+            for (int i = 0; i < count; i++) {
+                String id = in.readUTF();
+                String name = in.readUTF();
+                String contentType = in.readUTF();
+                byte[] data = new byte[(int) in.readLong()];
+                in.readFully(data);
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                out.write(data);
+                // Cùng id gửi lại: ghi đè (idempotent)
+                received.put(id, out);
+                names.put(id, name);
+                contentTypes.put(id, contentType);
+                batchedItems++;
+            }
+        }
+        return 200;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[16 * 1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
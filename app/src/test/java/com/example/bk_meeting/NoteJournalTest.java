@@ -0,0 +1,266 @@
+package com.example.bk_meeting;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class NoteJournalTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final AtomicInteger committedRecords = new AtomicInteger();
+    private final AtomicReference<IOException> failure = new AtomicReference<>();
+
+    private final NoteJournal.Listener listener = new NoteJournal.Listener() {
+        @Override
+        public void onCommitted(int records, long latencyNanos) {
+            committedRecords.addAndGet(records);
+        }
+
+        @Override
+        public void onFailed(IOException error) {
+            failure.set(error);
+        }
+    };
+
+    @Test
+    public void notesQueuedDuringACommitShareOneFsync() throws Exception {
+        File file = new File(tmp.getRoot(), "notes.journal");
+        NoteJournal journal = new NoteJournal(file, listener);
+        // Giữ luồng journal bận (như đang fsync) trong lúc main thread lưu liên tục
+        CountDownLatch release = new CountDownLatch(1);
+        journal.load(new NoteJournal.LoadCallback() {
+            @Override
+            public void onLoaded(List<MeetingNote> notes, long loadNanos) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void onLoadFailed(IOException error) {
+                failure.set(error);
+            }
+        });
+        List<MeetingNote> written = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            MeetingNote note = note(i, "Ghi chú " + i, "Nội dung có dấu tiếng Việt " + i);
+            written.add(note);
+            journal.put(note);
+        }
+        release.countDown();
+        assertTrue(journal.awaitIdle(5_000));
+
+        assertNull(failure.get());
+        assertEquals(1, journal.getCommitCount());
+        assertEquals(500, committedRecords.get());
+        journal.close();
+
+        assertEquals(written, load(file));
+    }
+
+    @Test
+    public void relaunchedInstanceSeesNoteSavedJustBeforeClose() throws Exception {
+        File file = new File(tmp.getRoot(), "notes.journal");
+        NoteJournal old = new NoteJournal(file, listener);
+        load(old);
+        // Luồng journal đang bận khi Activity cũ lưu ghi chú cuối rồi bị huỷ và mở lại ngay
+        CountDownLatch release = new CountDownLatch(1);
+        old.load(new NoteJournal.LoadCallback() {
+            @Override
+            public void onLoaded(List<MeetingNote> notes, long loadNanos) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void onLoadFailed(IOException error) {
+                failure.set(error);
+            }
+        });
+        old.put(note(1, "cuối", "ghi ngay trước khi đóng"));
+        old.close();
+
+        NoteJournal relaunched = new NoteJournal(file, listener);
+        release.countDown();
+        List<MeetingNote> notes = load(relaunched);
+        relaunched.close();
+
+        assertEquals(1, notes.size());
+        assertEquals("ghi ngay trước khi đóng", notes.get(0).content);
+        assertEquals(1, load(file).size());
+        assertNull(failure.get());
+    }
+
+    @Test
+    public void reloadAppliesDeletesAndTruncatesTornRecord() throws Exception {
+        File file = new File(tmp.getRoot(), "notes.journal");
+        NoteJournal journal = new NoteJournal(file, listener);
+        for (int i = 0; i < 5; i++) {
+            journal.put(note(i, "t" + i, "c" + i));
+        }
+        journal.delete(2);
+        journal.put(new MeetingNote(3, "t3", "sửa lại", 3, 99));
+        assertTrue(journal.awaitIdle(5_000));
+        journal.close();
+        long committedLength = file.length();
+
+        // App bị dừng khi đang ghi bản ghi tiếp theo: đuôi file là rác
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(committedLength);
+            raf.writeInt(Integer.reverseBytes(40));
+            raf.write(new byte[]{1, 2, 3});
+        }
+
+        NoteJournal reopened = new NoteJournal(file, listener);
+        List<MeetingNote> notes = load(reopened);
+        assertEquals(4, notes.size());
+        assertEquals("c0", notes.get(0).content);
+        assertEquals("sửa lại", notes.get(2).content);
+        assertEquals(99, notes.get(2).updatedAtMillis);
+        assertEquals(committedLength, file.length());
+
+        // Ghi tiếp sau phần đã cắt
+        reopened.put(note(10, "t10", "c10"));
+        assertTrue(reopened.awaitIdle(5_000));
+        reopened.close();
+        assertEquals(5, load(file).size());
+        assertNull(failure.get());
+    }
+
+    @Test
+    public void compactsWhenMostRecordsAreDead() throws Exception {
+        File file = new File(tmp.getRoot(), "notes.journal");
+        NoteJournal journal = new NoteJournal(file, listener);
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < 5; i++) {
+                journal.put(new MeetingNote(i, "t" + i, "round " + round, i, round));
+            }
+            // Mỗi vòng một commit riêng
+            assertTrue(journal.awaitIdle(5_000));
+        }
+        journal.close();
+
+        List<MeetingNote> notes = load(file);
+        assertEquals(5, notes.size());
+        assertEquals("round 99", notes.get(4).content);
+        // 500 bản ghi (~25 KB) đã được gộp lại: file không vượt ngưỡng gộp (256 bản ghi)
+        assertTrue("length " + file.length(), file.length() < 256 * 52);
+        assertFalse(new File(file.getPath() + ".compact").exists());
+        assertNull(failure.get());
+    }
+
+    @Test
+    public void loadsThousandsOfNotesQuickly() throws Exception {
+        PerfBounds.assume();
+        File file = new File(tmp.getRoot(), "notes.journal");
+        NoteJournal journal = new NoteJournal(file, listener);
+        for (int i = 0; i < 5_000; i++) {
+            journal.put(note(i, "Chủ đề " + (i % 40), "Thảo luận về hạng mục số " + i + ", giao cho nhóm " + (i % 7)));
+        }
+        assertTrue(journal.awaitIdle(10_000));
+        journal.close();
+
+        // Lần nạp đầu để JIT làm nóng đường đọc
+        load(file);
+        NoteJournal reopened = new NoteJournal(file, listener);
+        AtomicReference<Long> loadNanos = new AtomicReference<>();
+        List<MeetingNote> notes = load(reopened, loadNanos);
+        reopened.close();
+        assertEquals(5_000, notes.size());
+        assertTrue("load " + loadNanos.get() / 1_000_000 + " ms (" + file.length() / 1024 + " KB)",
+                loadNanos.get() < TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    @Test
+    public void foreignFileIsMovedAside() throws Exception {
+        File file = new File(tmp.getRoot(), "notes.journal");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.writeBytes("not a journal at all");
+        }
+        NoteJournal journal = new NoteJournal(file, listener);
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<IOException> loadError = new AtomicReference<>();
+        journal.load(new NoteJournal.LoadCallback() {
+            @Override
+            public void onLoaded(List<MeetingNote> notes, long loadNanos) {
+                done.countDown();
+            }
+
+            @Override
+            public void onLoadFailed(IOException error) {
+                loadError.set(error);
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertNotNull(loadError.get());
+        assertTrue(new File(file.getPath() + ".corrupt").exists());
+
+        // Ghi chú mới vẫn được lưu vào journal mới
+        journal.put(note(1, "t", "c"));
+        assertTrue(journal.awaitIdle(5_000));
+        journal.close();
+        assertEquals(1, load(file).size());
+    }
+
+    private static MeetingNote note(long id, String title, String content) {
+        return new MeetingNote(id, title, content, 1_700_000_000_000L + id, 1_700_000_000_000L + id);
+    }
+
+    private List<MeetingNote> load(File file) throws Exception {
+        NoteJournal journal = new NoteJournal(file, listener);
+        try {
+            return load(journal);
+        } finally {
+            journal.close();
+        }
+    }
+
+    private List<MeetingNote> load(NoteJournal journal) throws Exception {
+        return load(journal, new AtomicReference<>());
+    }
+
+    private static List<MeetingNote> load(NoteJournal journal, AtomicReference<Long> loadNanos) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<List<MeetingNote>> result = new AtomicReference<>();
+        AtomicReference<IOException> error = new AtomicReference<>();
+        journal.load(new NoteJournal.LoadCallback() {
+            @Override
+            public void onLoaded(List<MeetingNote> notes, long nanos) {
+                result.set(notes);
+                loadNanos.set(nanos);
+                done.countDown();
+            }
+
+            @Override
+            public void onLoadFailed(IOException e) {
+                error.set(e);
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        if (error.get() != null) {
+            throw error.get();
+        }
+        return result.get();
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.bk_meeting;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class NoteSearchIndexTest {
+
+    @Test
+    public void foldsVietnameseDiacritics() {
+        assertEquals("hop", NoteSearchIndex.fold("họp"));
+        assertEquals("de xuat ngan sach", NoteSearchIndex.fold("Đề xuất NGÂN SÁCH"));
+        assertEquals("nguoi uy quyen", NoteSearchIndex.fold("Người ủy quyền"));
+        // Gõ dạng NFD (chữ + dấu kết hợp) cho cùng kết quả
+        assertEquals("hop", NoteSearchIndex.fold("ho\u0323p"));
+        assertArrayEquals(new String[]{"hop"}, NoteSearchIndex.tokenize("Ho\u0323p"));
+        assertArrayEquals(new String[]{"ke", "hoach", "q3", "2024"},
+                NoteSearchIndex.tokenize("Kế hoạch Q3/2024!"));
+        assertEquals(0, NoteSearchIndex.tokenize("  ...  ").length);
+    }
+
+    @Test
+    public void matchesPrefixesWithAndSemantics() {
+        NoteSearchIndex index = new NoteSearchIndex();
+        MeetingNote meeting = note(1, "Cuộc họp sáng", "Bàn về ngân sách quý ba");
+        MeetingNote study = note(2, "Học nhóm", "Ôn bài hôm nay");
+        MeetingNote budget = note(3, "", "Ngân hàng gửi báo giá");
+        index.putAll(Arrays.asList(meeting, study, budget));
+
+        assertEquals(Arrays.asList(meeting), index.search("hop", 10));
+        assertEquals(Arrays.asList(meeting), index.search("HỌP", 10));
+        // "ho" là tiền tố của cả "hop" và "hoc"
+        assertEquals(2, index.search("ho", 10).size());
+        assertEquals(Arrays.asList(budget), index.search("ngan hang", 10));
+        assertEquals(2, index.search("ngân", 10).size());
+        assertTrue(index.search("ngan hop xyz", 10).isEmpty());
+        assertTrue(index.search("", 10).isEmpty());
+        assertEquals(1, index.search("ngan", 1).size());
+    }
+
+    @Test
+    public void ranksExactTitleMatchesFirst() {
+        NoteSearchIndex index = new NoteSearchIndex();
+        MeetingNote prefixOnly = note(1, "", "hopdong ký rồi");
+        MeetingNote inContent = note(2, "Việc khác", "sau buổi họp gửi email");
+        MeetingNote inTitle = note(3, "Họp tuần", "danh sách việc");
+        MeetingNote older = note(4, "Họp tuần", "danh sách việc");
+        index.putAll(Arrays.asList(older, prefixOnly, inContent, inTitle));
+
+        List<MeetingNote> results = index.search("hop", 10);
+        assertEquals(4, results.size());
+        // Tiêu đề > nội dung > chỉ khớp tiền tố; cùng điểm thì ghi chú thêm sau trước
+        assertEquals(Arrays.asList(inTitle, older, inContent, prefixOnly), results);
+    }
+
+    @Test
+    public void updatesAndRemovesIncrementally() {
+        NoteSearchIndex index = new NoteSearchIndex();
+        index.put(note(1, "Ngân sách", "bản nháp"));
+        index.put(note(2, "Khác", "không liên quan"));
+        assertEquals(1, index.search("nhap", 10).size());
+
+        MeetingNote edited = new MeetingNote(1, "Ngân sách", "bản chốt", 1, 2);
+        index.put(edited);
+        assertTrue(index.search("nhap", 10).isEmpty());
+        assertEquals(Arrays.asList(edited), index.search("chot", 10));
+        assertEquals(2, index.size());
+
+        assertTrue(index.remove(1));
+        assertFalse(index.remove(1));
+        assertTrue(index.search("ngan", 10).isEmpty());
+        assertEquals(1, index.size());
+
+        // Sửa nhiều lần kích hoạt dọn doc chết; kết quả không đổi
+        for (int round = 0; round < 3000; round++) {
+            index.put(new MeetingNote(2, "Khác", "vòng " + round, 2, round));
+        }
+        assertEquals(1, index.size());
+        assertEquals(1, index.search("vong 2999", 10).size());
+        assertTrue(index.search("vong 2998", 10).isEmpty());
+        assertTrue("terms " + index.getTermCount(), index.getTermCount() < 10);
+    }
+
+    @Test
+    public void searchStaysFastAtTensOfThousandsOfNotes() {
+        PerfBounds.assume();
+        String[] words = ("họp ngân sách dự án khách hàng báo cáo tiến độ kế hoạch nhân sự tuyển dụng hợp đồng "
+                + "thanh toán sản phẩm phát hành kiểm thử lỗi giao diện máy chủ bảo mật đào tạo chiến lược "
+                + "thị trường đối tác chi phí doanh thu mục tiêu quý tháng tuần hôm nay ngày mai trách nhiệm").split(" ");
+        Random random = new Random(3);
+        NoteSearchIndex index = new NoteSearchIndex();
+        int count = 40_000;
+        for (int i = 0; i < count; i++) {
+            index.put(note(i, sentence(words, random, 3) + " " + i % 500,
+                    sentence(words, random, 25) + " mã " + random.nextInt(100_000)));
+        }
+
+        String[] queries = {"hop", "ngan sach", "ke hoach quy", "h", "bao c", "khach hang thang", "tuyen", "ma 4", "12"};
+        // Làm nóng JIT
+        for (int i = 0; i < 20; i++) {
+            for (String query : queries) {
+                index.search(query, NoteSearcher.DEFAULT_LIMIT);
+            }
+        }
+        long worst = 0;
+        String worstQuery = null;
+        for (String query : queries) {
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < 5; i++) {
+                long start = System.nanoTime();
+                index.search(query, NoteSearcher.DEFAULT_LIMIT);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            if (best > worst) {
+                worst = best;
+                worstQuery = query;
+            }
+        }
+        assertEquals(NoteSearcher.DEFAULT_LIMIT, index.search("hop", NoteSearcher.DEFAULT_LIMIT).size());
+        assertTrue("worst query \"" + worstQuery + "\" " + worst / 1_000_000 + " ms",
+                worst < TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void searcherDeliversOnlyLatestQuery() throws Exception {
+        NoteSearcher searcher = new NoteSearcher();
+        List<MeetingNote> list = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            list.add(note(i, "Họp " + i, "nội dung"));
+        }
+        searcher.putAll(list);
+        // Giữ luồng tìm kiếm bận trong lúc người dùng gõ tiếp
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        searcher.search("x", 10, (q, results, nanos) -> {
+            busy.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(busy.await(5, TimeUnit.SECONDS));
+        CountDownLatch done = new CountDownLatch(1);
+        List<String> delivered = new ArrayList<>();
+        AtomicReference<List<MeetingNote>> last = new AtomicReference<>();
+        String[] typing = {"h", "ho", "hop", "hop 99"};
+        for (String query : typing) {
+            searcher.search(query, 10, (q, results, nanos) -> {
+                synchronized (delivered) {
+                    delivered.add(q);
+                }
+                last.set(results);
+                done.countDown();
+            });
+        }
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(searcher.awaitIdle(5_000));
+        searcher.close();
+        // Các truy vấn gõ dở đã bị truy vấn cuối thay thế trước khi tới lượt chạy
+        assertEquals(Arrays.asList("hop 99"), delivered);
+        assertEquals("Họp 99", last.get().get(0).title);
+    }
+
+    private static MeetingNote note(long id, String title, String content) {
+        return new MeetingNote(id, title, content, 1_700_000_000_000L + id, 1_700_000_000_000L + id);
+    }
+
+    private static String sentence(String[] words, Random random, int length) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                out.append(' ');
+            }
+            out.append(words[random.nextInt(words.length)]);
+        }
+        return out.toString();
+    }
+}
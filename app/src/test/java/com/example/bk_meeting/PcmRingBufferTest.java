@@ -0,0 +1,134 @@
+package com.example.bk_meeting;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class PcmRingBufferTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final CapturePathCounters counters = new CapturePathCounters();
+    private final AudioFramePool pool = new AudioFramePool(16, 4, true, counters);
+
+    @Test
+    public void keepsPreRollAndDrainsInOrderWithoutCopies() throws Exception {
+        PcmRingBuffer ring = new PcmRingBuffer(10, 4);
+        push(ring, 0, 6);
+        push(ring, 6, 8);
+        assertEquals(14, ring.size());
+
+        // Giữ 4 mẫu cuối làm pre-roll, bỏ trọn frame đầu và một phần frame sau
+        ring.skip(ring.size() - 4);
+        ring.skip(-1);
+        assertEquals(4, ring.size());
+        assertEquals(4, ring.oldestFrameSamples());
+
+        File file = tmp.newFile("ring.wav");
+        WavSegmentWriter writer = new WavSegmentWriter(file, 16000, 1, 16);
+        assertEquals(8, ring.drainTo(writer, 100));
+        writer.close();
+
+        ByteBuffer out = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(WavSegmentWriter.HEADER_SIZE + 8, out.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(10 + i, out.getShort(WavSegmentWriter.HEADER_SIZE + i * 2));
+        }
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    public void framesReturnToPoolWhenLastReferenceReleased() {
+        PcmRingBuffer ring = new PcmRingBuffer(100, 2);
+        push(ring, 0, 8);
+        push(ring, 8, 8);
+        assertTrue(ring.isFull());
+        assertEquals(2, pool.available());
+
+        ring.skip(ring.oldestFrameSamples());
+        assertFalse(ring.isFull());
+        assertEquals(3, pool.available());
+
+        ring.clear();
+        assertEquals(4, pool.available());
+        assertEquals(4, counters.getAllocations());
+    }
+
+    @Test
+    public void poolAllocatesInsteadOfBlockingWhenExhausted() {
+        AudioFrame[] held = new AudioFrame[5];
+        for (int i = 0; i < held.length; i++) {
+            held[i] = pool.acquire();
+        }
+        assertEquals(5, counters.getAllocations());
+
+        for (AudioFrame frame : held) {
+            frame.release();
+        }
+        assertEquals(5, pool.available());
+    }
+
+    @Test
+    public void copyToWritesOverlapWithoutConsuming() throws Exception {
+        PcmRingBuffer ring = new PcmRingBuffer(100, 4);
+        push(ring, 0, 6);
+        push(ring, 6, 8);
+        ring.skip(2);
+
+        File file = tmp.newFile("overlap.wav");
+        WavSegmentWriter writer = new WavSegmentWriter(file, 16000, 1, 16);
+        assertEquals(14, ring.copyTo(writer, 7));
+        writer.close();
+        assertEquals(12, ring.size());
+
+        ByteBuffer out = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < 7; i++) {
+            assertEquals(2 + i, out.getShort(WavSegmentWriter.HEADER_SIZE + i * 2));
+        }
+        ring.clear();
+    }
+
+    @Test
+    public void quietestCutIsSearchedOnlyInsideWindow() {
+        PcmRingBuffer ring = new PcmRingBuffer(100, 4);
+        pushLevel(ring, 0, 8);     // im lặng nhất nhưng nằm ngoài cửa sổ
+        pushLevel(ring, 900, 8);
+        pushLevel(ring, 100, 8);   // frame yên tĩnh nhất trong 16 mẫu mới nhất
+        pushLevel(ring, 700, 8);
+        assertEquals(32, ring.size());
+
+        assertEquals(20, ring.findQuietestCut(16));
+        assertEquals(4, ring.findQuietestCut(100));
+        ring.clear();
+        assertEquals(0, ring.findQuietestCut(16));
+    }
+
+    private void pushLevel(PcmRingBuffer ring, int level, int count) {
+        AudioFrame frame = pool.acquire();
+        for (int i = 0; i < count; i++) {
+            frame.data().putShort(i * 2, (short) (i % 2 == 0 ? level : -level));
+        }
+        frame.setByteLength(count * 2);
+        ring.write(frame);
+        frame.release();
+    }
+
+    // Giống luồng thu: acquire, ghi mẫu, đưa vào bộ đệm vòng rồi release phần của luồng thu
+    private void push(PcmRingBuffer ring, int start, int count) {
+        AudioFrame frame = pool.acquire();
+        for (int i = 0; i < count; i++) {
+            frame.data().putShort(i * 2, (short) (start + i));
+        }
+        frame.setByteLength(count * 2);
+        ring.write(frame);
+        frame.release();
+    }
+}
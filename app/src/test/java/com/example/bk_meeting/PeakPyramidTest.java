@@ -0,0 +1,185 @@
+package com.example.bk_meeting;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PeakPyramidTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void renderMatchesBruteForceAtEveryWidth() {
+        Random random = new Random(5);
+        // Độ dài lẻ để có khối dở ở mọi tầng
+        short[] signal = new short[16000 * 37 + 123];
+        for (int i = 0; i < signal.length; i++) {
+            signal[i] = (short) (random.nextGaussian() * 3000 * (1 + Math.sin(i / 4000.0)));
+        }
+        PeakPyramid pyramid = new PeakPyramid();
+        // Thêm theo các khối kích thước thay đổi như frame thật
+        for (int offset = 0; offset < signal.length; ) {
+            int length = Math.min(signal.length - offset, 100 + random.nextInt(900));
+            pyramid.add(signal, offset, length);
+            offset += length;
+        }
+        assertEquals(signal.length, pyramid.getSampleCount());
+
+        for (int columns : new int[]{1, 7, 64, 100, 333, 1000, 2310}) {
+            short[] mins = new short[columns];
+            short[] maxs = new short[columns];
+            int rendered = pyramid.render(columns, mins, maxs);
+            assertEquals(columns, rendered);
+            // Mỗi cột là min/max của một dải khối liên tiếp: tổng các dải phủ đúng toàn bộ tín hiệu
+            short globalMin = Short.MAX_VALUE;
+            short globalMax = Short.MIN_VALUE;
+            for (int c = 0; c < rendered; c++) {
+                assertTrue(mins[c] <= maxs[c]);
+                globalMin = (short) Math.min(globalMin, mins[c]);
+                globalMax = (short) Math.max(globalMax, maxs[c]);
+            }
+            assertEquals(min(signal, 0, signal.length), globalMin);
+            assertEquals(max(signal, 0, signal.length), globalMax);
+        }
+
+        // Ở tầng 0 mỗi cột đúng bằng một khối BASE_BLOCK
+        int blocks = (signal.length + PeakPyramid.BASE_BLOCK - 1) / PeakPyramid.BASE_BLOCK;
+        short[] mins = new short[blocks + 10];
+        short[] maxs = new short[blocks + 10];
+        assertEquals(blocks, pyramid.render(blocks + 10, mins, maxs));
+        for (int b = 0; b < blocks; b++) {
+            int from = b * PeakPyramid.BASE_BLOCK;
+            int to = Math.min(signal.length, from + PeakPyramid.BASE_BLOCK);
+            assertEquals("block " + b, min(signal, from, to), mins[b]);
+            assertEquals("block " + b, max(signal, from, to), maxs[b]);
+        }
+    }
+
+    @Test
+    public void coarseLevelsKeepTailAndExactColumnRanges() {
+        // 8 khối đầy + 1 khối dở: tầng 2 có 2 khối đầy, phần đuôi nằm ở khối dở
+        short[] signal = new short[PeakPyramid.BASE_BLOCK * 8 + 10];
+        signal[PeakPyramid.BASE_BLOCK * 3 + 5] = 1000;
+        signal[PeakPyramid.BASE_BLOCK * 8 + 3] = -2000;
+        PeakPyramid pyramid = new PeakPyramid();
+        pyramid.add(signal, 0, signal.length);
+
+        short[] mins = new short[3];
+        short[] maxs = new short[3];
+        assertEquals(3, pyramid.render(3, mins, maxs));
+        // Tầng 2: khối [0..3], [4..7], đuôi
+        assertArrayEquals(new short[]{0, 0, -2000}, mins);
+        assertArrayEquals(new short[]{1000, 0, 0}, maxs);
+    }
+
+    @Test
+    public void compactKeepsThumbnailColumns() {
+        Random random = new Random(9);
+        short[] signal = new short[16000 * 60 + 777];
+        for (int i = 0; i < signal.length; i++) {
+            signal[i] = (short) (random.nextGaussian() * 2000 * (1 + Math.sin(i / 8000.0)));
+        }
+        PeakPyramid pyramid = new PeakPyramid();
+        pyramid.add(signal, 0, signal.length);
+
+        int[] widths = {1, 50, 333, 512};
+        short[][] before = new short[widths.length * 2][];
+        for (int w = 0; w < widths.length; w++) {
+            before[w * 2] = new short[widths[w]];
+            before[w * 2 + 1] = new short[widths[w]];
+            pyramid.render(widths[w], before[w * 2], before[w * 2 + 1]);
+        }
+        pyramid.compact(512);
+        for (int w = 0; w < widths.length; w++) {
+            short[] mins = new short[widths[w]];
+            short[] maxs = new short[widths[w]];
+            assertEquals(widths[w], pyramid.render(widths[w], mins, maxs));
+            assertArrayEquals("width " + widths[w], before[w * 2], mins);
+            assertArrayEquals("width " + widths[w], before[w * 2 + 1], maxs);
+        }
+        assertEquals(signal.length, pyramid.getSampleCount());
+        try {
+            pyramid.add(signal, 0, 1);
+            fail("compacted pyramid accepted samples");
+        } catch (IllegalStateException expected) {
+            // ok
+        }
+    }
+
+    @Test
+    public void littleEndianBytesAndShortsAgree() {
+        short[] signal = new short[5000];
+        for (int i = 0; i < signal.length; i++) {
+            signal[i] = (short) ((i * 37) % 65536 - 32768);
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(signal.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.asShortBuffer().put(signal);
+        PeakPyramid fromShorts = new PeakPyramid();
+        fromShorts.add(signal, 0, signal.length);
+        PeakPyramid fromBytes = new PeakPyramid();
+        fromBytes.add(bytes);
+        assertEquals(0, bytes.position());
+
+        short[] a = new short[50];
+        short[] b = new short[50];
+        short[] c = new short[50];
+        short[] d = new short[50];
+        fromShorts.render(50, a, b);
+        fromBytes.render(50, c, d);
+        assertArrayEquals(a, c);
+        assertArrayEquals(b, d);
+    }
+
+    @Test
+    public void trackingWriterDescribesPlayablePcm() throws Exception {
+        File file = new File(tmp.getRoot(), "voice.wav");
+        PeakTrackingWriter writer = new PeakTrackingWriter(new WavSegmentWriter(file, 16000, 1, 16), 16000);
+        short[] signal = new short[16000];
+        signal[8000] = 12345;
+        ByteBuffer frame = ByteBuffer.allocateDirect(signal.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        frame.asShortBuffer().put(signal);
+        writer.write(frame);
+        writer.close();
+
+        SavedSegment segment = writer.toSavedSegment(true);
+        assertEquals("voice.wav", segment.name);
+        assertEquals(WavSegmentWriter.HEADER_SIZE, segment.pcmOffset);
+        assertEquals(signal.length, segment.sampleCount);
+        assertEquals(1000, segment.getDurationMs());
+        assertTrue(segment.isPlayable());
+        short[] mins = new short[1];
+        short[] maxs = new short[1];
+        segment.peaks.render(1, mins, maxs);
+        assertEquals(12345, maxs[0]);
+
+        File flac = new File(tmp.getRoot(), "voice.flac");
+        PeakTrackingWriter encoded = new PeakTrackingWriter(new FlacSegmentWriter(flac, 16000), 16000);
+        encoded.write(signal, 0, signal.length);
+        encoded.close();
+        assertFalse(encoded.toSavedSegment(true).isPlayable());
+    }
+
+    private static short min(short[] samples, int from, int to) {
+        short min = Short.MAX_VALUE;
+        for (int i = from; i < to; i++) {
+            min = (short) Math.min(min, samples[i]);
+        }
+        return min;
+    }
+
+    private static short max(short[] samples, int from, int to) {
+        short max = Short.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            max = (short) Math.max(max, samples[i]);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.bk_meeting;
+
+import org.junit.Assume;
+
+// Test có ngưỡng thời gian thực (wall-clock) chỉ chạy khi bật -Dperf.bounds=true (xem app/build.gradle.kts)
+final class PerfBounds {
+
+    private PerfBounds() {
+    }
+
+    static boolean enabled() {
+        return Boolean.getBoolean("perf.bounds");
+    }
+
+    // Gọi ở đầu test đo thời gian: test được đánh dấu bỏ qua khi chưa bật
+    static void assume() {
+        Assume.assumeTrue("perf.bounds not set", enabled());
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.bk_meeting;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+
+import static org.junit.Assert.*;
+
+public class PolyphaseResamplerTest {
+
+    private static final int FRAME = 1792; // getMinBufferSize(44100, mono, 16-bit) / 2 trên nhiều máy
+
+    @Test
+    public void keepsSpeechBandAndRejectsAliases() {
+        // 1 kHz giữ nguyên biên độ, 12 kHz (trên Nyquist 8 kHz) phải bị chặn
+        assertEquals(1.0, gainAt(1000), 0.02);
+        assertTrue(gainAt(12000) < 0.001);
+    }
+
+    @Test
+    public void frameByFrameMatchesSinglePass() {
+        short[] input = sine(44100, 440, 44100 / 2, 10000);
+
+        PolyphaseResampler single = new PolyphaseResampler(44100, 16000, input.length);
+        short[] expected = new short[single.maxOutputSamples(input.length)];
+        int expectedCount = single.process(input, 0, input.length, expected, 0);
+
+        PolyphaseResampler streaming = new PolyphaseResampler(44100, 16000, FRAME);
+        ShortBuffer out = ByteBuffer.allocateDirect(expected.length * 2 + 64)
+                .order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+        for (int offset = 0; offset < input.length; offset += FRAME) {
+            int length = Math.min(FRAME, input.length - offset);
+            streaming.process(ShortBuffer.wrap(input, offset, length), out);
+        }
+
+        assertEquals(expectedCount, out.position());
+        assertEquals(8000, expectedCount);
+        for (int i = 0; i < expectedCount; i++) {
+            assertEquals(expected[i], out.get(i));
+        }
+    }
+
+    private double gainAt(double frequency) {
+        int length = 44100;
+        short[] input = sine(44100, frequency, length, 10000);
+        PolyphaseResampler resampler = new PolyphaseResampler(44100, 16000, length);
+        short[] out = new short[resampler.maxOutputSamples(length)];
+        int count = resampler.process(input, 0, length, out, 0);
+
+        // RMS sau khi bỏ phần khởi động của bộ lọc
+        double sum = 0;
+        int n = 0;
+        for (int i = 1000; i < count - 1000; i++) {
+            sum += (double) out[i] * out[i];
+            n++;
+        }
+        return Math.sqrt(sum / n) / (10000 / Math.sqrt(2));
+    }
+
+    private static short[] sine(int rate, double frequency, int length, int amplitude) {
+        short[] out = new short[length];
+        for (int i = 0; i < length; i++) {
+            out[i] = (short) Math.round(Math.sin(2 * Math.PI * frequency * i / rate) * amplitude);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.bk_meeting;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+// Chạy một file WAV qua VoiceSegmenter nhanh nhất CPU cho phép và ghi nhận các segment.
+// Segment được ghi thành WAV trong outDir (replay_000.wav...) và đóng ngay trên luồng gọi.
+final class SegmentationReplay {
+
+    // Segment đã lưu: thời lượng file và có phải phần cắt từ câu dài hay không
+    static final class Segment {
+        final File file;
+        final long durationMs;
+        final boolean endOfSentence;
+
+        Segment(File file, long durationMs, boolean endOfSentence) {
+            this.file = file;
+            this.durationMs = durationMs;
+            this.endOfSentence = endOfSentence;
+        }
+    }
+
+    static final class Result {
+        final List<Segment> segments;
+        final List<String> errors;
+        final long audioMillis;
+        final long wallNanos;
+
+        Result(List<Segment> segments, List<String> errors, long audioMillis, long wallNanos) {
+            this.segments = Collections.unmodifiableList(segments);
+            this.errors = Collections.unmodifiableList(errors);
+            this.audioMillis = audioMillis;
+            this.wallNanos = wallNanos;
+        }
+
+        // Số giây âm thanh xử lý được trong một giây thực
+        double audioSecondsPerWallSecond() {
+            return wallNanos > 0 ? audioMillis * 1e6 / wallNanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%d segments, %.1f audio-s in %.2f wall-s (%.0f audio-s/wall-s)",
+                    segments.size(), audioMillis / 1000.0, wallNanos / 1e9, audioSecondsPerWallSecond());
+        }
+    }
+
+    // Tuỳ chỉnh segmenter trước khi chạy (ngưỡng, thời lượng tối thiểu...)
+    interface Configurator {
+        void configure(VoiceSegmenter segmenter);
+    }
+
+    private SegmentationReplay() {
+    }
+
+    static Result replay(File wav, VoiceActivityDetector vad, File outDir, Configurator configurator)
+            throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        int[] next = {0};
+
+        try (WavAudioSource source = new WavAudioSource(wav)) {
+            VoiceSegmenter.SegmentFactory factory = sampleRate -> new WavSegmentWriter(
+                    new File(outDir, String.format(Locale.US, "replay_%03d.wav", next[0]++)), sampleRate, 1, 16);
+            VoiceSegmenter.Listener listener = new VoiceSegmenter.Listener() {
+                @Override
+                public void onStateChanged(VoiceState state, String message) {
+                }
+
+                @Override
+                public void onProgress(VoiceState state, long seconds) {
+                }
+
+                @Override
+                public void onSegmentReady(AudioSegmentWriter writer, boolean endOfSentence) {
+                    try {
+                        writer.close();
+                        segments.add(new Segment(writer.getFile(), writer.getDurationMs(), endOfSentence));
+                    } catch (IOException e) {
+                        errors.add("close " + writer.getFile() + ": " + e.getMessage());
+                    }
+                }
+
+                @Override
+                public void onError(String message, Exception cause) {
+                    errors.add(message);
+                }
+
+                @Override
+                public void onWarning(String message, Exception cause) {
+                    errors.add(message);
+                }
+            };
+
+            VoiceSegmenter segmenter = new VoiceSegmenter(source, vad, factory, listener,
+                    new CapturePathCounters(), new CaptureMetrics());
+            segmenter.setOutputSampleRate(source.getSampleRate());
+            if (configurator != null) {
+                configurator.configure(segmenter);
+            }
+            source.start();
+            long start = System.nanoTime();
+            segmenter.run();
+            long wallNanos = System.nanoTime() - start;
+            if (source.getReadError() != null) {
+                errors.add("read: " + source.getReadError().getMessage());
+            }
+            return new Result(segments, errors, segmenter.getCapturedMillis(), wallNanos);
+        }
+    }
+}
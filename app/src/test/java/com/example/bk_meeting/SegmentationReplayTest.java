@@ -0,0 +1,212 @@
+package com.example.bk_meeting;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+// Chạy lại dữ liệu WAV qua VoiceSegmenter (cùng đường tách câu với micro) nhanh hơn thời gian thực.
+// Chạy trên corpus thật: ./gradlew :app:testDebugUnitTest --tests '*SegmentationReplayTest*'
+//     -Dreplay.corpus=/đường/dẫn/thư/mục/wav
+// Kết quả từng file nằm ở app/build/reports/replay/corpus.txt
+public class SegmentationReplayTest {
+
+    // Độ dài các câu (ms) xen kẽ khoảng lặng 2.5 s; câu 45 s vượt độ dài segment tối đa 20 s
+    private static final int[] UTTERANCES_MS = {6000, 4500, 9000, 45000, 5000, 12000, 7000};
+    private static final int PAUSE_MS = 2500;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void replaysCorpusFasterThanRealTimeWithExpectedSegments() throws Exception {
+        int rate = 16000;
+        File wav = writeWav(tmp.newFile("corpus.wav"), rate, 1, corpus(rate));
+
+        SegmentationReplay.Result result = SegmentationReplay.replay(wav, new AdaptiveEnergyVad(rate),
+                tmp.newFolder("out"), segmenter -> {
+                    segmenter.setMinSentenceDurationMs(3000);
+                    segmenter.setMaxSegmentDurationMs(20_000);
+                });
+
+        assertTrue(result.errors.toString(), result.errors.isEmpty());
+        // Mỗi câu một segment, câu 45 s được cắt thành 3 phần
+        assertEquals(UTTERANCES_MS.length + 2, result.segments.size());
+        int rotated = 0;
+        for (SegmentationReplay.Segment segment : result.segments) {
+            assertTrue(segment.file.length() > WavSegmentWriter.HEADER_SIZE);
+            assertTrue("segment " + segment.durationMs + " ms", segment.durationMs <= 20_000);
+            if (!segment.endOfSentence) {
+                rotated++;
+            }
+        }
+        assertEquals(2, rotated);
+
+        // Câu bình thường: thời lượng câu + pre-roll/hang-over, sai số do attack/release của VAD
+        int[] expected = {6000, 4500, 9000, 5000, 12000, 7000};
+        int[] actual = new int[expected.length];
+        int index = 0;
+        for (int i = 0; i < result.segments.size(); i++) {
+            boolean partOfLong = i >= 3 && i <= 5;
+            if (!partOfLong) {
+                actual[index++] = (int) result.segments.get(i).durationMs;
+            }
+        }
+        for (int i = 0; i < expected.length; i++) {
+            assertTrue(Arrays.toString(actual), Math.abs(actual[i] - (expected[i] + 1000)) <= 700);
+        }
+
+        long audioMs = result.audioMillis;
+        assertEquals(totalMs(), audioMs, 40);
+        if (PerfBounds.enabled()) {
+            assertTrue("throughput " + result.audioSecondsPerWallSecond(), result.audioSecondsPerWallSecond() > 20);
+        }
+    }
+
+    @Test
+    public void resamplesStereoCaptureRateCorpus() throws Exception {
+        int rate = 44100;
+        short[] mono = corpus(rate);
+        short[] stereo = new short[mono.length * 2];
+        for (int i = 0; i < mono.length; i++) {
+            stereo[2 * i] = mono[i];
+            stereo[2 * i + 1] = mono[i];
+        }
+        File wav = writeWav(tmp.newFile("stereo.wav"), rate, 2, stereo);
+
+        SegmentationReplay.Result result = SegmentationReplay.replay(wav, new AdaptiveEnergyVad(rate),
+                tmp.newFolder("out"), segmenter -> {
+                    segmenter.setOutputSampleRate(16_000);
+                    segmenter.setMinSentenceDurationMs(3000);
+                    segmenter.setMaxSegmentDurationMs(20_000);
+                });
+
+        assertTrue(result.errors.toString(), result.errors.isEmpty());
+        assertEquals(UTTERANCES_MS.length + 2, result.segments.size());
+        ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(result.segments.get(0).file.toPath()))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(16_000, header.getInt(24));
+    }
+
+    @Test
+    public void streamingHeaderIsReadToEndOfStream() throws Exception {
+        short[] samples = {100, -100, 200, -200, 300, -300, 400, -400, 500};
+        ByteBuffer wav = header(8000, 2, 0xFFFFFFFF, samples.length * 2);
+        for (short sample : samples) {
+            wav.putShort(sample);
+        }
+        // 4 khung stereo đầy đủ + một mẫu lẻ cuối stream: khung không đầy đủ bị bỏ
+        WavAudioSource source = new WavAudioSource(new ByteArrayInputStream(wav.array()), 10);
+        assertEquals(8000, source.getSampleRate());
+        assertEquals(2, source.getChannels());
+
+        AudioFramePool pool = new AudioFramePool(source.getFrameBytes(), 1, false, new CapturePathCounters());
+        AudioFrame frame = pool.acquire();
+        assertEquals(8, source.read(frame));
+        frame.setByteLength(8);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, frame.getSample(i));
+        }
+        assertEquals(AudioSource.END_OF_STREAM, source.read(frame));
+        frame.release();
+        source.close();
+    }
+
+    @Test
+    public void replaysCorpusFromSystemProperty() throws Exception {
+        String corpus = System.getProperty("replay.corpus", "");
+        Assume.assumeFalse("replay.corpus not set", corpus.isEmpty());
+        File[] files = new File(corpus).listFiles((dir, name) -> name.toLowerCase().endsWith(".wav"));
+        assertNotNull("Not a directory: " + corpus, files);
+        Arrays.sort(files);
+
+        StringBuilder report = new StringBuilder();
+        long segments = 0;
+        long audioMs = 0;
+        long wallNanos = 0;
+        for (File file : files) {
+            int rate;
+            try (WavAudioSource probe = new WavAudioSource(file)) {
+                rate = probe.getSampleRate();
+            }
+            SegmentationReplay.Result result = SegmentationReplay.replay(file, new AdaptiveEnergyVad(rate),
+                    tmp.newFolder(), segmenter -> segmenter.setOutputSampleRate(Math.min(rate, 16_000)));
+            report.append(file.getName()).append(": ").append(result).append('\n');
+            assertTrue(file.getName() + ": " + result.errors, result.errors.isEmpty());
+            segments += result.segments.size();
+            audioMs += result.audioMillis;
+            wallNanos += result.wallNanos;
+        }
+        report.append(String.format(Locale.US, "Corpus: %d files, %d segments, %.0f audio-s/wall-s%n",
+                files.length, segments, wallNanos > 0 ? audioMs * 1e6 / wallNanos : 0));
+        TestReports.write("replay/corpus.txt", report.toString());
+    }
+
+    private static long totalMs() {
+        long total = 2000 + 3000;
+        for (int utterance : UTTERANCES_MS) {
+            total += utterance + PAUSE_MS;
+        }
+        return total - PAUSE_MS;
+    }
+
+    // 2 s im lặng, các câu xen kẽ khoảng lặng, 3 s im lặng cuối; nhiễu nền nhỏ suốt file
+    private static short[] corpus(int rate) {
+        short[] out = new short[(int) (totalMs() * rate / 1000)];
+        Random random = new Random(7);
+        for (int i = 0; i < out.length; i++) {
+            out[i] = (short) (random.nextGaussian() * 20);
+        }
+        int position = 2000 * rate / 1000;
+        for (int u = 0; u < UTTERANCES_MS.length; u++) {
+            int length = UTTERANCES_MS[u] * rate / 1000;
+            for (int i = 0; i < length; i++) {
+                double t = (double) i / rate;
+                // Âm tiết ~4 Hz, không bao giờ tắt hẳn giữa câu
+                double envelope = 0.55 + 0.45 * Math.sin(2 * Math.PI * 4 * t);
+                double voice = Math.sin(2 * Math.PI * 150 * t)
+                        + 0.6 * Math.sin(2 * Math.PI * 300 * t)
+                        + 0.3 * Math.sin(2 * Math.PI * 750 * t);
+                out[position + i] += (short) (envelope * voice * 5000);
+            }
+            position += length + PAUSE_MS * rate / 1000;
+        }
+        return out;
+    }
+
+    private static File writeWav(File file, int rate, int channels, short[] samples) throws IOException {
+        ByteBuffer wav = header(rate, channels, samples.length * 2, samples.length * 2);
+        for (short sample : samples) {
+            wav.putShort(sample);
+        }
+        Files.write(file.toPath(), wav.array());
+        return file;
+    }
+
+    // Header WAV với chunk LIST chèn trước data để kiểm tra bỏ qua chunk lạ
+    private static ByteBuffer header(int rate, int channels, int dataLength, int payload) {
+        byte[] list = "LIST\u0004\u0000\u0000\u0000INFO".getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer out = ByteBuffer.allocate(44 + list.length + payload).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer fmt = ByteBuffer.allocate(WavSegmentWriter.HEADER_SIZE);
+        WavSegmentWriter.writeWavHeader(fmt, 0, rate, channels, 16);
+        // RIFF + WAVE + fmt chunk (36 byte đầu), sau đó chunk LIST rồi data
+        out.put(fmt.array(), 0, 36);
+        out.put(list);
+        out.put((byte) 'd').put((byte) 'a').put((byte) 't').put((byte) 'a');
+        out.putInt(dataLength);
+        return out;
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.bk_meeting;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class SessionContainerTest {
+
+    private static final int RATE = 16000;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void appendsSegmentsAndReadsThemBackMapped() throws Exception {
+        File file = new File(tmp.getRoot(), "session.bks");
+        SessionContainer container = new SessionContainer(file, RATE);
+        short[][] segments = {tone(RATE, 1000), tone(RATE / 2, 3000), tone(RATE * 3, 200)};
+        for (int s = 0; s < segments.length; s++) {
+            SessionContainer.SegmentWriter writer = container.openSegment(1_000_000L + s);
+            if (s == 1) {
+                // Frame direct như đường thu DIRECT
+                ByteBuffer direct = ByteBuffer.allocateDirect(segments[s].length * 2).order(ByteOrder.LITTLE_ENDIAN);
+                direct.asShortBuffer().put(segments[s]);
+                writer.write(direct);
+                assertFalse(direct.hasRemaining());
+            } else {
+                writer.write(segments[s], 0, segments[s].length);
+            }
+            writer.setEndOfSentence(s != 0);
+            writer.close();
+            assertEquals(s, writer.getEntryIndex());
+            assertEquals("session.bks#" + s, writer.getName());
+        }
+        container.finish();
+        assertTrue(container.isClosed());
+
+        int pcmSamples = 0;
+        for (short[] segment : segments) {
+            pcmSamples += segment.length;
+        }
+        // Phần cấp trước đã bị cắt
+        assertEquals(SessionArchive.DATA_HEADER_SIZE + pcmSamples * 2L, file.length());
+
+        try (SessionArchive archive = new SessionArchive(file)) {
+            assertEquals(3, archive.getSegmentCount());
+            assertEquals(RATE, archive.getSampleRate());
+            long offset = 0;
+            for (int s = 0; s < segments.length; s++) {
+                SessionArchive.Entry entry = archive.getEntry(s);
+                assertEquals(offset, entry.sampleOffset);
+                assertEquals(segments[s].length, entry.sampleCount);
+                assertEquals(1_000_000L + s, entry.startTimeMillis);
+                assertEquals(s != 0, entry.endOfSentence);
+                assertEquals(peak(segments[s]), entry.peak);
+                assertEquals(rms(segments[s]), entry.rms, 0.5);
+                ShortBuffer mapped = archive.samples(s);
+                short[] read = new short[mapped.remaining()];
+                mapped.get(read);
+                assertArrayEquals(segments[s], read);
+                offset += segments[s].length;
+            }
+            assertEquals(500, archive.getEntry(1).getDurationMs(RATE));
+        }
+    }
+
+    @Test
+    public void exportsSegmentAsWav() throws Exception {
+        File file = new File(tmp.getRoot(), "export.bks");
+        SessionContainer container = new SessionContainer(file, RATE);
+        short[] first = tone(RATE, 500);
+        short[] second = tone(RATE * 2, 700);
+        append(container, first);
+        append(container, second);
+        container.finish();
+
+        File wav = new File(tmp.getRoot(), "second.wav");
+        try (SessionArchive archive = new SessionArchive(file)) {
+            archive.exportWav(1, wav);
+        }
+        byte[] bytes = Files.readAllBytes(wav.toPath());
+        ByteBuffer in = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(WavSegmentWriter.HEADER_SIZE + second.length * 2, bytes.length);
+        assertEquals(RATE, in.getInt(24));
+        assertEquals(second.length * 2, in.getInt(40));
+        for (int i = 0; i < second.length; i++) {
+            assertEquals(second[i], in.getShort(WavSegmentWriter.HEADER_SIZE + i * 2));
+        }
+    }
+
+    @Test
+    public void discardedLastSegmentIsOverwritten() throws Exception {
+        File file = new File(tmp.getRoot(), "discard.bks");
+        SessionContainer container = new SessionContainer(file, RATE);
+        short[] kept = tone(RATE, 500);
+        append(container, kept);
+        SessionContainer.SegmentWriter dropped = container.openSegment(0);
+        dropped.write(tone(RATE, 9000), 0, RATE);
+        dropped.discard();
+        short[] next = tone(RATE / 4, 800);
+        append(container, next);
+        container.finish();
+
+        assertEquals(SessionArchive.DATA_HEADER_SIZE + (kept.length + next.length) * 2L, file.length());
+        try (SessionArchive archive = new SessionArchive(file)) {
+            assertEquals(2, archive.getSegmentCount());
+            assertEquals(kept.length, archive.getEntry(1).sampleOffset);
+            assertEquals(next[10], archive.samples(1).get(10));
+        }
+    }
+
+    @Test
+    public void containerStaysOpenUntilPendingSegmentCommits() throws Exception {
+        File file = new File(tmp.getRoot(), "pending.bks");
+        SessionContainer container = new SessionContainer(file, RATE);
+        SessionContainer.SegmentWriter writer = container.openSegment(0);
+        writer.write(tone(RATE, 1000), 0, RATE);
+        // Luồng thu dừng trước khi luồng lưu đóng segment cuối
+        container.finish();
+        assertFalse(container.isClosed());
+        try {
+            container.openSegment(0);
+            fail("finished container accepted a new segment");
+        } catch (java.io.IOException expected) {
+            // ok
+        }
+        writer.close();
+        assertTrue(container.isClosed());
+        try (SessionArchive archive = new SessionArchive(file)) {
+            assertEquals(1, archive.getSegmentCount());
+        }
+    }
+
+    // App bị dừng giữa chừng: bản ghi cuối ghi dở, file dữ liệu chưa được cắt gọn
+    @Test
+    public void recoversFromTornIndexAndUnfinishedData() throws Exception {
+        File file = new File(tmp.getRoot(), "crash.bks");
+        SessionContainer container = new SessionContainer(file, RATE);
+        for (int s = 0; s < 4; s++) {
+            append(container, tone(RATE, 300 + s * 100));
+        }
+        // Không gọi finish(): dữ liệu còn phần cấp trước ở cuối
+        assertTrue(file.length() > SessionArchive.DATA_HEADER_SIZE + 4L * RATE * 2);
+
+        File index = SessionArchive.indexFileFor(file);
+        try (RandomAccessFile raf = new RandomAccessFile(index, "rw")) {
+            // Bản ghi thứ 4 bị cắt giữa chừng
+            raf.setLength(SessionArchive.INDEX_HEADER_SIZE + 3L * SessionArchive.ENTRY_SIZE + 10);
+        }
+        try (SessionArchive archive = new SessionArchive(file)) {
+            assertEquals(3, archive.getSegmentCount());
+            assertEquals(2L * RATE, archive.getEntry(2).sampleOffset);
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(index, "rw")) {
+            // Lật một byte trong bản ghi thứ 2: CRC sai, chỉ tin các bản ghi trước nó
+            long position = SessionArchive.INDEX_HEADER_SIZE + SessionArchive.ENTRY_SIZE + 17;
+            raf.seek(position);
+            int value = raf.read();
+            raf.seek(position);
+            raf.write(value ^ 0x40);
+        }
+        try (SessionArchive archive = new SessionArchive(file)) {
+            assertEquals(1, archive.getSegmentCount());
+        }
+    }
+
+    @Test
+    public void rejectsForeignFile() throws Exception {
+        File file = tmp.newFile("voice.wav");
+        WavSegmentWriter writer = new WavSegmentWriter(file, RATE, 1, 16);
+        writer.write(tone(RATE, 100), 0, RATE);
+        writer.close();
+        try {
+            new SessionArchive(file).close();
+            fail("WAV file accepted as session");
+        } catch (java.io.IOException expected) {
+            // ok
+        }
+    }
+
+    private static void append(SessionContainer container, short[] samples) throws Exception {
+        SessionContainer.SegmentWriter writer = container.openSegment(System.currentTimeMillis());
+        writer.write(samples, 0, samples.length);
+        writer.close();
+    }
+
+    private static short[] tone(int length, int amplitude) {
+        short[] out = new short[length];
+        for (int i = 0; i < length; i++) {
+            out[i] = (short) Math.round(amplitude * Math.sin(2 * Math.PI * 440 * i / RATE));
+        }
+        return out;
+    }
+
+    private static short peak(short[] samples) {
+        int peak = 0;
+        for (short sample : samples) {
+            peak = Math.max(peak, Math.abs(sample));
+        }
+        return (short) peak;
+    }
+
+    private static double rms(short[] samples) {
+        double sum = 0;
+        for (short sample : samples) {
+            sum += (double) sample * sample;
+        }
+        return Math.sqrt(sum / samples.length);
+    }
+}
@@ -0,0 +1,416 @@
+package com.example.bk_meeting;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Chạy thử buổi họp dài (nhiều giờ mô phỏng) trên JVM: âm thanh tổng hợp qua VoiceSegmenter,
+// SegmentSaver lưu segment, "main thread" (một executor) cập nhật danh sách câu hiển thị và ghi chú
+// như FirstScreenActivity/SecondScreenActivity. Mỗi sampleIntervalMinutes âm thanh, lấy mẫu heap
+// (sau GC), số luồng sống, lượng cấp phát của luồng thu và số segment chờ lưu; vượt ngưỡng là vi phạm.
+// Âm thanh chạy nhanh nhất CPU cho phép nên 8 giờ mô phỏng mất cỡ một phút.
+final class SoakHarness {
+
+    static final class Config {
+        double simulatedHours = 1;
+        int sampleRate = 44_100;
+        int outputSampleRate = 16_000;
+        int minSentenceDurationMs = 15_000;
+        int maxSegmentDurationMs = 60_000;
+        int sampleIntervalMinutes = 5;
+        int warmupSamples = 1; // mẫu đầu tiên sau warm-up làm mốc so sánh
+        int noteIntervalSeconds = 60;
+        int visibleSentences = 100;
+
+        // Ngưỡng, so với mốc sau warm-up
+        long maxHeapGrowthBytes = 8L * 1024 * 1024;
+        int maxThreadGrowth = 2;
+        long maxAllocationBytesPerAudioSecond = 2 * 1024; // một vài chục byte mỗi frame là vượt
+        int maxSaveBacklog = 8;
+
+        // Gọi trên "main thread" cho mỗi segment đã lưu, trước khi file bị xoá
+        SegmentHook segmentHook;
+    }
+
+    interface SegmentHook {
+        void onSegmentSaved(File file);
+    }
+
+    static final class Sample {
+        final long audioMillis;
+        final long heapUsedBytes;
+        final int threads;
+        final long captureAllocatedBytes; // cấp phát của luồng thu trong cửa sổ vừa qua
+        final double allocationBytesPerAudioSecond;
+        final int saveBacklog;
+        final int visibleSentences;
+        final int notes;
+
+        Sample(long audioMillis, long heapUsedBytes, int threads, long captureAllocatedBytes,
+               double allocationBytesPerAudioSecond, int saveBacklog, int visibleSentences, int notes) {
+            this.audioMillis = audioMillis;
+            this.heapUsedBytes = heapUsedBytes;
+            this.threads = threads;
+            this.captureAllocatedBytes = captureAllocatedBytes;
+            this.allocationBytesPerAudioSecond = allocationBytesPerAudioSecond;
+            this.saveBacklog = saveBacklog;
+            this.visibleSentences = visibleSentences;
+            this.notes = notes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%6.2f h  heap=%6d KB  threads=%3d  alloc=%7.0f B/audio-s"
+                            + "  backlog=%d  sentences=%d  notes=%d",
+                    audioMillis / 3_600_000.0, heapUsedBytes / 1024, threads, allocationBytesPerAudioSecond,
+                    saveBacklog, visibleSentences, notes);
+        }
+    }
+
+    static final class Report {
+        final List<Sample> samples;
+        final List<String> violations;
+        final List<String> errors;
+        final long segments;
+        final long wallNanos;
+
+        Report(List<Sample> samples, List<String> violations, List<String> errors, long segments,
+               long wallNanos) {
+            this.samples = Collections.unmodifiableList(samples);
+            this.violations = Collections.unmodifiableList(violations);
+            this.errors = Collections.unmodifiableList(errors);
+            this.segments = segments;
+            this.wallNanos = wallNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder(String.format(Locale.US,
+                    "%d segments in %.1f wall-s%n", segments, wallNanos / 1e9));
+            for (Sample sample : samples) {
+                out.append(sample).append('\n');
+            }
+            for (String violation : violations) {
+                out.append("VIOLATION: ").append(violation).append('\n');
+            }
+            return out.toString();
+        }
+    }
+
+    private final Config config;
+    private final File outDir;
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private final com.sun.management.ThreadMXBean allocationBean;
+
+    // Trạng thái "UI", chỉ truy cập trên mainThread
+    private final ExecutorService mainThread = Executors.newSingleThreadExecutor(r -> new Thread(r, "SoakMain"));
+    private final BoundedHistory<String> sentences;
+    private final MeetingNotes notes = new MeetingNotes();
+
+    private final List<Sample> samples = new ArrayList<>();
+    private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+    private SegmentSaver saver;
+    private int nextSegment;
+    private volatile long savedSegments;
+    private long windowStartAllocated;
+    private long windowStartMillis;
+
+    private SoakHarness(Config config, File outDir) {
+        this.config = config;
+        this.outDir = outDir;
+        this.sentences = new BoundedHistory<>(config.visibleSentences);
+        this.allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+    }
+
+    static Report run(Config config, File outDir) throws IOException, InterruptedException {
+        return new SoakHarness(config, outDir).run();
+    }
+
+    private Report run() throws IOException, InterruptedException {
+        saver = new SegmentSaver(new SegmentSaver.Listener() {
+            @Override
+            public void onSaved(AudioSegmentWriter writer, boolean endOfSentence, long latencyNanos) {
+                savedSegments++;
+                File file = writer.getFile();
+                mainThread.execute(() -> {
+                    sentences.append(file.getName());
+                    if (config.segmentHook != null) {
+                        config.segmentHook.onSegmentSaved(file);
+                    }
+                    // Giữ đĩa nhỏ: file đã được kiểm tra đủ qua việc đóng thành công
+                    if (!file.delete()) {
+                        errors.add("cannot delete " + file);
+                    }
+                });
+            }
+
+            @Override
+            public void onFailed(AudioSegmentWriter writer, boolean endOfSentence, IOException error,
+                                 long latencyNanos) {
+                errors.add("save " + writer.getFile().getName() + ": " + error.getMessage());
+            }
+        });
+
+        long durationSamples = (long) (config.simulatedHours * 3600 * config.sampleRate);
+        SyntheticMeetingSource source = new SyntheticMeetingSource(config.sampleRate, durationSamples, this::onSecond);
+        VoiceSegmenter segmenter = new VoiceSegmenter(source, new AdaptiveEnergyVad(config.sampleRate),
+                sampleRate -> new WavSegmentWriter(new File(outDir,
+                        String.format(Locale.US, "soak_%06d.wav", nextSegment++)), sampleRate, 1, 16),
+                new ListenerAdapter(), new CapturePathCounters(), new CaptureMetrics());
+        segmenter.setOutputSampleRate(config.outputSampleRate);
+        segmenter.setMinSentenceDurationMs(config.minSentenceDurationMs);
+        segmenter.setMaxSegmentDurationMs(config.maxSegmentDurationMs);
+
+        long start = System.nanoTime();
+        try {
+            source.start();
+            windowStartAllocated = allocatedByCurrentThread();
+            segmenter.run();
+            saver.awaitIdle(TimeUnit.SECONDS.toMillis(30));
+            awaitMainThread();
+        } finally {
+            mainThread.shutdown();
+            source.close();
+        }
+        return new Report(samples, checkBounds(), errors, savedSegments, System.nanoTime() - start);
+    }
+
+    // Gọi trên luồng thu mỗi giây âm thanh mô phỏng
+    private void onSecond(long second) {
+        if (second % config.noteIntervalSeconds == 0) {
+            long n = second / config.noteIntervalSeconds;
+            Date time = new Date(second * 1000);
+            mainThread.execute(() -> notes.add("Ghi chú " + n, "Nội dung thảo luận phút thứ " + n
+                    + ", người phát biểu và các việc cần làm tiếp theo", time));
+        }
+        if (second > 0 && second % (config.sampleIntervalMinutes * 60L) == 0) {
+            sample(second * 1000);
+        }
+    }
+
+    private void sample(long audioMillis) {
+        long allocated = allocatedByCurrentThread() - windowStartAllocated;
+        long windowMillis = audioMillis - windowStartMillis;
+        int backlog = saver.getPending();
+        try {
+            // Đo trạng thái ổn định: các segment và cập nhật UI đang chờ được xử lý xong trước khi GC
+            saver.awaitIdle(TimeUnit.SECONDS.toMillis(30));
+            awaitMainThread();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        int[] ui = new int[2];
+        try {
+            mainThread.submit(() -> {
+                ui[0] = sentences.size();
+                ui[1] = notes.size();
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        System.gc();
+        System.gc();
+        samples.add(new Sample(audioMillis, memory.getHeapMemoryUsage().getUsed(), threadBean.getThreadCount(),
+                allocated, allocated * 1000.0 / Math.max(1, windowMillis), backlog, ui[0], ui[1]));
+        // Phần cấp phát của chính việc lấy mẫu không tính vào cửa sổ sau
+        windowStartAllocated = allocatedByCurrentThread();
+        windowStartMillis = audioMillis;
+    }
+
+    private long allocatedByCurrentThread() {
+        return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private void awaitMainThread() throws InterruptedException {
+        try {
+            mainThread.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private List<String> checkBounds() {
+        List<String> violations = new ArrayList<>();
+        if (samples.size() <= config.warmupSamples) {
+            violations.add("not enough samples: " + samples.size() + " (warm-up " + config.warmupSamples + ")");
+            return violations;
+        }
+        Sample baseline = samples.get(config.warmupSamples);
+        // Mẫu heap được lấy sau System.gc() nên mẫu cuối đủ ổn định để so với mốc
+        long lastHeap = samples.get(samples.size() - 1).heapUsedBytes;
+        long heapGrowth = lastHeap - baseline.heapUsedBytes;
+        if (heapGrowth > config.maxHeapGrowthBytes) {
+            violations.add("heap grew " + heapGrowth / 1024 + " KB > " + config.maxHeapGrowthBytes / 1024 + " KB");
+        }
+        for (int i = config.warmupSamples; i < samples.size(); i++) {
+            Sample sample = samples.get(i);
+            String at = String.format(Locale.US, " at %.2f h", sample.audioMillis / 3_600_000.0);
+            if (sample.threads - baseline.threads > config.maxThreadGrowth) {
+                violations.add("threads " + baseline.threads + " -> " + sample.threads + at);
+            }
+            if (sample.allocationBytesPerAudioSecond > config.maxAllocationBytesPerAudioSecond) {
+                violations.add(String.format(Locale.US, "capture thread allocated %.0f B/audio-s > %d%s",
+                        sample.allocationBytesPerAudioSecond, config.maxAllocationBytesPerAudioSecond, at));
+            }
+            if (sample.saveBacklog > config.maxSaveBacklog) {
+                violations.add("save backlog " + sample.saveBacklog + at);
+            }
+            if (sample.visibleSentences > config.visibleSentences) {
+                violations.add("visible sentences " + sample.visibleSentences + at);
+            }
+        }
+        if (!errors.isEmpty()) {
+            violations.add(errors.size() + " pipeline errors, first: " + errors.get(0));
+        }
+        return violations;
+    }
+
+    private class ListenerAdapter implements VoiceSegmenter.Listener {
+        @Override
+        public void onStateChanged(VoiceState state, String message) {
+        }
+
+        @Override
+        public void onProgress(VoiceState state, long seconds) {
+        }
+
+        @Override
+        public void onSegmentReady(AudioSegmentWriter writer, boolean endOfSentence) {
+            saver.save(writer, endOfSentence);
+        }
+
+        @Override
+        public void onError(String message, Exception cause) {
+            errors.add(message);
+        }
+
+        @Override
+        public void onWarning(String message, Exception cause) {
+            errors.add(message);
+        }
+    }
+
+    // Buổi họp tổng hợp vô tận: câu nói 3-40 s (thỉnh thoảng độc thoại 70-120 s, bị cắt segment)
+    // xen kẽ khoảng lặng 0.8-5 s trên nền nhiễu. Sóng được tính trước cho 1 s và lặp lại,
+    // read() không cấp phát
+    static final class SyntheticMeetingSource implements AudioSource {
+
+        interface SecondListener {
+            void onSecond(long second);
+        }
+
+        private static final int FRAME_MS = 20;
+
+        private final int sampleRate;
+        private final long durationSamples;
+        private final SecondListener secondListener;
+        private final short[] voice;
+        private final short[] noise;
+        private final Random random = new Random(42);
+        private long position;
+        private long phaseEnd; // mẫu kết thúc câu nói/khoảng lặng hiện tại
+        private boolean speaking;
+        private volatile boolean stopped;
+
+        SyntheticMeetingSource(int sampleRate, long durationSamples, SecondListener secondListener) {
+            this.sampleRate = sampleRate;
+            this.durationSamples = durationSamples;
+            this.secondListener = secondListener;
+            voice = new short[sampleRate];
+            noise = new short[sampleRate];
+            Random noiseRandom = new Random(7);
+            for (int i = 0; i < sampleRate; i++) {
+                double t = (double) i / sampleRate;
+                double envelope = 0.55 + 0.45 * Math.sin(2 * Math.PI * 4 * t);
+                double wave = Math.sin(2 * Math.PI * 150 * t)
+                        + 0.6 * Math.sin(2 * Math.PI * 300 * t)
+                        + 0.3 * Math.sin(2 * Math.PI * 750 * t);
+                voice[i] = (short) (envelope * wave * 5000);
+                noise[i] = (short) (noiseRandom.nextGaussian() * 20);
+            }
+            phaseEnd = 2L * sampleRate;
+        }
+
+        @Override
+        public int getSampleRate() {
+            return sampleRate;
+        }
+
+        @Override
+        public int getFrameBytes() {
+            return sampleRate * FRAME_MS / 1000 * 2;
+        }
+
+        @Override
+        public int getBufferBytes() {
+            return 0;
+        }
+
+        @Override
+        public void start() {
+            stopped = false;
+        }
+
+        @Override
+        public int read(AudioFrame frame) {
+            if (stopped || position >= durationSamples) {
+                return END_OF_STREAM;
+            }
+            ByteBuffer data = frame.data();
+            int samples = (int) Math.min(Math.min(frame.getCapacity(), getFrameBytes()) / 2,
+                    durationSamples - position);
+            for (int i = 0; i < samples; i++) {
+                if (position == phaseEnd) {
+                    nextPhase();
+                }
+                if (position % sampleRate == 0) {
+                    secondListener.onSecond(position / sampleRate);
+                }
+                int index = (int) (position % sampleRate);
+                int value = noise[index] + (speaking ? voice[index] : 0);
+                data.putShort(i * 2, (short) value);
+                position++;
+            }
+            return samples * 2;
+        }
+
+        private void nextPhase() {
+            speaking = !speaking;
+            long millis;
+            if (speaking) {
+                millis = random.nextInt(10) == 0 ? 70_000 + random.nextInt(50_000) : 3_000 + random.nextInt(37_000);
+            } else {
+                millis = 800 + random.nextInt(4_200);
+            }
+            phaseEnd = position + millis * sampleRate / 1000;
+        }
+
+        @Override
+        public void stop() {
+            stopped = true;
+        }
+
+        @Override
+        public void close() {
+            stop();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.bk_meeting;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+// Buổi họp dài mô phỏng. Mặc định chạy ngắn cho unit test; chạy đủ một buổi họp 8 giờ:
+// ./gradlew :app:testDebugUnitTest --tests '*SoakTest*' -Dsoak.hours=8
+// Báo cáo của lần chạy đó nằm ở app/build/reports/soak/
+public class SoakTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void longMeetingStaysWithinBounds() throws Exception {
+        SoakHarness.Config config = new SoakHarness.Config();
+        String hours = System.getProperty("soak.hours", "");
+        config.simulatedHours = hours.isEmpty() ? 0.25 : Double.parseDouble(hours);
+        config.sampleIntervalMinutes = config.simulatedHours >= 2 ? 10 : 2;
+
+        SoakHarness.Report report = SoakHarness.run(config, tmp.newFolder());
+        if (!hours.isEmpty()) {
+            TestReports.write("soak/soak-" + hours + "h.txt", report.toString());
+        }
+
+        assertTrue(report.toString(), report.violations.isEmpty());
+        assertTrue(report.segments > 0);
+        SoakHarness.Sample last = report.samples.get(report.samples.size() - 1);
+        assertEquals(last.audioMillis / 1000 / config.noteIntervalSeconds + 1, last.notes);
+        assertTrue(last.visibleSentences <= config.visibleSentences);
+    }
+
+    @Test
+    public void detectsRetainedMemory() throws Exception {
+        List<byte[]> leak = new ArrayList<>();
+        SoakHarness.Config config = shortRun();
+        config.segmentHook = file -> leak.add(new byte[512 * 1024]);
+
+        SoakHarness.Report report = SoakHarness.run(config, tmp.newFolder());
+
+        assertTrue(report.toString(), hasViolation(report, "heap grew"));
+        assertFalse(leak.isEmpty());
+    }
+
+    @Test
+    public void detectsThreadPerSegment() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        SoakHarness.Config config = shortRun();
+        config.segmentHook = file -> {
+            Thread thread = new Thread(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                    // kết thúc luồng
+                }
+            }, "LeakedSaver");
+            thread.setDaemon(true);
+            thread.start();
+        };
+
+        try {
+            SoakHarness.Report report = SoakHarness.run(config, tmp.newFolder());
+            assertTrue(report.toString(), hasViolation(report, "threads"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static SoakHarness.Config shortRun() {
+        SoakHarness.Config config = new SoakHarness.Config();
+        config.simulatedHours = 0.1;
+        config.sampleIntervalMinutes = 1;
+        config.maxHeapGrowthBytes = 2L * 1024 * 1024;
+        return config;
+    }
+
+    private static boolean hasViolation(SoakHarness.Report report, String prefix) {
+        for (String violation : report.violations) {
+            if (violation.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.bk_meeting;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ShortBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SpectralNoiseSuppressorTest {
+
+    private static final int RATE = 16000;
+    private static final int FRAME = 320; // 20 ms
+
+    @Test
+    public void reconstructsDelayedInputWithoutNoiseProfile() {
+        SpectralNoiseSuppressor suppressor = new SpectralNoiseSuppressor(RATE);
+        assertEquals(512, suppressor.getFftSize());
+        short[] input = new short[2 * RATE];
+        Random random = new Random(1);
+        for (int i = 0; i < input.length; i++) {
+            input[i] = (short) (random.nextGaussian() * 6000);
+        }
+        short[] output = run(suppressor, input, i -> true);
+
+        // Toàn bộ là giọng nói: không học nhiễu, STFT/overlap-add chỉ làm trễ tín hiệu
+        assertFalse(suppressor.isNoiseProfileReady());
+        int latency = suppressor.getLatencySamples();
+        for (int i = latency; i < input.length; i++) {
+            assertEquals("sample " + i, input[i - latency], output[i], 2);
+        }
+    }
+
+    @Test
+    public void attenuatesStationaryNoiseAndKeepsSpeech() {
+        SpectralNoiseSuppressor suppressor = new SpectralNoiseSuppressor(RATE);
+        // 3 s quạt, 2 s giọng nói trên nền quạt, 2 s quạt
+        int speechStart = 3 * RATE;
+        int speechEnd = 5 * RATE;
+        short[] noise = fanNoise(7 * RATE);
+        short[] speech = new short[noise.length];
+        short[] input = new short[noise.length];
+        for (int i = 0; i < input.length; i++) {
+            if (i >= speechStart && i < speechEnd) {
+                double t = (double) i / RATE;
+                speech[i] = (short) (4000 * Math.sin(2 * Math.PI * 440 * t) + 2000 * Math.sin(2 * Math.PI * 880 * t));
+            }
+            input[i] = (short) (noise[i] + speech[i]);
+        }
+        short[] output = run(suppressor, input, i -> i >= speechStart && i < speechEnd);
+        assertTrue(suppressor.isNoiseProfileReady());
+
+        int latency = suppressor.getLatencySamples();
+        // Đoạn chỉ có quạt sau khi câu kết thúc
+        double noiseIn = rms(input, 5 * RATE + RATE / 2, 7 * RATE);
+        double noiseOut = rms(output, 5 * RATE + RATE / 2 + latency, 7 * RATE);
+        double reductionDb = 20 * Math.log10(noiseIn / noiseOut);
+        // Đoạn giọng nói: gần với giọng nói sạch, không bị khử theo
+        double speechOutDb = 20 * Math.log10(rms(output, speechStart + RATE / 10 + latency, speechEnd)
+                / rms(speech, speechStart + RATE / 10, speechEnd - latency));
+
+        assertTrue("noise reduction " + reductionDb + " dB", reductionDb > 10);
+        assertEquals(0, speechOutDb, 1.0);
+    }
+
+    @Test
+    public void processingDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        SpectralNoiseSuppressor suppressor = new SpectralNoiseSuppressor(RATE);
+        short[] noise = fanNoise(FRAME * 500);
+        ShortBuffer frame = ShortBuffer.allocate(FRAME);
+        // Làm nóng (học nhiễu, JIT)
+        feed(suppressor, noise, frame, false);
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        feed(suppressor, noise, frame, false);
+        feed(suppressor, noise, frame, true);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        assertTrue(suppressor.getFramesGated() > 0);
+        assertTrue("allocated " + allocated + " B", allocated < 1024);
+    }
+
+    // "Benchmark" nhanh trên JVM: tải CPU đo bởi stage phải nằm xa ngân sách mặc định 25% một lõi,
+    // chừa chỗ cho lõi nhỏ chậm hơn máy phát triển nhiều lần
+    @Test
+    public void stageStaysWithinCpuBudget() {
+        PerfBounds.assume();
+        NoiseSuppressionStage stage = new NoiseSuppressionStage();
+        short[] noise = fanNoise(60 * RATE);
+        AudioFramePool pool = new AudioFramePool(FRAME * 2, 1, true, new CapturePathCounters());
+        stage.onStart(RATE);
+        feedStage(stage, pool, noise); // warm-up cho JIT
+        stage.onStart(RATE);
+        feedStage(stage, pool, noise);
+
+        assertFalse(stage.isBypassed());
+        assertTrue(stage.toString(), stage.getPeakWindowLoad() < 0.05f);
+    }
+
+    @Test
+    public void overBudgetStageFallsBackToDelayLine() {
+        NoiseSuppressionStage stage = new NoiseSuppressionStage(1e-9f);
+        AudioFramePool pool = new AudioFramePool(FRAME * 2, 1, false, new CapturePathCounters());
+        stage.onStart(RATE);
+        short[] input = fanNoise(10 * RATE);
+        short[] output = feedStage(stage, pool, input);
+
+        assertTrue(stage.isBypassed());
+        // Sau khi bypass: vẫn là tín hiệu vào trễ đúng getLatencySamples() mẫu
+        int latency = stage.getSuppressor().getLatencySamples();
+        for (int i = 7 * RATE; i < input.length; i++) {
+            assertEquals(input[i - latency], output[i]);
+        }
+    }
+
+    private interface VoiceFlags {
+        boolean isVoice(int sample);
+    }
+
+    private static short[] run(SpectralNoiseSuppressor suppressor, short[] input, VoiceFlags flags) {
+        short[] output = input.clone();
+        for (int offset = 0; offset < output.length; offset += FRAME) {
+            int length = Math.min(FRAME, output.length - offset);
+            suppressor.process(ShortBuffer.wrap(output, offset, length).slice(), flags.isVoice(offset));
+        }
+        return output;
+    }
+
+    private static void feed(SpectralNoiseSuppressor suppressor, short[] input, ShortBuffer frame, boolean voice) {
+        for (int offset = 0; offset + FRAME <= input.length; offset += FRAME) {
+            frame.clear();
+            frame.put(input, offset, FRAME).flip();
+            suppressor.process(frame, voice);
+        }
+    }
+
+    private static short[] feedStage(NoiseSuppressionStage stage, AudioFramePool pool, short[] input) {
+        short[] output = new short[input.length];
+        for (int offset = 0; offset + FRAME <= input.length; offset += FRAME) {
+            AudioFrame frame = pool.acquire();
+            ShortBuffer samples = frame.writableSamples();
+            samples.put(input, offset, FRAME);
+            frame.setByteLength(FRAME * 2);
+            stage.onFrame(frame, false);
+            frame.samples().get(output, offset, FRAME);
+            frame.release();
+        }
+        return output;
+    }
+
+    // Quạt/máy chiếu: nhiễu trắng lọc thông thấp cộng tiếng ù 100 Hz và hài
+    private static short[] fanNoise(int length) {
+        Random random = new Random(3);
+        short[] out = new short[length];
+        double lowPass = 0;
+        for (int i = 0; i < length; i++) {
+            lowPass = 0.7 * lowPass + 0.3 * random.nextGaussian() * 900;
+            double t = (double) i / RATE;
+            out[i] = (short) (lowPass + 150 * Math.sin(2 * Math.PI * 100 * t) + 80 * Math.sin(2 * Math.PI * 200 * t));
+        }
+        return out;
+    }
+
+    private static double rms(short[] samples, int from, int to) {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += (double) samples[i] * samples[i];
+        }
+        return Math.sqrt(sum / (to - from));
+    }
+}
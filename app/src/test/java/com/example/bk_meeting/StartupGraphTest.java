@@ -0,0 +1,201 @@
+package com.example.bk_meeting;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class StartupGraphTest {
+
+    private final ExecutorService main = Executors.newSingleThreadExecutor(r -> new Thread(r, "main"));
+    private final ExecutorService background = Executors.newFixedThreadPool(4);
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+    private final StartupGraph.Scheduler scheduler =
+            (action, delayMillis) -> timer.schedule(action, delayMillis, TimeUnit.MILLISECONDS);
+    private final List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> order = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> failed = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private final StartupGraph.Listener listener = new StartupGraph.Listener() {
+        @Override
+        public void onTaskFinished(String name, long waitNanos, long runNanos, Throwable error) {
+            assertTrue(waitNanos >= 0 && runNanos >= 0);
+            if (error != null) {
+                failed.add(name);
+                errors.add(error);
+            }
+        }
+
+        @Override
+        public void onFinished(long totalNanos) {
+            finished.countDown();
+        }
+    };
+
+    @After
+    public void shutdown() {
+        main.shutdownNow();
+        background.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    @Test
+    public void tasksRunAfterTheirDependencies() throws Exception {
+        StartupGraph graph = new StartupGraph(main, background, scheduler, listener);
+        graph.add("a", false, () -> record("a"));
+        graph.add("b", true, () -> record("b"), "a");
+        graph.add("c", false, () -> record("c"), "a");
+        graph.add("d", true, () -> record("d"), "b", "c");
+        graph.start();
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(4, order.size());
+        assertEquals("a", order.get(0));
+        assertEquals("d", order.get(3));
+        assertTrue(graph.isFinished("d"));
+    }
+
+    @Test
+    public void independentTasksRunInParallel() throws Exception {
+        // Ba việc nền cùng chờ nhau: chỉ xong được nếu chạy đồng thời
+        CountDownLatch allRunning = new CountDownLatch(3);
+        AtomicInteger timedOut = new AtomicInteger();
+        StartupGraph graph = new StartupGraph(main, background, scheduler, listener);
+        for (String name : new String[]{"x", "y", "z"}) {
+            graph.add(name, false, () -> {
+                allRunning.countDown();
+                try {
+                    if (!allRunning.await(5, TimeUnit.SECONDS)) {
+                        timedOut.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        graph.add("launch", true, () -> record("launch"), "x", "y", "z");
+        graph.start();
+
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        assertEquals(0, timedOut.get());
+        assertEquals(Collections.singletonList("launch"), order);
+    }
+
+    @Test
+    public void asyncTaskHoldsDependentsUntilDone() throws Exception {
+        AtomicReference<StartupGraph.Completion> pending = new AtomicReference<>();
+        StartupGraph graph = new StartupGraph(main, background, scheduler, listener);
+        graph.addTask("permissions", true, pending::set);
+        graph.add("launch", true, () -> record("launch"), "permissions");
+        graph.start();
+
+        Thread.sleep(100);
+        assertTrue(order.isEmpty());
+        assertNotNull(pending.get());
+        pending.get().done();
+        // Gọi lại lần hai không làm gì
+        pending.get().done();
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList("launch"), order);
+    }
+
+    @Test
+    public void failedTaskDoesNotBlockStartup() throws Exception {
+        StartupGraph graph = new StartupGraph(main, background, scheduler, listener);
+        graph.add("audio", false, () -> {
+            throw new IllegalStateException("no audio");
+        });
+        graph.add("launch", true, () -> record("launch"), "audio");
+        graph.start();
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList("audio"), failed);
+        assertEquals(Collections.singletonList("launch"), order);
+    }
+
+    @Test
+    public void asyncTaskThatNeverCompletesTimesOut() throws Exception {
+        // Callback bị mất (WebView lỗi trước khi gọi done): việc phụ thuộc vẫn chạy sau thời hạn
+        AtomicReference<StartupGraph.Completion> lost = new AtomicReference<>();
+        StartupGraph graph = new StartupGraph(main, background, scheduler, listener);
+        graph.addTask("webview", true, 100, lost::set);
+        graph.add("launch", true, () -> record("launch"), "webview");
+        graph.start();
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList("webview"), failed);
+        assertTrue(errors.get(0) instanceof TimeoutException);
+        assertEquals(Collections.singletonList("launch"), order);
+        // done() sau thời hạn không làm gì
+        lost.get().done();
+        assertEquals(1, failed.size());
+    }
+
+    @Test
+    public void timeoutDoesNotFireForCompletedTask() throws Exception {
+        StartupGraph graph = new StartupGraph(main, background, scheduler, listener);
+        graph.addTask("permissions", true, 50, StartupGraph.Completion::done);
+        graph.add("launch", true, () -> record("launch"), "permissions");
+        graph.start();
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        Thread.sleep(150);
+        assertTrue(failed.isEmpty());
+        assertEquals(Collections.singletonList("launch"), order);
+    }
+
+    @Test
+    public void runningTaskCanAddMoreTasks() throws Exception {
+        StartupGraph[] holder = new StartupGraph[1];
+        StartupGraph graph = new StartupGraph(main, background, scheduler, listener);
+        holder[0] = graph;
+        graph.add("webview", false, () -> record("webview"));
+        graph.add("displays", true, () -> {
+            record("displays");
+            holder[0].add("launchSecond", true, () -> record("launchSecond"), "displays", "webview");
+            holder[0].add("finish", true, () -> record("finish"), "launchSecond");
+        });
+        graph.start();
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(4, order.size());
+        assertTrue(order.indexOf("launchSecond") > order.indexOf("webview"));
+        assertEquals("finish", order.get(3));
+    }
+
+    @Test
+    public void rejectsUnknownAndDuplicateTasks() {
+        StartupGraph graph = new StartupGraph(main, background, scheduler, listener);
+        graph.add("a", true, () -> { });
+        try {
+            graph.add("a", true, () -> { });
+            fail("duplicate task accepted");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+        try {
+            graph.add("b", true, () -> { }, "missing");
+            fail("unknown dependency accepted");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+    }
+
+    private void record(String name) {
+        order.add(name);
+    }
+}
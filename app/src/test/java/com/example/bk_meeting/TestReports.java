@@ -0,0 +1,30 @@
+package com.example.bk_meeting;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+// Kết quả các lần chạy dài bật tay (replay corpus, soak) ghi ra app/build/reports/<tên> thay vì stdout
+final class TestReports {
+
+    // Gradle chạy unit test với thư mục làm việc là thư mục module (app/)
+    private static final File DIR = new File("build/reports");
+
+    private TestReports() {
+    }
+
+    static File write(String name, String text) throws IOException {
+        File file = new File(DIR, name);
+        File parent = file.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(text);
+        }
+        return file;
+    }
+}
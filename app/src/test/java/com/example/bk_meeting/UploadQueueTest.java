@@ -0,0 +1,197 @@
+package com.example.bk_meeting;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class UploadQueueTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private MockUploadServer server;
+    private final List<String> uploaded = new ArrayList<>();
+    private final List<String> gaveUp = new ArrayList<>();
+
+    private final UploadQueue.Listener listener = new UploadQueue.Listener() {
+        @Override
+        public synchronized void onUploaded(UploadQueue.Item item, long latencyMillis) {
+            uploaded.add(item.name);
+        }
+
+        @Override
+        public synchronized void onGaveUp(UploadQueue.Item item, IOException error) {
+            gaveUp.add(item.name);
+        }
+    };
+
+    @Before
+    public void startServer() throws Exception {
+        server = new MockUploadServer();
+    }
+
+    @After
+    public void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void smallSegmentsShareOneRequest() throws Exception {
+        UploadQueue queue = newQueue(new File(tmp.getRoot(), "queue.bin"), 2);
+        queue.setBatching(64 * 1024, 1024 * 1024, 32, 300);
+        queue.start();
+        List<byte[]> contents = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            byte[] data = randomBytes(i, 2_000 + i * 500);
+            contents.add(data);
+            queue.enqueue(write("voice_" + i + ".wav", data), "voice_" + i + ".wav", "audio/wav");
+        }
+        assertTrue(queue.awaitDrained(10_000));
+        queue.close();
+
+        assertEquals(1, server.getRequests());
+        assertEquals(1, server.getBatchRequests());
+        assertEquals(12, server.getBatchedItems());
+        for (int i = 0; i < 12; i++) {
+            assertArrayEquals(contents.get(i), server.contentByName("voice_" + i + ".wav"));
+        }
+        assertEquals(12, uploaded.size());
+        UploadQueue.Stats stats = queue.getStats();
+        assertEquals(0, stats.queued);
+        assertEquals(12, stats.uploadedItems);
+        assertEquals(1, stats.requests);
+    }
+
+    @Test
+    public void largeSegmentResumesAfterServerErrors() throws Exception {
+        UploadQueue queue = newQueue(new File(tmp.getRoot(), "queue.bin"), 1);
+        queue.setChunkSize(64 * 1024);
+        queue.start();
+        byte[] data = randomBytes(1, 1024 * 1024 + 123);
+        File file = write("voice_big.flac", data);
+
+        server.setDelayMs(5);
+        UploadQueue.Item item = queue.enqueue(file, "voice_big.flac", "audio/flac");
+        // Lỗi tạm thời giữa chừng: ba request liên tiếp bị từ chối
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (server.getChunkRequests() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        server.failNext(503, 500, 429);
+        assertTrue(queue.awaitDrained(20_000));
+        queue.close();
+
+        assertArrayEquals(data, server.content(item.id));
+        assertEquals("audio/flac", server.contentType(item.id));
+        assertEquals(Arrays.asList("voice_big.flac"), uploaded);
+        UploadQueue.Stats stats = queue.getStats();
+        assertEquals(3, stats.failures);
+        assertEquals(data.length, stats.uploadedBytes);
+        // Tiếp tục từ byte server đã nhận: không gửi lại từ đầu
+        assertEquals(data.length, server.getBodyBytes(), 3 * 64 * 1024);
+    }
+
+    @Test
+    public void queueSurvivesRestartAndWaitsForNetwork() throws Exception {
+        File state = new File(tmp.getRoot(), "queue.bin");
+        UploadQueue offline = newQueue(state, 2);
+        offline.setNetworkAvailable(false);
+        offline.start();
+        byte[] wav = randomBytes(2, 300 * 1024);
+        byte[] session = randomBytes(3, 200_000);
+        offline.enqueue(write("voice_a.wav", wav), "voice_a.wav", "audio/wav");
+        // Segment thứ hai nằm giữa file container
+        offline.enqueue(write("session.bks", session), "session.bks#1", "audio/L16;rate=16000;channels=1",
+                1000, 150_000);
+        assertTrue(offline.awaitPersisted(5_000));
+        Thread.sleep(100);
+        assertEquals(0, server.getRequests());
+        assertEquals(2, offline.getStats().queued);
+        offline.close();
+
+        UploadQueue online = newQueue(state, 2);
+        online.start();
+        assertTrue(online.awaitDrained(10_000));
+        online.close();
+
+        assertArrayEquals(wav, server.contentByName("voice_a.wav"));
+        assertArrayEquals(Arrays.copyOfRange(session, 1000, 151_000), server.contentByName("session.bks#1"));
+        assertEquals(2, uploaded.size());
+
+        // Hàng đợi rỗng cũng được lưu: lần mở sau không tải lại
+        UploadQueue again = newQueue(state, 2);
+        again.start();
+        assertTrue(again.awaitPersisted(5_000));
+        assertEquals(0, again.getStats().queued);
+        again.close();
+    }
+
+    @Test
+    public void permanentErrorsDropTheItem() throws Exception {
+        UploadQueue queue = newQueue(new File(tmp.getRoot(), "queue.bin"), 1);
+        queue.setBatching(0, 0, 1, 0);
+        queue.start();
+        server.failNext(400);
+        queue.enqueue(write("voice_bad.wav", randomBytes(4, 10_000)), "voice_bad.wav", "audio/wav");
+        queue.enqueue(new File(tmp.getRoot(), "missing.wav"), "missing.wav", "audio/wav");
+        assertTrue(queue.awaitDrained(10_000));
+        queue.close();
+
+        assertTrue(gaveUp.containsAll(Arrays.asList("voice_bad.wav", "missing.wav")));
+        assertTrue(uploaded.isEmpty());
+    }
+
+    @Test
+    public void concurrencyStaysBounded() throws Exception {
+        UploadQueue queue = newQueue(null, 2);
+        queue.setChunkSize(32 * 1024);
+        queue.setBatching(0, 0, 1, 0);
+        queue.start();
+        server.setDelayMs(20);
+        List<UploadQueue.Item> items = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            items.add(queue.enqueue(write("voice_" + i + ".wav", randomBytes(10 + i, 100_000)),
+                    "voice_" + i + ".wav", "audio/wav"));
+        }
+        assertTrue(queue.awaitDrained(20_000));
+        UploadQueue.Stats stats = queue.getStats();
+        queue.close();
+
+        assertEquals(2, server.getMaxInFlight());
+        assertEquals(6, uploaded.size());
+        assertEquals(6 * 100_000L, stats.uploadedBytes);
+        assertTrue(stats.toString(), stats.bytesPerSecond > 0);
+    }
+
+    private UploadQueue newQueue(File state, int maxConcurrent) throws IOException {
+        UploadQueue queue = new UploadQueue(state, new HttpUploadTransport(server.endpoint()), maxConcurrent, listener);
+        queue.setBackoff(20, 200);
+        return queue;
+    }
+
+    private File write(String name, byte[] data) throws IOException {
+        File file = new File(tmp.getRoot(), name);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(data);
+        }
+        return file;
+    }
+
+    private static byte[] randomBytes(long seed, int length) {
+        byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}
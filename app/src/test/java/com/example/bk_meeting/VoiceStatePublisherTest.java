@@ -0,0 +1,160 @@
+package com.example.bk_meeting;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static org.junit.Assert.*;
+
+public class VoiceStatePublisherTest {
+
+    private final FakeLooper looper = new FakeLooper();
+    private final List<String> delivered = new ArrayList<>();
+    private final VoiceStatePublisher publisher = new VoiceStatePublisher(looper,
+            new VoiceDetectionManager.VoiceDetectionCallback() {
+                @Override
+                public void onStateChanged(VoiceState state, String message) {
+                    delivered.add(state + ":" + message);
+                }
+
+                @Override
+                public void onAudioFileSaved(String fileName, File audioFile) {
+                }
+
+                @Override
+                public void onError(String error) {
+                }
+            });
+
+    @Test
+    public void progressIsCoalescedToMaxRateAndTransitionsAreImmediate() {
+        publisher.publish(VoiceState.DETECTING_SPEECH, "Phát hiện giọng nói...");
+
+        // 30 giây ghi âm, mỗi frame 20 ms; tiến độ tính theo 0.1 s để thấy rõ việc gộp
+        for (long t = 0; t < 30_000; t += 20) {
+            looper.advanceTo(t);
+            publisher.publishProgress(VoiceState.RECORDING, t / 100);
+        }
+        looper.advanceTo(30_000);
+        publisher.publish(VoiceState.SAVING, "Đang lưu file...");
+        looper.advanceTo(30_000);
+
+        // 1500 frame, 300 giá trị khác nhau, nhưng tối đa 4 lần/giây được gửi
+        assertEquals(302, publisher.getPublishedCount());
+        assertTrue("delivered " + delivered.size(), delivered.size() <= 30 * 4 + 3);
+        assertTrue(delivered.size() >= 30 * 4 - 2);
+        assertEquals("DETECTING_SPEECH:Phát hiện giọng nói...", delivered.get(0));
+        assertEquals("RECORDING:Đang ghi âm... (299s)", delivered.get(delivered.size() - 2));
+        assertEquals("SAVING:Đang lưu file...", delivered.get(delivered.size() - 1));
+        assertEquals(delivered.size(), looper.posts);
+    }
+
+    @Test
+    public void identicalStatesAreDeduplicated() {
+        for (int i = 0; i < 100; i++) {
+            publisher.publish(VoiceState.LISTENING, "Đang lắng nghe...");
+            publisher.publishProgress(VoiceState.RECORDING, 15);
+            looper.advanceTo(i * 1000L);
+        }
+        // Mỗi lần đổi qua lại là một giá trị mới, nhưng không gửi lại giá trị trùng liên tiếp
+        assertEquals(200, publisher.getPublishedCount());
+
+        VoiceStatePublisher steady = new VoiceStatePublisher(looper, publisherCallback());
+        for (int i = 0; i < 100; i++) {
+            steady.publishProgress(VoiceState.RECORDING, 15);
+        }
+        looper.advanceTo(200_000);
+        assertEquals(1, steady.getPublishedCount());
+        assertEquals(1, steady.getDeliveredCount());
+    }
+
+    @Test
+    public void rapidTransitionsDeliverLatestValue() {
+        publisher.publish(VoiceState.SAVING, "Đang lưu file...");
+        publisher.publish(VoiceState.LISTENING, "Đã lưu: voice_1.wav");
+        looper.advanceTo(0);
+
+        assertEquals(1, delivered.size());
+        assertEquals("LISTENING:Đã lưu: voice_1.wav", delivered.get(0));
+    }
+
+    @Test
+    public void stoppingDuringSpeechEndsIdleDespiteLateSave() {
+        publisher.start("Đang lắng nghe...");
+        publisher.publish(VoiceState.DETECTING_SPEECH, "Phát hiện giọng nói...");
+        looper.advanceTo(1_000);
+        publisher.publishProgress(VoiceState.RECORDING, 16);
+        looper.advanceTo(2_000);
+
+        // Người dùng tắt micro giữa câu: câu đủ dài vẫn được lưu sau khi đã dừng,
+        // SAVING (luồng thu) và "Đã lưu" (SegmentSaver) tới sau IDLE
+        publisher.stop("Đã dừng");
+        publisher.publish(VoiceState.SAVING, "Đang lưu file...");
+        looper.advanceTo(2_100);
+        publisher.publish(VoiceState.LISTENING, "Đã lưu: voice_1.wav");
+        looper.advanceTo(3_000);
+
+        assertEquals("IDLE:Đã dừng", delivered.get(delivered.size() - 1));
+        assertFalse(delivered.contains("SAVING:Đang lưu file..."));
+
+        // Phiên mới nhận trạng thái bình thường
+        publisher.start("Đang lắng nghe...");
+        publisher.publish(VoiceState.DETECTING_SPEECH, "Phát hiện giọng nói...");
+        looper.advanceTo(4_000);
+        assertEquals("DETECTING_SPEECH:Phát hiện giọng nói...", delivered.get(delivered.size() - 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveRate() {
+        publisher.setMaxRateHz(0);
+    }
+
+    private VoiceDetectionManager.VoiceDetectionCallback publisherCallback() {
+        return new VoiceDetectionManager.VoiceDetectionCallback() {
+            @Override
+            public void onStateChanged(VoiceState state, String message) {
+            }
+
+            @Override
+            public void onAudioFileSaved(String fileName, File audioFile) {
+            }
+
+            @Override
+            public void onError(String error) {
+            }
+        };
+    }
+
+    // Main Looper giả lập với đồng hồ thủ công
+    private static final class FakeLooper implements VoiceStatePublisher.Scheduler {
+        private final PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) ->
+                a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        private final List<Runnable> tasks = new ArrayList<>();
+        private long now;
+        int posts;
+
+        @Override
+        public long uptimeMillis() {
+            return now;
+        }
+
+        @Override
+        public void schedule(Runnable task, long delayMs) {
+            queue.add(new long[]{now + delayMs, tasks.size()});
+            tasks.add(task);
+            posts++;
+        }
+
+        void advanceTo(long time) {
+            while (!queue.isEmpty() && queue.peek()[0] <= time) {
+                long[] next = queue.poll();
+                now = Math.max(now, next[0]);
+                tasks.get((int) next[1]).run();
+            }
+            now = time;
+        }
+    }
+}
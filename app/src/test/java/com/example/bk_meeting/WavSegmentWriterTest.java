@@ -0,0 +1,54 @@
+package com.example.bk_meeting;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class WavSegmentWriterTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void streamsPcmAndPatchesHeaderOnClose() throws Exception {
+        File file = tmp.newFile("segment.wav");
+        byte[] chunk = new byte[7000];
+        for (int i = 0; i < chunk.length; i++) {
+            chunk[i] = (byte) i;
+        }
+
+        WavSegmentWriter writer = new WavSegmentWriter(file, 16000, 1, 16);
+        for (int i = 0; i < 10; i++) {
+            writer.write(chunk, 0, chunk.length);
+        }
+        writer.close();
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        assertEquals(WavSegmentWriter.HEADER_SIZE + 70000, bytes.length);
+
+        ByteBuffer header = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(36 + 70000, header.getInt(4));
+        assertEquals(16000, header.getInt(24));
+        assertEquals(32000, header.getInt(28));
+        assertEquals(70000, header.getInt(40));
+        assertEquals(chunk[123], bytes[WavSegmentWriter.HEADER_SIZE + 7000 + 123]);
+        assertEquals(2187, writer.getDurationMs());
+    }
+
+    @Test
+    public void discardRemovesFile() throws Exception {
+        File file = tmp.newFile("discard.wav");
+        WavSegmentWriter writer = new WavSegmentWriter(file, 44100, 1, 16);
+        writer.write(new byte[100], 0, 100);
+        writer.discard();
+
+        assertFalse(file.exists());
+    }
+}
@@ -0,0 +1,58 @@
+// Benchmark JMH cho đường xử lý âm thanh, chạy trên JVM (không cần thiết bị):
+//   ./gradlew :benchmarks:jmh
+//   ./gradlew :benchmarks:jmh -PjmhIncludes=AmplitudeBenchmark
+// Kết quả (ns/frame, byte cấp phát/frame từ GC profiler) ở build/results/jmh/results.json
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// Biên dịch lại chính các lớp không phụ thuộc Android của :app, để đo đúng mã chạy trên tablet
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            include(
+                "com/example/bk_meeting/AdaptiveEnergyVad.java",
+                "com/example/bk_meeting/AudioFanoutBus.java",
+                "com/example/bk_meeting/AudioFrame.java",
+                "com/example/bk_meeting/AudioFramePool.java",
+                "com/example/bk_meeting/AudioSegmentWriter.java",
+                "com/example/bk_meeting/AudioSource.java",
+                "com/example/bk_meeting/AudioStage.java",
+                "com/example/bk_meeting/CaptureMetrics.java",
+                "com/example/bk_meeting/CapturePathCounters.java",
+                "com/example/bk_meeting/FixedBucketHistogram.java",
+                "com/example/bk_meeting/PcmRingBuffer.java",
+                "com/example/bk_meeting/PeakAmplitudeVad.java",
+                "com/example/bk_meeting/PolyphaseResampler.java",
+                "com/example/bk_meeting/SpectralNoiseSuppressor.java",
+                "com/example/bk_meeting/VoiceActivityDetector.java",
+                "com/example/bk_meeting/VoiceSegmenter.java",
+                "com/example/bk_meeting/VoiceState.java",
+                "com/example/bk_meeting/WavSegmentWriter.java"
+            )
+        }
+    }
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    fork.set(1)
+    warmupIterations.set(3)
+    warmup.set("1s")
+    iterations.set(5)
+    timeOnIteration.set("1s")
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    (project.findProperty("jmhIncludes") as String?)?.let { includes.add(it) }
+}
@@ -0,0 +1,80 @@
+package com.example.bk_meeting;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ShortBuffer;
+import java.util.concurrent.TimeUnit;
+
+// VAD trên một frame đọc từ AudioRecord: peak amplitude (calculateAmplitude cũ) trên short[]
+// và trên frame direct, so với AdaptiveEnergyVad. Mỗi lần gọi = một frame
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AmplitudeBenchmark {
+
+    // 256 mẫu ~ buffer nhỏ nhất, 3528 = getMinBufferSize(44100) trên phần lớn tablet
+    @Param({"256", "1764", "3528", "7056"})
+    public int frameSamples;
+
+    @Param({"16000", "44100", "48000"})
+    public int sampleRate;
+
+    private short[] signal;
+    private int frames;
+    private int index;
+    private AudioFrame[] directFrames;
+    private PeakAmplitudeVad peakVad;
+    private AdaptiveEnergyVad adaptiveVad;
+
+    @Setup
+    public void setUp() {
+        signal = SyntheticAudio.speechWithPauses(sampleRate, 10, 3000, 1000);
+        frames = signal.length / frameSamples;
+
+        // Mỗi frame direct giữ sẵn dữ liệu, giống frame vừa đọc từ AudioRecord.read(ByteBuffer)
+        AudioFramePool pool = new AudioFramePool(frameSamples * 2, frames, true, new CapturePathCounters());
+        directFrames = new AudioFrame[frames];
+        for (int f = 0; f < frames; f++) {
+            AudioFrame frame = pool.acquire();
+            frame.writableSamples().put(signal, f * frameSamples, frameSamples);
+            frame.setByteLength(frameSamples * 2);
+            directFrames[f] = frame;
+        }
+        peakVad = new PeakAmplitudeVad();
+        adaptiveVad = new AdaptiveEnergyVad(sampleRate);
+    }
+
+    private int nextFrame() {
+        int frame = index;
+        index = frame + 1 == frames ? 0 : frame + 1;
+        return frame;
+    }
+
+    @Benchmark
+    public int calculateAmplitudeArray() {
+        return PeakAmplitudeVad.calculateAmplitude(signal, nextFrame() * frameSamples, frameSamples);
+    }
+
+    @Benchmark
+    public boolean peakVadDirect() {
+        ShortBuffer samples = directFrames[nextFrame()].samples();
+        return peakVad.process(samples);
+    }
+
+    @Benchmark
+    public boolean adaptiveVadArray() {
+        return adaptiveVad.process(signal, nextFrame() * frameSamples, frameSamples);
+    }
+
+    @Benchmark
+    public boolean adaptiveVadDirect() {
+        return adaptiveVad.process(directFrames[nextFrame()].samples());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.bk_meeting;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Chỉ phần dồn PCM của một câu 15 giây: frame qua PcmRingBuffer rồi ghi dần vào segment
+// (frame direct hoặc heap từ pool), so với ByteArrayOutputStream + toByteArray() khi kết thúc câu.
+// Mỗi lần gọi = một frame; GC profiler cho thấy byte cấp phát trên mỗi frame
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BufferAccumulationBenchmark {
+
+    private static final int SENTENCE_SECONDS = 15;
+
+    @Param({"256", "1764", "3528", "7056"})
+    public int frameSamples;
+
+    @Param({"16000", "44100"})
+    public int sampleRate;
+
+    private short[] frameData;
+    private byte[] frameBytes;
+    private int framesPerSentence;
+    private int frameInSentence;
+
+    private AudioFramePool directPool;
+    private AudioFramePool heapPool;
+    private PcmRingBuffer directRing;
+    private PcmRingBuffer heapRing;
+    private CountingSegmentWriter writer;
+    private ByteArrayOutputStream sentenceBuffer;
+    private long checksum;
+
+    @Setup
+    public void setUp() {
+        frameData = new short[frameSamples];
+        short[] signal = SyntheticAudio.speechWithPauses(sampleRate, 1, 1000, 0);
+        System.arraycopy(signal, 0, frameData, 0, Math.min(frameSamples, signal.length));
+        frameBytes = SyntheticAudio.toPcmBytes(frameData);
+        framesPerSentence = Math.max(1, sampleRate * SENTENCE_SECONDS / frameSamples);
+
+        // Bộ đệm vòng giữ 1 giây (khoảng im lặng chờ kết thúc câu), phần tràn được ghi ra segment
+        int ringFrames = sampleRate / Math.max(1, frameSamples - 1) + 2;
+        directPool = new AudioFramePool(frameSamples * 2, ringFrames + 2, true, new CapturePathCounters());
+        heapPool = new AudioFramePool(frameSamples * 2, ringFrames + 2, false, new CapturePathCounters());
+        directRing = new PcmRingBuffer(sampleRate, ringFrames);
+        heapRing = new PcmRingBuffer(sampleRate, ringFrames);
+        writer = new CountingSegmentWriter(sampleRate);
+        sentenceBuffer = new ByteArrayOutputStream();
+    }
+
+    private boolean endOfSentence() {
+        if (++frameInSentence < framesPerSentence) {
+            return false;
+        }
+        frameInSentence = 0;
+        return true;
+    }
+
+    @Benchmark
+    public long ringBufferDirect() throws IOException {
+        return accumulate(directPool, directRing);
+    }
+
+    @Benchmark
+    public long ringBufferHeap() throws IOException {
+        return accumulate(heapPool, heapRing);
+    }
+
+    @Benchmark
+    public long byteArrayOutputStream() {
+        sentenceBuffer.write(frameBytes, 0, frameBytes.length);
+        if (endOfSentence()) {
+            byte[] audio = sentenceBuffer.toByteArray();
+            checksum += audio[audio.length - 1];
+            sentenceBuffer.reset();
+        }
+        return checksum;
+    }
+
+    private long accumulate(AudioFramePool pool, PcmRingBuffer ring) throws IOException {
+        AudioFrame frame = pool.acquire();
+        frame.writableSamples().put(frameData);
+        frame.setByteLength(frameSamples * 2);
+        if (ring.isFull()) {
+            ring.drainTo(writer, ring.oldestFrameSamples());
+        }
+        ring.write(frame);
+        frame.release();
+        int overflow = ring.size() - ring.capacity();
+        if (overflow > 0) {
+            ring.drainTo(writer, overflow);
+        }
+        if (endOfSentence()) {
+            ring.drainTo(writer, ring.size());
+            writer.reset();
+        }
+        return writer.getChecksum();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.bk_meeting;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+// Segment chỉ đếm byte, để benchmark đo phần xử lý trên luồng thu mà không đo tốc độ đĩa
+final class CountingSegmentWriter implements AudioSegmentWriter {
+
+    private final int sampleRate;
+    private long dataLength;
+    private long checksum;
+
+    CountingSegmentWriter(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    void reset() {
+        dataLength = 0;
+    }
+
+    long getChecksum() {
+        return checksum;
+    }
+
+    @Override
+    public void write(ByteBuffer src) {
+        int length = src.remaining();
+        if (length > 0) {
+            // Đọc một byte để JIT không bỏ qua dữ liệu
+            checksum += src.get(src.limit() - 1);
+        }
+        src.position(src.limit());
+        dataLength += length;
+    }
+
+    @Override
+    public void write(short[] samples, int offset, int length) {
+        if (length > 0) {
+            checksum += samples[offset + length - 1];
+        }
+        dataLength += length * 2L;
+    }
+
+    @Override
+    public long getDataLength() {
+        return dataLength;
+    }
+
+    @Override
+    public long getDurationMs() {
+        return dataLength / 2 * 1000 / sampleRate;
+    }
+
+    @Override
+    public File getFile() {
+        return null;
+    }
+
+    @Override
+    public void discard() {
+        dataLength = 0;
+    }
+
+    @Override
+    public void close() {
+    }
+}
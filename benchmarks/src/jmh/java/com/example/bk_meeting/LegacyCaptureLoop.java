@@ -0,0 +1,79 @@
+package com.example.bk_meeting;
+
+import java.io.ByteArrayOutputStream;
+
+// Vòng thu ban đầu (trước khi ghi thẳng xuống đĩa), giữ lại làm mốc so sánh: đọc vào byte[],
+// calculateAmplitude trên từng cặp byte, dồn cả câu vào ByteArrayOutputStream rồi
+// toByteArray() khi lưu
+final class LegacyCaptureLoop {
+
+    private final int sampleRate;
+    private final int frameBytes;
+    private final int silenceThreshold = PeakAmplitudeVad.DEFAULT_THRESHOLD;
+    private final int silenceTimeoutMs = 1000;
+    private final int minSentenceDurationMs;
+
+    private final byte[] buffer;
+    private final ByteArrayOutputStream sentenceBuffer = new ByteArrayOutputStream();
+
+    private long capturedBytes;
+    private boolean speaking;
+    private long sentenceStartMs;
+    private long lastVoiceMs;
+    private int segments;
+    private long checksum;
+
+    LegacyCaptureLoop(int sampleRate, int frameSamples, int minSentenceDurationMs) {
+        this.sampleRate = sampleRate;
+        this.frameBytes = frameSamples * 2;
+        this.minSentenceDurationMs = minSentenceDurationMs;
+        this.buffer = new byte[frameBytes];
+    }
+
+    boolean process(byte[] pcm, int offset) {
+        // recorder.read(buffer, 0, buffer.length)
+        System.arraycopy(pcm, offset, buffer, 0, frameBytes);
+        capturedBytes += frameBytes;
+        long now = capturedBytes / 2 * 1000 / sampleRate;
+
+        int amplitude = calculateAmplitude(buffer, frameBytes);
+        if (amplitude > silenceThreshold) {
+            if (!speaking) {
+                speaking = true;
+                sentenceBuffer.reset();
+                sentenceStartMs = now;
+            }
+            sentenceBuffer.write(buffer, 0, frameBytes);
+            lastVoiceMs = now;
+        } else if (speaking) {
+            if (now - sentenceStartMs >= minSentenceDurationMs && now - lastVoiceMs > silenceTimeoutMs) {
+                // saveSentenceFile(sentenceBuffer.toByteArray())
+                byte[] audio = sentenceBuffer.toByteArray();
+                checksum += audio[audio.length - 1];
+                sentenceBuffer.reset();
+                segments++;
+                speaking = false;
+            } else {
+                sentenceBuffer.write(buffer, 0, frameBytes);
+            }
+        }
+        return speaking;
+    }
+
+    int getSegments() {
+        return segments;
+    }
+
+    long getChecksum() {
+        return checksum;
+    }
+
+    private static int calculateAmplitude(byte[] buffer, int bytesRead) {
+        int max = 0;
+        for (int i = 0; i < bytesRead - 1; i += 2) {
+            int sample = (buffer[i] & 0xFF) | (buffer[i + 1] << 8);
+            max = Math.max(max, Math.abs(sample));
+        }
+        return max;
+    }
+}
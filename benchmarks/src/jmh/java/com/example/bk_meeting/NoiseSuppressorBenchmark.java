@@ -0,0 +1,57 @@
+package com.example.bk_meeting;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ShortBuffer;
+import java.util.concurrent.TimeUnit;
+
+// Khử nhiễu spectral gating trên một frame 20 ms (sau resample). Chia thời gian/frame cho 20 ms
+// để ra tải CPU trên một lõi; NoiseSuppressionStage tự bypass khi vượt 25%.
+// gc.alloc.rate.norm phải bằng 0
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NoiseSuppressorBenchmark {
+
+    @Param({"16000", "44100"})
+    public int sampleRate;
+
+    private short[] signal;
+    private ShortBuffer frame;
+    private int frameSamples;
+    private int frames;
+    private int index;
+    private SpectralNoiseSuppressor suppressor;
+
+    @Setup
+    public void setUp() {
+        signal = SyntheticAudio.speechWithPauses(sampleRate, 10, 3000, 1000);
+        frameSamples = sampleRate / 50;
+        frames = signal.length / frameSamples;
+        frame = ShortBuffer.allocate(frameSamples);
+        suppressor = new SpectralNoiseSuppressor(sampleRate);
+        // Học phổ nhiễu trước để đo đường khử đầy đủ
+        for (int f = 0; f < 50; f++) {
+            frame.clear();
+            frame.put(signal, 0, frameSamples).flip();
+            suppressor.process(frame, false);
+        }
+    }
+
+    @Benchmark
+    public ShortBuffer process() {
+        int f = index;
+        index = f + 1 == frames ? 0 : f + 1;
+        frame.clear();
+        frame.put(signal, f * frameSamples, frameSamples).flip();
+        suppressor.process(frame, (f & 3) != 0);
+        return frame;
+    }
+}
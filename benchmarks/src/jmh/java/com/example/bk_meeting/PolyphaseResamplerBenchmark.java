@@ -0,0 +1,76 @@
+package com.example.bk_meeting;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.concurrent.TimeUnit;
+
+// Resample một frame thu về 16 kHz: mảng short[] và ShortBuffer trên frame direct
+// (đường VoiceSegmenter dùng). Chia thời gian/frame cho frameMs để ra tải CPU trên một lõi.
+// gc.alloc.rate.norm phải bằng 0
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PolyphaseResamplerBenchmark {
+
+    private static final int OUTPUT_RATE = 16_000;
+
+    @Param({"44100", "48000"})
+    public int sampleRate;
+
+    @Param({"10", "20", "40"})
+    public int frameMs;
+
+    private short[] signal;
+    private int frameSamples;
+    private int frames;
+    private int index;
+
+    private PolyphaseResampler arrayResampler;
+    private PolyphaseResampler bufferResampler;
+    private short[] out;
+    private ShortBuffer directIn;
+    private ShortBuffer directOut;
+
+    @Setup
+    public void setUp() {
+        signal = SyntheticAudio.speechWithPauses(sampleRate, 10, 3000, 1000);
+        frameSamples = sampleRate * frameMs / 1000;
+        frames = signal.length / frameSamples;
+
+        arrayResampler = new PolyphaseResampler(sampleRate, OUTPUT_RATE, frameSamples);
+        bufferResampler = new PolyphaseResampler(sampleRate, OUTPUT_RATE, frameSamples);
+        int maxOut = arrayResampler.maxOutputSamples(frameSamples);
+        out = new short[maxOut];
+        directIn = ByteBuffer.allocateDirect(frameSamples * 2).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+        directOut = ByteBuffer.allocateDirect(maxOut * 2).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+    }
+
+    private int nextFrame() {
+        int frame = index;
+        index = frame + 1 == frames ? 0 : frame + 1;
+        return frame;
+    }
+
+    @Benchmark
+    public int shortArray() {
+        return arrayResampler.process(signal, nextFrame() * frameSamples, frameSamples, out, 0);
+    }
+
+    @Benchmark
+    public int directShortBuffer() {
+        directIn.clear();
+        directIn.put(signal, nextFrame() * frameSamples, frameSamples).flip();
+        directOut.clear();
+        return bufferResampler.process(directIn, directOut);
+    }
+}
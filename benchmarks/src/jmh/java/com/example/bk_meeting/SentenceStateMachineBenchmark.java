@@ -0,0 +1,131 @@
+package com.example.bk_meeting;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+// Toàn bộ công việc của luồng thu: chạy chính VoiceSegmenter của :app (VAD, resample về 16 kHz,
+// bộ đệm vòng, máy trạng thái câu) trên SyntheticAudioSource, so với vòng thu ban đầu dồn câu
+// vào ByteArrayOutputStream. Mỗi lần gọi là một phiên SESSION_FRAMES frame (kể cả cấp phát
+// pool/bộ đệm vòng đầu phiên); kết quả tính theo ns/frame.
+// Tín hiệu 4 s nói / 2 s im lặng, câu tối thiểu 2 s nên mỗi 6 s có một segment
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SentenceStateMachineBenchmark {
+
+    private static final int OUTPUT_RATE = 16_000;
+    private static final int MIN_SENTENCE_MS = 2_000;
+    private static final int SESSION_FRAMES = 3_000;
+
+    @Param({"16000", "44100", "48000"})
+    public int sampleRate;
+
+    @Param({"10", "20", "40"})
+    public int frameMs;
+
+    private short[] signal;
+    private byte[] signalBytes;
+    private int frameSamples;
+    private int frames;
+
+    private SyntheticAudioSource source;
+    private CountingSegmentWriter writer;
+    private final CapturePathCounters counters = new CapturePathCounters();
+    private final CaptureMetrics metrics = new CaptureMetrics();
+    private int segments;
+
+    private final VoiceSegmenter.Listener listener = new VoiceSegmenter.Listener() {
+        @Override
+        public void onStateChanged(VoiceState state, String message) {
+        }
+
+        @Override
+        public void onProgress(VoiceState state, long seconds) {
+        }
+
+        @Override
+        public void onSegmentReady(AudioSegmentWriter segment, boolean endOfSentence) {
+            segments++;
+            segment.discard();
+        }
+
+        @Override
+        public void onError(String message, Exception cause) {
+            throw new IllegalStateException(message, cause);
+        }
+
+        @Override
+        public void onWarning(String message, Exception cause) {
+        }
+    };
+
+    @Setup
+    public void setUp() {
+        signal = SyntheticAudio.speechWithPauses(sampleRate, 60, 4000, 2000);
+        signalBytes = SyntheticAudio.toPcmBytes(signal);
+        frameSamples = sampleRate * frameMs / 1000;
+        frames = signal.length / frameSamples;
+        source = new SyntheticAudioSource(sampleRate, signal, frameSamples, SESSION_FRAMES);
+        writer = new CountingSegmentWriter(OUTPUT_RATE);
+    }
+
+    @TearDown
+    public void checkSegments() {
+        // Tín hiệu phải tạo ra segment, nếu không benchmark không đo đúng đường ghi
+        if (segments == 0) {
+            throw new IllegalStateException("No segment produced");
+        }
+    }
+
+    private long session(VoiceActivityDetector vad, boolean direct) {
+        source.rewind();
+        VoiceSegmenter segmenter = new VoiceSegmenter(source, vad, rate -> {
+            writer.reset();
+            return writer;
+        }, listener, counters, metrics);
+        segmenter.setOutputSampleRate(OUTPUT_RATE);
+        segmenter.setDirect(direct);
+        segmenter.setMinSentenceDurationMs(MIN_SENTENCE_MS);
+        segmenter.run();
+        return writer.getChecksum() + segmenter.getSegmentCount();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SESSION_FRAMES)
+    public long segmenterAdaptiveVad() {
+        return session(new AdaptiveEnergyVad(sampleRate), true);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SESSION_FRAMES)
+    public long segmenterPeakVad() {
+        return session(new PeakAmplitudeVad(), true);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SESSION_FRAMES)
+    public long segmenterHeapFrames() {
+        return session(new AdaptiveEnergyVad(sampleRate), false);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SESSION_FRAMES)
+    public long legacyByteArrayOutputStream() {
+        LegacyCaptureLoop legacy = new LegacyCaptureLoop(sampleRate, frameSamples, MIN_SENTENCE_MS);
+        for (int i = 0; i < SESSION_FRAMES; i++) {
+            legacy.process(signalBytes, i % frames * frameSamples * 2);
+        }
+        segments += legacy.getSegments();
+        return legacy.getChecksum();
+    }
+}
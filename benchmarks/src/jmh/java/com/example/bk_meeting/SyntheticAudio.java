@@ -0,0 +1,41 @@
+package com.example.bk_meeting;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+// Tín hiệu thử cố định (seed cố định) cho benchmark: các đoạn "giọng nói" (hài âm điều biên
+// 4 Hz cộng nhiễu) xen kẽ các đoạn im lặng chỉ có nhiễu nền nhỏ
+final class SyntheticAudio {
+
+    private SyntheticAudio() {
+    }
+
+    static short[] speechWithPauses(int sampleRate, int seconds, int speechMs, int silenceMs) {
+        short[] out = new short[sampleRate * seconds];
+        Random random = new Random(42);
+        int period = (int) ((long) sampleRate * (speechMs + silenceMs) / 1000);
+        int speechSamples = (int) ((long) sampleRate * speechMs / 1000);
+        for (int i = 0; i < out.length; i++) {
+            double t = (double) i / sampleRate;
+            double noise = random.nextGaussian() * 60;
+            double value = noise;
+            if (i % period < speechSamples) {
+                double envelope = 0.5 + 0.5 * Math.sin(2 * Math.PI * 4 * t);
+                double voice = Math.sin(2 * Math.PI * 140 * t)
+                        + 0.5 * Math.sin(2 * Math.PI * 280 * t)
+                        + 0.3 * Math.sin(2 * Math.PI * 700 * t);
+                value += envelope * voice * 6000 + random.nextGaussian() * 400;
+            }
+            out[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+        }
+        return out;
+    }
+
+    // Cùng dữ liệu dưới dạng PCM little-endian, giống byte[] đọc từ AudioRecord
+    static byte[] toPcmBytes(short[] samples) {
+        ByteBuffer buffer = ByteBuffer.allocate(samples.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asShortBuffer().put(samples);
+        return buffer.array();
+    }
+}
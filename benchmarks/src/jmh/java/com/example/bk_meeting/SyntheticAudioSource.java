@@ -0,0 +1,71 @@
+package com.example.bk_meeting;
+
+// AudioSource phát lại PCM tổng hợp (SyntheticAudio) theo từng frame, lặp vòng trên tín hiệu,
+// hết dữ liệu sau đúng frames lần đọc. Đọc từ bộ nhớ nên benchmark chỉ đo VoiceSegmenter
+final class SyntheticAudioSource implements AudioSource {
+
+    private final int sampleRate;
+    private final byte[] pcm;
+    private final int frameBytes;
+    private final int frames;
+    private int offset;
+    private int read;
+    private volatile boolean stopped;
+
+    SyntheticAudioSource(int sampleRate, short[] signal, int frameSamples, int frames) {
+        this.sampleRate = sampleRate;
+        this.pcm = SyntheticAudio.toPcmBytes(signal);
+        this.frameBytes = frameSamples * 2;
+        this.frames = frames;
+    }
+
+    // Phát lại từ đầu cho phiên tiếp theo
+    void rewind() {
+        offset = 0;
+        read = 0;
+        stopped = false;
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public int getFrameBytes() {
+        return frameBytes;
+    }
+
+    @Override
+    public int getBufferBytes() {
+        return 0;
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public int read(AudioFrame frame) {
+        if (stopped || read == frames) {
+            return END_OF_STREAM;
+        }
+        if (offset + frameBytes > pcm.length) {
+            offset = 0;
+        }
+        frame.data().put(pcm, offset, frameBytes);
+        offset += frameBytes;
+        read++;
+        return frameBytes;
+    }
+
+    @Override
+    public void stop() {
+        stopped = true;
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+}
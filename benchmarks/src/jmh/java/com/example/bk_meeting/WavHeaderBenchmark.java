@@ -0,0 +1,47 @@
+package com.example.bk_meeting;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+// Header WAV 44 byte: ghi vào buffer cấp phát sẵn (cách WavSegmentWriter dùng khi đóng file)
+// so với cấp phát byte[] mới cho mỗi header như saveWavFile cũ
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WavHeaderBenchmark {
+
+    @Param({"16000", "44100", "48000"})
+    public int sampleRate;
+
+    private final ByteBuffer header = ByteBuffer.allocate(WavSegmentWriter.HEADER_SIZE);
+    private long totalAudioLen;
+
+    @Setup
+    public void setUp() {
+        // Câu 15 giây
+        totalAudioLen = sampleRate * 2L * 15;
+    }
+
+    @Benchmark
+    public ByteBuffer reusedBuffer() {
+        header.clear();
+        WavSegmentWriter.writeWavHeader(header, totalAudioLen++, sampleRate, 1, 16);
+        return header;
+    }
+
+    @Benchmark
+    public ByteBuffer allocatedBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocate(WavSegmentWriter.HEADER_SIZE);
+        WavSegmentWriter.writeWavHeader(buffer, totalAudioLen++, sampleRate, 1, 16);
+        return buffer;
+    }
+}